@@ -24,6 +24,7 @@ import com.reandroid.archive.WriteProgress;
 import com.reandroid.archive.ZipEntryMap;
 import com.reandroid.archive.block.ApkSignatureBlock;
 import com.reandroid.archive.io.ArchiveFileEntrySource;
+import com.reandroid.archive.sign.ApkSigner;
 import com.reandroid.archive.writer.ApkByteWriter;
 import com.reandroid.archive.writer.ApkFileWriter;
 import com.reandroid.archive.writer.ApkStreamWriter;
@@ -71,6 +72,7 @@ public class ApkModule implements ApkFile, Closeable {
     private final ZipEntryMap zipEntryMap;
     private boolean loadDefaultFramework = true;
     private boolean mDisableLoadFramework = false;
+    private boolean mLazyStringDecode;
     private TableBlock mTableBlock;
     private InputSource mTableOriginalSource;
     private AndroidManifestBlock mManifestBlock;
@@ -79,6 +81,7 @@ public class ApkModule implements ApkFile, Closeable {
     private APKLogger apkLogger;
     private ApkType mApkType;
     private ApkSignatureBlock apkSignatureBlock;
+    private ApkSigner apkSigner;
     private Integer preferredFramework;
     private Closeable mCloseable;
     private final List<TableBlock> mExternalFrameworks;
@@ -178,6 +181,16 @@ public class ApkModule implements ApkFile, Closeable {
         this.apkSignatureBlock = apkSignatureBlock;
     }
 
+    public ApkSigner getApkSigner() {
+        return apkSigner;
+    }
+    /**
+     * Sets signer applied to file and byte array writers, see {@link ApkWriter#setApkSigner(ApkSigner)}
+     * */
+    public void setApkSigner(ApkSigner apkSigner) {
+        this.apkSigner = apkSigner;
+    }
+
     public boolean hasSignatureBlock() {
         return getApkSignatureBlock() != null;
     }
@@ -533,6 +546,7 @@ public class ApkModule implements ApkFile, Closeable {
     private void applyDefaultApkWriterSetting(ApkWriter<?, ?> writer) {
         writer.setAPKLogger(getApkLogger());
         writer.setApkSignatureBlock(getApkSignatureBlock());
+        writer.setApkSigner(getApkSigner());
         writer.setArchiveInfo(getZipEntryMap().getArchiveInfo());
         writer.setDataDescriptorFactory(DataDescriptorFactory.NO_ACTION);
     }
@@ -1155,7 +1169,9 @@ public class ApkModule implements ApkFile, Closeable {
         } else {
             setTableOriginalSource(inputSource);
             InputStream inputStream = inputSource.openStream();
-            tableBlock = TableBlock.load(inputStream);
+            tableBlock = new TableBlock();
+            tableBlock.setLazyStringDecode(isLazyStringDecode());
+            tableBlock.readBytes(inputStream);
             inputStream.close();
         }
         BlockInputSource<TableBlock> blockInputSource = new BlockInputSource<>(
@@ -1211,6 +1227,16 @@ public class ApkModule implements ApkFile, Closeable {
     public ZipEntryMap getZipEntryMap() {
         return zipEntryMap;
     }
+    public boolean isLazyStringDecode() {
+        return mLazyStringDecode;
+    }
+    /**
+     * When set before resources.arsc is loaded, its strings are decoded on first access,
+     * see {@link TableBlock#setLazyStringDecode(boolean)}
+     * */
+    public void setLazyStringDecode(boolean lazyStringDecode) {
+        this.mLazyStringDecode = lazyStringDecode;
+    }
     public void setLoadDefaultFramework(boolean loadDefaultFramework) {
         this.loadDefaultFramework = loadDefaultFramework;
         this.mDisableLoadFramework = !loadDefaultFramework;
@@ -39,6 +39,14 @@ public class ApkModuleXmlEncoder extends ApkModuleEncoder{
         this.tableBlockEncoder = new XMLTableBlockEncoder(module, tableBlock);
     }
 
+    /**
+     * Sets number of threads used to encode res/values* xml files,
+     * see {@link XMLTableBlockEncoder#setThreads(int)}
+     * */
+    public void setThreads(int threads) {
+        this.tableBlockEncoder.setThreads(threads);
+    }
+
     @Override
     public void buildResources(File mainDirectory) throws IOException{
         encodeManifestBinary(mainDirectory);
@@ -16,6 +16,7 @@
 package com.reandroid.apk;
 
 import com.reandroid.archive.*;
+import com.reandroid.archive.io.ZipFileInput;
 import com.reandroid.arsc.chunk.PackageBlock;
 import com.reandroid.arsc.chunk.TableBlock;
 import com.reandroid.arsc.chunk.xml.AndroidManifestBlock;
@@ -231,7 +232,7 @@ public class FrameworkApk extends ApkModule{
         return loadApkFile(apkFile, false);
     }
     private static FrameworkApk loadApkFile(File apkFile, boolean addManifest) throws IOException {
-        ArchiveFile archive = new ArchiveFile(apkFile);
+        ArchiveFile archive = new ArchiveFile(new ZipFileInput(apkFile), true);
         InputSource table = archive.getEntrySource(TableBlock.FILE_NAME);
         if(table == null){
             throw new IOException("Missing " + TableBlock.FILE_NAME + ", on " + apkFile);
@@ -15,6 +15,7 @@
   */
 package com.reandroid.apk;
 
+import com.reandroid.apk.framework.FrameworkIndex;
 import com.reandroid.app.AndroidManifest;
 import com.reandroid.archive.InputSource;
 import com.reandroid.archive.ZipEntryMap;
@@ -29,6 +30,7 @@ import com.reandroid.arsc.model.ResourceEntry;
 import com.reandroid.arsc.pool.ResXmlStringPool;
 import com.reandroid.arsc.value.*;
 
+import java.io.File;
 import java.io.IOException;
 import java.util.*;
 import java.util.function.Predicate;
@@ -64,6 +66,20 @@ import java.util.zip.ZipEntry;
         clearFiles(frameworkApk.getZipEntryMap());
         logMessage("Optimized");
     }
+    /**
+     * Writes compact id/name index of the optimized framework, see {@link FrameworkIndex}
+     * */
+    public FrameworkIndex writeIndex(File file) throws IOException {
+        FrameworkTable frameworkTable = getFrameworkTable();
+        if(!frameworkTable.isOptimized()){
+            optimize();
+            frameworkTable = getFrameworkTable();
+        }
+        FrameworkIndex frameworkIndex = FrameworkIndex.create(frameworkTable);
+        frameworkIndex.write(file);
+        logMessage("Index: " + frameworkIndex);
+        return frameworkIndex;
+    }
     private void clearFiles(ZipEntryMap zipEntryMap){
         int size = zipEntryMap.size();
         if(size == 2){
@@ -0,0 +1,374 @@
+/*
+ *  Copyright (C) 2022 github.com/REAndroid
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.reandroid.apk.framework;
+
+import com.reandroid.arsc.chunk.PackageBlock;
+import com.reandroid.arsc.model.FrameworkTable;
+import com.reandroid.arsc.model.ResourceEntry;
+import com.reandroid.arsc.value.Entry;
+import com.reandroid.arsc.value.attribute.AttributeBag;
+import com.reandroid.utils.io.FileUtil;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * Compact read-only index of framework resource ids, names and attribute formats. The index
+ * is produced from an optimized {@link FrameworkTable} and can be memory mapped from disk,
+ * so id/name lookups do not need to parse resources.arsc.
+ * <pre>
+ *  int magic, int formatVersion, int versionCode, int packageId,
+ *  int nameLength, byte[] name, int sourceLength, byte[] source,
+ *  int count, int[count] ids (ascending), int[count] attributeFormats,
+ *  int[count + 1] nameOffsets, int[count] nameOrder, byte[] names ("type/entry" in UTF-8)
+ * </pre>
+ * The source is an opaque fingerprint of what the index was built from (e.g. resource path,
+ * size and CRC of the framework apk), used to detect stale index files.
+ * */
+public class FrameworkIndex {
+
+    private final ByteBuffer buffer;
+    private final int versionCode;
+    private final int packageId;
+    private final String frameworkName;
+    private final String source;
+    private final int count;
+    private final int idsOffset;
+    private final int formatsOffset;
+    private final int nameOffsetsOffset;
+    private final int nameOrderOffset;
+    private final int namesOffset;
+
+    private FrameworkIndex(ByteBuffer buffer) throws IOException {
+        this.buffer = buffer;
+        if (buffer.limit() < 28 || buffer.getInt(0) != MAGIC) {
+            throw new IOException("Invalid framework index");
+        }
+        if (buffer.getInt(4) != FORMAT_VERSION) {
+            throw new IOException("Unsupported framework index version: " + buffer.getInt(4));
+        }
+        this.versionCode = buffer.getInt(8);
+        this.packageId = buffer.getInt(12);
+        int position = 16;
+        this.frameworkName = readString(buffer, position);
+        position += 4 + buffer.getInt(position);
+        this.source = readString(buffer, position);
+        position += 4 + buffer.getInt(position);
+        this.count = buffer.getInt(position);
+        position += 4;
+        if (count < 0 || position + count * 16L + 4 > buffer.limit()) {
+            throw new IOException("Truncated framework index");
+        }
+        this.idsOffset = position;
+        this.formatsOffset = idsOffset + count * 4;
+        this.nameOffsetsOffset = formatsOffset + count * 4;
+        this.nameOrderOffset = nameOffsetsOffset + (count + 1) * 4;
+        this.namesOffset = nameOrderOffset + count * 4;
+        if (namesOffset + (long) getNameOffset(count) > buffer.limit()) {
+            throw new IOException("Truncated framework index");
+        }
+    }
+
+    public int getVersionCode() {
+        return versionCode;
+    }
+    public int getPackageId() {
+        return packageId;
+    }
+    public String getFrameworkName() {
+        return frameworkName;
+    }
+    public String getSource() {
+        return source;
+    }
+    public int size() {
+        return count;
+    }
+    public int getResourceId(int index) {
+        return buffer.getInt(idsOffset + index * 4);
+    }
+    /**
+     * Returns "type/entry" name of the resource id, or null if not found
+     * */
+    public String getResourceName(int resourceId) {
+        int index = indexOf(resourceId);
+        if (index < 0) {
+            return null;
+        }
+        return getName(index);
+    }
+    /**
+     * Returns resource id of the given type and entry name, or 0 if not found
+     * */
+    public int getResourceId(String type, String name) {
+        byte[] key = (type + '/' + name).getBytes(StandardCharsets.UTF_8);
+        int low = 0;
+        int high = count - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            int index = buffer.getInt(nameOrderOffset + mid * 4);
+            int compare = compareName(index, key);
+            if (compare < 0) {
+                low = mid + 1;
+            } else if (compare > 0) {
+                high = mid - 1;
+            } else {
+                return getResourceId(index);
+            }
+        }
+        return 0;
+    }
+    /**
+     * Returns attribute data format mask (see AttributeDataFormat) of attr resource id,
+     * or 0 if not an attribute
+     * */
+    public int getAttributeFormat(int resourceId) {
+        int index = indexOf(resourceId);
+        if (index < 0) {
+            return 0;
+        }
+        return buffer.getInt(formatsOffset + index * 4);
+    }
+    public int indexOf(int resourceId) {
+        int low = 0;
+        int high = count - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            int id = getResourceId(mid);
+            if (id < resourceId) {
+                low = mid + 1;
+            } else if (id > resourceId) {
+                high = mid - 1;
+            } else {
+                return mid;
+            }
+        }
+        return -1;
+    }
+    private String getName(int index) {
+        int start = getNameOffset(index);
+        int length = getNameOffset(index + 1) - start;
+        byte[] bytes = new byte[length];
+        ByteBuffer duplicate = buffer.duplicate();
+        duplicate.position(namesOffset + start);
+        duplicate.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+    private int getNameOffset(int index) {
+        return buffer.getInt(nameOffsetsOffset + index * 4);
+    }
+    private int compareName(int index, byte[] key) {
+        int start = namesOffset + getNameOffset(index);
+        int length = namesOffset + getNameOffset(index + 1) - start;
+        int min = Math.min(length, key.length);
+        for (int i = 0; i < min; i++) {
+            int diff = (buffer.get(start + i) & 0xff) - (key[i] & 0xff);
+            if (diff != 0) {
+                return diff;
+            }
+        }
+        return length - key.length;
+    }
+    /**
+     * Writes to a temporary file on the same directory then renames it to the given file,
+     * readers never observe a partially written index.
+     * */
+    public void write(File file) throws IOException {
+        FileUtil.ensureParentDirectory(file);
+        File dir = file.getAbsoluteFile().getParentFile();
+        File tmp = File.createTempFile(file.getName(), ".tmp", dir);
+        boolean moved = false;
+        try {
+            FileChannel channel = FileUtil.openWriteChannel(tmp);
+            try {
+                ByteBuffer duplicate = buffer.duplicate();
+                duplicate.clear();
+                while (duplicate.hasRemaining()) {
+                    channel.write(duplicate);
+                }
+            } finally {
+                channel.close();
+            }
+            moveReplace(tmp, file);
+            moved = true;
+        } finally {
+            if (!moved) {
+                tmp.delete();
+            }
+        }
+    }
+    public void write(OutputStream outputStream) throws IOException {
+        ByteBuffer duplicate = buffer.duplicate();
+        duplicate.clear();
+        byte[] bytes = new byte[duplicate.remaining()];
+        duplicate.get(bytes);
+        outputStream.write(bytes);
+    }
+    @Override
+    public String toString() {
+        return frameworkName + "-" + versionCode + ", entries = " + count;
+    }
+
+    /**
+     * Maps the index file read-only, the bytes are not copied to heap
+     * */
+    public static FrameworkIndex load(File file) throws IOException {
+        FileChannel channel = FileUtil.openReadChannel(file);
+        try {
+            long size = channel.size();
+            if (size > Integer.MAX_VALUE) {
+                throw new IOException("File too large: " + file);
+            }
+            return new FrameworkIndex(channel.map(FileChannel.MapMode.READ_ONLY, 0, size));
+        } finally {
+            channel.close();
+        }
+    }
+    private static void moveReplace(File source, File target) throws IOException {
+        try {
+            Files.move(source.toPath(), target.toPath(),
+                    StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException exception) {
+            Files.move(source.toPath(), target.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+    public static FrameworkIndex load(byte[] bytes) throws IOException {
+        return new FrameworkIndex(ByteBuffer.wrap(bytes).asReadOnlyBuffer());
+    }
+    public static FrameworkIndex create(FrameworkTable frameworkTable) throws IOException {
+        return create(frameworkTable, null);
+    }
+    public static FrameworkIndex create(FrameworkTable frameworkTable, String source) throws IOException {
+        PackageBlock packageBlock = frameworkTable.pickOne();
+        if (packageBlock == null) {
+            throw new IOException("Empty framework table");
+        }
+        List<ResourceEntry> entryList = new ArrayList<>();
+        Iterator<ResourceEntry> iterator = packageBlock.getResources();
+        while (iterator.hasNext()) {
+            ResourceEntry resourceEntry = iterator.next();
+            if (resourceEntry.isDeclared()) {
+                entryList.add(resourceEntry);
+            }
+        }
+        entryList.sort(Comparator.comparingInt(ResourceEntry::getResourceId));
+        int count = entryList.size();
+        byte[][] names = new byte[count][];
+        int[] formats = new int[count];
+        int namesLength = 0;
+        for (int i = 0; i < count; i++) {
+            ResourceEntry resourceEntry = entryList.get(i);
+            byte[] name = (resourceEntry.getType() + '/' + resourceEntry.getName())
+                    .getBytes(StandardCharsets.UTF_8);
+            names[i] = name;
+            namesLength += name.length;
+            if ("attr".equals(resourceEntry.getType())) {
+                formats[i] = getAttributeFormat(resourceEntry.get());
+            }
+        }
+        Integer[] order = new Integer[count];
+        for (int i = 0; i < count; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, (i1, i2) -> compareBytes(names[i1], names[i2]));
+
+        byte[] frameworkName = toString(frameworkTable.getFrameworkName())
+                .getBytes(StandardCharsets.UTF_8);
+        byte[] sourceBytes = toString(source).getBytes(StandardCharsets.UTF_8);
+        int length = 28 + frameworkName.length + sourceBytes.length
+                + count * 16 + 4 + namesLength;
+        ByteBuffer buffer = ByteBuffer.allocate(length);
+        buffer.putInt(MAGIC);
+        buffer.putInt(FORMAT_VERSION);
+        buffer.putInt(frameworkTable.getVersionCode());
+        buffer.putInt(packageBlock.getId());
+        buffer.putInt(frameworkName.length);
+        buffer.put(frameworkName);
+        buffer.putInt(sourceBytes.length);
+        buffer.put(sourceBytes);
+        buffer.putInt(count);
+        for (int i = 0; i < count; i++) {
+            buffer.putInt(entryList.get(i).getResourceId());
+        }
+        for (int i = 0; i < count; i++) {
+            buffer.putInt(formats[i]);
+        }
+        int offset = 0;
+        for (int i = 0; i < count; i++) {
+            buffer.putInt(offset);
+            offset += names[i].length;
+        }
+        buffer.putInt(offset);
+        for (int i = 0; i < count; i++) {
+            buffer.putInt(order[i]);
+        }
+        for (int i = 0; i < count; i++) {
+            buffer.put(names[i]);
+        }
+        buffer.flip();
+        return new FrameworkIndex(buffer.asReadOnlyBuffer());
+    }
+    private static int getAttributeFormat(Entry entry) {
+        AttributeBag attributeBag = AttributeBag.create(entry);
+        if (attributeBag == null) {
+            return 0;
+        }
+        return attributeBag.getFormat().getData();
+    }
+    private static int compareBytes(byte[] bytes1, byte[] bytes2) {
+        int min = Math.min(bytes1.length, bytes2.length);
+        for (int i = 0; i < min; i++) {
+            int diff = (bytes1[i] & 0xff) - (bytes2[i] & 0xff);
+            if (diff != 0) {
+                return diff;
+            }
+        }
+        return bytes1.length - bytes2.length;
+    }
+    private static String readString(ByteBuffer buffer, int position) throws IOException {
+        int length = buffer.getInt(position);
+        // the string is followed by at least one int
+        if (length < 0 || position + 8L + length > buffer.limit()) {
+            throw new IOException("Truncated framework index");
+        }
+        byte[] bytes = new byte[length];
+        ByteBuffer duplicate = buffer.duplicate();
+        duplicate.position(position + 4);
+        duplicate.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+    private static String toString(String name) {
+        if (name == null) {
+            return "";
+        }
+        return name;
+    }
+
+    private static final int MAGIC = 0x41524649;
+    private static final int FORMAT_VERSION = 2;
+}
@@ -17,66 +17,242 @@ package com.reandroid.apk.framework;
 
 import com.reandroid.apk.AndroidFrameworks;
 import com.reandroid.apk.FrameworkApk;
+import com.reandroid.utils.Crc32;
+import com.reandroid.utils.HexUtil;
 
 import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
 import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.Map;
 
 public class InternalFrameworks extends FrameworkManager {
 
     public static final InternalFrameworks INSTANCE = new InternalFrameworks();
 
-    private Map<Integer, String> resourcePaths;
+    private volatile Map<Integer, String> resourcePaths;
+    private final Map<Integer, FrameworkApk> mCache;
+    private final Map<Integer, FrameworkIndex> mIndexCache;
+    private final Map<Integer, Object> mLoadLocks;
+    private final Map<Integer, String> mSourceFingerprints;
+    private int cacheSize;
+    private File indexDirectory;
 
     private InternalFrameworks() {
         super();
+        this.mCache = new LinkedHashMap<>(16, 0.75f, true);
+        this.mIndexCache = new LinkedHashMap<>(16, 0.75f, true);
+        this.mLoadLocks = new HashMap<>();
+        this.mSourceFingerprints = new HashMap<>();
+        this.cacheSize = DEFAULT_CACHE_SIZE;
     }
 
-    @Override
-    public FrameworkApk get(int version) {
-        return null;
+    public int getCacheSize() {
+        return cacheSize;
     }
-    @Override
-    public FrameworkApk getBestMatch(int version) {
+    /**
+     * Maximum number of loaded framework versions (and of their indexes) kept in memory,
+     * least recently used versions are dropped first. Evicted frameworks are not destroyed,
+     * modules still referencing them keep working. The framework set as current is held
+     * outside of this cache, so up to cacheSize + 1 frameworks may stay loaded.
+     * */
+    public void setCacheSize(int cacheSize) {
+        if (cacheSize < 1) {
+            cacheSize = 1;
+        }
+        synchronized (mCache) {
+            this.cacheSize = cacheSize;
+            trimCache(mCache);
+        }
+        synchronized (mIndexCache) {
+            trimCache(mIndexCache);
+        }
+    }
+    public void clearCache() {
+        synchronized (mCache) {
+            mCache.clear();
+        }
+        synchronized (mIndexCache) {
+            mIndexCache.clear();
+        }
+    }
+    public File getIndexDirectory() {
+        return indexDirectory;
+    }
+    /**
+     * Directory to read/write {@link FrameworkIndex} files (android-NN.index), when set
+     * missing index files are created on first request.
+     * */
+    public void setIndexDirectory(File indexDirectory) {
+        this.indexDirectory = indexDirectory;
+    }
+    /**
+     * Returns compact id/name index of the nearest framework version, when the index file
+     * exists on {@link #getIndexDirectory()} it is memory mapped without loading the framework.
+     * Index files which are corrupt, of other version or built from a different bundled
+     * framework apk are regenerated.
+     * */
+    public FrameworkIndex getIndex(int version) {
         Integer nearest = getNearestVersion(version);
-        if (nearest == null) {
+        if (nearest == null || nearest == 0) {
             return null;
         }
-        synchronized (AndroidFrameworks.class) {
-            int best = nearest;
-            FrameworkApk current = getCurrent();
-            if (current != null && best == current.getVersionCode()) {
-                return current;
+        int best = nearest;
+        synchronized (getLoadLock(best)) {
+            FrameworkIndex frameworkIndex;
+            synchronized (mIndexCache) {
+                frameworkIndex = mIndexCache.get(best);
+            }
+            if (frameworkIndex != null) {
+                return frameworkIndex;
             }
             try {
-                return loadResource(best);
+                frameworkIndex = loadIndex(best);
             } catch (IOException exception) {
                 throw new RuntimeException(exception);
             }
+            synchronized (mIndexCache) {
+                mIndexCache.put(best, frameworkIndex);
+                trimCache(mIndexCache);
+            }
+            return frameworkIndex;
+        }
+    }
+    private FrameworkIndex loadIndex(int version) throws IOException {
+        File dir = getIndexDirectory();
+        if (dir == null) {
+            return FrameworkIndex.create(getCached(version).getTableBlock());
+        }
+        String source = getSourceFingerprint(version);
+        File file = new File(dir, toSimpleName(toResourcePath(version)) + INDEX_EXTENSION);
+        if (file.isFile()) {
+            try {
+                FrameworkIndex frameworkIndex = FrameworkIndex.load(file);
+                if (frameworkIndex.getVersionCode() == version
+                        && source.equals(frameworkIndex.getSource())) {
+                    return frameworkIndex;
+                }
+            } catch (IOException ignored) {
+                // corrupt, regenerate below
+            }
+        }
+        FrameworkIndex frameworkIndex = FrameworkIndex.create(
+                getCached(version).getTableBlock(), source);
+        frameworkIndex.write(file);
+        return frameworkIndex;
+    }
+    /**
+     * Resource path, size and CRC of the bundled framework apk
+     * */
+    private String getSourceFingerprint(int version) throws IOException {
+        synchronized (mSourceFingerprints) {
+            String fingerprint = mSourceFingerprints.get(version);
+            if (fingerprint != null) {
+                return fingerprint;
+            }
+        }
+        String path = getResourcePaths().get(version);
+        if (path == null) {
+            throw new IOException("No resource found for version: " + version);
+        }
+        InputStream inputStream = InternalFrameworks.class.getResourceAsStream(path);
+        if (inputStream == null) {
+            throw new IOException("Missing resource: " + path);
+        }
+        Crc32 crc32 = new Crc32();
+        try {
+            byte[] buffer = new byte[64 * 1024];
+            int read;
+            while ((read = inputStream.read(buffer, 0, buffer.length)) >= 0) {
+                crc32.update(buffer, 0, read);
+            }
+        } finally {
+            closeQuietly(inputStream);
         }
+        String fingerprint = path + ':' + crc32.getLength() + ':'
+                + HexUtil.toHex8(crc32.getValue());
+        synchronized (mSourceFingerprints) {
+            mSourceFingerprints.put(version, fingerprint);
+        }
+        return fingerprint;
+    }
+
+    @Override
+    public FrameworkApk get(int version) {
+        if (!getResourcePaths().containsKey(version)) {
+            return null;
+        }
+        return getCached(version);
+    }
+    @Override
+    public FrameworkApk getBestMatch(int version) {
+        Integer nearest = getNearestVersion(version);
+        if (nearest == null || nearest == 0) {
+            return null;
+        }
+        return getCached(nearest);
     }
     @Override
     public FrameworkApk getLatest() {
-        synchronized (AndroidFrameworks.class) {
-            int latest = getLatestVersion();
-            FrameworkApk current = getCurrent();
-            if (current != null && latest == current.getVersionCode()) {
-                return current;
+        FrameworkApk frameworkApk = getCached(getLatestVersion());
+        if (getCurrent() == null) {
+            setCurrent(frameworkApk);
+        }
+        return frameworkApk;
+    }
+    private FrameworkApk getCached(int version) {
+        synchronized (getLoadLock(version)) {
+            FrameworkApk frameworkApk = getCachedOnly(version);
+            if (frameworkApk != null) {
+                return frameworkApk;
             }
-            FrameworkApk frameworkApk;
             try {
-                frameworkApk = loadResource(latest);
+                frameworkApk = loadResource(version);
             } catch (IOException exception) {
                 throw new RuntimeException(exception);
             }
-            if (current == null) {
-                setCurrent(frameworkApk);
+            synchronized (mCache) {
+                mCache.put(version, frameworkApk);
+                trimCache(mCache);
+            }
+            return frameworkApk;
+        }
+    }
+    private FrameworkApk getCachedOnly(int version) {
+        FrameworkApk current = getCurrent();
+        if (current != null && version == current.getVersionCode()) {
+            return current;
+        }
+        synchronized (mCache) {
+            FrameworkApk frameworkApk = mCache.get(version);
+            if (frameworkApk != null && frameworkApk.isDestroyed()) {
+                mCache.remove(version);
+                frameworkApk = null;
             }
             return frameworkApk;
         }
     }
+    private void trimCache(Map<Integer, ?> cache) {
+        Iterator<Integer> iterator = cache.keySet().iterator();
+        int remove = cache.size() - cacheSize;
+        while (remove > 0 && iterator.hasNext()) {
+            iterator.next();
+            iterator.remove();
+            remove --;
+        }
+    }
+    private Object getLoadLock(int version) {
+        synchronized (mLoadLocks) {
+            Object lock = mLoadLocks.get(version);
+            if (lock == null) {
+                lock = new Object();
+                mLoadLocks.put(version, lock);
+            }
+            return lock;
+        }
+    }
     @Override
     public Integer getNearestVersion(int version) {
         Map<Integer, String> pathMap = getResourcePaths();
@@ -195,6 +371,8 @@ public class InternalFrameworks extends FrameworkManager {
     private static final String ANDROID_RESOURCE_DIRECTORY = "/frameworks/android/";
     private static final String ANDROID_PACKAGE = "android";
     private static final String FRAMEWORK_EXTENSION = ".apk";
+    private static final String INDEX_EXTENSION = ".index";
+    private static final int DEFAULT_CACHE_SIZE = 4;
     private static final int LOWEST_AVAILABLE_VERSION = 23;
     private static final int HIGHEST_AVAILABLE_VERSION = 36;
 }
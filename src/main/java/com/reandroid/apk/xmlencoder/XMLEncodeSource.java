@@ -6,7 +6,8 @@ import com.reandroid.archive.ByteInputSource;
 import com.reandroid.arsc.chunk.PackageBlock;
 import com.reandroid.arsc.chunk.xml.AndroidManifestBlock;
 import com.reandroid.arsc.chunk.xml.ResXmlDocument;
-import com.reandroid.utils.Crc32;
+import com.reandroid.utils.Checksum;
+import com.reandroid.utils.ChecksumProvider;
 import com.reandroid.utils.io.IOUtil;
 import com.reandroid.xml.source.XMLParserSource;
 import org.xmlpull.v1.XmlPullParser;
@@ -32,7 +33,7 @@ public class XMLEncodeSource extends ByteInputSource {
     }
     @Override
     public long getCrc() throws IOException{
-        Crc32 crc32 = new Crc32();
+        Checksum crc32 = ChecksumProvider.getDefault().newCrc32();
         crc32.update(getArray());
         return crc32.getValue();
     }
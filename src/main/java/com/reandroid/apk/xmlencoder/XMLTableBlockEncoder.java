@@ -23,6 +23,7 @@ import com.reandroid.arsc.chunk.PackageBlock;
 import com.reandroid.arsc.chunk.TableBlock;
 import com.reandroid.arsc.chunk.xml.AndroidManifestBlock;
 import com.reandroid.arsc.coder.ReferenceString;
+import com.reandroid.arsc.coder.xml.StagedValuesXml;
 import com.reandroid.arsc.coder.xml.XmlCoder;
 import com.reandroid.arsc.list.OverlayableList;
 import com.reandroid.arsc.pool.TableStringPool;
@@ -40,6 +41,10 @@ import org.xmlpull.v1.XmlPullParserException;
 import java.io.File;
 import java.io.IOException;
 import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.zip.ZipEntry;
 
 public class XMLTableBlockEncoder {
@@ -49,6 +54,7 @@ public class XMLTableBlockEncoder {
     private final Set<File> nonTypeValueFiles = new HashSet<>();
     private final ApkModule apkModule;
     private Integer mMainPackageId;
+    private int threads;
 
     public XMLTableBlockEncoder(ApkModule apkModule, TableBlock tableBlock){
         this.apkModule = apkModule;
@@ -62,6 +68,7 @@ public class XMLTableBlockEncoder {
             apkModule.setLoadDefaultFramework(true);
         }
         apkLogger = apkModule.getApkLogger();
+        this.threads = 1;
     }
     public XMLTableBlockEncoder(){
         this(new ApkModule("encoded",
@@ -72,6 +79,22 @@ public class XMLTableBlockEncoder {
         return mMainPackageId;
     }
 
+    public int getThreads() {
+        return threads;
+    }
+    /**
+     * Sets number of threads used to encode res/values* xml files. When above 1, files of
+     * all values directories of a package are parsed and staged on worker threads while
+     * entries and strings are added to the table on the calling thread in the same order
+     * as single thread mode, thus the resulting table is identical.
+     * */
+    public void setThreads(int threads) {
+        if(threads < 1) {
+            threads = 1;
+        }
+        this.threads = threads;
+    }
+
     public TableBlock getTableBlock(){
         return tableBlock;
     }
@@ -276,6 +299,10 @@ public class XMLTableBlockEncoder {
     private void encodeResDir(File resDir) throws IOException, XmlPullParserException {
         preloadStyledStrings(resDir);
         List<File> valuesDirList = ApkUtil.listValuesDirectory(resDir);
+        if(getThreads() > 1){
+            encodeValuesDirConcurrent(valuesDirList);
+            return;
+        }
         for(File valuesDir : valuesDirList){
             encodeValuesDir(valuesDir);
         }
@@ -283,28 +310,122 @@ public class XMLTableBlockEncoder {
     private void preloadStyledStrings(File resDir) throws IOException, XmlPullParserException {
         logVerbose("Preloading styled strings ...");
         List<File> valuesDirList = ApkUtil.listValuesDirectory(resDir);
+        List<File> stringsXmlList = new ArrayList<>();
         for(File valuesDir : valuesDirList){
-            List<File> xmlFiles = ApkUtil.listFiles(valuesDir, "strings.xml");
-            for(File file : xmlFiles){
-                preloadStyledStringsXml(file);
+            stringsXmlList.addAll(ApkUtil.listFiles(valuesDir, "strings.xml"));
+        }
+        TableStringPool stringPool = getTableBlock().getStringPool();
+        StagedFileEncoder<List<StyleDocument>> encoder = new StagedFileEncoder<List<StyleDocument>>() {
+            @Override
+            public List<StyleDocument> stage(File file) throws IOException, XmlPullParserException {
+                return loadStyledStrings(file);
             }
+            @Override
+            public void encode(File file, List<StyleDocument> styledStrings) {
+                for(StyleDocument styleDocument : styledStrings) {
+                    stringPool.getOrCreate(styleDocument);
+                }
+            }
+        };
+        if(getThreads() > 1){
+            encodeConcurrent(stringsXmlList, encoder);
+            return;
+        }
+        for(File file : stringsXmlList){
+            encoder.encode(file, encoder.stage(file));
         }
     }
-    private void preloadStyledStringsXml(File file) throws IOException, XmlPullParserException {
+    private static List<StyleDocument> loadStyledStrings(File file) throws IOException, XmlPullParserException {
         XMLDocument document = XMLDocument.load(file);
         XMLElement root = document.getDocumentElement();
         Iterator<? extends XMLElement> iterator = root.getElements();
-        TableStringPool stringPool = getTableBlock().getStringPool();
+        List<StyleDocument> results = new ArrayList<>();
         while (iterator.hasNext()) {
             XMLElement element = iterator.next();
             if(element.hasChildElements()) {
-                stringPool.getOrCreate(StyleDocument.copyInner(element));
+                results.add(StyleDocument.copyInner(element));
             }
         }
+        return results;
     }
     private void encodeValuesDir(File valuesDir) throws IOException, XmlPullParserException {
+        for(File file : listValuesXmlToEncode(valuesDir)){
+            logVerbose("Encoding: " + FileUtil.shortPath(file, 4));
+            XmlCoder xmlCoder = XmlCoder.getInstance();
+            xmlCoder.VALUES_XML.encode(file, getTableBlock().getCurrentPackage());
+        }
+    }
+    /**
+     * Workers only parse xml and encode values needing no resource lookup (see
+     * {@link XmlCoder.ValuesXml#stage(File)}), nothing of the table is read or written
+     * off this thread.
+     * */
+    private void encodeValuesDirConcurrent(List<File> valuesDirList) throws IOException, XmlPullParserException {
+        List<File> xmlFiles = new ArrayList<>();
+        for(File valuesDir : valuesDirList){
+            xmlFiles.addAll(listValuesXmlToEncode(valuesDir));
+        }
+        XmlCoder.ValuesXml valuesXml = XmlCoder.getInstance().VALUES_XML;
+        PackageBlock packageBlock = getTableBlock().getCurrentPackage();
+        encodeConcurrent(xmlFiles, new StagedFileEncoder<StagedValuesXml>() {
+            @Override
+            public StagedValuesXml stage(File file) {
+                return valuesXml.stage(file);
+            }
+            @Override
+            public void encode(File file, StagedValuesXml stagedValuesXml) throws IOException, XmlPullParserException {
+                logVerbose("Encoding: " + FileUtil.shortPath(file, 4));
+                valuesXml.encode(stagedValuesXml, packageBlock);
+            }
+        });
+    }
+    private <T> void encodeConcurrent(List<File> files, StagedFileEncoder<T> encoder) throws IOException, XmlPullParserException {
+        int size = files.size();
+        if(size == 0){
+            return;
+        }
+        int threads = Math.min(getThreads(), size);
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            int maxPending = threads * 2;
+            LinkedList<Future<T>> futures = new LinkedList<>();
+            int submitted = 0;
+            for(int i = 0; i < size; i++){
+                while (submitted < size && futures.size() < maxPending){
+                    File file = files.get(submitted);
+                    futures.add(executor.submit(() -> encoder.stage(file)));
+                    submitted ++;
+                }
+                encoder.encode(files.get(i), awaitStaged(futures.poll()));
+            }
+        }finally {
+            executor.shutdownNow();
+        }
+    }
+    private static <T> T awaitStaged(Future<T> future) throws IOException, XmlPullParserException {
+        try {
+            return future.get();
+        } catch (InterruptedException exception) {
+            Thread.currentThread().interrupt();
+            throw new IOException(exception);
+        } catch (ExecutionException exception) {
+            Throwable cause = exception.getCause();
+            if(cause instanceof IOException){
+                throw (IOException) cause;
+            }
+            if(cause instanceof XmlPullParserException){
+                throw (XmlPullParserException) cause;
+            }
+            if(cause instanceof RuntimeException){
+                throw (RuntimeException) cause;
+            }
+            throw new IOException(cause);
+        }
+    }
+    private List<File> listValuesXmlToEncode(File valuesDir) {
         List<File> xmlFiles = ApkUtil.listFiles(valuesDir, ".xml");
         EncodeUtil.sortValuesXml(xmlFiles);
+        List<File> results = new ArrayList<>(xmlFiles.size());
         for(File file:xmlFiles){
             if(isAlreadyParsed(file)){
                 continue;
@@ -313,10 +434,9 @@ public class XMLTableBlockEncoder {
                 continue;
             }
             addParsedFiles(file);
-            logVerbose("Encoding: " + FileUtil.shortPath(file, 4));
-            XmlCoder xmlCoder = XmlCoder.getInstance();
-            xmlCoder.VALUES_XML.encode(file, getTableBlock().getCurrentPackage());
+            results.add(file);
         }
+        return results;
     }
 
     private void encodeNonTypeValues(List<File> pubXmlFileList) throws IOException, XmlPullParserException {
@@ -444,4 +564,12 @@ public class XMLTableBlockEncoder {
             apkLogger.logVerbose(msg);
         }
     }
+
+    /**
+     * Stages a file on any thread, then encodes the result on the thread owning the table
+     * */
+    interface StagedFileEncoder<T> {
+        T stage(File file) throws IOException, XmlPullParserException;
+        void encode(File file, T staged) throws IOException, XmlPullParserException;
+    }
 }
@@ -41,17 +41,36 @@ public abstract class Archive<T extends ZipInput> implements Closeable {
     private final EndRecord endRecord;
     private final ApkSignatureBlock apkSignatureBlock;
 
+    private final boolean lazy;
+
     public Archive(T zipInput) throws IOException {
+        this(zipInput, false);
+    }
+    /**
+     * @param lazy if true, entries are built from central directory only and each local file
+     *             header is read on first access of the entry data. Useful to open large archive
+     *             just to read few entries.
+     * */
+    public Archive(T zipInput, boolean lazy) throws IOException {
         this.zipInput = zipInput;
+        this.lazy = lazy;
         CentralFileDirectory cfd = new CentralFileDirectory();
         cfd.visit(zipInput);
         this.endRecord = cfd.getEndRecord();
         LocalFileDirectory lfd = new LocalFileDirectory(cfd);
-        lfd.visit(zipInput);
+        if(lazy){
+            lfd.visitLazy(zipInput);
+        }else {
+            lfd.visit(zipInput);
+        }
         this.entryList  = lfd.buildArchiveEntryList();
         this.apkSignatureBlock = lfd.getApkSigBlock();
     }
 
+    public boolean isLazy() {
+        return lazy;
+    }
+
     public ZipEntryMap createZipEntryMap(){
         return new ZipEntryMap(mapEntrySource());
     }
@@ -158,6 +177,19 @@ public abstract class Archive<T extends ZipInput> implements Closeable {
         }
         return result;
     }
+    /**
+     * Extracts entries on the given number of worker threads. Parent directories are created
+     * up front, each worker reuses its own inflater and buffers and reads entry data by
+     * absolute position.
+     * @return number of entries matching the filter
+     * */
+    public int extractAll(File dir, Predicate<ArchiveEntry> filter, int threads, ExtractProgress progress) throws IOException {
+        List<ArchiveEntry> entryList = CollectionUtil.toList(iterator(filter));
+        ArchiveExtractor extractor = new ArchiveExtractor(this, dir);
+        extractor.setProgress(progress);
+        extractor.extract(entryList, threads);
+        return entryList.size();
+    }
     public void extract(File file, ArchiveEntry archiveEntry) throws IOException{
         extract(file, archiveEntry, null);
     }
@@ -182,7 +214,7 @@ public abstract class Archive<T extends ZipInput> implements Closeable {
         applyAttributes(archiveEntry, file);
     }
     @SuppressWarnings("ResultOfMethodCallIgnored")
-    private void applyAttributes(ArchiveEntry archiveEntry, File file) {
+    void applyAttributes(ArchiveEntry archiveEntry, File file) {
         FilePermissions permissions = archiveEntry.getFilePermissions();
         if(permissions.get() != 0) {
             permissions.apply(file);
@@ -195,7 +227,7 @@ public abstract class Archive<T extends ZipInput> implements Closeable {
         FileOutputStream outputStream = new FileOutputStream(file);
         IOUtil.writeAll(openInputStream(archiveEntry), outputStream);
     }
-    private File toFile(File dir, ArchiveEntry archiveEntry){
+    File toFile(File dir, ArchiveEntry archiveEntry){
         String name = archiveEntry.getName().replace('/', File.separatorChar);
         return new File(dir, name);
     }
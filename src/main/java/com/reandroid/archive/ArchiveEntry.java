@@ -17,13 +17,35 @@ package com.reandroid.archive;
 
 import com.reandroid.archive.block.CentralEntryHeader;
 import com.reandroid.archive.block.LocalFileHeader;
+import com.reandroid.archive.model.LocalFileDirectory;
 import com.reandroid.utils.HexUtil;
 import com.reandroid.utils.io.FilePermissions;
 
+import java.io.IOException;
+
 public class ArchiveEntry {
-    private final LocalFileHeader localFileHeader;
+    private volatile LocalFileHeader localFileHeader;
+    private final CentralEntryHeader centralEntryHeader;
+    private final LocalFileDirectory localFileDirectory;
+    private final int lazyIndex;
+
     public ArchiveEntry(LocalFileHeader lfh){
         this.localFileHeader = lfh;
+        this.centralEntryHeader = null;
+        this.localFileDirectory = null;
+        this.lazyIndex = -1;
+    }
+    /**
+     * Creates entry from central directory only, the local file header is read on first call
+     * of any method that depends on it (data offset, method, sizes, crc ...)
+     * */
+    public ArchiveEntry(CentralEntryHeader ceh, LocalFileDirectory localFileDirectory, int index){
+        this.centralEntryHeader = ceh;
+        this.localFileDirectory = localFileDirectory;
+        this.lazyIndex = index;
+    }
+    public boolean isLocalHeaderLoaded(){
+        return localFileHeader != null;
     }
     public long getDataSize(){
         if(getMethod() != Archive.DEFLATED){
@@ -36,48 +58,52 @@ public class ArchiveEntry {
         return getMethod() == Archive.DEFLATED;
     }
     public int getMethod(){
-        return localFileHeader.getMethod();
+        return getLocalFileHeader().getMethod();
     }
     public void setMethod(int method){
-        localFileHeader.setMethod(method);
+        getLocalFileHeader().setMethod(method);
         getCentralEntryHeader().setMethod(method);
     }
     public long getSize() {
-        return localFileHeader.getSize();
+        return getLocalFileHeader().getSize();
     }
     public void setSize(long size) {
-        localFileHeader.setSize(size);
+        getLocalFileHeader().setSize(size);
         getCentralEntryHeader().setSize(size);
     }
     public long getCrc() {
-        return localFileHeader.getCrc();
+        return getLocalFileHeader().getCrc();
     }
     public void setCrc(long crc) {
-        localFileHeader.setCrc(crc);
+        getLocalFileHeader().setCrc(crc);
         getCentralEntryHeader().setCrc(crc);
     }
     public long getCompressedSize() {
-        return localFileHeader.getCompressedSize();
+        return getLocalFileHeader().getCompressedSize();
     }
     public void setCompressedSize(long csize) {
-        localFileHeader.setCompressedSize(csize);
+        getLocalFileHeader().setCompressedSize(csize);
         getCentralEntryHeader().setCompressedSize(csize);
     }
     public long getFileOffset() {
-        return localFileHeader.getFileOffset();
+        return getLocalFileHeader().getFileOffset();
     }
     public String getName(){
-        return localFileHeader.getFileName();
+        LocalFileHeader lfh = this.localFileHeader;
+        if(lfh == null){
+            return centralEntryHeader.getFileName();
+        }
+        return lfh.getFileName();
     }
     public String getSanitizedName(){
-        String name = ArchiveUtil.sanitizePath(localFileHeader.getFileName());
+        String name = ArchiveUtil.sanitizePath(getName());
         if(name == null){
-            name = ".error_file_path_" + localFileHeader.getIndex();
+            name = ".error_file_path_" + getLocalFileHeader().getIndex();
         }
         return name;
     }
     public void setName(String name){
-        localFileHeader.setFileName(name);
+        getLocalFileHeader().setFileName(name);
         getCentralEntryHeader().setFileName(name);
     }
     public String getComment(){
@@ -90,12 +116,16 @@ public class ArchiveEntry {
         return !isDirectory();
     }
     public boolean isDirectory() {
-        return getDataSize() == 0 && this.getName().endsWith("/");
+        return this.getName().endsWith("/") && getDataSize() == 0;
     }
     public FilePermissions getFilePermissions() {
         return getCentralEntryHeader().getFilePermissions();
     }
     public CentralEntryHeader getCentralEntryHeader(){
+        LocalFileHeader localFileHeader = this.localFileHeader;
+        if(localFileHeader == null){
+            return centralEntryHeader;
+        }
         CentralEntryHeader ceh = localFileHeader.getCentralEntryHeader();
         if(ceh == null){
             ceh = CentralEntryHeader.fromLocalFileHeader(localFileHeader);
@@ -104,7 +134,24 @@ public class ArchiveEntry {
         return ceh;
     }
     public LocalFileHeader getLocalFileHeader() {
-        return localFileHeader;
+        LocalFileHeader lfh = this.localFileHeader;
+        if(lfh == null){
+            lfh = loadLocalFileHeader();
+        }
+        return lfh;
+    }
+    private synchronized LocalFileHeader loadLocalFileHeader() {
+        LocalFileHeader lfh = this.localFileHeader;
+        if(lfh != null){
+            return lfh;
+        }
+        try {
+            lfh = localFileDirectory.readLocalFileHeader(centralEntryHeader, lazyIndex);
+        } catch (IOException exception) {
+            throw new RuntimeException(exception);
+        }
+        this.localFileHeader = lfh;
+        return lfh;
     }
     public long getDosTime(){
         return getCentralEntryHeader().getDosTime();
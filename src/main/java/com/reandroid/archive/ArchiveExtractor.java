@@ -0,0 +1,229 @@
+/*
+ *  Copyright (C) 2022 github.com/REAndroid
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.reandroid.archive;
+
+import com.reandroid.archive.io.ZipInput;
+
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+import java.util.zip.ZipException;
+
+/**
+ * Extracts archive entries on a pool of workers, each worker owns its {@link Inflater} and
+ * buffers and reads entry data by absolute position so no stream state is shared.
+ * */
+class ArchiveExtractor {
+
+    private final Archive<?> archive;
+    private final File directory;
+    private ExtractProgress progress;
+    private int extractedCount;
+
+    ArchiveExtractor(Archive<?> archive, File directory){
+        this.archive = archive;
+        this.directory = directory;
+    }
+
+    void setProgress(ExtractProgress progress) {
+        this.progress = progress;
+    }
+
+    void extract(List<ArchiveEntry> entryList, int threads) throws IOException {
+        List<ArchiveEntry> fileList = new ArrayList<>(entryList.size());
+        for(ArchiveEntry archiveEntry : entryList){
+            if(archiveEntry.isFile()){
+                fileList.add(archiveEntry);
+            }
+        }
+        createDirectories(fileList);
+        AtomicInteger next = new AtomicInteger();
+        if(threads > fileList.size()){
+            threads = fileList.size();
+        }
+        if(threads <= 1){
+            runWorker(fileList, next);
+            return;
+        }
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<Void>> futures = new ArrayList<>(threads);
+            for(int i = 0; i < threads; i++){
+                futures.add(executor.submit(() -> {
+                    runWorker(fileList, next);
+                    return null;
+                }));
+            }
+            for(Future<Void> future : futures){
+                await(future);
+            }
+        } finally {
+            // stop taking entries but let workers end the current one, interrupting them
+            // could close the shared archive channel and hide the original error
+            next.set(fileList.size());
+            executor.shutdown();
+            awaitTermination(executor);
+        }
+    }
+    private static void awaitTermination(ExecutorService executor) {
+        boolean interrupted = false;
+        while (true) {
+            try {
+                if(executor.awaitTermination(1, TimeUnit.SECONDS)){
+                    break;
+                }
+            } catch (InterruptedException exception) {
+                interrupted = true;
+            }
+        }
+        if(interrupted){
+            Thread.currentThread().interrupt();
+        }
+    }
+    private void createDirectories(List<ArchiveEntry> fileList) throws IOException {
+        Set<File> directories = new LinkedHashSet<>();
+        for(ArchiveEntry archiveEntry : fileList){
+            File dir = archive.toFile(directory, archiveEntry).getParentFile();
+            if(dir != null){
+                directories.add(dir);
+            }
+        }
+        for(File dir : directories){
+            if(!dir.isDirectory() && !dir.mkdirs()){
+                throw new IOException("Failed to create directory: " + dir);
+            }
+        }
+    }
+    private void runWorker(List<ArchiveEntry> fileList, AtomicInteger next) throws IOException {
+        Worker worker = new Worker();
+        int size = fileList.size();
+        try {
+            int index;
+            while ((index = next.getAndIncrement()) < size){
+                ArchiveEntry archiveEntry = fileList.get(index);
+                worker.extract(archiveEntry);
+                onExtracted(archiveEntry, size);
+            }
+        } catch (IOException | RuntimeException exception) {
+            // stop other workers
+            next.set(size);
+            throw exception;
+        } finally {
+            worker.end();
+        }
+    }
+    private synchronized void onExtracted(ArchiveEntry archiveEntry, int totalCount){
+        extractedCount ++;
+        ExtractProgress progress = this.progress;
+        if(progress != null){
+            progress.onExtractFile(archiveEntry, extractedCount, totalCount);
+        }
+    }
+    private static void await(Future<Void> future) throws IOException {
+        try {
+            future.get();
+        } catch (InterruptedException exception) {
+            Thread.currentThread().interrupt();
+            throw new IOException(exception);
+        } catch (ExecutionException exception) {
+            Throwable cause = exception.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            }
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new IOException(cause);
+        }
+    }
+
+    private class Worker {
+        private final Inflater inflater;
+        private final byte[] input;
+        private final byte[] output;
+
+        Worker(){
+            this.inflater = new Inflater(true);
+            this.input = new byte[BUFFER_SIZE];
+            this.output = new byte[BUFFER_SIZE];
+        }
+        void extract(ArchiveEntry archiveEntry) throws IOException {
+            Archive<?> archive = ArchiveExtractor.this.archive;
+            File file = archive.toFile(directory, archiveEntry);
+            if(archiveEntry.getMethod() != Archive.STORED){
+                inflate(archiveEntry, file);
+            }else {
+                archive.extractStored(file, archiveEntry);
+            }
+            archive.applyAttributes(archiveEntry, file);
+        }
+        private void inflate(ArchiveEntry archiveEntry, File file) throws IOException {
+            ZipInput zipInput = archive.getZipInput();
+            Inflater inflater = this.inflater;
+            byte[] input = this.input;
+            byte[] output = this.output;
+            inflater.reset();
+            long position = archiveEntry.getFileOffset();
+            long remaining = archiveEntry.getDataSize();
+            OutputStream outputStream = new FileOutputStream(file);
+            try {
+                while (!inflater.finished()){
+                    if(inflater.needsInput()){
+                        int length = (int) Math.min(input.length, remaining);
+                        int read = length > 0 ? zipInput.read(position, input, 0, length) : -1;
+                        if(read <= 0){
+                            throw new EOFException("Unexpected end of deflated data: "
+                                    + archiveEntry.getName());
+                        }
+                        position += read;
+                        remaining -= read;
+                        inflater.setInput(input, 0, read);
+                    }
+                    int inflated = inflater.inflate(output);
+                    if(inflated > 0){
+                        outputStream.write(output, 0, inflated);
+                    }else if(inflater.needsDictionary()){
+                        throw new ZipException("Preset dictionary not supported: "
+                                + archiveEntry.getName());
+                    }
+                }
+            } catch (DataFormatException exception) {
+                throw new ZipException(exception.getMessage() + ", " + archiveEntry.getName());
+            } finally {
+                outputStream.close();
+            }
+        }
+        void end(){
+            inflater.end();
+        }
+    }
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+}
@@ -21,6 +21,7 @@ import com.reandroid.utils.io.FileUtil;
 
 import java.io.File;
 import java.io.IOException;
+import java.nio.ByteBuffer;
 import java.nio.channels.FileChannel;
 
 public class ArchiveFile extends Archive<ZipFileInput>{
@@ -28,10 +29,29 @@ public class ArchiveFile extends Archive<ZipFileInput>{
     public ArchiveFile(ZipFileInput zipInput) throws IOException {
         super(zipInput);
     }
+    /**
+     * @param lazy if true, local file headers are read on demand, see {@link Archive#isLazy()}
+     * */
+    public ArchiveFile(ZipFileInput zipInput, boolean lazy) throws IOException {
+        super(zipInput, lazy);
+    }
     public ArchiveFile(File file) throws IOException {
         this(new ZipFileInput(file));
     }
+    /**
+     * @param memoryMapped if true, the file is memory mapped and entry bytes are served as
+     *                     slices of the mapping, see {@link ZipFileInput#setMemoryMapped(boolean)}
+     * */
+    public ArchiveFile(File file, boolean memoryMapped) throws IOException {
+        this(new ZipFileInput(file, memoryMapped));
+    }
 
+    /**
+     * Returns raw (possibly compressed) data bytes of the entry
+     * */
+    public ByteBuffer getRawByteBuffer(ArchiveEntry archiveEntry) throws IOException {
+        return getZipInput().getByteBuffer(archiveEntry.getFileOffset(), archiveEntry.getDataSize());
+    }
     @Override
     InputSource createInputSource(ArchiveEntry entry) {
         return new ArchiveFileEntrySource(getZipInput(), entry);
@@ -39,18 +59,8 @@ public class ArchiveFile extends Archive<ZipFileInput>{
     @Override
     void extractStored(File file, ArchiveEntry archiveEntry) throws IOException {
         FileChannel outputChannel = FileUtil.openWriteChannel(file);
-        FileChannel fileChannel = getZipInput().getFileChannel();
-        fileChannel.position(archiveEntry.getFileOffset());
-
-        long totalTransferred = 0;
-        long remaining = archiveEntry.getDataSize();
-
-        while (remaining > 0) {
-            long transferred = outputChannel.transferFrom(fileChannel, totalTransferred, remaining);
-            totalTransferred += transferred;
-            remaining -= transferred;
-        }
-
+        getZipInput().transferTo(archiveEntry.getFileOffset(),
+                archiveEntry.getDataSize(), outputChannel);
         outputChannel.close();
     }
 }
@@ -0,0 +1,26 @@
+/*
+ *  Copyright (C) 2022 github.com/REAndroid
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.reandroid.archive;
+
+public interface ExtractProgress {
+    /**
+     * Called after each file entry is written, calls are serialized even when extracting
+     * on multiple threads.
+     * @param extractedCount number of files extracted so far including this one
+     * @param totalCount total number of files to be extracted
+     * */
+    void onExtractFile(ArchiveEntry archiveEntry, int extractedCount, int totalCount);
+}
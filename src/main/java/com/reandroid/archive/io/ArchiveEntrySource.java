@@ -28,12 +28,33 @@ public class ArchiveEntrySource<T extends ZipInput> extends InputSource {
 
     private final T zipInput;
     private final ArchiveEntry archiveEntry;
+    private boolean methodLoaded;
 
     public ArchiveEntrySource(T zipInput, ArchiveEntry archiveEntry){
         super(archiveEntry.getSanitizedName());
         this.zipInput = zipInput;
         this.archiveEntry = archiveEntry;
-        setMethod(archiveEntry.getMethod());
+        if(archiveEntry.isLocalHeaderLoaded()){
+            setMethod(archiveEntry.getMethod());
+        }
+    }
+
+    @Override
+    public int getMethod() {
+        if(!methodLoaded){
+            setMethod(getArchiveEntry().getMethod());
+        }
+        return super.getMethod();
+    }
+    @Override
+    public void setMethod(int method) {
+        this.methodLoaded = true;
+        super.setMethod(method);
+    }
+    @Override
+    public void setUncompressed(boolean uncompressed) {
+        this.methodLoaded = true;
+        super.setUncompressed(uncompressed);
     }
 
     public T getZipSource(){
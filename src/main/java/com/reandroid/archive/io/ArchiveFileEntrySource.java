@@ -31,43 +31,31 @@ public class ArchiveFileEntrySource extends ArchiveEntrySource<ZipFileInput> {
         setSort(archiveEntry.getIndex());
     }
 
+    /**
+     * Returns raw (possibly compressed) data bytes of the entry
+     * */
+    public ByteBuffer getRawByteBuffer() throws IOException {
+        ArchiveEntry archiveEntry = getArchiveEntry();
+        return getZipSource().getByteBuffer(archiveEntry.getFileOffset(), archiveEntry.getDataSize());
+    }
     @Override
     public byte[] getBytes(int length) throws IOException {
-        FileChannel fileChannel = getFileChannel();
-        if(getMethod() != Archive.STORED || fileChannel == null){
+        if(getMethod() != Archive.STORED){
             return super.getBytes(length);
         }
         byte[] bytes = new byte[length];
-        ByteBuffer byteBuffer = ByteBuffer.wrap(bytes);
-        fileChannel.read(byteBuffer);
+        getZipSource().readFully(getArchiveEntry().getFileOffset(), bytes, 0, length);
         return bytes;
     }
 
-    FileChannel getFileChannel() throws IOException {
-        ZipFileInput zipInput = getZipSource();
-        FileChannel fileChannel = zipInput.getFileChannel();
-        fileChannel.position(getArchiveEntry().getFileOffset());
-        return fileChannel;
-    }
-
     @Override
     public void write(File file) throws IOException {
-        FileChannel fileChannel = getFileChannel();
-        if(getMethod() != Archive.STORED || fileChannel == null){
+        if(getMethod() != Archive.STORED){
             super.write(file);
             return;
         }
         FileChannel outputChannel = FileUtil.openWriteChannel(file);
-
-        long totalTransferred = 0;
-        long remaining = getLength();
-
-        while (remaining > 0) {
-            long transferred = outputChannel.transferFrom(fileChannel, totalTransferred, remaining);
-            totalTransferred += transferred;
-            remaining -= transferred;
-        }
-
+        getZipSource().transferTo(getArchiveEntry().getFileOffset(), getLength(), outputChannel);
         outputChannel.close();
     }
 
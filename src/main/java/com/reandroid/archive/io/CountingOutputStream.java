@@ -15,7 +15,8 @@
  */
 package com.reandroid.archive.io;
 
-import com.reandroid.utils.Crc32;
+import com.reandroid.utils.Checksum;
+import com.reandroid.utils.ChecksumProvider;
 
 import java.io.IOException;
 import java.io.InputStream;
@@ -24,17 +25,17 @@ import java.io.OutputStream;
 public class CountingOutputStream<T extends OutputStream> extends OutputStream {
 
     private final T outputStream;
-    private Crc32 crc32;
+    private Checksum crc32;
     private long size;
     private boolean mClosed;
 
     public CountingOutputStream(T outputStream, boolean disableCrc){
         this.outputStream = outputStream;
-        Crc32 crc32;
+        Checksum crc32;
         if(disableCrc){
             crc32 = null;
         }else {
-            crc32 = new Crc32();
+            crc32 = ChecksumProvider.getDefault().newCrc32();
         }
         this.crc32 = crc32;
     }
@@ -45,7 +46,7 @@ public class CountingOutputStream<T extends OutputStream> extends OutputStream {
     public void disableCrc(boolean disableCrc) {
         if(!disableCrc){
             if(crc32 == null) {
-                this.crc32 = new Crc32();
+                this.crc32 = ChecksumProvider.getDefault().newCrc32();
             }
         } else {
             this.crc32 = null;
@@ -22,9 +22,13 @@ import java.nio.channels.FileChannel;
 
 public class FileChannelOutputStream extends OutputStream {
     private final FileChannel fileChannel;
+    private OutputStream copyStream;
     public FileChannelOutputStream(FileChannel fileChannel){
         this.fileChannel = fileChannel;
     }
+    public void setCopyStream(OutputStream copyStream) {
+        this.copyStream = copyStream;
+    }
     @Override
     public void write(byte[] bytes) throws IOException {
         write(bytes, 0, bytes.length);
@@ -34,6 +38,10 @@ public class FileChannelOutputStream extends OutputStream {
         long position = fileChannel.position();
         length = fileChannel.write(ByteBuffer.wrap(bytes, offset, length));
         fileChannel.position(position + length);
+        OutputStream copyStream = this.copyStream;
+        if(copyStream != null){
+            copyStream.write(bytes, offset, length);
+        }
     }
     @Override
     public void write(int i) throws IOException {
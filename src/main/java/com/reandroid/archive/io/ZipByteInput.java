@@ -76,6 +76,18 @@ public class ZipByteInput extends ZipInput{
         return new BytesInputStream(this.array, (int)(offset + this.offset), (int)length);
     }
     @Override
+    public int read(long position, byte[] buffer, int offset, int length) {
+        long available = this.length - position;
+        if(available <= 0){
+            return -1;
+        }
+        if(length > available){
+            length = (int) available;
+        }
+        System.arraycopy(this.array, (int) (this.offset + position), buffer, offset, length);
+        return length;
+    }
+    @Override
     public byte[] getFooter(int minLength) {
         if(minLength <= 0){
             return new byte[0];
@@ -23,8 +23,10 @@ import java.io.OutputStream;
 
 public class ZipByteOutput extends ZipOutput{
     private final BytesOutputStream bis;
+    private final CopyOutputStream copyOutputStream;
     public ZipByteOutput(){
         this.bis = new BytesOutputStream();
+        this.copyOutputStream = new CopyOutputStream(this, bis);
     }
     public byte[] toByteArray(){
         return bis.toByteArray();
@@ -47,13 +49,20 @@ public class ZipByteOutput extends ZipOutput{
     }
     @Override
     public void write(InputStream inputStream) throws IOException {
-        bis.write(inputStream);
+        if(getCopyStream() == null){
+            bis.write(inputStream);
+        }else {
+            copyOutputStream.write(inputStream);
+        }
     }
     public void write(byte[] bytes) throws IOException {
-        bis.write(bytes);
+        copyOutputStream.write(bytes);
     }
     @Override
     public OutputStream getOutputStream() {
-        return bis;
+        if(getCopyStream() == null){
+            return bis;
+        }
+        return copyOutputStream;
     }
 }
@@ -20,19 +20,132 @@ import com.reandroid.utils.io.FileUtil;
 
 import java.io.*;
 import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
 import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
 
 public class ZipFileInput extends ZipInput {
     private final File file;
-    private FileChannel fileChannel;
+    private volatile FileChannel fileChannel;
     private InputStream mCurrentInputStream;
+    private boolean memoryMapped;
+    private volatile MappedByteBuffer mappedBuffer;
     public ZipFileInput(File file){
         this.file = file;
     }
+    public ZipFileInput(File file, boolean memoryMapped){
+        this(file);
+        this.memoryMapped = memoryMapped;
+    }
 
     public File getFile(){
         return file;
     }
+    public boolean isMemoryMapped() {
+        return memoryMapped;
+    }
+    /**
+     * When enabled, the whole file is mapped read-only and entries are served as
+     * {@link ByteBuffer} slices of the mapping instead of being read through heap buffers.
+     * Files larger than {@link Integer#MAX_VALUE} bytes are always read through the channel.
+     * */
+    public void setMemoryMapped(boolean memoryMapped) {
+        if(!memoryMapped){
+            this.mappedBuffer = null;
+        }
+        this.memoryMapped = memoryMapped;
+    }
+    /**
+     * Returns read-only view of the bytes at the given range. For memory mapped input this
+     * is a slice of the mapping (no copy), otherwise the bytes are read to heap buffer.
+     * The returned buffer is independent, its position/limit can be changed freely.
+     * */
+    public ByteBuffer getByteBuffer(long offset, long length) throws IOException {
+        MappedByteBuffer mapped = getMappedBuffer();
+        if(mapped != null){
+            ByteBuffer buffer = mapped.duplicate();
+            buffer.limit((int) (offset + length));
+            buffer.position((int) offset);
+            return buffer.slice().asReadOnlyBuffer();
+        }
+        if(length > Integer.MAX_VALUE){
+            throw new IOException("Length too large for buffer: " + length);
+        }
+        FileChannel fileChannel = getFileChannel();
+        ByteBuffer buffer = ByteBuffer.allocate((int) length);
+        long position = offset;
+        while (buffer.hasRemaining()){
+            int read = fileChannel.read(buffer, position);
+            if(read < 0){
+                throw new EOFException("Finished reading at " + position + ", expecting: " + length);
+            }
+            position += read;
+        }
+        buffer.flip();
+        return buffer.asReadOnlyBuffer();
+    }
+    /**
+     * Copies raw bytes to the target channel without passing through JVM heap whenever
+     * the platform supports it. The position of this input channel is not changed.
+     * */
+    public long transferTo(long offset, long length, WritableByteChannel target) throws IOException {
+        FileChannel fileChannel = getFileChannel();
+        long totalTransferred = 0;
+        long remaining = length;
+        while (remaining > 0) {
+            long transferred = fileChannel.transferTo(offset + totalTransferred, remaining, target);
+            if(transferred <= 0){
+                throw new EOFException("Finished transferring at "
+                        + (offset + totalTransferred) + ", remaining: " + remaining);
+            }
+            totalTransferred += transferred;
+            remaining -= transferred;
+        }
+        return totalTransferred;
+    }
+    /**
+     * Reads exactly the given length at the position straight to the array
+     * */
+    public void readFully(long position, byte[] bytes, int offset, int length) throws IOException {
+        while (length > 0){
+            int read = read(position, bytes, offset, length);
+            if(read < 0){
+                throw new EOFException("Finished reading at " + position + ", remaining: " + length);
+            }
+            position += read;
+            offset += read;
+            length -= read;
+        }
+    }
+    /**
+     * True when memory mapped and the file could be mapped
+     * */
+    boolean hasMappedBuffer() throws IOException {
+        return getMappedBuffer() != null;
+    }
+    private MappedByteBuffer getMappedBuffer() throws IOException {
+        if(!memoryMapped){
+            return null;
+        }
+        MappedByteBuffer mappedBuffer = this.mappedBuffer;
+        if(mappedBuffer != null){
+            return mappedBuffer;
+        }
+        FileChannel fileChannel = getFileChannel();
+        synchronized (this){
+            mappedBuffer = this.mappedBuffer;
+            if(mappedBuffer != null){
+                return mappedBuffer;
+            }
+            long size = fileChannel.size();
+            if(size > Integer.MAX_VALUE){
+                return null;
+            }
+            mappedBuffer = fileChannel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            this.mappedBuffer = mappedBuffer;
+            return mappedBuffer;
+        }
+    }
 
     @Override
     public long position() throws IOException {
@@ -52,12 +165,37 @@ public class ZipFileInput extends ZipInput {
     }
     @Override
     public InputStream getInputStream(long offset, long length) throws IOException {
+        if(getMappedBuffer() != null){
+            return new ByteBufferInputStream(getByteBuffer(offset, length));
+        }
         closeCurrentInputStream();
         FileChannel fileChannel = getFileChannel();
         fileChannel.position(offset);
         mCurrentInputStream = new FileChannelInputStream(fileChannel, length);
         return mCurrentInputStream;
     }
+    @Override
+    public InputStream getDetachedInputStream(long offset, long length) throws IOException {
+        return new ByteBufferInputStream(getByteBuffer(offset, length));
+    }
+    @Override
+    public int read(long position, byte[] buffer, int offset, int length) throws IOException {
+        MappedByteBuffer mapped = getMappedBuffer();
+        if(mapped != null){
+            long available = mapped.limit() - position;
+            if(available <= 0){
+                return -1;
+            }
+            if(length > available){
+                length = (int) available;
+            }
+            ByteBuffer duplicate = mapped.duplicate();
+            duplicate.position((int) position);
+            duplicate.get(buffer, offset, length);
+            return length;
+        }
+        return getFileChannel().read(ByteBuffer.wrap(buffer, offset, length), position);
+    }
 
     @Override
     public byte[] getFooter(int minLength) throws IOException {
@@ -66,6 +204,12 @@ public class ZipFileInput extends ZipInput {
             minLength = (int) position;
         }
         position = position - minLength;
+        if(getMappedBuffer() != null){
+            ByteBuffer buffer = getByteBuffer(position, minLength);
+            byte[] bytes = new byte[minLength];
+            buffer.get(bytes);
+            return bytes;
+        }
         FileChannel fileChannel = getFileChannel();
         fileChannel.position(position);
         ByteBuffer buffer = ByteBuffer.allocate(minLength);
@@ -78,13 +222,23 @@ public class ZipFileInput extends ZipInput {
             return fileChannel;
         }
         synchronized (this){
+            fileChannel = this.fileChannel;
+            if(fileChannel != null){
+                return fileChannel;
+            }
             fileChannel = FileUtil.openReadChannel(file);
             this.fileChannel = fileChannel;
             return fileChannel;
         }
     }
+    /**
+     * Closes the channel and drops the mapping. The mapping is not forcibly unmapped since
+     * buffers and streams handed out earlier may still read from it, it is released once
+     * those become unreachable.
+     * */
     @Override
     public void close() throws IOException {
+        this.mappedBuffer = null;
         closeCurrentInputStream();
         closeChannel();
     }
@@ -106,6 +260,7 @@ public class ZipFileInput extends ZipInput {
         synchronized (this){
             fileChannel.close();
             this.fileChannel = null;
+            this.mappedBuffer = null;
         }
     }
     private void closeCurrentInputStream() throws IOException {
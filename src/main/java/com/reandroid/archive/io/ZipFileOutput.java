@@ -17,13 +17,18 @@ package com.reandroid.archive.io;
 
 import com.reandroid.utils.io.FileUtil;
 
+import java.io.EOFException;
 import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
 import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
 import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
 
 public class ZipFileOutput extends ZipOutput{
+    private static final int COPY_BUFFER_SIZE = 1024 * 64;
     private final File file;
     private FileChannel fileChannel;
     private FileChannelOutputStream outputStream;
@@ -35,6 +40,10 @@ public class ZipFileOutput extends ZipOutput{
         return file;
     }
     public void write(FileChannel input, long length) throws IOException{
+        if(getCopyStream() != null){
+            write(Channels.newInputStream(input), length);
+            return;
+        }
         FileChannel fileChannel = getFileChannel();
         long pos = fileChannel.position();
 
@@ -49,7 +58,69 @@ public class ZipFileOutput extends ZipOutput{
 
         fileChannel.position(pos + totalTransferred);
     }
+    /**
+     * Appends raw bytes of the input range using {@link FileChannel#transferTo}. When a copy
+     * stream is set the bytes must also reach the heap: for memory mapped input and a copy
+     * stream which is a {@link WritableByteChannel} the file is still written by transferTo
+     * and the copy gets a slice of the mapping, otherwise the range is read once to a heap
+     * buffer and written to both.
+     * */
+    public void write(ZipFileInput input, long offset, long length) throws IOException{
+        OutputStream copyStream = getCopyStream();
+        if(copyStream != null && (!(copyStream instanceof WritableByteChannel)
+                || !input.hasMappedBuffer())){
+            copy(input, offset, length);
+            return;
+        }
+        FileChannel fileChannel = getFileChannel();
+        long pos = fileChannel.position();
+        long transferred = input.transferTo(offset, length, fileChannel);
+        fileChannel.position(pos + transferred);
+        if(copyStream != null){
+            ByteBuffer buffer = input.getByteBuffer(offset, length);
+            WritableByteChannel channel = (WritableByteChannel) copyStream;
+            while (buffer.hasRemaining()){
+                channel.write(buffer);
+            }
+        }
+    }
+
+    private void write(InputStream inputStream, long length) throws IOException{
+        OutputStream outputStream = getOutputStream();
+        byte[] buffer = new byte[(int) Math.min(length, COPY_BUFFER_SIZE)];
+        long remaining = length;
+        while (remaining > 0){
+            int read = inputStream.read(buffer, 0, (int) Math.min(remaining, buffer.length));
+            if(read < 0){
+                throw new EOFException("Remaining bytes: " + remaining);
+            }
+            outputStream.write(buffer, 0, read);
+            remaining -= read;
+        }
+    }
+    private void copy(ZipFileInput input, long offset, long length) throws IOException{
+        OutputStream outputStream = getOutputStream();
+        byte[] buffer = new byte[(int) Math.min(length, COPY_BUFFER_SIZE)];
+        long position = offset;
+        long end = offset + length;
+        while (position < end){
+            int read = input.read(position, buffer, 0, (int) Math.min(end - position, buffer.length));
+            if(read < 0){
+                throw new EOFException("Remaining bytes: " + (end - position));
+            }
+            outputStream.write(buffer, 0, read);
+            position += read;
+        }
+    }
 
+    @Override
+    public void setCopyStream(OutputStream copyStream) {
+        super.setCopyStream(copyStream);
+        FileChannelOutputStream outputStream = this.outputStream;
+        if(outputStream != null){
+            outputStream.setCopyStream(copyStream);
+        }
+    }
     @Override
     public long position() throws IOException {
         return getFileChannel().position();
@@ -93,9 +164,13 @@ public class ZipFileOutput extends ZipOutput{
         byte[] buffer = new byte[bufferLength];
         long result = 0;
         int read;
+        OutputStream copyStream = getCopyStream();
         while ((read = inputStream.read(buffer, 0, bufferLength)) > 0){
             ByteBuffer byteBuffer = ByteBuffer.wrap(buffer, 0, read);
             fileChannel.write(byteBuffer);
+            if(copyStream != null){
+                copyStream.write(buffer, 0, read);
+            }
             result += read;
         }
         inputStream.close();
@@ -106,6 +181,7 @@ public class ZipFileOutput extends ZipOutput{
         FileChannelOutputStream outputStream = this.outputStream;
         if(outputStream == null){
             outputStream = new FileChannelOutputStream(getFileChannel());
+            outputStream.setCopyStream(getCopyStream());
             this.outputStream = outputStream;
         }
         return outputStream;
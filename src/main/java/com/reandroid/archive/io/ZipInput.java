@@ -16,7 +16,33 @@
 package com.reandroid.archive.io;
 
 import java.io.IOException;
+import java.io.InputStream;
 
 public abstract class ZipInput implements ReadOnlyStream {
     public abstract byte[] getFooter(int minLength) throws IOException;
+    /**
+     * Same as {@link #getInputStream(long, long)} but the returned stream does not share any
+     * state (e.g. channel position) with other streams, thus can be used while other stream is open
+     * */
+    public InputStream getDetachedInputStream(long offset, long length) throws IOException {
+        return getInputStream(offset, length);
+    }
+    /**
+     * Reads up to length bytes at the given absolute position without changing position of this
+     * input, safe to call concurrently.
+     * @return number of bytes read or -1 if position is at or beyond end
+     * */
+    public int read(long position, byte[] buffer, int offset, int length) throws IOException {
+        long available = getLength() - position;
+        if(available <= 0){
+            return -1;
+        }
+        if(length > available){
+            length = (int) available;
+        }
+        InputStream inputStream = getDetachedInputStream(position, length);
+        int result = inputStream.read(buffer, offset, length);
+        inputStream.close();
+        return result;
+    }
 }
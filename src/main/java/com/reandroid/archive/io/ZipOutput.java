@@ -15,5 +15,20 @@
  */
 package com.reandroid.archive.io;
 
+import java.io.OutputStream;
+
 public abstract class ZipOutput implements WriteOnlyStream{
+    private OutputStream copyStream;
+
+    public OutputStream getCopyStream() {
+        return copyStream;
+    }
+    /**
+     * Sets stream receiving a copy of every byte written after this call, e.g. to digest
+     * output while writing. While set, raw copies between files are read through heap
+     * instead of direct channel transfer.
+     * */
+    public void setCopyStream(OutputStream copyStream) {
+        this.copyStream = copyStream;
+    }
 }
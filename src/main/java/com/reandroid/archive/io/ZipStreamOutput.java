@@ -20,9 +20,10 @@ import java.io.InputStream;
 import java.io.OutputStream;
 
 public class ZipStreamOutput extends ZipOutput {
-    private final CountingOutputStream<OutputStream> countingStream;
+    private final CountingOutputStream<CopyOutputStream> countingStream;
     public ZipStreamOutput(OutputStream outputStream){
-        this.countingStream = new CountingOutputStream<>(outputStream, true);
+        this.countingStream = new CountingOutputStream<>(
+                new CopyOutputStream(this, outputStream), true);
     }
     @Override
     public long position() throws IOException {
@@ -31,6 +31,7 @@ public class LocalFileDirectory {
     private final CentralFileDirectory centralFileDirectory;
     private final List<LocalFileHeader> headerList;
     private ApkSignatureBlock apkSignatureBlock;
+    private ZipInput lazyInput;
     public LocalFileDirectory(CentralFileDirectory centralFileDirectory){
         this.centralFileDirectory = centralFileDirectory;
         this.headerList = new ArrayList<>(centralFileDirectory.count() + 2);
@@ -39,6 +40,72 @@ public class LocalFileDirectory {
         visitLocalFile(zipInput);
         visitApkSigBlock(zipInput);
     }
+    /**
+     * Reads only apk signature block, local file headers are read later on demand by
+     * {@link #readLocalFileHeader(CentralEntryHeader, int)}
+     * */
+    public void visitLazy(ZipInput zipInput) throws IOException {
+        this.lazyInput = zipInput;
+        visitApkSigBlock(zipInput);
+    }
+    public boolean isLazy() {
+        return lazyInput != null;
+    }
+    public LocalFileHeader readLocalFileHeader(CentralEntryHeader ceh, int index) throws IOException {
+        ZipInput zipInput = this.lazyInput;
+        if(zipInput == null){
+            throw new ArchiveException("Not lazy directory");
+        }
+        long offset = ceh.getLocalRelativeOffset();
+        byte[] bytes = readDetached(zipInput, offset, LFH_FIXED_SIZE);
+        int length = LFH_FIXED_SIZE
+                + readShort(bytes, LFH_FIXED_SIZE - 4)
+                + readShort(bytes, LFH_FIXED_SIZE - 2);
+        LocalFileHeader lfh = LocalFileHeader.read(zipInput.getDetachedInputStream(offset, length));
+        if(lfh == null){
+            throw new ArchiveException("Error reading LFH at "
+                    + offset + ", for CEH = " + ceh.getFileName());
+        }
+        offset = offset + lfh.countBytes();
+        ceh.setFileOffset(offset);
+
+        lfh.setCentralEntryHeader(ceh);
+
+        offset = offset + lfh.getDataSize();
+
+        lfh.updateDataDescriptor();
+        DataDescriptor dataDescriptor = lfh.getDataDescriptor();
+        if(dataDescriptor != null) {
+            long available = zipInput.getLength() - offset;
+            int read = -1;
+            if(available > 0){
+                length = (int) Math.min(available, dataDescriptor.countBytes());
+                read = dataDescriptor.readBytes(zipInput.getDetachedInputStream(offset, length));
+            }
+            if(read != dataDescriptor.countBytes()) {
+                lfh.setHasDataDescriptor(false);
+            }
+        }
+        lfh.setIndex(index);
+        return lfh;
+    }
+    private static byte[] readDetached(ZipInput zipInput, long offset, int length) throws IOException {
+        byte[] bytes = new byte[length];
+        InputStream inputStream = zipInput.getDetachedInputStream(offset, length);
+        int position = 0;
+        while (position < length){
+            int read = inputStream.read(bytes, position, length - position);
+            if(read < 0){
+                throw new ArchiveException("Unexpected end of LFH at " + (offset + position));
+            }
+            position += read;
+        }
+        inputStream.close();
+        return bytes;
+    }
+    private static int readShort(byte[] bytes, int offset){
+        return (bytes[offset] & 0xff) | ((bytes[offset + 1] & 0xff) << 8);
+    }
     private void visitLocalFile(ZipInput zipInput) throws IOException {
         List<LocalFileHeader> headerList = this.getHeaderList();
         long offset;
@@ -100,6 +167,9 @@ public class LocalFileDirectory {
         return headerList;
     }
     public ArchiveEntry[] buildArchiveEntryList(){
+        if(isLazy()){
+            return buildLazyArchiveEntryList();
+        }
         List<LocalFileHeader> headerList = getHeaderList();
         int size = headerList.size();
         ArchiveEntry[] entryList = new ArchiveEntry[size];
@@ -113,4 +183,15 @@ public class LocalFileDirectory {
         }
         return entryList;
     }
+    private ArchiveEntry[] buildLazyArchiveEntryList(){
+        List<CentralEntryHeader> headerList = getCentralFileDirectory().getHeaderList();
+        int size = headerList.size();
+        ArchiveEntry[] entryList = new ArchiveEntry[size];
+        for(int i = 0; i < size; i++){
+            entryList[i] = new ArchiveEntry(headerList.get(i), this, i);
+        }
+        return entryList;
+    }
+
+    private static final int LFH_FIXED_SIZE = 30;
 }
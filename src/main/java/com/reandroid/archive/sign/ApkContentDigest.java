@@ -0,0 +1,196 @@
+/*
+ *  Copyright (C) 2022 github.com/REAndroid
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.reandroid.archive.sign;
+
+import java.io.IOException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.LinkedList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Computes content digest of APK signature scheme v2/v3. Each section (entries, central
+ * directory and end record) is split into 1 MB chunks, each chunk is digested as
+ * <code>H(0xa5 | uint32 length | chunk)</code> and the top level digest is
+ * <code>H(0x5a | uint32 count | chunk digests)</code>. Chunks are independent, thus when
+ * threads is greater than one they are digested on a worker pool.
+ * */
+public class ApkContentDigest {
+
+    public static final int CHUNK_SIZE = 1024 * 1024;
+
+    private final String algorithm;
+    private int threads;
+
+    public ApkContentDigest(String algorithm) {
+        this.algorithm = algorithm;
+        this.threads = 1;
+    }
+    public ApkContentDigest() {
+        this("SHA-256");
+    }
+
+    public String getAlgorithm() {
+        return algorithm;
+    }
+    public int getThreads() {
+        return threads;
+    }
+    public void setThreads(int threads) {
+        if (threads < 1) {
+            threads = 1;
+        }
+        this.threads = threads;
+    }
+
+    public byte[] digest(ContentSource ... sections) throws IOException {
+        return digest(new byte[0], sections);
+    }
+    /**
+     * Digests the given sections following the first section already digested while
+     * written to the stream.
+     * */
+    public byte[] digest(ContentDigestStream firstSection, ContentSource ... sections) throws IOException {
+        return digest(firstSection.finish(), sections);
+    }
+    private byte[] digest(byte[] leadingDigests, ContentSource[] sections) throws IOException {
+        int digestLength = newMessageDigest().getDigestLength();
+        int leading = leadingDigests.length / digestLength;
+        int count = leading;
+        for (ContentSource section : sections) {
+            count += countChunks(section.length());
+        }
+        byte[] chunkDigests = new byte[count * digestLength];
+        System.arraycopy(leadingDigests, 0, chunkDigests, 0, leadingDigests.length);
+        int threads = Math.min(getThreads(), count - leading);
+        if (threads > 1) {
+            digestChunksConcurrent(sections, chunkDigests, leading, digestLength, threads);
+        } else {
+            digestChunks(sections, chunkDigests, leading, digestLength);
+        }
+        MessageDigest messageDigest = newMessageDigest();
+        byte[] prefix = new byte[5];
+        prefix[0] = 0x5a;
+        putInt(prefix, 1, count);
+        messageDigest.update(prefix);
+        messageDigest.update(chunkDigests);
+        return messageDigest.digest();
+    }
+    private void digestChunks(ContentSource[] sections, byte[] chunkDigests, int index, int digestLength) throws IOException {
+        MessageDigest messageDigest = newMessageDigest();
+        byte[] buffer = new byte[CHUNK_SIZE];
+        for (ContentSource section : sections) {
+            long length = section.length();
+            for (long position = 0; position < length; position += CHUNK_SIZE) {
+                digestChunk(messageDigest, buffer, section, position,
+                        chunkDigests, index * digestLength);
+                index ++;
+            }
+        }
+    }
+    private void digestChunksConcurrent(ContentSource[] sections, byte[] chunkDigests, int index,
+                                        int digestLength, int threads) throws IOException {
+        ThreadLocal<MessageDigest> localDigest = ThreadLocal.withInitial(this::newMessageDigestUnchecked);
+        ThreadLocal<byte[]> localBuffer = ThreadLocal.withInitial(() -> new byte[CHUNK_SIZE]);
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            int maxPending = threads * 2;
+            LinkedList<Future<?>> futures = new LinkedList<>();
+            for (ContentSource section : sections) {
+                long length = section.length();
+                for (long position = 0; position < length; position += CHUNK_SIZE) {
+                    long chunkPosition = position;
+                    int outOffset = index * digestLength;
+                    futures.add(executor.submit(() -> {
+                        digestChunk(localDigest.get(), localBuffer.get(), section, chunkPosition,
+                                chunkDigests, outOffset);
+                        return null;
+                    }));
+                    index ++;
+                    if (futures.size() >= maxPending) {
+                        await(futures.poll());
+                    }
+                }
+            }
+            while (!futures.isEmpty()) {
+                await(futures.poll());
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+    private static void digestChunk(MessageDigest messageDigest, byte[] buffer, ContentSource section,
+                                    long position, byte[] out, int outOffset) throws IOException {
+        int length = (int) Math.min(CHUNK_SIZE, section.length() - position);
+        section.read(position, buffer, 0, length);
+        digestChunk(messageDigest, buffer, length, out, outOffset);
+    }
+    static void digestChunk(MessageDigest messageDigest, byte[] buffer, int length,
+                            byte[] out, int outOffset) {
+        byte[] prefix = new byte[5];
+        prefix[0] = (byte) 0xa5;
+        putInt(prefix, 1, length);
+        messageDigest.reset();
+        messageDigest.update(prefix);
+        messageDigest.update(buffer, 0, length);
+        byte[] digest = messageDigest.digest();
+        System.arraycopy(digest, 0, out, outOffset, digest.length);
+    }
+    static void await(Future<?> future) throws IOException {
+        try {
+            future.get();
+        } catch (InterruptedException exception) {
+            Thread.currentThread().interrupt();
+            throw new IOException(exception);
+        } catch (ExecutionException exception) {
+            Throwable cause = exception.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            }
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new IOException(cause);
+        }
+    }
+    MessageDigest newMessageDigest() throws IOException {
+        try {
+            return MessageDigest.getInstance(getAlgorithm());
+        } catch (NoSuchAlgorithmException exception) {
+            throw new IOException(exception);
+        }
+    }
+    private MessageDigest newMessageDigestUnchecked() {
+        try {
+            return MessageDigest.getInstance(getAlgorithm());
+        } catch (NoSuchAlgorithmException exception) {
+            throw new IllegalStateException(exception);
+        }
+    }
+
+    static int countChunks(long length) {
+        return (int) ((length + CHUNK_SIZE - 1) / CHUNK_SIZE);
+    }
+    static void putInt(byte[] bytes, int offset, int value) {
+        bytes[offset] = (byte) value;
+        bytes[offset + 1] = (byte) (value >>> 8);
+        bytes[offset + 2] = (byte) (value >>> 16);
+        bytes[offset + 3] = (byte) (value >>> 24);
+    }
+}
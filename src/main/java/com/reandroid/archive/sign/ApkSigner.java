@@ -0,0 +1,336 @@
+/*
+ *  Copyright (C) 2022 github.com/REAndroid
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.reandroid.archive.sign;
+
+import com.reandroid.archive.block.ApkSignatureBlock;
+import com.reandroid.archive.block.SignatureId;
+import com.reandroid.archive.block.SignatureInfo;
+import com.reandroid.arsc.io.BlockReader;
+import com.reandroid.common.BytesOutputStream;
+import com.reandroid.utils.collection.ArrayCollection;
+
+import java.io.IOException;
+import java.security.GeneralSecurityException;
+import java.security.PrivateKey;
+import java.security.PublicKey;
+import java.security.Signature;
+import java.security.cert.CertificateEncodingException;
+import java.security.cert.X509Certificate;
+import java.util.List;
+
+/**
+ * Produces {@link ApkSignatureBlock} of APK signature scheme v2 and/or v3 for a single
+ * signer. Set to {@link com.reandroid.archive.writer.ApkWriter#setApkSigner(ApkSigner)}
+ * to sign while writing, the writer digests entries as they are written then digests
+ * central directory before inserting the block.
+ * */
+public class ApkSigner {
+
+    public static final int SIGNATURE_RSA_PKCS1_V1_5_WITH_SHA256 = 0x0103;
+    public static final int SIGNATURE_RSA_PKCS1_V1_5_WITH_SHA512 = 0x0104;
+    public static final int SIGNATURE_ECDSA_WITH_SHA256 = 0x0201;
+    public static final int SIGNATURE_ECDSA_WITH_SHA512 = 0x0202;
+    public static final int SIGNATURE_DSA_WITH_SHA256 = 0x0301;
+
+    public static final int ATTRIBUTE_STRIPPING_PROTECTION = 0xbeeff00d;
+    public static final int V3_MIN_SDK_VERSION = 28;
+
+    private final PrivateKey privateKey;
+    private final List<X509Certificate> certificates;
+    private boolean v2Enabled;
+    private boolean v3Enabled;
+    private int minSdkVersion;
+    private int maxSdkVersion;
+    private int threads;
+
+    public ApkSigner(PrivateKey privateKey, List<X509Certificate> certificates) {
+        if (certificates == null || certificates.isEmpty()) {
+            throw new IllegalArgumentException("Empty certificates");
+        }
+        this.privateKey = privateKey;
+        this.certificates = new ArrayCollection<>(certificates);
+        this.v2Enabled = true;
+        this.v3Enabled = true;
+        this.minSdkVersion = V3_MIN_SDK_VERSION;
+        this.maxSdkVersion = Integer.MAX_VALUE;
+        this.threads = 1;
+    }
+
+    public ApkSignatureBlock sign(ContentSource entries, byte[] centralDirectory, byte[] endRecord) throws IOException {
+        checkEnabled();
+        byte[] digest = newContentDigest().digest(entries,
+                ContentSource.of(centralDirectory), ContentSource.of(endRecord));
+        return createSignatureBlock(digest);
+    }
+    /**
+     * Signs entries digested while written to the given stream (obtained from
+     * {@link #newContentDigestStream()}) followed by central directory and end record.
+     * */
+    public ApkSignatureBlock sign(ContentDigestStream entries, byte[] centralDirectory, byte[] endRecord) throws IOException {
+        checkEnabled();
+        byte[] digest = entries.getContentDigest().digest(entries,
+                ContentSource.of(centralDirectory), ContentSource.of(endRecord));
+        return createSignatureBlock(digest);
+    }
+    public ContentDigestStream newContentDigestStream() throws IOException {
+        checkEnabled();
+        getSignatureAlgorithm();
+        return new ContentDigestStream(newContentDigest());
+    }
+    private ApkContentDigest newContentDigest() {
+        ApkContentDigest contentDigest = new ApkContentDigest("SHA-256");
+        contentDigest.setThreads(getThreads());
+        return contentDigest;
+    }
+    private void checkEnabled() throws IOException {
+        if (!isV2Enabled() && !isV3Enabled()) {
+            throw new IOException("No signature scheme enabled");
+        }
+    }
+    private ApkSignatureBlock createSignatureBlock(byte[] digest) throws IOException {
+        ApkSignatureBlock signatureBlock = new ApkSignatureBlock();
+        if (isV2Enabled()) {
+            signatureBlock.add(toSignatureInfo(SignatureId.V2, encodeV2(digest)));
+        }
+        if (isV3Enabled()) {
+            signatureBlock.add(toSignatureInfo(SignatureId.V3, encodeV3(digest)));
+        }
+        signatureBlock.sortSignatures();
+        return signatureBlock;
+    }
+
+    private byte[] encodeV2(byte[] digest) throws IOException {
+        int algorithm = getSignatureAlgorithm();
+        List<byte[]> attributes = new ArrayCollection<>();
+        if (isV3Enabled()) {
+            attributes.add(concat(int32(ATTRIBUTE_STRIPPING_PROTECTION), int32(3)));
+        }
+        byte[] signedData = concat(
+                lengthPrefixed(encodeDigests(algorithm, digest)),
+                lengthPrefixed(encodeCertificates()),
+                lengthPrefixed(sequence(attributes)));
+        byte[] signer = concat(
+                lengthPrefixed(signedData),
+                lengthPrefixed(encodeSignatures(algorithm, signedData)),
+                lengthPrefixed(encodePublicKey()));
+        return lengthPrefixed(sequenceOf(signer));
+    }
+    private byte[] encodeV3(byte[] digest) throws IOException {
+        int algorithm = getSignatureAlgorithm();
+        byte[] sdkVersions = concat(int32(getMinSdkVersion()), int32(getMaxSdkVersion()));
+        byte[] signedData = concat(
+                lengthPrefixed(encodeDigests(algorithm, digest)),
+                lengthPrefixed(encodeCertificates()),
+                sdkVersions,
+                lengthPrefixed(new byte[0]));
+        byte[] signer = concat(
+                lengthPrefixed(signedData),
+                sdkVersions,
+                lengthPrefixed(encodeSignatures(algorithm, signedData)),
+                lengthPrefixed(encodePublicKey()));
+        return lengthPrefixed(sequenceOf(signer));
+    }
+    private byte[] encodeDigests(int algorithm, byte[] digest) {
+        return sequenceOf(concat(int32(algorithm), lengthPrefixed(digest)));
+    }
+    private byte[] encodeCertificates() throws IOException {
+        List<byte[]> results = new ArrayCollection<>();
+        for (X509Certificate certificate : certificates) {
+            try {
+                results.add(certificate.getEncoded());
+            } catch (CertificateEncodingException exception) {
+                throw new IOException(exception);
+            }
+        }
+        return sequence(results);
+    }
+    private byte[] encodeSignatures(int algorithm, byte[] signedData) throws IOException {
+        byte[] signature;
+        try {
+            Signature instance = Signature.getInstance(getJcaSignatureAlgorithm(algorithm));
+            instance.initSign(privateKey);
+            instance.update(signedData);
+            signature = instance.sign();
+        } catch (GeneralSecurityException exception) {
+            throw new IOException("Failed to sign: " + exception.getMessage(), exception);
+        }
+        return sequenceOf(concat(int32(algorithm), lengthPrefixed(signature)));
+    }
+    private byte[] encodePublicKey() {
+        return getPublicKey().getEncoded();
+    }
+    private SignatureInfo toSignatureInfo(SignatureId signatureId, byte[] value) throws IOException {
+        BytesOutputStream outputStream = new BytesOutputStream(value.length + 12);
+        long size = value.length + 4;
+        outputStream.write(int32((int) size));
+        outputStream.write(int32((int) (size >>> 32)));
+        outputStream.write(int32(signatureId.getId()));
+        outputStream.write(value);
+        SignatureInfo signatureInfo = new SignatureInfo();
+        signatureInfo.readBytes(new BlockReader(outputStream.toByteArray()));
+        return signatureInfo;
+    }
+
+    public PublicKey getPublicKey() {
+        return certificates.get(0).getPublicKey();
+    }
+    public List<X509Certificate> getCertificates() {
+        return certificates;
+    }
+    public int getSignatureAlgorithm() throws IOException {
+        String name = privateKey.getAlgorithm();
+        if ("RSA".equalsIgnoreCase(name)) {
+            return SIGNATURE_RSA_PKCS1_V1_5_WITH_SHA256;
+        }
+        if ("EC".equalsIgnoreCase(name)) {
+            return SIGNATURE_ECDSA_WITH_SHA256;
+        }
+        if ("DSA".equalsIgnoreCase(name)) {
+            return SIGNATURE_DSA_WITH_SHA256;
+        }
+        throw new IOException("Unsupported key algorithm: " + name);
+    }
+    public boolean isV2Enabled() {
+        return v2Enabled;
+    }
+    public void setV2Enabled(boolean v2Enabled) {
+        this.v2Enabled = v2Enabled;
+    }
+    public boolean isV3Enabled() {
+        return v3Enabled;
+    }
+    public void setV3Enabled(boolean v3Enabled) {
+        this.v3Enabled = v3Enabled;
+    }
+    public int getMinSdkVersion() {
+        return minSdkVersion;
+    }
+    /**
+     * Sets the minimum sdk version declared on v3 signer, values below 28 are raised to 28
+     * since v3 is not verified on older platforms.
+     * */
+    public void setMinSdkVersion(int minSdkVersion) {
+        this.minSdkVersion = Math.max(V3_MIN_SDK_VERSION, minSdkVersion);
+    }
+    public int getMaxSdkVersion() {
+        return maxSdkVersion;
+    }
+    public void setMaxSdkVersion(int maxSdkVersion) {
+        this.maxSdkVersion = maxSdkVersion;
+    }
+    public int getThreads() {
+        return threads;
+    }
+    /**
+     * Sets number of threads used to digest 1 MB content chunks.
+     * */
+    public void setThreads(int threads) {
+        if (threads < 1) {
+            threads = 1;
+        }
+        this.threads = threads;
+    }
+
+    public static String getJcaSignatureAlgorithm(int algorithm) throws IOException {
+        if (algorithm == SIGNATURE_RSA_PKCS1_V1_5_WITH_SHA256) {
+            return "SHA256withRSA";
+        }
+        if (algorithm == SIGNATURE_RSA_PKCS1_V1_5_WITH_SHA512) {
+            return "SHA512withRSA";
+        }
+        if (algorithm == SIGNATURE_ECDSA_WITH_SHA256) {
+            return "SHA256withECDSA";
+        }
+        if (algorithm == SIGNATURE_ECDSA_WITH_SHA512) {
+            return "SHA512withECDSA";
+        }
+        if (algorithm == SIGNATURE_DSA_WITH_SHA256) {
+            return "SHA256withDSA";
+        }
+        throw new IOException("Unsupported signature algorithm: 0x"
+                + Integer.toHexString(algorithm));
+    }
+
+    /**
+     * Returns algorithm of the chunked content digest signed by the given signature algorithm
+     * */
+    public static String getContentDigestAlgorithm(int algorithm) throws IOException {
+        if (algorithm == SIGNATURE_RSA_PKCS1_V1_5_WITH_SHA512
+                || algorithm == SIGNATURE_ECDSA_WITH_SHA512) {
+            return "SHA-512";
+        }
+        getJcaSignatureAlgorithm(algorithm);
+        return "SHA-256";
+    }
+    /**
+     * Returns {@link java.security.KeyFactory} algorithm of the signer public key
+     * */
+    public static String getKeyAlgorithm(int algorithm) throws IOException {
+        if (algorithm == SIGNATURE_RSA_PKCS1_V1_5_WITH_SHA256
+                || algorithm == SIGNATURE_RSA_PKCS1_V1_5_WITH_SHA512) {
+            return "RSA";
+        }
+        if (algorithm == SIGNATURE_ECDSA_WITH_SHA256
+                || algorithm == SIGNATURE_ECDSA_WITH_SHA512) {
+            return "EC";
+        }
+        if (algorithm == SIGNATURE_DSA_WITH_SHA256) {
+            return "DSA";
+        }
+        throw new IOException("Unsupported signature algorithm: 0x"
+                + Integer.toHexString(algorithm));
+    }
+
+    static byte[] int32(int value) {
+        byte[] bytes = new byte[4];
+        ApkContentDigest.putInt(bytes, 0, value);
+        return bytes;
+    }
+    static byte[] lengthPrefixed(byte[] bytes) {
+        return concat(int32(bytes.length), bytes);
+    }
+    static byte[] sequenceOf(byte[] element) {
+        return lengthPrefixed(element);
+    }
+    static byte[] sequence(List<byte[]> elements) {
+        int length = 0;
+        for (byte[] element : elements) {
+            length += 4 + element.length;
+        }
+        byte[] result = new byte[length];
+        int offset = 0;
+        for (byte[] element : elements) {
+            ApkContentDigest.putInt(result, offset, element.length);
+            offset += 4;
+            System.arraycopy(element, 0, result, offset, element.length);
+            offset += element.length;
+        }
+        return result;
+    }
+    static byte[] concat(byte[] ... arrays) {
+        int length = 0;
+        for (byte[] array : arrays) {
+            length += array.length;
+        }
+        byte[] result = new byte[length];
+        int offset = 0;
+        for (byte[] array : arrays) {
+            System.arraycopy(array, 0, result, offset, array.length);
+            offset += array.length;
+        }
+        return result;
+    }
+}
@@ -0,0 +1,86 @@
+/*
+ *  Copyright (C) 2022 github.com/REAndroid
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.reandroid.archive.sign;
+
+import com.reandroid.utils.collection.ArrayCollection;
+
+import java.security.cert.X509Certificate;
+import java.util.List;
+
+/**
+ * Outcome of {@link ApkVerifier#verify()}. An apk is verified if at least one of v2 or v3
+ * schemes is present and no error is recorded on any present scheme.
+ * */
+public class ApkVerificationResult {
+
+    private final List<X509Certificate> certificates;
+    private final List<String> errors;
+    private boolean verifiedV2;
+    private boolean verifiedV3;
+
+    public ApkVerificationResult() {
+        this.certificates = new ArrayCollection<>();
+        this.errors = new ArrayCollection<>();
+    }
+
+    public boolean isVerified() {
+        return errors.isEmpty() && (verifiedV2 || verifiedV3);
+    }
+    public boolean isVerifiedV2() {
+        return verifiedV2;
+    }
+    void setVerifiedV2(boolean verifiedV2) {
+        this.verifiedV2 = verifiedV2;
+    }
+    public boolean isVerifiedV3() {
+        return verifiedV3;
+    }
+    void setVerifiedV3(boolean verifiedV3) {
+        this.verifiedV3 = verifiedV3;
+    }
+    /**
+     * Returns certificate chain of the first signer, taken from v3 scheme when present
+     * */
+    public List<X509Certificate> getCertificates() {
+        return certificates;
+    }
+    void setCertificates(List<X509Certificate> certificates) {
+        this.certificates.clear();
+        this.certificates.addAll(certificates);
+    }
+    public List<String> getErrors() {
+        return errors;
+    }
+    void addError(String error) {
+        this.errors.add(error);
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder builder = new StringBuilder();
+        builder.append("verified=");
+        builder.append(isVerified());
+        builder.append(", v2=");
+        builder.append(isVerifiedV2());
+        builder.append(", v3=");
+        builder.append(isVerifiedV3());
+        for (String error : getErrors()) {
+            builder.append("\n  ");
+            builder.append(error);
+        }
+        return builder.toString();
+    }
+}
@@ -0,0 +1,355 @@
+/*
+ *  Copyright (C) 2022 github.com/REAndroid
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.reandroid.archive.sign;
+
+import com.reandroid.archive.ArchiveFile;
+import com.reandroid.archive.block.EndRecord;
+import com.reandroid.archive.block.SignatureId;
+import com.reandroid.archive.io.ZipFileInput;
+import com.reandroid.utils.collection.ArrayCollection;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.KeyFactory;
+import java.security.PublicKey;
+import java.security.Signature;
+import java.security.cert.CertificateFactory;
+import java.security.cert.X509Certificate;
+import java.security.spec.X509EncodedKeySpec;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Verifies APK signature scheme v2 and v3 of an {@link ArchiveFile}. The signing block is
+ * located from end record and read as raw bytes, content digests are recomputed over
+ * the memory mapped (when the input is mapped) file in 1 MB chunks on {@link #getThreads()}
+ * workers, each digest algorithm is computed once and shared across schemes and signers.
+ * Signatures with algorithms not available on java 8 (RSA-PSS, verity) are skipped.
+ * */
+public class ApkVerifier {
+
+    private static final byte[] SIGNING_BLOCK_MAGIC = "APK Sig Block 42".getBytes(StandardCharsets.US_ASCII);
+
+    private final ArchiveFile archive;
+    private final Map<String, byte[]> contentDigests;
+    private int threads;
+
+    public ApkVerifier(ArchiveFile archive) {
+        this.archive = archive;
+        this.contentDigests = new HashMap<>();
+        this.threads = 1;
+    }
+
+    public int getThreads() {
+        return threads;
+    }
+    /**
+     * Sets number of threads used to digest 1 MB content chunks.
+     * */
+    public void setThreads(int threads) {
+        if (threads < 1) {
+            threads = 1;
+        }
+        this.threads = threads;
+    }
+
+    public ApkVerificationResult verify() throws IOException {
+        ApkVerificationResult result = new ApkVerificationResult();
+        contentDigests.clear();
+        EndRecord endRecord = archive.getEndRecord();
+        if (endRecord.getZip64Record() != null) {
+            result.addError("ZIP64 archive is not supported");
+            return result;
+        }
+        ZipFileInput zipInput = archive.getZipInput();
+        long cdOffset = endRecord.getOffsetOfCentralDirectory();
+        long cdLength = endRecord.getLengthOfCentralDirectory();
+        long eocdOffset = cdOffset + cdLength;
+        long fileLength = zipInput.getLength();
+        if (cdOffset < 32 || eocdOffset + EndRecord.MIN_LENGTH > fileLength) {
+            result.addError("No APK signing block");
+            return result;
+        }
+        ByteBuffer footer = order(zipInput.getByteBuffer(cdOffset - 24, 24));
+        long blockSize = footer.getLong();
+        byte[] magic = new byte[SIGNING_BLOCK_MAGIC.length];
+        footer.get(magic);
+        if (!Arrays.equals(SIGNING_BLOCK_MAGIC, magic)) {
+            result.addError("No APK signing block");
+            return result;
+        }
+        long blockOffset = cdOffset - blockSize - 8;
+        if (blockSize < 24 || blockOffset < 0
+                || order(zipInput.getByteBuffer(blockOffset, 8)).getLong() != blockSize) {
+            result.addError("Invalid APK signing block size: " + blockSize);
+            return result;
+        }
+        ByteBuffer v2 = null;
+        ByteBuffer v3 = null;
+        ByteBuffer pairs = order(zipInput.getByteBuffer(blockOffset + 8, blockSize - 24));
+        try {
+            while (pairs.hasRemaining()) {
+                long pairLength = pairs.getLong();
+                if (pairLength < 4 || pairLength > pairs.remaining()) {
+                    result.addError("Invalid APK signing block entry length: " + pairLength);
+                    return result;
+                }
+                int id = pairs.getInt();
+                ByteBuffer value = slice(pairs, (int) pairLength - 4);
+                if (id == SignatureId.V2.getId()) {
+                    v2 = value;
+                } else if (id == SignatureId.V3.getId()) {
+                    v3 = value;
+                }
+            }
+        } catch (BufferUnderflowException exception) {
+            result.addError("Truncated APK signing block");
+            return result;
+        }
+        if (v2 == null && v3 == null) {
+            result.addError("No v2 or v3 signature");
+            return result;
+        }
+        byte[] endRecordBytes = new byte[(int) (fileLength - eocdOffset)];
+        zipInput.getByteBuffer(eocdOffset, endRecordBytes.length).get(endRecordBytes);
+        ApkContentDigest.putInt(endRecordBytes, 16, (int) blockOffset);
+        ContentSource[] sections = new ContentSource[]{
+                toContentSource(zipInput, 0, blockOffset),
+                toContentSource(zipInput, cdOffset, cdLength),
+                ContentSource.of(endRecordBytes)
+        };
+        if (v3 != null) {
+            List<X509Certificate> certificates = verifyScheme(result, "v3", v3, true, sections);
+            if (certificates != null) {
+                result.setVerifiedV3(true);
+                result.setCertificates(certificates);
+            }
+        }
+        if (v2 != null) {
+            List<X509Certificate> certificates = verifyScheme(result, "v2", v2, false, sections);
+            if (certificates != null) {
+                result.setVerifiedV2(true);
+                if (!result.isVerifiedV3()) {
+                    result.setCertificates(certificates);
+                }
+            }
+        }
+        return result;
+    }
+
+    private List<X509Certificate> verifyScheme(ApkVerificationResult result, String name,
+                                               ByteBuffer scheme, boolean v3,
+                                               ContentSource[] sections) throws IOException {
+        List<X509Certificate> first = null;
+        int errors = result.getErrors().size();
+        try {
+            ByteBuffer signers = prefixed(scheme);
+            int index = 0;
+            while (signers.hasRemaining()) {
+                String signerName = name + " signer #" + index;
+                List<X509Certificate> certificates = verifySigner(result, signerName,
+                        prefixed(signers), v3, sections);
+                if (first == null) {
+                    first = certificates;
+                }
+                index ++;
+            }
+            if (index == 0) {
+                result.addError(name + ": no signers");
+            }
+        } catch (BufferUnderflowException | IllegalArgumentException exception) {
+            result.addError(name + ": malformed signature data");
+        }
+        if (result.getErrors().size() != errors) {
+            return null;
+        }
+        return first;
+    }
+    private List<X509Certificate> verifySigner(ApkVerificationResult result, String name, ByteBuffer signer,
+                                               boolean v3, ContentSource[] sections) throws IOException {
+        ByteBuffer signedData = prefixed(signer);
+        int minSdk = 0;
+        int maxSdk = 0;
+        if (v3) {
+            minSdk = signer.getInt();
+            maxSdk = signer.getInt();
+        }
+        ByteBuffer signatures = prefixed(signer);
+        byte[] publicKeyBytes = toByteArray(prefixed(signer));
+
+        List<Integer> algorithms = new ArrayCollection<>();
+        Map<Integer, byte[]> verified = new HashMap<>();
+        PublicKey publicKey = null;
+        while (signatures.hasRemaining()) {
+            ByteBuffer signature = prefixed(signatures);
+            int algorithm = signature.getInt();
+            byte[] signatureBytes = toByteArray(prefixed(signature));
+            algorithms.add(algorithm);
+            String jcaName;
+            try {
+                jcaName = ApkSigner.getJcaSignatureAlgorithm(algorithm);
+            } catch (IOException ignored) {
+                continue;
+            }
+            try {
+                if (publicKey == null) {
+                    publicKey = KeyFactory.getInstance(ApkSigner.getKeyAlgorithm(algorithm))
+                            .generatePublic(new X509EncodedKeySpec(publicKeyBytes));
+                }
+                Signature instance = Signature.getInstance(jcaName);
+                instance.initVerify(publicKey);
+                instance.update(signedData.duplicate());
+                if (!instance.verify(signatureBytes)) {
+                    result.addError(name + ": signature did not verify, algorithm = 0x"
+                            + Integer.toHexString(algorithm));
+                    return null;
+                }
+            } catch (GeneralSecurityException exception) {
+                result.addError(name + ": failed to verify signature, " + exception.getMessage());
+                return null;
+            }
+            verified.put(algorithm, signatureBytes);
+        }
+        if (verified.isEmpty()) {
+            result.addError(name + ": no supported signatures, algorithms = " + algorithms);
+            return null;
+        }
+
+        ByteBuffer digests = prefixed(signedData);
+        ByteBuffer encodedCertificates = prefixed(signedData);
+        if (v3) {
+            if (signedData.getInt() != minSdk || signedData.getInt() != maxSdk) {
+                result.addError(name + ": sdk versions mismatch between signer and signed data");
+                return null;
+            }
+        }
+        ByteBuffer attributes = prefixed(signedData);
+        List<Integer> digestAlgorithms = new ArrayCollection<>();
+        while (digests.hasRemaining()) {
+            ByteBuffer digest = prefixed(digests);
+            int algorithm = digest.getInt();
+            byte[] digestBytes = toByteArray(prefixed(digest));
+            digestAlgorithms.add(algorithm);
+            if (!verified.containsKey(algorithm)) {
+                continue;
+            }
+            byte[] expected = getContentDigest(ApkSigner.getContentDigestAlgorithm(algorithm), sections);
+            if (!Arrays.equals(expected, digestBytes)) {
+                result.addError(name + ": content digest mismatch, algorithm = 0x"
+                        + Integer.toHexString(algorithm));
+                return null;
+            }
+        }
+        if (!algorithms.equals(digestAlgorithms)) {
+            result.addError(name + ": signature and digest algorithms mismatch");
+            return null;
+        }
+        List<X509Certificate> certificates = new ArrayCollection<>();
+        try {
+            CertificateFactory factory = CertificateFactory.getInstance("X.509");
+            while (encodedCertificates.hasRemaining()) {
+                byte[] encoded = toByteArray(prefixed(encodedCertificates));
+                certificates.add((X509Certificate) factory.generateCertificate(
+                        new ByteArrayInputStream(encoded)));
+            }
+        } catch (GeneralSecurityException exception) {
+            result.addError(name + ": failed to decode certificate, " + exception.getMessage());
+            return null;
+        }
+        if (certificates.isEmpty()) {
+            result.addError(name + ": no certificates");
+            return null;
+        }
+        if (!Arrays.equals(publicKeyBytes, certificates.get(0).getPublicKey().getEncoded())) {
+            result.addError(name + ": public key mismatch with certificate");
+            return null;
+        }
+        if (!v3) {
+            while (attributes.hasRemaining()) {
+                ByteBuffer attribute = prefixed(attributes);
+                if (attribute.getInt() == ApkSigner.ATTRIBUTE_STRIPPING_PROTECTION
+                        && attribute.getInt() == 3 && !result.isVerifiedV3()) {
+                    result.addError(name + ": v3 signature is stripped");
+                    return null;
+                }
+            }
+        }
+        return certificates;
+    }
+    private byte[] getContentDigest(String algorithm, ContentSource[] sections) throws IOException {
+        byte[] digest = contentDigests.get(algorithm);
+        if (digest == null) {
+            ApkContentDigest contentDigest = new ApkContentDigest(algorithm);
+            contentDigest.setThreads(getThreads());
+            digest = contentDigest.digest(sections);
+            contentDigests.put(algorithm, digest);
+        }
+        return digest;
+    }
+
+    private static ContentSource toContentSource(ZipFileInput zipInput, long offset, long length) throws IOException {
+        if (zipInput.isMemoryMapped()) {
+            return ContentSource.of(zipInput.getByteBuffer(offset, length));
+        }
+        return ContentSource.of(zipInput.getFileChannel(), offset, length);
+    }
+    private static ByteBuffer order(ByteBuffer buffer) {
+        return buffer.order(ByteOrder.LITTLE_ENDIAN);
+    }
+    private static ByteBuffer prefixed(ByteBuffer buffer) {
+        int length = buffer.getInt();
+        if (length < 0 || length > buffer.remaining()) {
+            throw new BufferUnderflowException();
+        }
+        return slice(buffer, length);
+    }
+    private static ByteBuffer slice(ByteBuffer buffer, int length) {
+        ByteBuffer result = order(buffer.slice());
+        result.limit(length);
+        buffer.position(buffer.position() + length);
+        return result;
+    }
+    private static byte[] toByteArray(ByteBuffer buffer) {
+        byte[] bytes = new byte[buffer.remaining()];
+        buffer.get(bytes);
+        return bytes;
+    }
+
+    public static ApkVerificationResult verify(File file) throws IOException {
+        return verify(file, 1);
+    }
+    /**
+     * Verifies the file on memory mapped view with given number of digest threads
+     * */
+    public static ApkVerificationResult verify(File file, int threads) throws IOException {
+        ArchiveFile archive = new ArchiveFile(file, true);
+        try {
+            ApkVerifier verifier = new ApkVerifier(archive);
+            verifier.setThreads(threads);
+            return verifier.verify();
+        } finally {
+            archive.close();
+        }
+    }
+}
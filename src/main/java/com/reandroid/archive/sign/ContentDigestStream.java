@@ -0,0 +1,210 @@
+/*
+ *  Copyright (C) 2022 github.com/REAndroid
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.reandroid.archive.sign;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.security.MessageDigest;
+import java.util.LinkedList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Digests a section of {@link ApkContentDigest} from bytes as they are written, e.g. set as
+ * {@link com.reandroid.archive.io.ZipOutput#setCopyStream(OutputStream)} to digest zip
+ * entries while writing them. Each filled 1 MB chunk is digested immediately, on a worker
+ * pool when threads is greater than one, thus the section is never read back.
+ * Also writable as channel, so direct or mapped buffers are copied straight to chunk buffer.
+ * */
+public class ContentDigestStream extends OutputStream implements WritableByteChannel {
+
+    private final ApkContentDigest contentDigest;
+    private final MessageDigest messageDigest;
+    private final int digestLength;
+    private byte[] chunkDigests;
+    private int count;
+    private byte[] buffer;
+    private int bufferLength;
+    private long length;
+    private ExecutorService executor;
+    private LinkedList<PendingChunk> pendingChunks;
+    private LinkedList<byte[]> freeBuffers;
+    private boolean finished;
+
+    public ContentDigestStream(ApkContentDigest contentDigest) throws IOException {
+        this.contentDigest = contentDigest;
+        this.messageDigest = contentDigest.newMessageDigest();
+        this.digestLength = messageDigest.getDigestLength();
+        this.chunkDigests = new byte[digestLength * 16];
+        this.buffer = new byte[ApkContentDigest.CHUNK_SIZE];
+    }
+
+    public ApkContentDigest getContentDigest() {
+        return contentDigest;
+    }
+    /**
+     * Number of bytes written so far
+     * */
+    public long length() {
+        return length;
+    }
+    @Override
+    public void write(int i) throws IOException {
+        write(new byte[]{(byte) i}, 0, 1);
+    }
+    @Override
+    public void write(byte[] bytes, int offset, int length) throws IOException {
+        if (finished) {
+            throw new IOException("Already finished");
+        }
+        this.length += length;
+        while (length > 0) {
+            int amount = Math.min(length, ApkContentDigest.CHUNK_SIZE - bufferLength);
+            System.arraycopy(bytes, offset, buffer, bufferLength, amount);
+            bufferLength += amount;
+            offset += amount;
+            length -= amount;
+            if (bufferLength == ApkContentDigest.CHUNK_SIZE) {
+                flushChunk();
+            }
+        }
+    }
+    @Override
+    public int write(ByteBuffer source) throws IOException {
+        if (finished) {
+            throw new IOException("Already finished");
+        }
+        int result = source.remaining();
+        this.length += result;
+        while (source.hasRemaining()) {
+            int amount = Math.min(source.remaining(), ApkContentDigest.CHUNK_SIZE - bufferLength);
+            source.get(buffer, bufferLength, amount);
+            bufferLength += amount;
+            if (bufferLength == ApkContentDigest.CHUNK_SIZE) {
+                flushChunk();
+            }
+        }
+        return result;
+    }
+    @Override
+    public boolean isOpen() {
+        return !finished;
+    }
+    /**
+     * Digests the last partial chunk and waits for pending chunks, returns concatenated
+     * chunk digests in order of content.
+     * */
+    public byte[] finish() throws IOException {
+        if (!finished) {
+            if (bufferLength > 0) {
+                flushChunk();
+            }
+            finished = true;
+            try {
+                awaitPending(0);
+            } finally {
+                shutdown();
+            }
+        }
+        byte[] result = new byte[count * digestLength];
+        System.arraycopy(chunkDigests, 0, result, 0, result.length);
+        return result;
+    }
+    @Override
+    public void close() {
+        shutdown();
+    }
+    private void flushChunk() throws IOException {
+        int index = count;
+        count ++;
+        ensureCapacity();
+        int threads = contentDigest.getThreads();
+        if (threads > 1) {
+            submitChunk(threads, index);
+        } else {
+            ApkContentDigest.digestChunk(messageDigest, buffer, bufferLength,
+                    chunkDigests, index * digestLength);
+        }
+        bufferLength = 0;
+    }
+    private void submitChunk(int threads, int index) throws IOException {
+        if (executor == null) {
+            executor = Executors.newFixedThreadPool(threads);
+            pendingChunks = new LinkedList<>();
+            freeBuffers = new LinkedList<>();
+        }
+        awaitPending(threads * 2 - 1);
+        byte[] chunk = buffer;
+        int chunkLength = bufferLength;
+        byte[] out = new byte[digestLength];
+        Future<?> future = executor.submit(() -> {
+            ApkContentDigest.digestChunk(contentDigest.newMessageDigest(), chunk,
+                    chunkLength, out, 0);
+            return null;
+        });
+        pendingChunks.add(new PendingChunk(future, chunk, out, index));
+        byte[] free = freeBuffers.poll();
+        if (free == null) {
+            free = new byte[ApkContentDigest.CHUNK_SIZE];
+        }
+        buffer = free;
+    }
+    private void awaitPending(int maxPending) throws IOException {
+        LinkedList<PendingChunk> pendingChunks = this.pendingChunks;
+        if (pendingChunks == null) {
+            return;
+        }
+        while (pendingChunks.size() > maxPending) {
+            PendingChunk pendingChunk = pendingChunks.poll();
+            ApkContentDigest.await(pendingChunk.future);
+            System.arraycopy(pendingChunk.digest, 0, chunkDigests,
+                    pendingChunk.index * digestLength, digestLength);
+            freeBuffers.add(pendingChunk.buffer);
+        }
+    }
+    private void ensureCapacity() {
+        int required = count * digestLength;
+        if (required > chunkDigests.length) {
+            byte[] update = new byte[Math.max(required, chunkDigests.length * 2)];
+            System.arraycopy(chunkDigests, 0, update, 0, chunkDigests.length);
+            chunkDigests = update;
+        }
+    }
+    private void shutdown() {
+        ExecutorService executor = this.executor;
+        if (executor != null) {
+            this.executor = null;
+            executor.shutdown();
+        }
+    }
+
+    static class PendingChunk {
+        final Future<?> future;
+        final byte[] buffer;
+        final byte[] digest;
+        final int index;
+
+        PendingChunk(Future<?> future, byte[] buffer, byte[] digest, int index) {
+            this.future = future;
+            this.buffer = buffer;
+            this.digest = digest;
+            this.index = index;
+        }
+    }
+}
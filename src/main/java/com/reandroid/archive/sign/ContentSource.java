@@ -0,0 +1,136 @@
+/*
+ *  Copyright (C) 2022 github.com/REAndroid
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.reandroid.archive.sign;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * A read only range of bytes digested by APK signature schemes. Reads are positional,
+ * thus one source can be read from multiple threads at the same time.
+ * */
+public abstract class ContentSource {
+
+    public ContentSource() {
+    }
+
+    public abstract long length();
+    public abstract void read(long position, byte[] buffer, int offset, int length) throws IOException;
+
+    public static ContentSource of(byte[] bytes) {
+        return of(bytes, 0, bytes.length);
+    }
+    public static ContentSource of(byte[] bytes, int offset, int length) {
+        return new ByteContent(bytes, offset, length);
+    }
+    public static ContentSource of(FileChannel fileChannel, long offset, long length) {
+        return new FileChannelContent(fileChannel, offset, length);
+    }
+    /**
+     * Source over the remaining bytes of the buffer, typically a slice of memory mapped file.
+     * Each read works on a duplicate, thus the position of the given buffer is not changed.
+     * */
+    public static ContentSource of(ByteBuffer byteBuffer) {
+        return new ByteBufferContent(byteBuffer.slice());
+    }
+
+    static class ByteContent extends ContentSource {
+
+        private final byte[] bytes;
+        private final int offset;
+        private final int length;
+
+        ByteContent(byte[] bytes, int offset, int length) {
+            super();
+            this.bytes = bytes;
+            this.offset = offset;
+            this.length = length;
+        }
+
+        @Override
+        public long length() {
+            return length;
+        }
+        @Override
+        public void read(long position, byte[] buffer, int offset, int length) throws IOException {
+            if (position < 0 || position + length > this.length) {
+                throw new EOFException("Position = " + position + ", length = " + length
+                        + ", size = " + this.length);
+            }
+            System.arraycopy(bytes, this.offset + (int) position, buffer, offset, length);
+        }
+    }
+    static class ByteBufferContent extends ContentSource {
+
+        private final ByteBuffer byteBuffer;
+
+        ByteBufferContent(ByteBuffer byteBuffer) {
+            super();
+            this.byteBuffer = byteBuffer;
+        }
+
+        @Override
+        public long length() {
+            return byteBuffer.remaining();
+        }
+        @Override
+        public void read(long position, byte[] buffer, int offset, int length) throws IOException {
+            if (position < 0 || position + length > length()) {
+                throw new EOFException("Position = " + position + ", length = " + length
+                        + ", size = " + length());
+            }
+            ByteBuffer duplicate = byteBuffer.duplicate();
+            duplicate.position((int) position);
+            duplicate.get(buffer, offset, length);
+        }
+    }
+    static class FileChannelContent extends ContentSource {
+
+        private final FileChannel fileChannel;
+        private final long offset;
+        private final long length;
+
+        FileChannelContent(FileChannel fileChannel, long offset, long length) {
+            super();
+            this.fileChannel = fileChannel;
+            this.offset = offset;
+            this.length = length;
+        }
+
+        @Override
+        public long length() {
+            return length;
+        }
+        @Override
+        public void read(long position, byte[] buffer, int offset, int length) throws IOException {
+            if (position < 0 || position + length > this.length) {
+                throw new EOFException("Position = " + position + ", length = " + length
+                        + ", size = " + this.length);
+            }
+            ByteBuffer byteBuffer = ByteBuffer.wrap(buffer, offset, length);
+            long filePosition = this.offset + position;
+            while (byteBuffer.hasRemaining()) {
+                int read = fileChannel.read(byteBuffer, filePosition);
+                if (read < 0) {
+                    throw new EOFException("Unexpected end of file at " + filePosition);
+                }
+                filePosition += read;
+            }
+        }
+    }
+}
@@ -23,12 +23,27 @@ import com.reandroid.arsc.chunk.TableBlock;
 
 import java.io.File;
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 public class ApkFileWriter extends ApkWriter<ZipFileOutput, FileOutputSource> {
     private BufferFileInput buffer;
+    private int mConcurrentCompressed;
     public ApkFileWriter(File file, InputSource[] sources) throws IOException {
         super(new ZipFileOutput(file), sources);
     }
+    /**
+     * Number of entries compressed on worker threads during last write, see
+     * {@link #setCompressionThreads(int)}
+     * */
+    public int getConcurrentCompressedCount() {
+        return mConcurrentCompressed;
+    }
     @Override
     void closeBuffer() throws IOException{
         buffer.close();
@@ -63,6 +78,10 @@ public class ApkFileWriter extends ApkWriter<ZipFileOutput, FileOutputSource> {
     }
 
     private BufferFileInput writeBuffer(FileOutputSource[] outputList) throws IOException {
+        int threads = getCompressionThreads();
+        if(threads > 1){
+            return writeBufferConcurrent(outputList, threads);
+        }
         File bufferFile = getBufferFile();
         BufferFileOutput output = new BufferFileOutput(bufferFile);
         BufferFileInput input = new BufferFileInput(bufferFile);
@@ -86,6 +105,77 @@ public class ApkFileWriter extends ApkWriter<ZipFileOutput, FileOutputSource> {
         output.close();
         return input;
     }
+    private BufferFileInput writeBufferConcurrent(FileOutputSource[] outputList, int threads) throws IOException {
+        mConcurrentCompressed = 0;
+        File bufferFile = getBufferFile();
+        BufferFileOutput output = new BufferFileOutput(bufferFile);
+        BufferFileInput input = new BufferFileInput(bufferFile);
+        List<FileOutputSource> pendingList = new ArrayList<>(outputList.length);
+        FileOutputSource tableSource = null;
+        for(FileOutputSource fileOutputSource : outputList){
+            if(fileOutputSource.makeBufferFromEntry()){
+                continue;
+            }
+            if(tableSource == null && TableBlock.FILE_NAME.equals(
+                    fileOutputSource.getInputSource().getAlias())){
+                tableSource = fileOutputSource;
+                continue;
+            }
+            pendingList.add(fileOutputSource);
+        }
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            int maxPending = threads * 2;
+            LinkedList<Future<byte[]>> futures = new LinkedList<>();
+            int size = pendingList.size();
+            int submitted = 0;
+            for(int i = 0; i < size; i++){
+                while (submitted < size && futures.size() < maxPending){
+                    futures.add(submitCompress(executor, pendingList.get(submitted)));
+                    submitted ++;
+                }
+                FileOutputSource fileOutputSource = pendingList.get(i);
+                InputSource inputSource = fileOutputSource.getInputSource();
+                onCompressFileProgress(inputSource.getAlias(),
+                        inputSource.getMethod(),
+                        output.position());
+                byte[] compressed = awaitCompress(futures.poll());
+                fileOutputSource.makeBuffer(input, output, compressed);
+                mConcurrentCompressed ++;
+            }
+        }finally {
+            executor.shutdownNow();
+        }
+        // all workers are done, the table is serialized last on this thread since
+        // encoding sources may still add to it
+        if(tableSource != null){
+            InputSource inputSource = tableSource.getInputSource();
+            onCompressFileProgress(inputSource.getAlias(),
+                    inputSource.getMethod(),
+                    output.position());
+            tableSource.makeBuffer(input, output);
+        }
+        output.close();
+        return input;
+    }
+    private Future<byte[]> submitCompress(ExecutorService executor, FileOutputSource fileOutputSource)
+            throws IOException {
+        return executor.submit(fileOutputSource.prepareCompress());
+    }
+    private byte[] awaitCompress(Future<byte[]> future) throws IOException {
+        try {
+            return future.get();
+        } catch (InterruptedException exception) {
+            Thread.currentThread().interrupt();
+            throw new IOException(exception);
+        } catch (ExecutionException exception) {
+            Throwable cause = exception.getCause();
+            if(cause instanceof IOException){
+                throw (IOException) cause;
+            }
+            throw new IOException(cause);
+        }
+    }
     private File getBufferFile(){
         File file = getZipOutput().getFile();
         File dir = file.getParentFile();
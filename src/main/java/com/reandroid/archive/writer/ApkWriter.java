@@ -22,6 +22,9 @@ import com.reandroid.archive.WriteProgress;
 import com.reandroid.archive.ZipSignature;
 import com.reandroid.archive.block.*;
 import com.reandroid.archive.io.ZipOutput;
+import com.reandroid.archive.sign.ApkSigner;
+import com.reandroid.archive.sign.ContentDigestStream;
+import com.reandroid.common.BytesOutputStream;
 
 import java.io.Closeable;
 import java.io.IOException;
@@ -33,28 +36,49 @@ public abstract class ApkWriter<T extends ZipOutput, OUT extends OutputSource> i
     private final InputSource[] inputSources;
     private ZipAligner zipAligner;
     private ApkSignatureBlock apkSignatureBlock;
+    private ApkSigner apkSigner;
     private APKLogger apkLogger;
     private WriteProgress writeProgress;
     private final HeaderInterceptorChain interceptorChain;
+    private int compressionThreads;
 
     public ApkWriter(T zipOutput, InputSource[] sources){
         this.zipOutput = zipOutput;
         this.inputSources = sources;
         this.zipAligner = ZipAligner.apkAligner();
         this.interceptorChain = HeaderInterceptorChain.createDefault();
+        this.compressionThreads = 1;
     }
 
     public void write()throws IOException {
         synchronized (mLock){
             OUT[] outList = buildOutputEntries();
 
-            prepareOutputs(outList);
-            writeApkList(outList);
+            ApkSigner apkSigner = getApkSigner();
+            ContentDigestStream digestStream = null;
+            if(apkSigner != null){
+                digestStream = apkSigner.newContentDigestStream();
+            }
+            try {
+                prepareOutputs(outList);
+                ZipOutput zipOutput = getZipOutput();
+                zipOutput.setCopyStream(digestStream);
+                writeApkList(outList);
+                zipOutput.setCopyStream(null);
 
-            closeBuffer();
+                closeBuffer();
 
-            writeSignatureBlock();
-            writeCEHList(outList);
+                if(apkSigner != null){
+                    writeSigned(outList, apkSigner, digestStream);
+                }else {
+                    writeSignatureBlock();
+                    writeCEHList(outList);
+                }
+            } finally {
+                if(digestStream != null){
+                    digestStream.close();
+                }
+            }
 
             this.close();
         }
@@ -76,20 +100,65 @@ public abstract class ApkWriter<T extends ZipOutput, OUT extends OutputSource> i
     void closeBuffer() throws IOException{
     }
     private void writeCEHList(OUT[] outputList) throws IOException{
-        EndRecord endRecord = new EndRecord();
-        endRecord.setSignature(ZipSignature.END_RECORD);
         long offset = position();
-        endRecord.setOffsetOfCentralDirectory(offset);
         int count = outputList.length;
-        endRecord.setNumberOfDirectories(count);
-        endRecord.setTotalNumberOfDirectories(count);
         ZipOutput zipOutput = getZipOutput();
         for(int i = 0; i < count; i++){
             OUT outputSource = outputList[i];
             outputSource.writeCEH(zipOutput);
         }
         long cedLength = position() - offset;
+        writeEndRecord(createEndRecord(count, offset, cedLength));
+    }
+    /**
+     * Completes digest of the entries written through the digest stream together with
+     * central directory and end record, where central directory offset is replaced by the
+     * signing block offset as required by v2/v3 schemes. Then writes the produced signing
+     * block followed by the same central directory bytes.
+     * */
+    private void writeSigned(OUT[] outputList, ApkSigner apkSigner, ContentDigestStream digestStream) throws IOException{
+        long blockOffset = position();
+        int count = outputList.length;
+        BytesOutputStream cedStream = new BytesOutputStream();
+        for(int i = 0; i < count; i++){
+            outputList[i].writeCEH(cedStream);
+        }
+        byte[] centralDirectory = cedStream.toByteArray();
+        EndRecord endRecord = createEndRecord(count, blockOffset, centralDirectory.length);
+        if(ZipHeader.isZip64Length(blockOffset) || endRecord.getZip64Record() != null){
+            throw new IOException("Can not sign ZIP64 archive, v2/v3 signature schemes"
+                    + " require 32-bit offsets: entries = " + count
+                    + ", central directory offset = " + blockOffset);
+        }
+        OutputStream outputStream = getOutputStream();
+        if(digestStream.length() != blockOffset){
+            throw new IOException("Digested length " + digestStream.length()
+                    + " != entries length " + blockOffset);
+        }
+        logMessage("Signing ...");
+        ApkSignatureBlock signatureBlock = apkSigner.sign(digestStream,
+                centralDirectory, endRecord.getBytes());
+        setApkSignatureBlock(signatureBlock);
+        signatureBlock.updatePadding();
+        long cedOffset = blockOffset + signatureBlock.countBytes();
+        if(ZipHeader.isZip64Length(cedOffset)){
+            throw new IOException("Can not sign ZIP64 archive, central directory offset"
+                    + " after signing block = " + cedOffset);
+        }
+        signatureBlock.writeBytes(outputStream);
+        outputStream.write(centralDirectory);
+        writeEndRecord(createEndRecord(count, cedOffset, centralDirectory.length));
+    }
+    private EndRecord createEndRecord(int count, long offset, long cedLength){
+        EndRecord endRecord = new EndRecord();
+        endRecord.setSignature(ZipSignature.END_RECORD);
+        endRecord.setOffsetOfCentralDirectory(offset);
+        endRecord.setNumberOfDirectories(count);
+        endRecord.setTotalNumberOfDirectories(count);
         endRecord.setLengthOfCentralDirectory(cedLength);
+        return endRecord;
+    }
+    private void writeEndRecord(EndRecord endRecord) throws IOException{
         OutputStream outputStream = getOutputStream();
         Zip64Record zip64Record = endRecord.getZip64Record();
         if(zip64Record != null){
@@ -144,6 +213,35 @@ public abstract class ApkWriter<T extends ZipOutput, OUT extends OutputSource> i
         this.zipAligner = zipAligner;
     }
 
+    public int getCompressionThreads() {
+        return compressionThreads;
+    }
+    /**
+     * Sets number of worker threads used to compress changed entries, a value > 1 enables
+     * parallel compression. Blocks and archive entries are serialized on the writer thread
+     * and only deflated on workers, the resource table is written last on the writer
+     * thread. Entries are still written in the original order, thus the output is identical
+     * to sequential (default) mode.
+     * */
+    public void setCompressionThreads(int compressionThreads) {
+        if(compressionThreads < 1){
+            compressionThreads = 1;
+        }
+        this.compressionThreads = compressionThreads;
+    }
+
+    public ApkSigner getApkSigner() {
+        return apkSigner;
+    }
+    /**
+     * Sets signer to produce v2/v3 signature block while writing, entries are digested as
+     * they are written thus any writer (including stream) can sign. When set the signature
+     * block from {@link #setApkSignatureBlock(ApkSignatureBlock)} is replaced by the
+     * signed one.
+     * */
+    public void setApkSigner(ApkSigner apkSigner) {
+        this.apkSigner = apkSigner;
+    }
     public void setApkSignatureBlock(ApkSignatureBlock apkSignatureBlock) {
         this.apkSignatureBlock = apkSignatureBlock;
     }
@@ -15,14 +15,18 @@
  */
 package com.reandroid.archive.writer;
 
+import com.reandroid.archive.ByteInputSource;
+import com.reandroid.archive.FileInputSource;
 import com.reandroid.archive.InputSource;
+import com.reandroid.archive.RenamedInputSource;
 import com.reandroid.archive.block.LocalFileHeader;
+import com.reandroid.archive.io.ZipByteOutput;
 import com.reandroid.archive.io.ZipFileOutput;
 import com.reandroid.archive.io.ZipOutput;
 
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
-import java.nio.channels.FileChannel;
-
+import java.util.concurrent.Callable;
 class FileOutputSource extends OutputSource {
     private EntryBuffer entryBuffer;
 
@@ -30,16 +34,73 @@ class FileOutputSource extends OutputSource {
         super(inputSource);
     }
     void makeBuffer(BufferFileInput input, BufferFileOutput output) throws IOException {
-        EntryBuffer entryBuffer = this.entryBuffer;
-        if(entryBuffer != null){
+        if(makeBufferFromEntry()){
             return;
         }
-        entryBuffer = makeFromEntry();
+        this.entryBuffer = writeBuffer(input, output);
+    }
+    void makeBuffer(BufferFileInput input, BufferFileOutput output, byte[] compressed) throws IOException {
+        long offset = output.position();
+        output.getOutputStream().write(compressed);
+        this.entryBuffer = new EntryBuffer(input, offset, compressed.length);
+    }
+    boolean makeBufferFromEntry(){
+        if(this.entryBuffer != null){
+            return true;
+        }
+        EntryBuffer entryBuffer = makeFromEntry();
         if(entryBuffer != null){
             this.entryBuffer = entryBuffer;
-            return;
+            return true;
         }
-        this.entryBuffer = writeBuffer(input, output);
+        return false;
+    }
+    /**
+     * Returns task compressing this source to memory, the task can run on any thread.
+     * Sources that are not {@link #isConcurrentSafe()} are serialized here on the calling
+     * (writer) thread, only deflating the serialized bytes is left to the task.
+     * */
+    Callable<byte[]> prepareCompress() throws IOException {
+        if(isConcurrentSafe()){
+            return this::compressToBytes;
+        }
+        getLocalFileHeader();
+        InputSource inputSource = getInputSource();
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        inputSource.write(outputStream);
+        outputStream.close();
+        inputSource.disposeInputSource();
+        byte[] staged = outputStream.toByteArray();
+        return () -> compressToBytes(staged);
+    }
+    /**
+     * Compresses to memory, and updates crc & sizes of local file header
+     * */
+    byte[] compressToBytes() throws IOException {
+        return compressToBytes(null);
+    }
+    private byte[] compressToBytes(byte[] staged) throws IOException {
+        ZipByteOutput output = new ZipByteOutput();
+        writeBuffer(output, staged);
+        output.close();
+        return output.toByteArray();
+    }
+    /**
+     * Plain byte and file sources are read and compressed as a whole on worker threads.
+     * Sources reading from shared archive channel or encoding/serializing blocks (xml, json,
+     * resource table) may touch shared state, see {@link #prepareCompress()}.
+     * */
+    boolean isConcurrentSafe(){
+        return isConcurrentSafe(getInputSource());
+    }
+    private static boolean isConcurrentSafe(InputSource inputSource){
+        if(inputSource instanceof RenamedInputSource){
+            return isConcurrentSafe(((RenamedInputSource<?>) inputSource).getInputSource());
+        }
+        if(inputSource instanceof FileInputSource){
+            return true;
+        }
+        return inputSource != null && inputSource.getClass() == ByteInputSource.class;
     }
     private EntryBuffer writeBuffer(BufferFileInput input, ZipOutput output) throws IOException {
         long offset = output.position();
@@ -52,18 +113,16 @@ class FileOutputSource extends OutputSource {
     }
     void writeApk(ZipFileOutput zipFileOutput, ZipAligner zipAligner) throws IOException{
         logLargeFileWrite();
-        EntryBuffer entryBuffer = this.entryBuffer;
-        FileChannel input = entryBuffer.getZipFileInput().getFileChannel();
-        input.position(entryBuffer.getOffset());
         writeLFH(zipFileOutput, zipAligner);
-        writeData(input, entryBuffer.getLength(), zipFileOutput);
+        writeData(this.entryBuffer, zipFileOutput);
         writeDD(zipFileOutput);
     }
-    private void writeData(FileChannel input, long length, ZipFileOutput apkFileWriter) throws IOException{
+    private void writeData(EntryBuffer entryBuffer, ZipFileOutput apkFileWriter) throws IOException{
         long offset = apkFileWriter.position();
         LocalFileHeader lfh = getLocalFileHeader();
         lfh.setFileOffset(offset);
-        apkFileWriter.write(input, length);
+        apkFileWriter.write(entryBuffer.getZipFileInput(),
+                entryBuffer.getOffset(), entryBuffer.getLength());
     }
 
 
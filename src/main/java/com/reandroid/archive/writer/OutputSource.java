@@ -42,6 +42,13 @@ class OutputSource {
     }
 
     void writeBuffer(ZipOutput zipOutput) throws IOException {
+        writeBuffer(zipOutput, null);
+    }
+    /**
+     * Writes staged bytes instead of reading the input source when not null, staged bytes
+     * must be the whole uncompressed content of the input source.
+     * */
+    void writeBuffer(ZipOutput zipOutput, byte[] staged) throws IOException {
         LocalFileHeader lfh = getLocalFileHeader();
         InputSource inputSource = getInputSource();
         OutputStream rawStream = zipOutput.getOutputStream();
@@ -55,11 +62,11 @@ class OutputSource {
         }
         if(deflateCounter != null){
             rawCounter.disableCrc(true);
-            inputSource.write(deflateCounter);
+            writeContent(inputSource, staged, deflateCounter);
             deflateCounter.close();
             rawCounter.close();
         }else {
-            inputSource.write(rawCounter);
+            writeContent(inputSource, staged, rawCounter);
         }
 
         lfh.setCompressedSize(rawCounter.getSize());
@@ -73,13 +80,26 @@ class OutputSource {
             lfh.setMethod(Archive.STORED);
             lfh.setCrc(rawCounter.getCrc32());
         }
-        inputSource.disposeInputSource();
+        if(staged == null){
+            inputSource.disposeInputSource();
+        }
+    }
+    private static void writeContent(InputSource inputSource, byte[] staged,
+                                     OutputStream outputStream) throws IOException {
+        if(staged != null){
+            outputStream.write(staged);
+        }else {
+            inputSource.write(outputStream);
+        }
     }
     void writeCEH(ZipOutput zipOutput) throws IOException{
+        writeCEH(zipOutput.getOutputStream());
+    }
+    void writeCEH(OutputStream outputStream) throws IOException{
         LocalFileHeader lfh = getLocalFileHeader();
         CentralEntryHeader ceh = CentralEntryHeader.fromLocalFileHeader(lfh);
         notifyCEHWrite(ceh);
-        ceh.writeBytes(zipOutput.getOutputStream());
+        ceh.writeBytes(outputStream);
     }
     void writeDD(ZipOutput apkFileWriter) throws IOException{
         DataDescriptor dataDescriptor = getLocalFileHeader().getDataDescriptor();
@@ -18,9 +18,11 @@ package com.reandroid.arsc.array;
 import com.reandroid.arsc.base.Block;
 import com.reandroid.arsc.base.BlockArray;
 import com.reandroid.arsc.chunk.PackageBlock;
+import com.reandroid.arsc.chunk.TableBlock;
 import com.reandroid.arsc.io.BlockLoad;
 import com.reandroid.arsc.io.BlockReader;
 import com.reandroid.arsc.item.IntegerItem;
+import com.reandroid.arsc.model.ResourceIdIndex;
 import com.reandroid.json.JSONArray;
 import com.reandroid.json.JSONConvert;
 import com.reandroid.json.JSONObject;
@@ -173,4 +175,21 @@ public class PackageArray extends BlockArray<PackageBlock>
     public int compare(PackageBlock p1, PackageBlock p2) {
         return p1.compareTo(p2);
     }
+    @Override
+    public void onChanged() {
+        super.onChanged();
+        invalidateIndexes();
+    }
+    @Override
+    public void onPreRemove(PackageBlock block) {
+        invalidateIndexes();
+        super.onPreRemove(block);
+    }
+    private void invalidateIndexes() {
+        ResourceIdIndex.invalidate(this);
+        TableBlock tableBlock = getParentInstance(TableBlock.class);
+        if(tableBlock != null) {
+            tableBlock.getResourceNameResolver().invalidate();
+        }
+    }
 }
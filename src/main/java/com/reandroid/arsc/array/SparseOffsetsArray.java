@@ -15,25 +15,28 @@
  */
 package com.reandroid.arsc.array;
 
+import java.util.Arrays;
+
 public class SparseOffsetsArray extends IntegerOffsetArray {
+
+    private volatile IdxIndex mIdxIndex;
+
     public SparseOffsetsArray(){
         super();
     }
     public int getHighestId(){
-        int result = NO_ENTRY;
-        int size = size();
-        for(int i=0; i<size;i++){
-            int id = getIdx(i);
-            if(id > result){
-                result = id;
-            }
+        return getIdxIndex().getHighestId();
+    }
+    public int indexOf(int idx){
+        if(idx == NO_ENTRY){
+            return linearIndexOf(idx);
         }
-        if(result == NO_ENTRY){
-            result = 0;
+        if(idx < 0 || idx > 0xffff){
+            return NO_ENTRY;
         }
-        return result;
+        return getIdxIndex().indexOf(this, idx);
     }
-    public int indexOf(int idx){
+    private int linearIndexOf(int idx){
         int size = super.size();
         for(int i=0; i<size; i++){
             if(idx == getIdx(i)){
@@ -42,6 +45,14 @@ public class SparseOffsetsArray extends IntegerOffsetArray {
         }
         return NO_ENTRY;
     }
+    private IdxIndex getIdxIndex(){
+        IdxIndex idxIndex = this.mIdxIndex;
+        if(idxIndex == null || idxIndex.size() != size()){
+            idxIndex = IdxIndex.build(this);
+            this.mIdxIndex = idxIndex;
+        }
+        return idxIndex;
+    }
     public int getIdx(int i){
         int value = super.get(i);
         if(value != NO_ENTRY) {
@@ -58,7 +69,21 @@ public class SparseOffsetsArray extends IntegerOffsetArray {
             idx = idx & 0xffff;
             value = offset | idx;
         }
+        put(index, value);
+    }
+    @Override
+    public void put(int index, int value){
+        boolean idxChanged = this.mIdxIndex != null
+                && toIdx(super.get(index)) != toIdx(value);
         super.put(index, value);
+        if(idxChanged){
+            this.mIdxIndex = null;
+        }
+    }
+    @Override
+    protected void onBytesChanged() {
+        super.onBytesChanged();
+        this.mIdxIndex = null;
     }
     @Override
     public int getOffset(int i){
@@ -82,6 +107,111 @@ public class SparseOffsetsArray extends IntegerOffsetArray {
             offset = offset << 16;
             value = offset | idx;
         }
-        super.put(index, value);
+        put(index, value);
+    }
+
+    private static int toIdx(int value){
+        if(value != NO_ENTRY) {
+            value = value & 0xffff;
+        }
+        return value;
+    }
+
+    /**
+     * Lookup of idx to array index, AAPT2 writes sparse entries in ascending idx order
+     * in that case the array itself is binary searched. Otherwise sorted copies of idx
+     * and index are kept.
+     * */
+    static class IdxIndex {
+        private final boolean ascending;
+        private final int[] sortedIds;
+        private final int[] sortedIndexes;
+        private final int highestId;
+        private final int size;
+
+        private IdxIndex(int size, boolean ascending, int[] sortedIds, int[] sortedIndexes, int highestId){
+            this.size = size;
+            this.ascending = ascending;
+            this.sortedIds = sortedIds;
+            this.sortedIndexes = sortedIndexes;
+            this.highestId = highestId;
+        }
+        int size() {
+            return size;
+        }
+        int getHighestId() {
+            return highestId;
+        }
+        int indexOf(SparseOffsetsArray array, int idx){
+            int low = 0;
+            int high;
+            if(ascending){
+                high = array.size() - 1;
+                while (low <= high){
+                    int mid = (low + high) >>> 1;
+                    int id = array.getIdx(mid);
+                    if(id < idx){
+                        low = mid + 1;
+                    }else if(id > idx){
+                        high = mid - 1;
+                    }else {
+                        return mid;
+                    }
+                }
+                return NO_ENTRY;
+            }
+            int[] sortedIds = this.sortedIds;
+            high = sortedIds.length;
+            // lower bound, the first index wins for duplicate idx
+            while (low < high){
+                int mid = (low + high) >>> 1;
+                if(sortedIds[mid] < idx){
+                    low = mid + 1;
+                }else {
+                    high = mid;
+                }
+            }
+            if(low < sortedIds.length && sortedIds[low] == idx){
+                return sortedIndexes[low];
+            }
+            return NO_ENTRY;
+        }
+
+        static IdxIndex build(SparseOffsetsArray array){
+            int size = array.size();
+            int previous = -1;
+            boolean ascending = true;
+            for(int i = 0; i < size; i++){
+                int id = array.getIdx(i);
+                if(id == NO_ENTRY || id <= previous){
+                    ascending = false;
+                    break;
+                }
+                previous = id;
+            }
+            if(ascending){
+                int highest = size == 0 ? 0 : array.getIdx(size - 1);
+                return new IdxIndex(size, true, null, null, highest);
+            }
+            long[] keys = new long[size];
+            int count = 0;
+            for(int i = 0; i < size; i++){
+                int id = array.getIdx(i);
+                if(id != NO_ENTRY){
+                    keys[count] = ((long) id << 32) | i;
+                    count ++;
+                }
+            }
+            Arrays.sort(keys, 0, count);
+            int[] sortedIds = new int[count];
+            int[] sortedIndexes = new int[count];
+            for(int i = 0; i < count; i++){
+                long key = keys[i];
+                sortedIds[i] = (int) (key >>> 32);
+                sortedIndexes[i] = (int) key;
+            }
+            int highest = count == 0 ? 0 : sortedIds[count - 1];
+            return new IdxIndex(size, false, sortedIds, sortedIndexes, highest);
+        }
     }
 }
@@ -21,6 +21,7 @@ import com.reandroid.arsc.chunk.SpecBlock;
 import com.reandroid.arsc.chunk.TypeBlock;
 import com.reandroid.arsc.container.SpecTypePair;
 import com.reandroid.arsc.item.TypeString;
+import com.reandroid.arsc.model.ResourceIdIndex;
 import com.reandroid.arsc.pool.TypeStringPool;
 import com.reandroid.arsc.value.Entry;
 import com.reandroid.arsc.value.ResConfig;
@@ -360,4 +361,14 @@ public class SpecTypePairArray extends BlockArray<SpecTypePair>
     public int compare(SpecTypePair typePair1, SpecTypePair typePair2) {
         return typePair1.compareTo(typePair2);
     }
+    @Override
+    public void onChanged() {
+        super.onChanged();
+        ResourceIdIndex.invalidate(this);
+    }
+    @Override
+    public void onPreRemove(SpecTypePair block) {
+        ResourceIdIndex.invalidate(this);
+        super.onPreRemove(block);
+    }
 }
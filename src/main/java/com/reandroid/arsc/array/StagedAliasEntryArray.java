@@ -20,6 +20,7 @@ import com.reandroid.arsc.base.BlockArray;
 import com.reandroid.arsc.io.BlockLoad;
 import com.reandroid.arsc.io.BlockReader;
 import com.reandroid.arsc.item.IntegerItem;
+import com.reandroid.arsc.model.ResourceIdIndex;
 import com.reandroid.arsc.value.StagedAliasEntry;
 import com.reandroid.json.JSONArray;
 import com.reandroid.json.JSONConvert;
@@ -100,4 +101,14 @@ public class StagedAliasEntryArray extends BlockArray<StagedAliasEntry>
             get(i).fromJson(json.getJSONObject(i));
         }
     }
+    @Override
+    public void onChanged() {
+        super.onChanged();
+        ResourceIdIndex.invalidate(this);
+    }
+    @Override
+    public void onPreRemove(StagedAliasEntry block) {
+        ResourceIdIndex.invalidate(this);
+        super.onPreRemove(block);
+    }
 }
@@ -24,6 +24,7 @@ import com.reandroid.arsc.header.HeaderBlock;
 import com.reandroid.arsc.header.TypeHeader;
 import com.reandroid.arsc.io.BlockReader;
 import com.reandroid.arsc.item.TypeString;
+import com.reandroid.arsc.model.ResourceIdIndex;
 import com.reandroid.arsc.value.Entry;
 import com.reandroid.arsc.value.ResConfig;
 import com.reandroid.json.JSONArray;
@@ -307,6 +308,12 @@ public class TypeBlockArray extends BlockArray<TypeBlock>
     public void onChanged() {
         super.onChanged();
         mQualifiersMap = null;
+        ResourceIdIndex.invalidate(this);
+    }
+    @Override
+    public void onPreRemove(TypeBlock block) {
+        ResourceIdIndex.invalidate(this);
+        super.onPreRemove(block);
     }
 
     @Override
@@ -32,8 +32,10 @@ import com.reandroid.arsc.item.TypeString;
 import com.reandroid.arsc.list.OverlayableList;
 import com.reandroid.arsc.list.StagedAliasList;
 import com.reandroid.arsc.model.ResourceEntry;
+import com.reandroid.arsc.model.ResourceIdIndex;
 import com.reandroid.arsc.model.ResourceLibrary;
 import com.reandroid.arsc.model.ResourceName;
+import com.reandroid.arsc.model.ResourceNameIndex;
 import com.reandroid.arsc.model.ResourceType;
 import com.reandroid.arsc.pool.SpecStringPool;
 import com.reandroid.arsc.pool.TableStringPool;
@@ -76,6 +78,7 @@ public class PackageBlock extends Chunk<PackageHeader>
     private final SpecStringPool mSpecStringPool;
 
     private final PackageBody mBody;
+    private final ResourceNameIndex mResourceNameIndex;
 
     private String mPrefix;
     private boolean mHasValidPrefix;
@@ -85,6 +88,7 @@ public class PackageBlock extends Chunk<PackageHeader>
     public PackageBlock() {
         super(new PackageHeader(), 3);
         PackageHeader header = getHeaderBlock();
+        this.mResourceNameIndex = new ResourceNameIndex(this);
 
         this.mTypeStringPool=new TypeStringPool(false, header.getTypeIdOffsetItem());
         this.mSpecStringPool=new SpecStringPool(true);
@@ -171,15 +175,14 @@ public class PackageBlock extends Chunk<PackageHeader>
         SpecTypePair specTypePair =
                 getSpecTypePair(type);
         if(specTypePair != null){
-            return specTypePair.getResource(name);
+            return getResource(specTypePair, name);
         }
         return null;
     }
     public ResourceEntry getAttrResource(String name){
         Iterator<SpecTypePair> itr = getAttrSpecs();
         while (itr.hasNext()){
-            ResourceEntry resourceEntry = itr.next()
-                    .getResource(name);
+            ResourceEntry resourceEntry = getResource(itr.next(), name);
             if(resourceEntry != null){
                 return resourceEntry;
             }
@@ -189,14 +192,19 @@ public class PackageBlock extends Chunk<PackageHeader>
     public ResourceEntry getIdResource(String name){
         Iterator<SpecTypePair> itr = getIdSpecs();
         while (itr.hasNext()){
-            ResourceEntry resourceEntry = itr.next()
-                    .getResource(name);
+            ResourceEntry resourceEntry = getResource(itr.next(), name);
             if(resourceEntry != null){
                 return resourceEntry;
             }
         }
         return null;
     }
+    private ResourceEntry getResource(SpecTypePair specTypePair, String name){
+        return getResourceNameIndex().get(specTypePair.getId(), name);
+    }
+    public ResourceNameIndex getResourceNameIndex(){
+        return mResourceNameIndex;
+    }
     public Iterator<ResourceEntry> getResources() {
         return new IterableIterator<SpecTypePair, ResourceEntry>(getSpecTypePairs()) {
             @Override
@@ -296,10 +304,14 @@ public class PackageBlock extends Chunk<PackageHeader>
         setName("");
     }
     public int resolveResourceId(String type, String name){
-        return getSpecStringPool().resolveResourceId(type, name);
+        ResourceEntry resourceEntry = getResource(type, name);
+        if(resourceEntry != null){
+            return resourceEntry.getResourceId();
+        }
+        return 0;
     }
     public int resolveResourceId(int typeId, String name){
-        return getSpecStringPool().resolveResourceId(typeId, name);
+        return getResourceNameIndex().resolveResourceId(typeId, name);
     }
     public Entry getEntry(String type, String name){
         Iterator<Entry> iterator = getEntries(type, name);
@@ -422,6 +434,7 @@ public class PackageBlock extends Chunk<PackageHeader>
         getHeaderBlock().getPackageId().set(id);
         mPrefix = null;
         mHasValidPrefix = false;
+        ResourceIdIndex.invalidate(this);
     }
     @Override
     public String getName(){
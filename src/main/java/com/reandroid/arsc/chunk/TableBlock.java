@@ -23,7 +23,9 @@ import com.reandroid.arsc.header.InfoHeader;
 import com.reandroid.arsc.header.TableHeader;
 import com.reandroid.arsc.io.BlockReader;
 import com.reandroid.arsc.model.ResourceEntry;
+import com.reandroid.arsc.model.ResourceIdIndex;
 import com.reandroid.arsc.model.ResourceName;
+import com.reandroid.arsc.model.ResourceNameResolver;
 import com.reandroid.arsc.pool.TableStringPool;
 import com.reandroid.arsc.value.Entry;
 import com.reandroid.arsc.value.ResConfig;
@@ -54,6 +56,9 @@ public class TableBlock extends Chunk<TableHeader>
     private ReferenceResolver referenceResolver;
     private PackageBlock mCurrentPackage;
     private PackageBlock mEmptyTablePackage;
+    private final ResourceIdIndex mResourceIdIndex;
+    private final ResourceNameResolver mResourceNameResolver;
+    private boolean mLazyStringDecode;
 
     public TableBlock() {
         super(new TableHeader(), 2);
@@ -61,6 +66,8 @@ public class TableBlock extends Chunk<TableHeader>
         this.mTableStringPool = new TableStringPool(true);
         this.mPackageArray = new PackageArray(header.getPackageCount());
         this.mFrameWorks = new ArrayCollection<>();
+        this.mResourceIdIndex = new ResourceIdIndex(this);
+        this.mResourceNameResolver = new ResourceNameResolver(this);
         addChild(mTableStringPool);
         addChild(mPackageArray);
     }
@@ -99,57 +106,77 @@ public class TableBlock extends Chunk<TableHeader>
         };
     }
     public ResourceEntry getResource(int resourceId){
+        return getResource(null, resourceId);
+    }
+    public ResourceEntry getResource(PackageBlock context, int resourceId){
         if(resourceId == 0){
             return null;
         }
-        Iterator<PackageBlock> iterator = getAllPackages();
-        while (iterator.hasNext()){
-            PackageBlock packageBlock = iterator.next();
-            ResourceEntry resourceEntry = packageBlock.getResource(resourceId);
-            if(resourceEntry != null){
-                return resourceEntry;
-            }
+        ResourceEntry resourceEntry = searchResource(context, resourceId);
+        if(resourceEntry != null){
+            return resourceEntry;
         }
         int staged = resolveStagedAlias(resourceId, 0);
         if(staged == 0 || staged == resourceId){
             return null;
         }
-        iterator = getAllPackages();
-        while (iterator.hasNext()){
-            PackageBlock packageBlock = iterator.next();
-            ResourceEntry resourceEntry = packageBlock.getResource(staged);
+        return searchResource(context, staged);
+    }
+    private ResourceEntry searchResource(PackageBlock context, int resourceId){
+        if(context == null){
+            context = getCurrentPackage();
+        }
+        ResourceEntry resourceEntry;
+        if(context != null && context.getTableBlock() != this){
+            resourceEntry = context.getResource(resourceId);
             if(resourceEntry != null){
                 return resourceEntry;
             }
         }
-        return null;
-    }
-    public ResourceEntry getResource(PackageBlock context, int resourceId){
-        if(resourceId == 0){
-            return null;
+        resourceEntry = searchIndexedResource(context, resourceId);
+        if(resourceEntry != null){
+            return resourceEntry;
         }
-        Iterator<PackageBlock> iterator = getAllPackages(context);
-        while (iterator.hasNext()){
-            PackageBlock packageBlock = iterator.next();
-            ResourceEntry resourceEntry = packageBlock.getResource(resourceId);
+        for(TableBlock framework : getFrameWorks()){
+            resourceEntry = framework.searchIndexedResource(null, resourceId);
             if(resourceEntry != null){
                 return resourceEntry;
             }
         }
-        int staged = resolveStagedAlias(resourceId, 0);
-        if(staged == 0 || staged == resourceId){
-            return null;
+        return null;
+    }
+    private ResourceEntry searchIndexedResource(PackageBlock context, int resourceId){
+        ResourceIdIndex index = getResourceIdIndex();
+        if(!index.isAmbiguous(resourceId)){
+            return index.get(resourceId);
         }
-        iterator = getAllPackages(context);
+        Iterator<PackageBlock> iterator = getPackages(context);
         while (iterator.hasNext()){
-            PackageBlock packageBlock = iterator.next();
-            ResourceEntry resourceEntry = packageBlock.getResource(staged);
+            ResourceEntry resourceEntry = iterator.next().getResource(resourceId);
             if(resourceEntry != null){
                 return resourceEntry;
             }
         }
         return null;
     }
+    public boolean isLazyStringDecode() {
+        return mLazyStringDecode;
+    }
+    /**
+     * When set before reading, table and package string pools keep their strings
+     * undecoded as views to the read buffer until first access, see
+     * {@link com.reandroid.arsc.pool.StringPool#setLazyDecode(boolean)}. The whole read buffer stays reachable
+     * while such strings exist.
+     * */
+    public void setLazyStringDecode(boolean lazyStringDecode) {
+        this.mLazyStringDecode = lazyStringDecode;
+    }
+    public ResourceIdIndex getResourceIdIndex(){
+        return mResourceIdIndex;
+    }
+    public ResourceNameResolver getResourceNameResolver(){
+        return mResourceNameResolver;
+    }
     public ResourceEntry getResource(ResourceName resourceName) {
         if(resourceName != null) {
             return getResource(resourceName.getPackageName(),
@@ -158,37 +185,13 @@ public class TableBlock extends Chunk<TableHeader>
         return null;
     }
     public ResourceEntry getResource(String packageName, String type, String name){
-        Iterator<PackageBlock> iterator = getAllPackages(packageName);
-        while (iterator.hasNext()){
-            PackageBlock packageBlock = iterator.next();
-            ResourceEntry resourceEntry = packageBlock.getResource(type, name);
-            if(resourceEntry != null){
-                return resourceEntry;
-            }
-        }
-        return null;
+        return getResourceNameResolver().getResource(null, packageName, type, name);
     }
     public ResourceEntry getResource(PackageBlock context, String type, String name){
-        Iterator<PackageBlock> iterator = getAllPackages(context);
-        while (iterator.hasNext()){
-            PackageBlock packageBlock = iterator.next();
-            ResourceEntry resourceEntry = packageBlock.getResource(type, name);
-            if(resourceEntry != null){
-                return resourceEntry;
-            }
-        }
-        return null;
+        return getResourceNameResolver().getResource(context, type, name);
     }
     public ResourceEntry getResource(PackageBlock context, String packageName, String type, String name){
-        Iterator<PackageBlock> iterator = getAllPackages(context, packageName);
-        while (iterator.hasNext()){
-            PackageBlock packageBlock = iterator.next();
-            ResourceEntry resourceEntry = packageBlock.getResource(type, name);
-            if(resourceEntry != null){
-                return resourceEntry;
-            }
-        }
-        return null;
+        return getResourceNameResolver().getResource(context, packageName, type, name);
     }
     public ResourceEntry getLocalResource(int resourceId){
         return getLocalResource( null, resourceId);
@@ -238,54 +241,28 @@ public class TableBlock extends Chunk<TableHeader>
         };
     }
     public ResourceEntry getAttrResource(String prefix, String name){
-        Iterator<PackageBlock> iterator = getAllPackages(prefix);
-        while (iterator.hasNext()){
-            PackageBlock packageBlock = iterator.next();
-            ResourceEntry resourceEntry = packageBlock
-                    .getAttrResource(name);
-            if(resourceEntry != null){
-                return resourceEntry;
-            }
-        }
-        if(prefix != null){
-            return getAttrResource(null, name);
-        }
-        return null;
+        return getAttrResource(null, prefix, name);
     }
     public ResourceEntry getAttrResource(PackageBlock context, String prefix, String name){
-        Iterator<PackageBlock> iterator = getAllPackages(context, prefix);
-        while (iterator.hasNext()){
-            PackageBlock packageBlock = iterator.next();
-            ResourceEntry resourceEntry = packageBlock
-                    .getAttrResource(name);
-            if(resourceEntry != null){
-                return resourceEntry;
-            }
-        }
-        if(prefix != null){
+        ResourceEntry resourceEntry = getResourceNameResolver()
+                .getAttrResource(context, prefix, name);
+        if(resourceEntry == null && prefix != null){
             return getAttrResource(null, name);
         }
-        return null;
+        return resourceEntry;
     }
     public ResourceEntry getIdResource(PackageBlock context, String prefix, String name){
-        Iterator<PackageBlock> iterator = getAllPackages(context, prefix);
-        while (iterator.hasNext()){
-            PackageBlock packageBlock = iterator.next();
-            ResourceEntry resourceEntry = packageBlock
-                    .getIdResource(name);
-            if(resourceEntry != null){
-                return resourceEntry;
-            }
-        }
-        if(prefix != null){
+        ResourceEntry resourceEntry = getResourceNameResolver()
+                .getIdResource(context, prefix, name);
+        if(resourceEntry == null && prefix != null){
             return getAttrResource(null, name);
         }
-        return null;
+        return resourceEntry;
     }
     public int resolveResourceId(String packageName, String type, String name){
-        Iterator<Entry> iterator = getEntries(packageName, type, name);
-        if(iterator.hasNext()){
-            return iterator.next().getResourceId();
+        ResourceEntry resourceEntry = getResource(packageName, type, name);
+        if(resourceEntry != null){
+            return resourceEntry.getResourceId();
         }
         return 0;
     }
@@ -512,6 +489,8 @@ public class TableBlock extends Chunk<TableHeader>
         getPackageArray().destroy();
         getStringPool().clear();
         clearFrameworks();
+        mResourceIdIndex.invalidate();
+        mResourceNameResolver.invalidate();
         refresh();
     }
     public int size(){
@@ -649,6 +628,9 @@ public class TableBlock extends Chunk<TableHeader>
             setNull(true);
             return;
         }
+        if(isLazyStringDecode()){
+            reader.setLazyStringDecode(true);
+        }
         TableHeader tableHeader = getHeaderBlock();
         tableHeader.readBytes(reader);
         if(tableHeader.getChunkType() != ChunkType.TABLE){
@@ -677,6 +659,8 @@ public class TableBlock extends Chunk<TableHeader>
         }
         reader.close();
         linkStringsInternal();
+        mResourceIdIndex.invalidate();
+        mResourceNameResolver.invalidate();
     }
 
     public void readBytes(File file) throws IOException{
@@ -704,9 +688,15 @@ public class TableBlock extends Chunk<TableHeader>
         return resolveStagedAlias(resourceId, 0);
     }
     public int resolveStagedAlias(int stagedResId, int def){
-        StagedAliasEntry stagedAliasEntry = getStagedAlias(stagedResId);
-        if(stagedAliasEntry != null){
-            return stagedAliasEntry.getFinalizedResId();
+        Integer finalized = getResourceIdIndex().getFinalizedResId(stagedResId);
+        if(finalized != null){
+            return finalized;
+        }
+        for(TableBlock framework : getFrameWorks()){
+            finalized = framework.getResourceIdIndex().getFinalizedResId(stagedResId);
+            if(finalized != null){
+                return finalized;
+            }
         }
         return def;
     }
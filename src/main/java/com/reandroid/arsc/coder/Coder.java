@@ -45,7 +45,108 @@ public abstract class Coder {
             return null;
         }
     }
+    /**
+     * Same as {@link Integer#parseInt(String)} without allocating on invalid input,
+     * returns {@link #INVALID_NUMBER} if the text is not an integer
+     * */
+    static long parseDecimal(String text){
+        int length = text.length();
+        if(length == 0){
+            return INVALID_NUMBER;
+        }
+        int i = 0;
+        boolean negative = false;
+        char first = text.charAt(0);
+        if(first == '-' || first == '+'){
+            if(length == 1){
+                return INVALID_NUMBER;
+            }
+            negative = first == '-';
+            i = 1;
+        }
+        long limit = negative ? -(long) Integer.MIN_VALUE : Integer.MAX_VALUE;
+        long result = 0;
+        for(; i < length; i++){
+            int digit = Character.digit(text.charAt(i), 10);
+            if(digit < 0){
+                return INVALID_NUMBER;
+            }
+            result = result * 10 + digit;
+            if(result > limit){
+                return INVALID_NUMBER;
+            }
+        }
+        return negative ? -result : result;
+    }
+    /**
+     * Parses plain decimal numbers of the form [-+]digits[.digits] between start and end
+     * without allocating. Returns {@link Float#NaN} for anything else (exponents, too many
+     * digits or values which could round differently than {@link Float#parseFloat(String)}),
+     * callers should fall back to {@link #parseFloat(String)}.
+     * */
+    static float parseDecimalFloat(String text, int start, int end){
+        if(start >= end){
+            return Float.NaN;
+        }
+        boolean negative = false;
+        char ch = text.charAt(start);
+        if(ch == '-' || ch == '+'){
+            negative = ch == '-';
+            start ++;
+        }
+        long mantissa = 0;
+        int digits = 0;
+        int fraction = 0;
+        boolean point = false;
+        boolean hasDigit = false;
+        for(int i = start; i < end; i++){
+            ch = text.charAt(i);
+            if(ch >= '0' && ch <= '9'){
+                hasDigit = true;
+                if(point){
+                    fraction ++;
+                }
+                if(mantissa == 0 && ch == '0'){
+                    continue;
+                }
+                if(digits == MAX_EXACT_DIGITS){
+                    return Float.NaN;
+                }
+                mantissa = mantissa * 10 + (ch - '0');
+                digits ++;
+            }else if(ch == '.' && !point){
+                point = true;
+            }else {
+                return Float.NaN;
+            }
+        }
+        if(!hasDigit || fraction >= POWERS_OF_TEN.length){
+            return Float.NaN;
+        }
+        double value = mantissa;
+        if(fraction != 0){
+            value = value / POWERS_OF_TEN[fraction];
+        }
+        float result = (float) value;
+        if(result != value){
+            // value is correctly rounded double, the float is correct unless the value
+            // lies too close to the midpoint of two floats
+            float next = value > result ? Math.nextUp(result) : Math.nextDown(result);
+            double midpoint = ((double) result + (double) next) / 2.0;
+            if(Math.abs(value - midpoint) <= Math.ulp(value)){
+                return Float.NaN;
+            }
+        }
+        return negative ? -result : result;
+    }
     static boolean isNumberStart(char ch){
         return ch == '-' || (ch <= '9' && ch >= '0');
     }
+
+    static final long INVALID_NUMBER = Long.MIN_VALUE;
+    private static final int MAX_EXACT_DIGITS = 15;
+    private static final double[] POWERS_OF_TEN = new double[]{
+            1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10,
+            1e11, 1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+    };
 }
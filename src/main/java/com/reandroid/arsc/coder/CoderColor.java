@@ -15,6 +15,8 @@
  */
 package com.reandroid.arsc.coder;
 
+import com.reandroid.utils.HexUtil;
+
 public abstract class CoderColor extends Coder {
     private final int decodedStringLength;
     CoderColor(int decodedStringLength){
@@ -26,35 +28,27 @@ public abstract class CoderColor extends Coder {
         if(text.length() != this.decodedStringLength){
             return null;
         }
-        int[] hexValues = hexToIntegers(text);
-        if(hexValues == null){
+        if(text.charAt(0) != '#'){
             return null;
         }
-        return new EncodeResult(
-                getValueType(),
-                encode(hexValues));
-    }
-    private int encode(int[] hexValues){
-        int start = hexValues.length - 1;
-        boolean compact = start < 6;
-        boolean has_alpha = (start % 4 == 0);
-        int result;
-        if(has_alpha){
-            result = 0;
-        }else {
-            result = 0xff000000;
-        }
-        int shift = 0;
-        for(int i = start; i >= 0; i--){
-            int value = hexValues[i];
-            result |= value << shift;
-            shift += 4;
+        int length = text.length();
+        int count = length - 1;
+        boolean compact = count < 6;
+        int result = 0;
+        for(int i = 1; i < length; i++){
+            int value = HexUtil.decodeHexChar(text.charAt(i));
+            if(value < 0){
+                return null;
+            }
+            result = (result << 4) | value;
             if(compact){
-                result |= value << shift;
-                shift += 4;
+                result = (result << 4) | value;
             }
         }
-        return result;
+        if(count % 4 != 0){
+            result |= 0xff000000;
+        }
+        return new EncodeResult(getValueType(), result);
     }
     @Override
     public String decode(int data){
@@ -79,28 +73,6 @@ public abstract class CoderColor extends Coder {
         return first == '#';
     }
 
-    private static int[] hexToIntegers(String hexColor){
-        hexColor = hexColor.toUpperCase();
-        char[] chars = hexColor.toCharArray();
-        if(chars[0] != '#'){
-            return null;
-        }
-        int length = chars.length;
-        int[] result = new int[length];
-        for(int i = 1; i < length; i++){
-            int ch = chars[i];
-            int value;
-            if(ch >= '0' && ch <= '9'){
-                value = ch - '0';
-            }else if(ch >= 'A' && ch <= 'F'){
-                value = 0xA + (ch - 'A');
-            }else {
-                return null;
-            }
-            result[i] = value;
-        }
-        return result;
-    }
     private static char byteToHex(int i){
         i = i & 0xf;
         if(i < 0xa){
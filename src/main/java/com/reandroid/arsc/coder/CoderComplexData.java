@@ -22,10 +22,14 @@ public abstract class CoderComplexData extends Coder {
         if(unit == null){
             return null;
         }
-        String number = text.substring(0, text.length() - unit.getSymbol().length());
-        Float floatValue = parseFloat(number);
-        if(floatValue == null){
-            return null;
+        int end = text.length() - unit.getSymbol().length();
+        float floatValue = parseDecimalFloat(text, 0, end);
+        if(Float.isNaN(floatValue)){
+            Float parsed = parseFloat(text.substring(0, end));
+            if(parsed == null){
+                return null;
+            }
+            floatValue = parsed;
         }
         int value = ComplexUtil.encodeComplex(floatValue, unit);
         return new EncodeResult(unit.getValueType(), value);
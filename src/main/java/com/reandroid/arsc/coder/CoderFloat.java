@@ -24,9 +24,13 @@ public class CoderFloat extends Coder {
         if(i <= 0){
             return null;
         }
-        Float value = parseFloat(text);
-        if(value == null){
-            return null;
+        float value = parseDecimalFloat(text, 0, text.length());
+        if(Float.isNaN(value)){
+            Float parsed = parseFloat(text);
+            if(parsed == null){
+                return null;
+            }
+            value = parsed;
         }
         return new EncodeResult(ValueType.FLOAT, Float.floatToIntBits(value));
     }
@@ -29,10 +29,14 @@ public class CoderFraction extends CoderComplexData {
         if(unit == null){
             return null;
         }
-        String number = text.substring(0, text.length() - unit.getSymbol().length());
-        Float floatValue = parseFloat(number);
-        if(floatValue == null){
-            return null;
+        int end = text.length() - unit.getSymbol().length();
+        float floatValue = parseDecimalFloat(text, 0, end);
+        if(Float.isNaN(floatValue)){
+            Float parsed = parseFloat(text.substring(0, end));
+            if(parsed == null){
+                return null;
+            }
+            floatValue = parsed;
         }
         int value = ComplexUtil.encodeComplex(floatValue, unit);
         return new EncodeResult(unit.getValueType(), value);
@@ -27,6 +27,20 @@ public class CoderHex extends Coder {
             return null;
         }
         char x = text.charAt(1);
+        if(text.charAt(0) == '0' && (x == 'x' || x == 'X')){
+            int value = 0;
+            int i = 2;
+            for(; i < length; i++){
+                int v = HexUtil.decodeHexChar(text.charAt(i));
+                if(v < 0){
+                    break;
+                }
+                value = (value << 4) | v;
+            }
+            if(i == length){
+                return new EncodeResult(ValueType.HEX, value);
+            }
+        }
         if(x != 'x'){
             if(x != 'X'){
                 return null;
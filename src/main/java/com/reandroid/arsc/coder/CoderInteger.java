@@ -28,11 +28,11 @@ public class CoderInteger extends Coder {
         if(i >= 0){
             return null;
         }
-        Integer integer = parseInteger(text);
-        if(integer == null){
+        long value = parseDecimal(text);
+        if(value == INVALID_NUMBER){
             return null;
         }
-        return new EncodeResult(ValueType.DEC, integer);
+        return new EncodeResult(ValueType.DEC, (int) value);
     }
     @Override
     public String decode(int data) {
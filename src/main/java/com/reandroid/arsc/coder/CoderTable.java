@@ -0,0 +1,125 @@
+/*
+ *  Copyright (C) 2022 github.com/REAndroid
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.reandroid.arsc.coder;
+
+import com.reandroid.arsc.value.AttributeDataFormat;
+import com.reandroid.arsc.value.ValueType;
+import com.reandroid.utils.collection.ArrayCollection;
+
+import java.util.List;
+
+/**
+ * Precompiled lookup of coders by the first character of the text, keeps the order of
+ * the given coders thus the result is the same as trying each coder in sequence.
+ * */
+class CoderTable {
+
+    private final Coder[] coders;
+    private final Coder[][] asciiTable;
+
+    CoderTable(Coder[] coders) {
+        this.coders = coders;
+        Coder[][] table = new Coder[ASCII_SIZE][];
+        List<Coder> list = new ArrayCollection<>();
+        for (int i = 0; i < ASCII_SIZE; i++) {
+            list.clear();
+            char ch = (char) i;
+            for (Coder coder : coders) {
+                if (coder.canStartWith(ch)) {
+                    list.add(coder);
+                }
+            }
+            table[i] = list.toArray(new Coder[list.size()]);
+        }
+        this.asciiTable = table;
+    }
+
+    EncodeResult encode(String text) {
+        char first = text.charAt(0);
+        if (first < ASCII_SIZE) {
+            for (Coder coder : asciiTable[first]) {
+                EncodeResult encodeResult = coder.encode(text);
+                if (encodeResult != null) {
+                    return encodeResult;
+                }
+            }
+            return null;
+        }
+        for (Coder coder : coders) {
+            if (coder.canStartWith(first)) {
+                EncodeResult encodeResult = coder.encode(text);
+                if (encodeResult != null) {
+                    return encodeResult;
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Returns the table for formats sorted by mask as listed on attribute bags, otherwise null
+     * as the order of trial could differ.
+     * */
+    static CoderTable forFormats(AttributeDataFormat[] formats) {
+        int index = indexOf(formats);
+        if (index < 0) {
+            return null;
+        }
+        CoderTable[] tables = FORMAT_TABLES;
+        CoderTable table = tables[index];
+        if (table == null) {
+            table = create(formats);
+            tables[index] = table;
+        }
+        return table;
+    }
+    private static int indexOf(AttributeDataFormat[] formats) {
+        int length = formats.length;
+        if (length == 1 && formats[0] == AttributeDataFormat.ANY) {
+            return INDEX_ANY;
+        }
+        int result = 0;
+        int previous = 0;
+        for (AttributeDataFormat format : formats) {
+            if (format == null) {
+                return -1;
+            }
+            int mask = format.getMask();
+            if (mask <= previous || mask > 0xff) {
+                return -1;
+            }
+            result |= mask;
+            previous = mask;
+        }
+        return result;
+    }
+    private static CoderTable create(AttributeDataFormat[] formats) {
+        List<Coder> list = new ArrayCollection<>();
+        for (AttributeDataFormat format : formats) {
+            for (ValueType valueType : format.valueTypes()) {
+                Coder coder = ValueCoder.getCoder(valueType);
+                if (coder != null && !list.contains(coder)) {
+                    list.add(coder);
+                }
+            }
+        }
+        return new CoderTable(list.toArray(new Coder[list.size()]));
+    }
+
+    private static final int ASCII_SIZE = 128;
+    private static final int INDEX_ANY = 0x100;
+    private static final CoderTable[] FORMAT_TABLES = new CoderTable[INDEX_ANY + 1];
+}
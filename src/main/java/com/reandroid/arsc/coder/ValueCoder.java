@@ -211,6 +211,10 @@ public class ValueCoder {
         if(text == null || text.length() == 0){
             return null;
         }
+        CoderTable coderTable = CoderTable.forFormats(expectedDataFormats);
+        if(coderTable != null){
+            return coderTable.encode(text);
+        }
         for(AttributeDataFormat dataFormat : expectedDataFormats){
             EncodeResult encodeResult = encodeWithin(text, dataFormat.valueTypes());
             if(encodeResult != null){
@@ -248,17 +252,7 @@ public class ValueCoder {
         if(encodeResult != null){
             return encodeResult;
         }
-        char first = text.charAt(0);
-        for(Coder coder : CODERS){
-            if(!coder.canStartWith(first)){
-                continue;
-            }
-            encodeResult = coder.encode(text);
-            if(encodeResult != null){
-                return encodeResult;
-            }
-        }
-        return null;
+        return CODERS_TABLE.encode(text);
     }
     private static EncodeResult encodeUnknown(String text){
         char first = text.charAt(0);
@@ -341,6 +335,7 @@ public class ValueCoder {
     public static final Coder[] CODERS;
     private static final Map<ValueType, Coder> CODER_MAP;
     private static final Coder[] CODERS_NULL;
+    private static final CoderTable CODERS_TABLE;
 
     static {
 
@@ -370,6 +365,7 @@ public class ValueCoder {
         map.put(CoderHex.INS.getValueType(), CoderHex.INS);
         map.put(CoderInteger.INS.getValueType(), CoderInteger.INS);
         CODER_MAP = map;
+        CODERS_TABLE = new CoderTable(CODERS.clone());
 
         CODERS_NULL = new Coder[]{
                 CoderNullReference.INS,
@@ -0,0 +1,92 @@
+/*
+ *  Copyright (C) 2022 github.com/REAndroid
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.reandroid.arsc.coder.xml;
+
+import com.reandroid.arsc.coder.EncodeResult;
+import com.reandroid.utils.collection.ArrayCollection;
+import com.reandroid.xml.StyleDocument;
+import com.reandroid.xml.XMLElement;
+import org.xmlpull.v1.XmlPullParserException;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Entries of a values xml file parsed and encoded ahead without touching any table block,
+ * created by {@link XmlCoder.ValuesXml#stage(File)} from any thread. Values needing
+ * resource lookups, entry creation and string pool insertion are left to
+ * {@link XmlCoder.ValuesXml#encode(StagedValuesXml, com.reandroid.arsc.chunk.PackageBlock)},
+ * which must run on the thread owning the table.
+ * */
+public class StagedValuesXml {
+
+    private final File file;
+    private final List<StagedEntry> entries;
+    private Exception error;
+
+    StagedValuesXml(File file) {
+        this.file = file;
+        this.entries = new ArrayCollection<>();
+    }
+
+    public File getFile() {
+        return file;
+    }
+    public int size() {
+        return entries.size();
+    }
+    StagedEntry get(int i) {
+        return entries.get(i);
+    }
+    void add(StagedEntry stagedEntry) {
+        entries.add(stagedEntry);
+    }
+    /**
+     * Parse error after the staged entries, thrown once they are encoded, thus errors are
+     * reported in the same order as encoding directly from parser.
+     * */
+    void setError(Exception error) {
+        this.error = error;
+    }
+    void throwError() throws IOException, XmlPullParserException {
+        Exception error = this.error;
+        if(error instanceof IOException) {
+            throw (IOException) error;
+        }
+        if(error instanceof XmlPullParserException) {
+            throw (XmlPullParserException) error;
+        }
+    }
+
+    @Override
+    public String toString() {
+        return file + ", entries = " + size();
+    }
+
+    static class StagedEntry {
+        final XMLElement element;
+        final boolean bag;
+        EncodeResult encodeResult;
+        StyleDocument styleDocument;
+        String error;
+
+        StagedEntry(XMLElement element, boolean bag) {
+            this.element = element;
+            this.bag = bag;
+        }
+    }
+}
@@ -256,6 +256,55 @@ public class XmlCoder {
             encode(parser, typeBlock);
         }
         public void encode(XmlPullParser parser, TypeBlock typeBlock) throws IOException, XmlPullParserException {
+            startResources(parser);
+            try {
+                while (XMLUtil.ensureStartTag(parser) == XmlPullParser.START_TAG) {
+                    XMLElement element = XMLElement.parseElement(parser);
+                    encodeEntry(element, typeBlock);
+                }
+            } catch (XmlEncodeException e) {
+                throw new XmlEncodeException(parser, e.getMessage());
+            }
+            IOUtil.close(parser);
+        }
+        /**
+         * Parses values xml file and encodes values needing no resource lookup, touches no
+         * table block thus safe to call concurrently. Parse errors are kept on the result.
+         * */
+        public StagedValuesXml stage(File valuesXmlFile) {
+            StagedValuesXml stagedValuesXml = new StagedValuesXml(valuesXmlFile);
+            try {
+                XmlPullParser parser = XMLFactory.newPullParser(valuesXmlFile);
+                startResources(parser);
+                while (XMLUtil.ensureStartTag(parser) == XmlPullParser.START_TAG) {
+                    stagedValuesXml.add(stageEntry(XMLElement.parseElement(parser)));
+                }
+                IOUtil.close(parser);
+            } catch (IOException | XmlPullParserException ex) {
+                stagedValuesXml.setError(ex);
+            }
+            return stagedValuesXml;
+        }
+        /**
+         * Encodes staged entries into the package in file order, the result is the same as
+         * {@link #encode(File, PackageBlock)}.
+         * */
+        public void encode(StagedValuesXml stagedValuesXml, PackageBlock packageBlock) throws IOException, XmlPullParserException {
+            File valuesXmlFile = stagedValuesXml.getFile();
+            TypeBlock typeBlock = packageBlock.getOrCreateTypeBlock(
+                    XmlEncodeUtil.getQualifiersFromValuesXml(valuesXmlFile),
+                    XmlEncodeUtil.getTypeFromValuesXml(valuesXmlFile));
+            int size = stagedValuesXml.size();
+            for(int i = 0; i < size; i++) {
+                try {
+                    encodeEntry(stagedValuesXml.get(i), typeBlock);
+                } catch (XmlEncodeException e) {
+                    throw locateEntry(valuesXmlFile, i, e.getMessage());
+                }
+            }
+            stagedValuesXml.throwError();
+        }
+        private void startResources(XmlPullParser parser) throws IOException, XmlPullParserException {
             int event = parser.getEventType();
             boolean documentStarted = false;
             if (event == XmlPullParser.START_DOCUMENT) {
@@ -272,34 +321,87 @@ public class XmlCoder {
             } else if(documentStarted){
                 throw new XmlEncodeException(parser, "Expecting <resources> tag but found: " + parser.getName());
             }
+        }
+        /**
+         * Parses the file again up to the entry at index, to report the same position as
+         * encoding directly from parser. Runs only on errors.
+         * */
+        private XmlEncodeException locateEntry(File valuesXmlFile, int index, String message) {
             try {
-                while (XMLUtil.ensureStartTag(parser) == XmlPullParser.START_TAG) {
-                    XMLElement element = XMLElement.parseElement(parser);
-                    encodeEntry(element, typeBlock);
+                XmlPullParser parser = XMLFactory.newPullParser(valuesXmlFile);
+                startResources(parser);
+                for(int i = 0; i <= index; i++) {
+                    XMLUtil.ensureStartTag(parser);
+                    XMLElement.parseElement(parser);
                 }
-            } catch (XmlEncodeException e) {
-                throw new XmlEncodeException(parser, e.getMessage());
+                XmlEncodeException exception = new XmlEncodeException(parser, message);
+                IOUtil.close(parser);
+                return exception;
+            } catch (IOException | XmlPullParserException ex) {
+                return new XmlEncodeException(valuesXmlFile + "\n" + message);
             }
-            IOUtil.close(parser);
         }
         public void encodeEntry(XMLElement entryElement, TypeBlock typeBlock) throws IOException{
+            encodeEntry(stageEntry(entryElement), typeBlock);
+        }
+        private void encodeEntry(StagedValuesXml.StagedEntry stagedEntry, TypeBlock typeBlock) throws IOException{
+            XMLElement entryElement = stagedEntry.element;
             Entry entry = typeBlock.getOrCreateDefinedEntry(
                     entryElement.getAttributeValue(ATTR_name));
             if(entry == null){
                 throw new XmlEncodeException("Undefined entry name: " + entryElement.getDebugText());
             }
-            if(isBag(entryElement)){
+            if(stagedEntry.bag){
                 encodeBag(entryElement, entry);
             }else {
-                encodeScalar(entryElement, entry);
+                encodeScalar(stagedEntry, entry);
+            }
+        }
+        private StagedValuesXml.StagedEntry stageEntry(XMLElement element) {
+            StagedValuesXml.StagedEntry stagedEntry = new StagedValuesXml.StagedEntry(
+                    element, isBag(element));
+            if(!stagedEntry.bag && !(isTypeId(element) && !element.hasTextNode())){
+                stageScalarAny(stagedEntry);
+            }
+            return stagedEntry;
+        }
+        /**
+         * Encodes scalar value as if it is not a reference, references are resolved on
+         * {@link #encodeScalarAny(StagedValuesXml.StagedEntry, Entry)}
+         * */
+        private void stageScalarAny(StagedValuesXml.StagedEntry stagedEntry) {
+            XMLElement element = stagedEntry.element;
+            if(element.hasChildElements()){
+                stagedEntry.styleDocument = StyleDocument.copyInner(element);
+                return;
+            }
+            String text = element.getTextContent();
+            AttributeDataFormat dataFormat = AttributeDataFormat.fromValueTypeName(
+                    element.getAttributeValue(ATTR_type));
+            if(dataFormat == null){
+                dataFormat = AttributeDataFormat.fromValueTypeName(element.getName());
+                if(dataFormat != AttributeDataFormat.STRING){
+                    dataFormat = null;
+                }
+            }
+            EncodeResult encodeResult = ValueCoder.encode(text, dataFormat);
+            if(encodeResult == null && dataFormat != null && !dataFormat.contains(ValueType.STRING)){
+                stagedEntry.error = "Invalid value: " + element;
+            }else if(encodeResult != null){
+                stagedEntry.encodeResult = encodeResult;
+            }else {
+                stagedEntry.styleDocument = StyleDocument.copyInner(element);
             }
         }
         public void encodeScalar(XMLElement element, Entry entry) throws IOException{
+            encodeScalar(stageEntry(element), entry);
+        }
+        private void encodeScalar(StagedValuesXml.StagedEntry stagedEntry, Entry entry) throws IOException{
             entry.ensureComplex(false);
-            if(isTypeId(element)){
-                encodeScalarId(element, entry);
+            if(isTypeId(stagedEntry.element)){
+                encodeScalarId(stagedEntry, entry);
             }else {
-                encodeScalarAny(element, entry);
+                encodeScalarAny(stagedEntry, entry);
             }
             checkVisibility(entry);
         }
@@ -332,37 +434,30 @@ public class XmlCoder {
                     || element.hasAttribute(ATTR_formats)
                     || TypeString.isTypeArray(tag);
         }
-        private void encodeScalarId(XMLElement element, Entry entry) throws IOException {
-            if(!element.hasTextNode()){
+        private void encodeScalarId(StagedValuesXml.StagedEntry stagedEntry, Entry entry) throws IOException {
+            if(!stagedEntry.element.hasTextNode()){
                 entry.setValueAsBoolean(false);
             }else {
-                encodeScalarAny(element, entry);
+                encodeScalarAny(stagedEntry, entry);
             }
             ValueHeader header = entry.getHeader();
             header.setPublic(true);
             header.setWeak(true);
         }
-        private void encodeScalarAny(XMLElement element, Entry entry) throws IOException{
+        private void encodeScalarAny(StagedValuesXml.StagedEntry stagedEntry, Entry entry) throws IOException{
             ResValue resValue = entry.getResValue();
+            XMLElement element = stagedEntry.element;
             if(element.hasChildElements()){
-                resValue.setValueAsString(StyleDocument.copyInner(element));
+                resValue.setValueAsString(stagedEntry.styleDocument);
                 return;
             }
             String text = element.getTextContent();
             EncodeResult encodeResult = ValueCoder.encodeReference(entry.getPackageBlock(), text);
             if(encodeResult == null){
-                AttributeDataFormat dataFormat = AttributeDataFormat.fromValueTypeName(
-                        element.getAttributeValue(ATTR_type));
-                if(dataFormat == null){
-                    dataFormat = AttributeDataFormat.fromValueTypeName(element.getName());
-                    if(dataFormat != AttributeDataFormat.STRING){
-                        dataFormat = null;
-                    }
-                }
-                encodeResult = ValueCoder.encode(text, dataFormat);
-                if(encodeResult == null && dataFormat != null && !dataFormat.contains(ValueType.STRING)){
-                    throw new XmlEncodeException("Invalid value: " + element);
+                if(stagedEntry.error != null){
+                    throw new XmlEncodeException(stagedEntry.error);
                 }
+                encodeResult = stagedEntry.encodeResult;
             }
             if(encodeResult != null){
                 if(encodeResult.isError()){
@@ -370,7 +465,7 @@ public class XmlCoder {
                 }
                 resValue.setValue(encodeResult);
             }else {
-                resValue.setValueAsString(StyleDocument.copyInner(element));
+                resValue.setValueAsString(stagedEntry.styleDocument);
             }
         }
         private boolean isTypeId(XMLElement element){
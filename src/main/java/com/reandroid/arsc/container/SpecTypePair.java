@@ -26,6 +26,7 @@ import com.reandroid.arsc.header.HeaderBlock;
 import com.reandroid.arsc.io.BlockReader;
 import com.reandroid.arsc.item.TypeString;
 import com.reandroid.arsc.model.ResourceEntry;
+import com.reandroid.arsc.model.ResourceIdIndex;
 import com.reandroid.arsc.pool.SpecStringPool;
 import com.reandroid.arsc.pool.TableStringPool;
 import com.reandroid.arsc.value.Entry;
@@ -283,6 +284,7 @@ public class SpecTypePair extends BlockContainer<Block>
     public void setTypeId(byte id){
         mSpecBlock.setTypeId(id);
         mTypeBlockArray.setTypeId(id);
+        ResourceIdIndex.invalidate(this);
     }
     public String getTypeName(){
         TypeString typeString = getTypeString();
@@ -30,6 +30,8 @@ public class BlockReader extends InputStream {
     private int mPosition;
     private boolean mIsClosed;
     private int mMark;
+    private boolean mShareBuffer;
+    private boolean mLazyStringDecode;
 
     public BlockReader(byte[] buffer, int start, int length) {
         this.BUFFER = buffer;
@@ -96,6 +98,31 @@ public class BlockReader extends InputStream {
     public byte[] getBuffer(){
         return BUFFER;
     }
+    public boolean isShareBuffer() {
+        return mShareBuffer;
+    }
+    /**
+     * When enabled, large {@link com.reandroid.arsc.item.ByteArray} payloads keep
+     * offset + length view to this buffer instead of copying to own array, bytes are
+     * copied only when an item is modified. Fixed width items (IntegerItem, ShortItem ...)
+     * always copy, a view would be as large as their bytes. Any shared item keeps the whole
+     * buffer reachable, and the buffer must not be modified afterwards.
+     * Intended for read-only workloads.
+     * */
+    public void setShareBuffer(boolean shareBuffer) {
+        this.mShareBuffer = shareBuffer;
+    }
+    public boolean isLazyStringDecode() {
+        return mLazyStringDecode;
+    }
+    /**
+     * When enabled, string pools read from this reader keep their strings as views to this
+     * buffer and decode them on first access, see
+     * {@link com.reandroid.arsc.pool.StringPool#setLazyDecode(boolean)}
+     * */
+    public void setLazyStringDecode(boolean lazyStringDecode) {
+        this.mLazyStringDecode = lazyStringDecode;
+    }
     public byte[] getBytes(){
         int len = length();
         if(this.BUFFER.length == len){
@@ -117,7 +144,10 @@ public class BlockReader extends InputStream {
             len = this.mLength - start;
         }
         start = start + this.mStart;
-        return new BlockReader(BUFFER, start, len);
+        BlockReader reader = new BlockReader(BUFFER, start, len);
+        reader.setShareBuffer(isShareBuffer());
+        reader.setLazyStringDecode(isLazyStringDecode());
+        return reader;
     }
     public boolean isAvailable(){
         if(mIsClosed){
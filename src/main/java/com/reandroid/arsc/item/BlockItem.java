@@ -25,7 +25,11 @@ import java.io.OutputStream;
 
 public abstract class BlockItem extends Block {
 
-    private byte[] mBytes;
+    /**
+     * Own byte[], or {@link SharedBytes} view while bytes are shared with reader buffer.
+     * Kept in one slot so items that never share bytes pay nothing for it.
+     * */
+    private Object mBytes;
 
     public BlockItem(int bytesLength){
         super();
@@ -38,7 +42,78 @@ public abstract class BlockItem extends Block {
     protected void onBytesChanged(){
     }
     protected byte[] getBytesInternal() {
-        return mBytes;
+        Object bytes = this.mBytes;
+        if(bytes instanceof byte[]){
+            return (byte[]) bytes;
+        }
+        return copyOnWrite((SharedBytes) bytes);
+    }
+    /**
+     * Returns array holding bytes of this item without copying shared buffer, the bytes
+     * start at getBytesViewOffset(). Must be used only for reading.
+     * */
+    protected final byte[] getBytesView() {
+        Object bytes = this.mBytes;
+        if(bytes instanceof byte[]){
+            return (byte[]) bytes;
+        }
+        return ((SharedBytes) bytes).buffer;
+    }
+    protected final int getBytesViewOffset() {
+        Object bytes = this.mBytes;
+        if(bytes instanceof SharedBytes){
+            return ((SharedBytes) bytes).offset;
+        }
+        return 0;
+    }
+    /**
+     * Returns true if bytes of this item are a view (offset + length) to buffer of a
+     * shared {@link BlockReader}, see {@link BlockReader#setShareBuffer(boolean)}
+     * */
+    public boolean isSharedBytes() {
+        return mBytes instanceof SharedBytes;
+    }
+    /**
+     * Subclasses returning true can keep their bytes as view to shared reader buffer,
+     * any access through getBytesInternal() copies the bytes to own array. Only payloads
+     * of at least {@link #MIN_SHARED_LENGTH} bytes are shared, a smaller own array costs
+     * no more heap than the view and does not pin the whole reader buffer.
+     * */
+    protected boolean isBytesSharable() {
+        return false;
+    }
+    private byte[] copyOnWrite(SharedBytes shared) {
+        int length = shared.length;
+        byte[] bytes;
+        if(length == 0){
+            bytes = EMPTY;
+        }else {
+            bytes = new byte[length];
+            System.arraycopy(shared.buffer, shared.offset, bytes, 0, length);
+        }
+        this.mBytes = bytes;
+        return bytes;
+    }
+    /**
+     * Keeps the next length bytes of the reader as view to its buffer regardless of
+     * {@link #isBytesSharable()}, returns false if not enough bytes available.
+     * */
+    protected final boolean readBytesView(BlockReader reader, int length) {
+        if(reader.available() < length){
+            return false;
+        }
+        this.mBytes = new SharedBytes(reader.getBuffer(), reader.getActualPosition(), length);
+        reader.offset(length);
+        return true;
+    }
+    private boolean shareBytes(BlockReader reader, int length) {
+        if(length < MIN_SHARED_LENGTH || !isBytesSharable() || !reader.isShareBuffer()
+                || reader.available() < length){
+            return false;
+        }
+        this.mBytes = new SharedBytes(reader.getBuffer(), reader.getActualPosition(), length);
+        reader.offset(length);
+        return true;
     }
     void setBytesInternal(byte[] bytes){
         setBytesInternal(bytes, true);
@@ -69,22 +144,27 @@ public abstract class BlockItem extends Block {
             }
             return;
         }
-        int old = mBytes.length;
+        int old = getBytesLength();
         if(length == old){
             return;
         }
+        byte[] current = getBytesInternal();
         byte[] bytes = new byte[length];
         if(length < old){
             old = length;
         }
-        System.arraycopy(mBytes, 0, bytes, 0, old);
+        System.arraycopy(current, 0, bytes, 0, old);
         mBytes = bytes;
         if(notify){
             onBytesChanged();
         }
     }
     int getBytesLength(){
-        return mBytes.length;
+        Object bytes = this.mBytes;
+        if(bytes instanceof byte[]){
+            return ((byte[]) bytes).length;
+        }
+        return ((SharedBytes) bytes).length;
     }
 
     @Override
@@ -92,7 +172,7 @@ public abstract class BlockItem extends Block {
         if(isNull()){
             return 0;
         }
-        return getBytesInternal().length;
+        return getBytesLength();
     }
     @Override
     public byte[] getBytes() {
@@ -115,12 +195,13 @@ public abstract class BlockItem extends Block {
     }
     @Override
     public void onReadBytes(BlockReader reader) throws IOException{
-        byte[] bytes = getBytesInternal();
-        int length = bytes.length;
+        int length = getBytesLength();
         if(length == 0){
             return;
         }
-        reader.readFully(bytes);
+        if(!shareBytes(reader, length)){
+            reader.readFully(getBytesInternal());
+        }
         onBytesChanged();
     }
     @Override
@@ -128,12 +209,11 @@ public abstract class BlockItem extends Block {
         if (isNull()) {
             return 0;
         }
-        byte[] bytes = getBytesInternal();
-        int length = bytes.length;
+        int length = getBytesLength();
         if(length == 0){
             return 0;
         }
-        stream.write(bytes, 0, length);
+        stream.write(getBytesView(), getBytesViewOffset(), length);
         return length;
     }
 
@@ -156,8 +236,29 @@ public abstract class BlockItem extends Block {
     }
     public void setBytes(BlockItem blockItem){
         if(blockItem != this) {
-            byte[] coming = blockItem.getBytesInternal();
-            setBytesInternal(coming.clone());
+            int length = blockItem.getBytesLength();
+            byte[] bytes = new byte[length];
+            System.arraycopy(blockItem.getBytesView(), blockItem.getBytesViewOffset(),
+                    bytes, 0, length);
+            setBytesInternal(bytes);
+        }
+    }
+
+    /**
+     * Own byte[n] takes 16 + n bytes rounded to 8 (64-bit VM, compressed references) while
+     * {@link SharedBytes} takes 24, sharing below this length saves nothing.
+     * */
+    static final int MIN_SHARED_LENGTH = 32;
+
+    static final class SharedBytes {
+        final byte[] buffer;
+        final int offset;
+        final int length;
+
+        SharedBytes(byte[] buffer, int offset, int length){
+            this.buffer = buffer;
+            this.offset = offset;
+            this.length = length;
         }
     }
 
@@ -19,6 +19,7 @@ import com.reandroid.arsc.io.BlockReader;
 import com.reandroid.utils.CompareUtil;
 
 import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
 
 public class FixedLengthString  extends StringItem {
     private final int bytesLength;
@@ -46,6 +47,13 @@ public class FixedLengthString  extends StringItem {
         return decodeUtf16Bytes(bytes);
     }
     @Override
+    protected String decodeString(byte[] bytes, int offset, int length){
+        if(offset != 0 || length != bytes.length){
+            bytes = Arrays.copyOfRange(bytes, offset, offset + length);
+        }
+        return decodeUtf16Bytes(bytes);
+    }
+    @Override
     public StyleItem getOrCreateStyle(){
         return null;
     }
@@ -19,14 +19,47 @@ import com.reandroid.arsc.base.Block;
 import com.reandroid.arsc.value.Entry;
 import com.reandroid.utils.CompareUtil;
 
+import java.util.Arrays;
 import java.util.Iterator;
 import java.util.function.Predicate;
 
 public class SpecString extends StringItem {
+
+    private TypeEntries mTypeEntries;
+
     public SpecString(boolean utf8) {
         super(utf8);
     }
 
+    /**
+     * Returns the first entry of the given type referencing this name, the same as
+     * getEntries(typeId).next(). Results are cached until references of this string change
+     * or the given stamp differs, see {@link com.reandroid.arsc.model.ResourceNameIndex}
+     * */
+    public Entry getFirstEntry(int typeId, int stamp) {
+        TypeEntries typeEntries = this.mTypeEntries;
+        if(typeEntries == null || typeEntries.stamp != stamp) {
+            typeEntries = TypeEntries.build(this, stamp);
+            this.mTypeEntries = typeEntries;
+        }
+        return typeEntries.get(typeId);
+    }
+    @Override
+    public void addReference(ReferenceItem reference) {
+        super.addReference(reference);
+        this.mTypeEntries = null;
+    }
+    @Override
+    public void removeReference(ReferenceItem reference) {
+        super.removeReference(reference);
+        this.mTypeEntries = null;
+    }
+    @Override
+    public void clearReferences() {
+        super.clearReferences();
+        this.mTypeEntries = null;
+    }
+
     public int resolveResourceId(String typeName){
         Iterator<Entry> itr = getEntries(typeName);
         if(itr.hasNext()){
@@ -79,4 +112,54 @@ public class SpecString extends StringItem {
         }
         return CompareUtil.compare(this.get(), stringItem.get());
     }
+
+    static class TypeEntries {
+        final int stamp;
+        private final int[] typeIds;
+        private final Entry[] entries;
+
+        private TypeEntries(int stamp, int[] typeIds, Entry[] entries) {
+            this.stamp = stamp;
+            this.typeIds = typeIds;
+            this.entries = entries;
+        }
+        Entry get(int typeId) {
+            int[] typeIds = this.typeIds;
+            for(int i = 0; i < typeIds.length; i++) {
+                if(typeIds[i] == typeId) {
+                    return entries[i];
+                }
+            }
+            return null;
+        }
+        static TypeEntries build(SpecString specString, int stamp) {
+            int[] typeIds = new int[2];
+            Entry[] entries = new Entry[2];
+            int count = 0;
+            Iterator<Entry> iterator = specString.getUsers(Entry.class);
+            while (iterator.hasNext()) {
+                Entry entry = iterator.next();
+                int typeId = entry.getTypeId();
+                boolean exists = false;
+                for(int i = 0; i < count; i++) {
+                    if(typeIds[i] == typeId) {
+                        exists = true;
+                        break;
+                    }
+                }
+                if(exists) {
+                    continue;
+                }
+                if(count == typeIds.length) {
+                    typeIds = Arrays.copyOf(typeIds, count * 2);
+                    entries = Arrays.copyOf(entries, count * 2);
+                }
+                typeIds[count] = typeId;
+                entries[count] = entry;
+                count ++;
+            }
+            return new TypeEntries(stamp, Arrays.copyOf(typeIds, count),
+                    Arrays.copyOf(entries, count));
+        }
+    }
 }
@@ -23,14 +23,21 @@ import java.nio.charset.StandardCharsets;
 public abstract class StringBlock extends BlockItem implements StringReference {
 
     private String mCache;
+    private volatile boolean mDecodePending;
 
     public StringBlock() {
         super(0);
         mCache = StringsUtil.EMPTY;
     }
     public String get(){
+        if(mDecodePending){
+            return decode();
+        }
         return mCache;
     }
+    public boolean isDecoded(){
+        return !mDecodePending;
+    }
     public void set(String text){
         set(text, true);
     }
@@ -38,7 +45,7 @@ public abstract class StringBlock extends BlockItem implements StringReference {
         if(text == null || text.length() == 0){
             text = StringsUtil.EMPTY;
         }
-        String old = this.mCache;
+        String old = get();
         boolean firstTime = countBytes() == 0;
         if(firstTime) {
             old = null;
@@ -52,15 +59,45 @@ public abstract class StringBlock extends BlockItem implements StringReference {
     }
     protected void writeStringBytes(String text) {
         this.mCache = text;
+        this.mDecodePending = false;
         byte[] bytes = encodeString(text);
         setBytesInternal(bytes, false);
     }
     protected void onBytesChanged(){
-        mCache = decodeString(getBytesInternal());
+        decode();
+    }
+    /**
+     * Decodes and caches string from the current bytes, safe to call concurrently
+     * for different items
+     * */
+    public String decode(){
+        String text = decodeString(getBytesView(), getBytesViewOffset(), getBytesLength());
+        this.mCache = text;
+        this.mDecodePending = false;
+        return text;
+    }
+    /**
+     * Drops decoded string, the bytes will be decoded on next call of get()
+     * */
+    protected void setDecodePending(){
+        this.mCache = null;
+        this.mDecodePending = true;
     }
     protected void onStringChanged(String old, String text){
     }
     protected abstract String decodeString(byte[] bytes);
+    /**
+     * Decodes from the given range without changing own bytes, subclasses reading the
+     * range in place should override this to avoid copying
+     * */
+    protected String decodeString(byte[] bytes, int offset, int length){
+        if(offset == 0 && length == bytes.length){
+            return decodeString(bytes);
+        }
+        byte[] range = new byte[length];
+        System.arraycopy(bytes, offset, range, 0, length);
+        return decodeString(range);
+    }
     protected abstract byte[] encodeString(String text);
 
     public int compareTo(StringBlock stringBlock){
@@ -74,5 +111,9 @@ public abstract class StringBlock extends BlockItem implements StringReference {
         return get();
     }
 
+    /**
+     * CharsetDecoder is not thread safe, shared instance should not be used
+     * */
+    @Deprecated
     public static final CharsetDecoder UTF8_DECODER = StandardCharsets.UTF_8.newDecoder();
 }
@@ -235,7 +235,13 @@ public class StringItem extends StringBlock implements JSONConvert<JSONObject>,
         if (reader.available() < 4) {
             return;
         }
-        setBytesLength(calculateReadLength(reader), false);
+        int length = calculateReadLength(reader);
+        StringPool<?> stringPool = getParentInstance(StringPool.class);
+        if (stringPool != null && stringPool.isLazyDecode() && readBytesView(reader, length)) {
+            setDecodePending();
+            return;
+        }
+        setBytesLength(length, false);
         reader.readFully(getBytesInternal());
         onBytesChanged();
     }
@@ -257,7 +263,11 @@ public class StringItem extends StringBlock implements JSONConvert<JSONObject>,
     }
     @Override
     protected String decodeString(byte[] bytes) {
-        return decodeString(bytes, mUtf8);
+        return decodeString(bytes, 0, bytes.length, mUtf8);
+    }
+    @Override
+    protected String decodeString(byte[] bytes, int offset, int length) {
+        return decodeString(bytes, offset, length, mUtf8);
     }
     @Override
     protected byte[] encodeString(String str) {
@@ -267,24 +277,24 @@ public class StringItem extends StringBlock implements JSONConvert<JSONObject>,
             return encodeUtf16ToBytes(str);
         }
     }
-    private String decodeString(byte[] encodedBytes, boolean isUtf8) {
-        if (isNullBytes(encodedBytes)) {
-            if (encodedBytes == null || encodedBytes.length == 0) {
+    private String decodeString(byte[] encodedBytes, int offset, int length, boolean isUtf8) {
+        if (isNullBytes(encodedBytes, offset, length)) {
+            if (encodedBytes == null || length == 0) {
                 return null;
             }
             return "";
         }
         int[] offLen;
         if (isUtf8) {
-            offLen = decodeUtf8StringByteLength(encodedBytes);
+            offLen = decodeUtf8StringByteLength(encodedBytes, offset);
         } else {
-            offLen = decodeUtf16StringByteLength(encodedBytes);
+            offLen = decodeUtf16StringByteLength(encodedBytes, offset);
         }
         CharsetDecoder charsetDecoder;
         if (isUtf8) {
-            charsetDecoder = UTF8_DECODER;
+            charsetDecoder = UTF8_DECODER.get();
         } else {
-            charsetDecoder = UTF16LE_DECODER;
+            charsetDecoder = UTF16LE_DECODER.get();
         }
         try {
             ByteBuffer buffer = ByteBuffer.wrap(encodedBytes, offLen[0], offLen[1]);
@@ -299,7 +309,7 @@ public class StringItem extends StringBlock implements JSONConvert<JSONObject>,
     private String tryThreeByteDecoder(byte[] bytes, int offset, int length) {
         try {
             ByteBuffer byteBuffer = ByteBuffer.wrap(bytes, offset, length);
-            CharBuffer charBuffer = DECODER_3B.decode(byteBuffer);
+            CharBuffer charBuffer = DECODER_3B.get().decode(byteBuffer);
             return charBuffer.toString();
         } catch (CharacterCodingException e) {
             return new String(bytes, offset, length, StandardCharsets.UTF_8);
@@ -461,7 +471,9 @@ public class StringItem extends StringBlock implements JSONConvert<JSONObject>,
     }
 
     private static int[] decodeUtf8StringByteLength(byte[] lengthBytes) {
-        int offset = 0;
+        return decodeUtf8StringByteLength(lengthBytes, 0);
+    }
+    private static int[] decodeUtf8StringByteLength(byte[] lengthBytes, int offset) {
         int val = lengthBytes[offset];
         int length;
         if ((val & 0x80) != 0) {
@@ -483,25 +495,31 @@ public class StringItem extends StringBlock implements JSONConvert<JSONObject>,
         return new int[] { offset, length};
     }
     private static int[] decodeUtf16StringByteLength(byte[] lengthBytes) {
-        int val = ((lengthBytes[1] & 0xFF) << 8 | lengthBytes[0] & 0xFF);
+        return decodeUtf16StringByteLength(lengthBytes, 0);
+    }
+    private static int[] decodeUtf16StringByteLength(byte[] lengthBytes, int offset) {
+        int val = ((lengthBytes[offset + 1] & 0xFF) << 8 | lengthBytes[offset] & 0xFF);
         if ((val & 0x8000) != 0) {
-            int high = (lengthBytes[3] & 0xFF) << 8;
-            int low = (lengthBytes[2] & 0xFF);
+            int high = (lengthBytes[offset + 3] & 0xFF) << 8;
+            int low = (lengthBytes[offset + 2] & 0xFF);
             int len_value =  ((val & 0x7FFF) << 16) + (high + low);
-            return new int[] {4, len_value * 2};
+            return new int[] {offset + 4, len_value * 2};
 
         }
-        return new int[] {2, val * 2};
+        return new int[] {offset + 2, val * 2};
     }
     static boolean isNullBytes(byte[] bytes) {
         if (bytes == null) {
             return true;
         }
-        int length = bytes.length;
-        if (length < 2) {
+        return isNullBytes(bytes, 0, bytes.length);
+    }
+    private static boolean isNullBytes(byte[] bytes, int offset, int length) {
+        if (bytes == null || length < 2) {
             return true;
         }
-        for (int i = 2; i < length; i++) {
+        int end = offset + length;
+        for (int i = offset + 2; i < end; i++) {
             if (bytes[i] != 0) {
                 return false;
             }
@@ -595,8 +613,13 @@ public class StringItem extends StringBlock implements JSONConvert<JSONObject>,
         return result;
     }
 
-    private static final CharsetDecoder UTF16LE_DECODER = StandardCharsets.UTF_16LE.newDecoder();
-    private static final CharsetDecoder DECODER_3B = ThreeByteCharsetDecoder.INSTANCE;
+    // CharsetDecoder holds decoding state, thus each thread gets its own instance
+    private static final ThreadLocal<CharsetDecoder> UTF8_DECODER =
+            ThreadLocal.withInitial(StandardCharsets.UTF_8::newDecoder);
+    private static final ThreadLocal<CharsetDecoder> UTF16LE_DECODER =
+            ThreadLocal.withInitial(StandardCharsets.UTF_16LE::newDecoder);
+    private static final ThreadLocal<CharsetDecoder> DECODER_3B =
+            ThreadLocal.withInitial(ThreeByteCharsetDecoder::new);
 
     public static final String NAME_string = ObjectsUtil.of("string");
     public static final String NAME_style = ObjectsUtil.of("style");
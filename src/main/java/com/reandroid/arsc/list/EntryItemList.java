@@ -20,6 +20,7 @@ import com.reandroid.arsc.chunk.TypeBlock;
 import com.reandroid.arsc.header.TypeHeader;
 import com.reandroid.arsc.item.IntegerReference;
 import com.reandroid.arsc.item.OffsetItem;
+import com.reandroid.arsc.model.ResourceIdIndex;
 import com.reandroid.arsc.pool.SpecStringPool;
 import com.reandroid.arsc.pool.TableStringPool;
 import com.reandroid.arsc.value.Entry;
@@ -174,8 +175,21 @@ public class EntryItemList extends OffsetBlockList<Entry> implements JSONConvert
     @Override
     public void onPreRemove(Entry item) {
         item.setNull(true);
+        ResourceIdIndex.invalidate(this);
         super.onPreRemove(item);
     }
+    @Override
+    public void setSize(int size, boolean notify) {
+        if (size != size()) {
+            ResourceIdIndex.invalidate(this);
+        }
+        super.setSize(size, notify);
+    }
+    @Override
+    public void onChanged() {
+        super.onChanged();
+        ResourceIdIndex.invalidate(this);
+    }
 
     @Override
     protected void onRefreshed() {
@@ -17,6 +17,7 @@ package com.reandroid.arsc.list;
 
 import com.reandroid.arsc.chunk.StagedAlias;
 import com.reandroid.arsc.container.BlockList;
+import com.reandroid.arsc.model.ResourceIdIndex;
 
 public class StagedAliasList extends BlockList<StagedAlias> {
     public StagedAliasList(){
@@ -43,4 +44,14 @@ public class StagedAliasList extends BlockList<StagedAlias> {
             exist.merge(stagedAlias);
         }
     }
+    @Override
+    public void onChanged() {
+        super.onChanged();
+        ResourceIdIndex.invalidate(this);
+    }
+    @Override
+    public void onPreRemove(StagedAlias block) {
+        ResourceIdIndex.invalidate(this);
+        super.onPreRemove(block);
+    }
 }
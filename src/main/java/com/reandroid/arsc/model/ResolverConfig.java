@@ -0,0 +1,467 @@
+/*
+ *  Copyright (C) 2022 github.com/REAndroid
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.reandroid.arsc.model;
+
+import com.reandroid.arsc.value.ResConfig;
+
+/**
+ * Unpacked snapshot of {@link ResConfig} qualifiers used by {@link ResourceResolver}, matching
+ * and ranking follow ResTable_config::match and ResTable_config::isBetterThan of the android
+ * framework.
+ * */
+class ResolverConfig {
+
+    private final ResConfig resConfig;
+
+    private final int mcc;
+    private final int mnc;
+    private final String language;
+    private final String region;
+    private final String script;
+    private final String variant;
+    private final int orientation;
+    private final int touchscreen;
+    private final int density;
+    private final int keyboard;
+    private final int navigation;
+    private final int inputFlags;
+    private final int gender;
+    private final int screenWidth;
+    private final int screenHeight;
+    private final int sdkVersion;
+    private final int minorVersion;
+    private final int screenLayout;
+    private final int uiMode;
+    private final int smallestScreenWidthDp;
+    private final int screenWidthDp;
+    private final int screenHeightDp;
+    private final int screenLayout2;
+    private final int colorMode;
+
+    ResolverConfig(ResConfig resConfig){
+        this.resConfig = resConfig;
+        this.mcc = resConfig.getMcc();
+        this.mnc = resConfig.getMnc();
+        this.language = toString(resConfig.getLanguageChars());
+        this.region = toString(resConfig.getRegionChars());
+        this.script = toString(resConfig.getLocaleScriptChars());
+        this.variant = toString(resConfig.getLocaleVariantChars());
+        this.orientation = resConfig.getOrientationValue();
+        this.touchscreen = resConfig.getTouchscreenValue();
+        this.density = resConfig.getDensityValue();
+        this.keyboard = resConfig.getKeyboardValue();
+        this.navigation = resConfig.getNavigationValue();
+        this.inputFlags = resConfig.getInputFlagsValue();
+        this.gender = resConfig.getGenderValue();
+        this.screenWidth = resConfig.getScreenWidth();
+        this.screenHeight = resConfig.getScreenHeight();
+        this.sdkVersion = resConfig.getSdkVersion();
+        this.minorVersion = resConfig.getMinorVersion();
+        this.screenLayout = resConfig.getScreenLayout();
+        this.uiMode = resConfig.getUiMode();
+        this.smallestScreenWidthDp = resConfig.getSmallestScreenWidthDp();
+        this.screenWidthDp = resConfig.getScreenWidthDp();
+        this.screenHeightDp = resConfig.getScreenHeightDp();
+        this.screenLayout2 = resConfig.getScreenLayout2();
+        this.colorMode = resConfig.getColorMode();
+    }
+
+    ResConfig getResConfig() {
+        return resConfig;
+    }
+
+    /**
+     * Returns true if this (resource) config can be used on the given device config.
+     * Locale scripts are compared only when both sides declare one, otherwise declared region
+     * must be identical (no CLDR script/region data is available here).
+     * */
+    boolean match(ResolverConfig settings){
+        if(mcc != 0 && mcc != settings.mcc){
+            return false;
+        }
+        if(mnc != 0 && mnc != settings.mnc){
+            return false;
+        }
+        if(hasLocale()){
+            if(!langsAreEquivalent(language, settings.language)){
+                return false;
+            }
+            if(script != null && settings.script != null){
+                if(!script.equals(settings.script)){
+                    return false;
+                }
+            }else if(region != null && !region.equals(settings.region)){
+                return false;
+            }
+        }
+        if(gender != 0 && gender != settings.gender){
+            return false;
+        }
+        int value = screenLayout & MASK_LAYOUTDIR;
+        if(value != 0 && value != (settings.screenLayout & MASK_LAYOUTDIR)){
+            return false;
+        }
+        value = screenLayout & MASK_SCREENSIZE;
+        if(value != 0 && value > (settings.screenLayout & MASK_SCREENSIZE)){
+            return false;
+        }
+        value = screenLayout & MASK_SCREENLONG;
+        if(value != 0 && value != (settings.screenLayout & MASK_SCREENLONG)){
+            return false;
+        }
+        value = uiMode & MASK_UI_MODE_TYPE;
+        if(value != 0 && value != (settings.uiMode & MASK_UI_MODE_TYPE)){
+            return false;
+        }
+        value = uiMode & MASK_UI_MODE_NIGHT;
+        if(value != 0 && value != (settings.uiMode & MASK_UI_MODE_NIGHT)){
+            return false;
+        }
+        if(smallestScreenWidthDp != 0 && smallestScreenWidthDp > settings.smallestScreenWidthDp){
+            return false;
+        }
+        value = screenLayout2 & MASK_SCREENROUND;
+        if(value != 0 && value != (settings.screenLayout2 & MASK_SCREENROUND)){
+            return false;
+        }
+        value = colorMode & MASK_HDR;
+        if(value != 0 && value != (settings.colorMode & MASK_HDR)){
+            return false;
+        }
+        value = colorMode & MASK_WIDE_COLOR_GAMUT;
+        if(value != 0 && value != (settings.colorMode & MASK_WIDE_COLOR_GAMUT)){
+            return false;
+        }
+        if(screenWidthDp != 0 && screenWidthDp > settings.screenWidthDp){
+            return false;
+        }
+        if(screenHeightDp != 0 && screenHeightDp > settings.screenHeightDp){
+            return false;
+        }
+        if(orientation != 0 && orientation != settings.orientation){
+            return false;
+        }
+        // density always matches, it can be scaled
+        if(touchscreen != 0 && touchscreen != settings.touchscreen){
+            return false;
+        }
+        int keysHidden = inputFlags & MASK_KEYSHIDDEN;
+        int setKeysHidden = settings.inputFlags & MASK_KEYSHIDDEN;
+        if(keysHidden != 0 && keysHidden != setKeysHidden){
+            // keysexposed also matches keyssoft
+            if(keysHidden != KEYSHIDDEN_NO || setKeysHidden != KEYSHIDDEN_SOFT){
+                return false;
+            }
+        }
+        value = inputFlags & MASK_NAVHIDDEN;
+        if(value != 0 && value != (settings.inputFlags & MASK_NAVHIDDEN)){
+            return false;
+        }
+        if(keyboard != 0 && keyboard != settings.keyboard){
+            return false;
+        }
+        if(navigation != 0 && navigation != settings.navigation){
+            return false;
+        }
+        if(screenWidth != 0 && screenWidth > settings.screenWidth){
+            return false;
+        }
+        if(screenHeight != 0 && screenHeight > settings.screenHeight){
+            return false;
+        }
+        if(sdkVersion != 0 && sdkVersion > settings.sdkVersion){
+            return false;
+        }
+        return minorVersion == 0 || minorVersion == settings.minorVersion;
+    }
+    /**
+     * Returns true if this config is a better match than the other for the requested config,
+     * both configs are assumed to {@link #match(ResolverConfig)} the requested one.
+     * */
+    boolean isBetterThan(ResolverConfig o, ResolverConfig requested){
+        if(mcc != o.mcc && requested.mcc != 0){
+            return mcc != 0;
+        }
+        if(mnc != o.mnc && requested.mnc != 0){
+            return mnc != 0;
+        }
+        if(isLocaleBetterThan(o, requested)){
+            return true;
+        }
+        if(o.isLocaleBetterThan(this, requested)){
+            return false;
+        }
+        if(gender != o.gender && requested.gender != 0){
+            return gender != 0;
+        }
+        if(((screenLayout ^ o.screenLayout) & MASK_LAYOUTDIR) != 0
+                && (requested.screenLayout & MASK_LAYOUTDIR) != 0){
+            return (screenLayout & MASK_LAYOUTDIR) > (o.screenLayout & MASK_LAYOUTDIR);
+        }
+        if(smallestScreenWidthDp != o.smallestScreenWidthDp){
+            return smallestScreenWidthDp > o.smallestScreenWidthDp;
+        }
+        if(screenWidthDp != o.screenWidthDp || screenHeightDp != o.screenHeightDp){
+            int myDelta = 0;
+            int otherDelta = 0;
+            if(requested.screenWidthDp != 0){
+                myDelta += requested.screenWidthDp - screenWidthDp;
+                otherDelta += requested.screenWidthDp - o.screenWidthDp;
+            }
+            if(requested.screenHeightDp != 0){
+                myDelta += requested.screenHeightDp - screenHeightDp;
+                otherDelta += requested.screenHeightDp - o.screenHeightDp;
+            }
+            if(myDelta != otherDelta){
+                return myDelta < otherDelta;
+            }
+        }
+        if(((screenLayout ^ o.screenLayout) & MASK_SCREENSIZE) != 0
+                && (requested.screenLayout & MASK_SCREENSIZE) != 0){
+            // undefined is considered as normal, only if the requested is at least normal
+            int mySL = screenLayout & MASK_SCREENSIZE;
+            int oSL = o.screenLayout & MASK_SCREENSIZE;
+            int fixedMySL = mySL;
+            int fixedOSL = oSL;
+            if((requested.screenLayout & MASK_SCREENSIZE) >= SCREENSIZE_NORMAL){
+                if(fixedMySL == 0){
+                    fixedMySL = SCREENSIZE_NORMAL;
+                }
+                if(fixedOSL == 0){
+                    fixedOSL = SCREENSIZE_NORMAL;
+                }
+            }
+            if(fixedMySL == fixedOSL){
+                return mySL != 0;
+            }
+            return fixedMySL > fixedOSL;
+        }
+        if(((screenLayout ^ o.screenLayout) & MASK_SCREENLONG) != 0
+                && (requested.screenLayout & MASK_SCREENLONG) != 0){
+            return (screenLayout & MASK_SCREENLONG) != 0;
+        }
+        if(((screenLayout2 ^ o.screenLayout2) & MASK_SCREENROUND) != 0
+                && (requested.screenLayout2 & MASK_SCREENROUND) != 0){
+            return (screenLayout2 & MASK_SCREENROUND) != 0;
+        }
+        if(((colorMode ^ o.colorMode) & MASK_WIDE_COLOR_GAMUT) != 0
+                && (requested.colorMode & MASK_WIDE_COLOR_GAMUT) != 0){
+            return (colorMode & MASK_WIDE_COLOR_GAMUT) != 0;
+        }
+        if(((colorMode ^ o.colorMode) & MASK_HDR) != 0
+                && (requested.colorMode & MASK_HDR) != 0){
+            return (colorMode & MASK_HDR) != 0;
+        }
+        if(orientation != o.orientation && requested.orientation != 0){
+            return orientation != 0;
+        }
+        if(((uiMode ^ o.uiMode) & MASK_UI_MODE_TYPE) != 0
+                && (requested.uiMode & MASK_UI_MODE_TYPE) != 0){
+            return (uiMode & MASK_UI_MODE_TYPE) != 0;
+        }
+        if(((uiMode ^ o.uiMode) & MASK_UI_MODE_NIGHT) != 0
+                && (requested.uiMode & MASK_UI_MODE_NIGHT) != 0){
+            return (uiMode & MASK_UI_MODE_NIGHT) != 0;
+        }
+        if(density != o.density){
+            return isDensityBetterThan(o, requested);
+        }
+        if(touchscreen != o.touchscreen && requested.touchscreen != 0){
+            return touchscreen != 0;
+        }
+        int keysHidden = inputFlags & MASK_KEYSHIDDEN;
+        int oKeysHidden = o.inputFlags & MASK_KEYSHIDDEN;
+        int reqKeysHidden = requested.inputFlags & MASK_KEYSHIDDEN;
+        if(keysHidden != oKeysHidden && reqKeysHidden != 0){
+            if(keysHidden == 0){
+                return false;
+            }
+            if(oKeysHidden == 0){
+                return true;
+            }
+            // exact match is more specific than keysexposed vs keyssoft
+            if(reqKeysHidden == keysHidden){
+                return true;
+            }
+            if(reqKeysHidden == oKeysHidden){
+                return false;
+            }
+        }
+        int navHidden = inputFlags & MASK_NAVHIDDEN;
+        int oNavHidden = o.inputFlags & MASK_NAVHIDDEN;
+        if(navHidden != oNavHidden && (requested.inputFlags & MASK_NAVHIDDEN) != 0){
+            return navHidden != 0;
+        }
+        if(keyboard != o.keyboard && requested.keyboard != 0){
+            return keyboard != 0;
+        }
+        if(navigation != o.navigation && requested.navigation != 0){
+            return navigation != 0;
+        }
+        if(screenWidth != o.screenWidth || screenHeight != o.screenHeight){
+            int myDelta = 0;
+            int otherDelta = 0;
+            if(requested.screenWidth != 0){
+                myDelta += requested.screenWidth - screenWidth;
+                otherDelta += requested.screenWidth - o.screenWidth;
+            }
+            if(requested.screenHeight != 0){
+                myDelta += requested.screenHeight - screenHeight;
+                otherDelta += requested.screenHeight - o.screenHeight;
+            }
+            if(myDelta != otherDelta){
+                return myDelta < otherDelta;
+            }
+        }
+        if(sdkVersion != o.sdkVersion && requested.sdkVersion != 0){
+            return sdkVersion > o.sdkVersion;
+        }
+        if(minorVersion != o.minorVersion && requested.minorVersion != 0){
+            return minorVersion != 0;
+        }
+        return false;
+    }
+    private boolean isDensityBetterThan(ResolverConfig o, ResolverConfig requested){
+        int thisDensity = density != 0 ? density : DENSITY_MEDIUM;
+        int otherDensity = o.density != 0 ? o.density : DENSITY_MEDIUM;
+        // anydpi is always preferred over scaling
+        if(thisDensity == DENSITY_ANY){
+            return true;
+        }
+        if(otherDensity == DENSITY_ANY){
+            return false;
+        }
+        int requestedDensity = requested.density;
+        if(requestedDensity == 0 || requestedDensity == DENSITY_ANY){
+            requestedDensity = DENSITY_MEDIUM;
+        }
+        int h = thisDensity;
+        int l = otherDensity;
+        boolean imBigger = true;
+        if(l > h){
+            h = otherDensity;
+            l = thisDensity;
+            imBigger = false;
+        }
+        if(requestedDensity >= h){
+            return imBigger;
+        }
+        if(l >= requestedDensity){
+            return !imBigger;
+        }
+        // scaling down is 2x better than up
+        if(((2 * l) - requestedDensity) * h > requestedDensity * requestedDensity){
+            return !imBigger;
+        }
+        return imBigger;
+    }
+    private boolean isLocaleBetterThan(ResolverConfig o, ResolverConfig requested){
+        if(!requested.hasLocale()){
+            return false;
+        }
+        if(!hasLocale() && !o.hasLocale()){
+            return false;
+        }
+        if(!langsAreEquivalent(language, o.language)){
+            // only one of them declares (matching) language, for en-US resources without
+            // language are preferred over other english regions
+            if(LANGUAGE_ENGLISH.equals(requested.language)
+                    && REGION_US.equals(requested.region)){
+                if(language != null){
+                    return region == null || REGION_US.equals(region);
+                }
+                return !(o.region == null || REGION_US.equals(o.region));
+            }
+            return language != null;
+        }
+        if(!equals(region, o.region)){
+            // exact region first, then language only
+            if(equals(region, requested.region)){
+                return true;
+            }
+            if(equals(o.region, requested.region)){
+                return false;
+            }
+            return region == null;
+        }
+        boolean localeMatches = equals(variant, requested.variant);
+        boolean otherMatches = equals(o.variant, requested.variant);
+        if(localeMatches != otherMatches){
+            return localeMatches;
+        }
+        return equals(language, requested.language) && !equals(o.language, requested.language);
+    }
+    private boolean hasLocale(){
+        return language != null || region != null;
+    }
+
+    private static boolean langsAreEquivalent(String lang1, String lang2){
+        if(equals(lang1, lang2)){
+            return true;
+        }
+        return (LANGUAGE_TAGALOG.equals(lang1) && LANGUAGE_FILIPINO.equals(lang2))
+                || (LANGUAGE_FILIPINO.equals(lang1) && LANGUAGE_TAGALOG.equals(lang2));
+    }
+    private static boolean equals(String s1, String s2){
+        if(s1 == null){
+            return s2 == null;
+        }
+        return s1.equals(s2);
+    }
+    private static String toString(char[] chars){
+        if(chars == null){
+            return null;
+        }
+        int length = 0;
+        while (length < chars.length && chars[length] != 0){
+            length ++;
+        }
+        if(length == 0){
+            return null;
+        }
+        return new String(chars, 0, length);
+    }
+
+    @Override
+    public String toString() {
+        return resConfig.toString();
+    }
+
+    private static final int MASK_KEYSHIDDEN = 0x03;
+    private static final int KEYSHIDDEN_NO = 0x01;
+    private static final int KEYSHIDDEN_SOFT = 0x03;
+    private static final int MASK_NAVHIDDEN = 0x0c;
+
+    private static final int MASK_SCREENSIZE = 0x0f;
+    private static final int SCREENSIZE_NORMAL = 0x02;
+    private static final int MASK_SCREENLONG = 0x30;
+    private static final int MASK_LAYOUTDIR = 0xc0;
+
+    private static final int MASK_UI_MODE_TYPE = 0x0f;
+    private static final int MASK_UI_MODE_NIGHT = 0x30;
+
+    private static final int MASK_SCREENROUND = 0x03;
+    private static final int MASK_WIDE_COLOR_GAMUT = 0x03;
+    private static final int MASK_HDR = 0x0c;
+
+    private static final int DENSITY_MEDIUM = 160;
+    private static final int DENSITY_ANY = 0xfffe;
+
+    private static final String LANGUAGE_ENGLISH = "en";
+    private static final String REGION_US = "US";
+    private static final String LANGUAGE_TAGALOG = "tl";
+    private static final String LANGUAGE_FILIPINO = "fil";
+}
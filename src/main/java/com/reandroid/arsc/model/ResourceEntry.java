@@ -34,6 +34,7 @@ import java.util.HashSet;
 import java.util.Iterator;
 import java.util.Locale;
 import java.util.Set;
+import java.util.function.Function;
 import java.util.function.Predicate;
 
 public class ResourceEntry implements Iterable<Entry> {
@@ -109,17 +110,24 @@ public class ResourceEntry implements Iterable<Entry> {
         return null;
     }
     public ResourceEntry resolveReference() {
+        return resolveReference(ResourceEntry::get);
+    }
+    /**
+     * Follows reference chain, the value entry of each resource on the chain is chosen by
+     * the given selector e.g. {@link ResourceResolver#resolve(ResourceEntry)}
+     * */
+    public ResourceEntry resolveReference(Function<ResourceEntry, Entry> selector) {
         Set<Integer> processedIds = new HashSet<>();
         processedIds.add(0);
         processedIds.add(getResourceId());
-        ResourceEntry resolved = resolveReference(processedIds);
+        ResourceEntry resolved = resolveReference(selector, processedIds);
         if (resolved != null) {
             return resolved;
         }
         return this;
     }
-    private ResourceEntry resolveReference(Set<Integer> processedIds) {
-        Entry entry = get();
+    private ResourceEntry resolveReference(Function<ResourceEntry, Entry> selector, Set<Integer> processedIds) {
+        Entry entry = selector.apply(this);
         if (entry == null) {
             return this;
         }
@@ -138,7 +146,7 @@ public class ResourceEntry implements Iterable<Entry> {
         processedIds.add(id);
         ResourceEntry resourceEntry = getResourceEntry(id);
         if (resourceEntry != null) {
-            ResourceEntry resolved = resourceEntry.resolveReference(processedIds);
+            ResourceEntry resolved = resourceEntry.resolveReference(selector, processedIds);
             if (resolved != null) {
                 resourceEntry = resolved;
             }
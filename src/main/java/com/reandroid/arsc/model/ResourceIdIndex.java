@@ -0,0 +1,186 @@
+/*
+ *  Copyright (C) 2022 github.com/REAndroid
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.reandroid.arsc.model;
+
+import com.reandroid.arsc.base.Block;
+import com.reandroid.arsc.chunk.PackageBlock;
+import com.reandroid.arsc.chunk.StagedAlias;
+import com.reandroid.arsc.chunk.TableBlock;
+import com.reandroid.arsc.container.SpecTypePair;
+import com.reandroid.arsc.value.StagedAliasEntry;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Lookup of resource id to {@link ResourceEntry} over the packages of a single table.
+ * The index is built lazily on first query and dropped whenever packages, specs, types,
+ * entries or staged aliases of the table change, see {@link #invalidate(Block)}.
+ * */
+public class ResourceIdIndex {
+
+    private final TableBlock tableBlock;
+    private volatile IndexData mIndexData;
+
+    public ResourceIdIndex(TableBlock tableBlock) {
+        this.tableBlock = tableBlock;
+    }
+
+    /**
+     * Returns the first resource with the given id, in the order of table packages;
+     * a package also resolves staged ids of its own staged aliases, the same way as
+     * {@link PackageBlock#getResource(int)} does.
+     * */
+    public ResourceEntry get(int resourceId) {
+        if(resourceId == 0) {
+            return null;
+        }
+        return getIndexData().resources.get(resourceId);
+    }
+    /**
+     * Returns true if the id is found on more than one package of the table, thus the
+     * result depends on which package is searched first.
+     * */
+    public boolean isAmbiguous(int resourceId) {
+        Set<Integer> ambiguous = getIndexData().ambiguous;
+        return !ambiguous.isEmpty() && ambiguous.contains(resourceId);
+    }
+    /**
+     * Returns finalized resource id of the first staged alias declared with the given
+     * staged id, or null if no package of the table declares it.
+     * */
+    public Integer getFinalizedResId(int stagedResId) {
+        return getIndexData().stagedAliases.get(stagedResId);
+    }
+    public int size() {
+        return getIndexData().resources.size();
+    }
+    public boolean isBuilt() {
+        return mIndexData != null;
+    }
+    public void invalidate() {
+        mIndexData = null;
+    }
+    private IndexData getIndexData() {
+        IndexData indexData = this.mIndexData;
+        if(indexData != null) {
+            return indexData;
+        }
+        synchronized (this) {
+            indexData = this.mIndexData;
+            if(indexData == null) {
+                indexData = build(tableBlock);
+                this.mIndexData = indexData;
+            }
+            return indexData;
+        }
+    }
+
+    private static IndexData build(TableBlock tableBlock) {
+        IndexData indexData = new IndexData();
+        for(PackageBlock packageBlock : tableBlock) {
+            int packageId = packageBlock.getId();
+            if(packageId == 0) {
+                continue;
+            }
+            Map<Integer, ResourceEntry> packageResources = new HashMap<>();
+            Iterator<SpecTypePair> iterator = packageBlock.getSpecTypePairs();
+            while (iterator.hasNext()) {
+                SpecTypePair specTypePair = iterator.next();
+                int id = (packageId << 24) | (specTypePair.getId() << 16);
+                int highest = specTypePair.getHighestEntryId();
+                for(int i = 0; i <= highest; i++) {
+                    if(specTypePair.getAnyEntry((short) i) == null) {
+                        continue;
+                    }
+                    int resourceId = id | i;
+                    packageResources.put(resourceId, new ResourceEntry(packageBlock, resourceId));
+                }
+            }
+            Map<Integer, ResourceEntry> stagedResources = new HashMap<>();
+            Set<Integer> stagedIds = new HashSet<>();
+            for(StagedAlias stagedAlias : packageBlock.listStagedAlias()) {
+                for(StagedAliasEntry aliasEntry : stagedAlias.listStagedAliasEntry()) {
+                    int staged = aliasEntry.getStagedResId();
+                    int finalized = aliasEntry.getFinalizedResId();
+                    if(!indexData.stagedAliases.containsKey(staged)) {
+                        indexData.stagedAliases.put(staged, finalized);
+                    }
+                    if(!stagedIds.add(staged) || finalized == 0 || finalized == staged) {
+                        continue;
+                    }
+                    ResourceEntry resourceEntry = packageResources.get(finalized);
+                    if(resourceEntry != null) {
+                        stagedResources.put(staged, resourceEntry);
+                    }
+                }
+            }
+            indexData.add(packageResources);
+            indexData.add(stagedResources);
+        }
+        return indexData;
+    }
+
+    /**
+     * Drops the index of the table the given block belongs to together with the
+     * {@link ResourceNameIndex} of its package, a no-op for detached blocks.
+     * */
+    public static void invalidate(Block block) {
+        if(block == null) {
+            return;
+        }
+        ResourceNameIndex.invalidate(block);
+        TableBlock tableBlock;
+        if(block instanceof TableBlock) {
+            tableBlock = (TableBlock) block;
+        } else {
+            tableBlock = block.getParentInstance(TableBlock.class);
+        }
+        if(tableBlock != null) {
+            ResourceIdIndex idIndex = tableBlock.getResourceIdIndex();
+            if(idIndex != null) {
+                idIndex.invalidate();
+            }
+        }
+    }
+
+    static class IndexData {
+        final Map<Integer, ResourceEntry> resources;
+        final Map<Integer, Integer> stagedAliases;
+        final Set<Integer> ambiguous;
+
+        IndexData() {
+            this.resources = new HashMap<>();
+            this.stagedAliases = new HashMap<>();
+            this.ambiguous = new HashSet<>();
+        }
+        void add(Map<Integer, ResourceEntry> packageResources) {
+            Map<Integer, ResourceEntry> resources = this.resources;
+            for(Map.Entry<Integer, ResourceEntry> entry : packageResources.entrySet()) {
+                Integer resourceId = entry.getKey();
+                ResourceEntry exist = resources.get(resourceId);
+                if(exist == null) {
+                    resources.put(resourceId, entry.getValue());
+                } else if(exist.getPackageBlock() != entry.getValue().getPackageBlock()) {
+                    ambiguous.add(resourceId);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,97 @@
+/*
+ *  Copyright (C) 2022 github.com/REAndroid
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.reandroid.arsc.model;
+
+import com.reandroid.arsc.base.Block;
+import com.reandroid.arsc.chunk.PackageBlock;
+import com.reandroid.arsc.item.SpecString;
+import com.reandroid.arsc.value.Entry;
+
+import java.util.Iterator;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Lookup of (type id, entry name) to {@link ResourceEntry} over a single package.
+ * Names are found through the spec string pool map, each {@link SpecString} caches the
+ * first entry per type of its references. Adding, renaming, nulling or removing an entry
+ * changes the references of the affected spec strings only, thus only their caches are
+ * rebuilt on next query. Structural changes (moving entries between types or packages)
+ * bump the stamp of this index, see {@link #invalidate(Block)}.
+ * */
+public class ResourceNameIndex {
+
+    private final PackageBlock packageBlock;
+    private final AtomicInteger mStamp;
+
+    public ResourceNameIndex(PackageBlock packageBlock) {
+        this.packageBlock = packageBlock;
+        this.mStamp = new AtomicInteger();
+    }
+
+    public ResourceEntry get(int typeId, String name) {
+        Entry entry = getEntry(typeId, name);
+        if(entry != null) {
+            return new ResourceEntry(packageBlock, entry.getResourceId());
+        }
+        return null;
+    }
+    public int resolveResourceId(int typeId, String name) {
+        Entry entry = getEntry(typeId, name);
+        if(entry != null) {
+            return entry.getResourceId();
+        }
+        return 0;
+    }
+    private Entry getEntry(int typeId, String name) {
+        if(name == null) {
+            return null;
+        }
+        int stamp = mStamp.get();
+        Iterator<SpecString> iterator = packageBlock.getSpecStringPool().getAll(name);
+        while (iterator.hasNext()) {
+            Entry entry = iterator.next().getFirstEntry(typeId, stamp);
+            if(entry != null) {
+                return entry;
+            }
+        }
+        return null;
+    }
+    public void invalidate() {
+        mStamp.incrementAndGet();
+    }
+
+    /**
+     * Invalidates cached lookups of the package the given block belongs to, a no-op for
+     * blocks not attached to any package.
+     * */
+    public static void invalidate(Block block) {
+        if(block == null) {
+            return;
+        }
+        PackageBlock packageBlock;
+        if(block instanceof PackageBlock) {
+            packageBlock = (PackageBlock) block;
+        } else {
+            packageBlock = block.getParentInstance(PackageBlock.class);
+        }
+        if(packageBlock != null) {
+            ResourceNameIndex nameIndex = packageBlock.getResourceNameIndex();
+            if(nameIndex != null) {
+                nameIndex.invalidate();
+            }
+        }
+    }
+}
@@ -0,0 +1,213 @@
+/*
+ *  Copyright (C) 2022 github.com/REAndroid
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.reandroid.arsc.model;
+
+import com.reandroid.arsc.chunk.PackageBlock;
+import com.reandroid.arsc.chunk.TableBlock;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Resolves resource names over the packages of a table and its frameworks, in the same
+ * order as {@link TableBlock#getAllPackages(PackageBlock)}: the context (or current)
+ * package, the other packages of the table, then the packages of each framework in the
+ * order frameworks were added. Within a package names are looked up through its
+ * {@link ResourceNameIndex}.
+ * The search order is materialized once per context package and reused until packages
+ * of the table or of any framework are added or removed (see {@link #invalidate()}), or
+ * the current package or the frameworks list changes. Package names and libraries are
+ * still matched on every lookup, thus renaming a package needs no invalidation.
+ * */
+public class ResourceNameResolver {
+
+    private final TableBlock tableBlock;
+    private final AtomicInteger mStamp;
+    private volatile SearchOrder mSearchOrder;
+
+    public ResourceNameResolver(TableBlock tableBlock) {
+        this.tableBlock = tableBlock;
+        this.mStamp = new AtomicInteger();
+    }
+
+    /**
+     * Same as {@link TableBlock#getResource(PackageBlock, String, String, String)}, a null
+     * package name matches packages of this table only.
+     * */
+    public ResourceEntry getResource(PackageBlock context, String packageName, String type, String name) {
+        SearchOrder searchOrder = getSearchOrder(context);
+        PackageBlock[] packages = searchOrder.packages;
+        for(int i = 0; i < packages.length; i++) {
+            if(!searchOrder.matches(i, packageName)) {
+                continue;
+            }
+            ResourceEntry resourceEntry = packages[i].getResource(type, name);
+            if(resourceEntry != null) {
+                return resourceEntry;
+            }
+        }
+        return null;
+    }
+    /**
+     * Same as {@link TableBlock#getResource(PackageBlock, String, String)}, searches all
+     * packages including frameworks.
+     * */
+    public ResourceEntry getResource(PackageBlock context, String type, String name) {
+        PackageBlock[] packages = getSearchOrder(context).packages;
+        for(PackageBlock packageBlock : packages) {
+            ResourceEntry resourceEntry = packageBlock.getResource(type, name);
+            if(resourceEntry != null) {
+                return resourceEntry;
+            }
+        }
+        return null;
+    }
+    public ResourceEntry getAttrResource(PackageBlock context, String prefix, String name) {
+        SearchOrder searchOrder = getSearchOrder(context);
+        PackageBlock[] packages = searchOrder.packages;
+        for(int i = 0; i < packages.length; i++) {
+            if(!searchOrder.matches(i, prefix)) {
+                continue;
+            }
+            ResourceEntry resourceEntry = packages[i].getAttrResource(name);
+            if(resourceEntry != null) {
+                return resourceEntry;
+            }
+        }
+        return null;
+    }
+    public ResourceEntry getIdResource(PackageBlock context, String prefix, String name) {
+        SearchOrder searchOrder = getSearchOrder(context);
+        PackageBlock[] packages = searchOrder.packages;
+        for(int i = 0; i < packages.length; i++) {
+            if(!searchOrder.matches(i, prefix)) {
+                continue;
+            }
+            ResourceEntry resourceEntry = packages[i].getIdResource(name);
+            if(resourceEntry != null) {
+                return resourceEntry;
+            }
+        }
+        return null;
+    }
+    public int getStamp() {
+        return mStamp.get();
+    }
+    /**
+     * Drops the search order, must be called whenever packages of the table are added or
+     * removed. Tables using this table as framework notice it through {@link #getStamp()}.
+     * */
+    public void invalidate() {
+        mStamp.incrementAndGet();
+        mSearchOrder = null;
+    }
+    private SearchOrder getSearchOrder(PackageBlock context) {
+        TableBlock tableBlock = this.tableBlock;
+        PackageBlock current = context;
+        if(current == null) {
+            current = tableBlock.getCurrentPackage();
+        }
+        SearchOrder searchOrder = this.mSearchOrder;
+        if(searchOrder != null && searchOrder.isValid(tableBlock, context, current, getStamp())) {
+            return searchOrder;
+        }
+        searchOrder = SearchOrder.build(tableBlock, context, current, getStamp());
+        this.mSearchOrder = searchOrder;
+        return searchOrder;
+    }
+
+    static class SearchOrder {
+        final PackageBlock context;
+        final PackageBlock current;
+        final int stamp;
+        final TableBlock[] frameworks;
+        final PackageBlock[] frameworkCurrents;
+        final int[] frameworkStamps;
+        final PackageBlock[] packages;
+        private final boolean[] local;
+
+        SearchOrder(PackageBlock context, PackageBlock current, int stamp, TableBlock[] frameworks,
+                    PackageBlock[] frameworkCurrents, int[] frameworkStamps,
+                    PackageBlock[] packages, boolean[] local) {
+            this.context = context;
+            this.current = current;
+            this.stamp = stamp;
+            this.frameworks = frameworks;
+            this.frameworkCurrents = frameworkCurrents;
+            this.frameworkStamps = frameworkStamps;
+            this.packages = packages;
+            this.local = local;
+        }
+        boolean matches(int i, String packageName) {
+            if(packageName != null) {
+                return packages[i].packageNameMatches(packageName);
+            }
+            return local[i];
+        }
+        boolean isValid(TableBlock tableBlock, PackageBlock context, PackageBlock current, int stamp) {
+            if(this.context != context || this.current != current || this.stamp != stamp) {
+                return false;
+            }
+            List<TableBlock> frameworkList = tableBlock.getFrameWorks();
+            TableBlock[] frameworks = this.frameworks;
+            if(frameworkList.size() != frameworks.length) {
+                return false;
+            }
+            for(int i = 0; i < frameworks.length; i++) {
+                TableBlock framework = frameworks[i];
+                if(framework != frameworkList.get(i)) {
+                    return false;
+                }
+                // order of framework packages follows its current package
+                if(frameworkCurrents[i] != framework.getCurrentPackage()) {
+                    return false;
+                }
+                if(frameworkStamps[i] != framework.getResourceNameResolver().getStamp()) {
+                    return false;
+                }
+            }
+            return true;
+        }
+        static SearchOrder build(TableBlock tableBlock, PackageBlock context, PackageBlock current, int stamp) {
+            List<TableBlock> frameworkList = tableBlock.getFrameWorks();
+            int frameworksCount = frameworkList.size();
+            TableBlock[] frameworks = new TableBlock[frameworksCount];
+            PackageBlock[] frameworkCurrents = new PackageBlock[frameworksCount];
+            int[] frameworkStamps = new int[frameworksCount];
+            for(int i = 0; i < frameworksCount; i++) {
+                TableBlock framework = frameworkList.get(i);
+                frameworks[i] = framework;
+                frameworkCurrents[i] = framework.getCurrentPackage();
+                frameworkStamps[i] = framework.getResourceNameResolver().getStamp();
+            }
+            List<PackageBlock> packageList = new ArrayList<>();
+            Iterator<PackageBlock> iterator = tableBlock.getAllPackages(context);
+            while (iterator.hasNext()) {
+                packageList.add(iterator.next());
+            }
+            int size = packageList.size();
+            PackageBlock[] packages = packageList.toArray(new PackageBlock[size]);
+            boolean[] local = new boolean[size];
+            for(int i = 0; i < size; i++) {
+                local[i] = packages[i].getTableBlock() == tableBlock;
+            }
+            return new SearchOrder(context, current, stamp, frameworks,
+                    frameworkCurrents, frameworkStamps, packages, local);
+        }
+    }
+}
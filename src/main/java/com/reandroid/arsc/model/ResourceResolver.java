@@ -0,0 +1,218 @@
+/*
+ *  Copyright (C) 2022 github.com/REAndroid
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.reandroid.arsc.model;
+
+import com.reandroid.arsc.chunk.PackageBlock;
+import com.reandroid.arsc.chunk.TableBlock;
+import com.reandroid.arsc.chunk.TypeBlock;
+import com.reandroid.arsc.container.SpecTypePair;
+import com.reandroid.arsc.value.Entry;
+import com.reandroid.arsc.value.ResConfig;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Chooses the entry android would load for a given device configuration. For each resource type,
+ * configs that match the device are selected once and ranked against each other into a table,
+ * then resolved entries are cached per resource.
+ * If the table is modified after resolving, call {@link #clearCache()}
+ * */
+public class ResourceResolver {
+
+    private final TableBlock tableBlock;
+    private final ResolverConfig deviceConfig;
+    private final Map<SpecTypePair, TypeTable> typeTables;
+
+    public ResourceResolver(TableBlock tableBlock, ResConfig deviceConfig){
+        this.tableBlock = tableBlock;
+        this.deviceConfig = new ResolverConfig(deviceConfig);
+        this.typeTables = new IdentityHashMap<>();
+    }
+    public ResourceResolver(TableBlock tableBlock, String deviceQualifiers){
+        this(tableBlock, ResConfig.parse(deviceQualifiers));
+    }
+
+    public TableBlock getTableBlock() {
+        return tableBlock;
+    }
+    public ResConfig getDeviceConfig() {
+        return deviceConfig.getResConfig();
+    }
+
+    public Entry resolve(int resourceId){
+        return resolve(tableBlock.getResource(resourceId));
+    }
+    /**
+     * Returns the best matching entry of the resource for device config, or null if none
+     * of the defined configs is compatible
+     * */
+    public Entry resolve(ResourceEntry resourceEntry){
+        if(resourceEntry == null){
+            return null;
+        }
+        int resourceId = resourceEntry.getResourceId();
+        SpecTypePair specTypePair = resourceEntry.getPackageBlock()
+                .getSpecTypePair((resourceId >> 16) & 0xff);
+        if(specTypePair == null){
+            return null;
+        }
+        return getTypeTable(specTypePair).resolve(resourceId & 0xffff);
+    }
+    public Entry resolveValue(int resourceId){
+        return resolveValue(tableBlock.getResource(resourceId));
+    }
+    /**
+     * Same as {@link #resolve(ResourceEntry)} but reference values are followed with
+     * {@link ResourceEntry#resolveReference(java.util.function.Function)} choosing device
+     * matching entry on each step
+     * */
+    public Entry resolveValue(ResourceEntry resourceEntry){
+        if(resourceEntry == null){
+            return null;
+        }
+        return resolve(resourceEntry.resolveReference(this::resolve));
+    }
+    /**
+     * Resolves every resource of the table in a single pass over type tables
+     * @return map of resource id to the best matching entry, resources without compatible
+     * config are not included
+     * */
+    public Map<Integer, Entry> resolveAll(){
+        Map<Integer, Entry> results = new LinkedHashMap<>();
+        Iterator<PackageBlock> packages = tableBlock.getPackages();
+        while (packages.hasNext()){
+            PackageBlock packageBlock = packages.next();
+            int packageId = packageBlock.getId() << 24;
+            Iterator<SpecTypePair> iterator = packageBlock.getSpecTypePairs();
+            while (iterator.hasNext()){
+                SpecTypePair specTypePair = iterator.next();
+                TypeTable typeTable = getTypeTable(specTypePair);
+                int typeId = packageId | (specTypePair.getId() << 16);
+                int highest = specTypePair.getHighestEntryId();
+                for(int i = 0; i <= highest; i++){
+                    Entry entry = typeTable.resolve(i);
+                    if(entry != null){
+                        results.put(typeId | i, entry);
+                    }
+                }
+            }
+        }
+        return results;
+    }
+    public void clearCache(){
+        typeTables.clear();
+    }
+    private TypeTable getTypeTable(SpecTypePair specTypePair){
+        TypeTable typeTable = typeTables.get(specTypePair);
+        if(typeTable == null){
+            typeTable = new TypeTable(specTypePair, deviceConfig);
+            typeTables.put(specTypePair, typeTable);
+        }
+        return typeTable;
+    }
+
+    /**
+     * Returns true if resource config can be loaded on the device config
+     * */
+    public static boolean isMatch(ResConfig resConfig, ResConfig deviceConfig){
+        return new ResolverConfig(resConfig).match(new ResolverConfig(deviceConfig));
+    }
+    /**
+     * Returns true if resource config is better match than other for the device config,
+     * both are assumed to {@link #isMatch(ResConfig, ResConfig)} the device config
+     * */
+    public static boolean isBetterThan(ResConfig resConfig, ResConfig other, ResConfig deviceConfig){
+        return new ResolverConfig(resConfig).isBetterThan(new ResolverConfig(other),
+                new ResolverConfig(deviceConfig));
+    }
+
+    static class TypeTable {
+        private final TypeBlock[] typeBlocks;
+        // better[i][j] = config of typeBlocks[i] is better than typeBlocks[j]
+        private final boolean[][] better;
+        private final Entry[] entries;
+        private final BitSet resolved;
+
+        TypeTable(SpecTypePair specTypePair, ResolverConfig deviceConfig){
+            List<TypeBlock> typeBlockList = new ArrayList<>();
+            List<ResolverConfig> configList = new ArrayList<>();
+            Iterator<TypeBlock> iterator = specTypePair.getTypeBlocks();
+            while (iterator.hasNext()){
+                TypeBlock typeBlock = iterator.next();
+                ResolverConfig config = new ResolverConfig(typeBlock.getResConfig());
+                if(config.match(deviceConfig)){
+                    typeBlockList.add(typeBlock);
+                    configList.add(config);
+                }
+            }
+            int size = typeBlockList.size();
+            TypeBlock[] typeBlocks = typeBlockList.toArray(new TypeBlock[size]);
+            boolean[][] better = new boolean[size][size];
+            for(int i = 0; i < size; i++){
+                ResolverConfig config = configList.get(i);
+                for(int j = 0; j < size; j++){
+                    if(i != j){
+                        better[i][j] = config.isBetterThan(configList.get(j), deviceConfig);
+                    }
+                }
+            }
+            this.typeBlocks = typeBlocks;
+            this.better = better;
+            int count = specTypePair.getHighestEntryId() + 1;
+            if(count < 0){
+                count = 0;
+            }
+            this.entries = new Entry[count];
+            this.resolved = new BitSet(count);
+        }
+        Entry resolve(int entryId){
+            if(entryId < 0 || entryId >= entries.length){
+                return null;
+            }
+            if(resolved.get(entryId)){
+                return entries[entryId];
+            }
+            Entry result = findBest(entryId);
+            entries[entryId] = result;
+            resolved.set(entryId);
+            return result;
+        }
+        private Entry findBest(int entryId){
+            TypeBlock[] typeBlocks = this.typeBlocks;
+            boolean[][] better = this.better;
+            int best = -1;
+            Entry result = null;
+            int length = typeBlocks.length;
+            for(int i = 0; i < length; i++){
+                Entry entry = typeBlocks[i].getEntry(entryId);
+                if(entry == null || entry.isNull()){
+                    continue;
+                }
+                if(best < 0 || better[i][best]){
+                    best = i;
+                    result = entry;
+                }
+            }
+            return result;
+        }
+    }
+}
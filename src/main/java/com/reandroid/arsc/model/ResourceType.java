@@ -18,7 +18,6 @@ package com.reandroid.arsc.model;
 import com.reandroid.arsc.chunk.PackageBlock;
 import com.reandroid.arsc.container.SpecTypePair;
 import com.reandroid.arsc.item.TypeString;
-import com.reandroid.arsc.pool.SpecStringPool;
 import com.reandroid.arsc.pool.TypeStringPool;
 import com.reandroid.utils.CompareUtil;
 import com.reandroid.utils.collection.EmptyIterator;
@@ -53,8 +52,7 @@ public class ResourceType implements Comparable<ResourceType>, Iterable<Resource
         return new ResourceEntry(getPackageBlock(), resourceId);
     }
     public int getIdentifier(String name) {
-        SpecStringPool specStringPool = getPackageBlock().getSpecStringPool();
-        return specStringPool.resolveResourceId(getId(), name);
+        return getPackageBlock().resolveResourceId(getId(), name);
     }
 
     @Override
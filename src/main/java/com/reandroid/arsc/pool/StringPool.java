@@ -18,6 +18,7 @@ package com.reandroid.arsc.pool;
 import com.reandroid.arsc.base.Block;
 import com.reandroid.arsc.chunk.Chunk;
 import com.reandroid.arsc.header.StringPoolHeader;
+import com.reandroid.arsc.io.BlockReader;
 import com.reandroid.arsc.item.*;
 import com.reandroid.arsc.list.OffsetReferenceList;
 import com.reandroid.arsc.list.StringItemList;
@@ -41,6 +42,8 @@ import java.io.IOException;
 import java.util.Collection;
 import java.util.Iterator;
 import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
 import java.util.function.Predicate;
 
 public abstract class StringPool<T extends StringItem> extends Chunk<StringPoolHeader>
@@ -52,6 +55,8 @@ public abstract class StringPool<T extends StringItem> extends Chunk<StringPoolH
 
     private final MultiMap<String, T> poolMap;
     private boolean stringLinkLocked;
+    private volatile boolean poolMapLoaded;
+    private boolean lazyDecode;
 
     StringPool(boolean is_utf8, boolean stringLinkLocked, StringCreator<T> creator) {
         super(new StringPoolHeader(), 6);
@@ -126,6 +131,19 @@ public abstract class StringPool<T extends StringItem> extends Chunk<StringPoolH
         ensureStringLinkUnlockedInternal();
         getStringsArray().sort();
     }
+    public boolean isLazyDecode() {
+        return lazyDecode;
+    }
+    /**
+     * When set before reading bytes, strings are kept as views (offset + length) to the
+     * reader buffer and decoded on first access (e.g. get(index).get() or getXml()), the
+     * bytes are copied only if a string is changed. The reverse lookup map used by
+     * contains/getOrCreate is built on first such call instead of on load.
+     * Also enabled by {@link BlockReader#setLazyStringDecode(boolean)}.
+     * */
+    public void setLazyDecode(boolean lazyDecode) {
+        this.lazyDecode = lazyDecode;
+    }
     public boolean isStringLinkLocked() {
         return stringLinkLocked;
     }
@@ -156,6 +174,24 @@ public abstract class StringPool<T extends StringItem> extends Chunk<StringPoolH
     public void removeString(T item) {
         getStringsArray().remove(item);
     }
+    /**
+     * Decodes all strings from their bytes using common fork-join pool
+     * */
+    public void decodeStrings() {
+        decodeStrings(ForkJoinPool.commonPool());
+    }
+    /**
+     * Decodes all strings from their bytes, the strings are split into ranges and
+     * decoded concurrently on the given pool
+     * */
+    public void decodeStrings(ForkJoinPool forkJoinPool) {
+        StringItemList<T> stringsArray = getStringsArray();
+        int size = stringsArray.size();
+        if (size == 0) {
+            return;
+        }
+        forkJoinPool.invoke(new DecodeTask(stringsArray, 0, size));
+    }
     public Iterator<String> getStrings() {
         return ComputeIterator.of(iterator(), T::getXml);
     }
@@ -173,9 +209,20 @@ public abstract class StringPool<T extends StringItem> extends Chunk<StringPoolH
             poolMap.setInitialSize(size());
             poolMap.putAll(StringItem::getXml, iterator());
         }
+        poolMapLoaded = true;
+    }
+    private void ensurePoolMapLoaded() {
+        if (!poolMapLoaded) {
+            synchronized (mLock) {
+                if (!poolMapLoaded) {
+                    reloadPoolMap();
+                }
+            }
+        }
     }
     public void compressDuplicates() {
         ensureStringLinkUnlockedInternal();
+        ensurePoolMapLoaded();
         poolMap.findDuplicates(CompareUtil.getComparableComparator(), list -> {
             T first = list.get(0);
             for(int i = 1; i < list.size(); i++) {
@@ -214,15 +261,16 @@ public abstract class StringPool<T extends StringItem> extends Chunk<StringPoolH
         return null;
     }
     public boolean contains(String str) {
+        ensurePoolMapLoaded();
         return poolMap.containsKey(str);
     }
     public void onStringChanged(String old, T stringItem) {
-        if (!stringLinkLocked) {
+        if (!stringLinkLocked && poolMapLoaded) {
             poolMap.updateKey(old, stringItem.getXml(), stringItem);
         }
     }
     public void onStringRemoved(T stringItem) {
-        if (!stringLinkLocked) {
+        if (!stringLinkLocked && poolMapLoaded) {
             poolMap.remove(stringItem.getXml(), stringItem);
         }
     }
@@ -239,6 +287,7 @@ public abstract class StringPool<T extends StringItem> extends Chunk<StringPoolH
     }
     public final Iterator<T> getAll(String str) {
         ensureStringLinkUnlockedInternal();
+        ensurePoolMapLoaded();
         if (str == null) {
             return FilterIterator.of(poolMap.getAll(StringsUtil.EMPTY),
                     StringItem::isNull);
@@ -247,6 +296,7 @@ public abstract class StringPool<T extends StringItem> extends Chunk<StringPoolH
     }
     public final T get(String str, Predicate<? super T> predicate) {
         ensureStringLinkUnlockedInternal();
+        ensurePoolMapLoaded();
         if (str == null) {
             str = StringsUtil.EMPTY;
         }
@@ -334,9 +384,18 @@ public abstract class StringPool<T extends StringItem> extends Chunk<StringPoolH
     protected void onChunkRefreshed() {
     }
     @Override
+    public void onReadBytes(BlockReader reader) throws IOException {
+        if (reader.isLazyStringDecode()) {
+            setLazyDecode(true);
+        }
+        super.onReadBytes(reader);
+    }
+    @Override
     public void onChunkLoaded() {
         linkStylesInternal();
-        reloadPoolMap();
+        if (!isLazyDecode()) {
+            reloadPoolMap();
+        }
     }
 
     public void onPreAddInternal(int index, T item) {
@@ -369,6 +428,7 @@ public abstract class StringPool<T extends StringItem> extends Chunk<StringPoolH
     }
 
     private boolean containsInternal(T item) {
+        ensurePoolMapLoaded();
         return poolMap.containsValue(item.getXml(),
                 stringItem -> stringItem.compareTo(item) == 0);
     }
@@ -383,4 +443,33 @@ public abstract class StringPool<T extends StringItem> extends Chunk<StringPoolH
             }
         }
     }
+
+    static class DecodeTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+        private final StringItemList<?> stringsArray;
+        private final int start;
+        private final int end;
+
+        DecodeTask(StringItemList<?> stringsArray, int start, int end) {
+            this.stringsArray = stringsArray;
+            this.start = start;
+            this.end = end;
+        }
+        @Override
+        protected void compute() {
+            int start = this.start;
+            int end = this.end;
+            if (end - start <= DECODE_THRESHOLD) {
+                StringItemList<?> stringsArray = this.stringsArray;
+                for (int i = start; i < end; i++) {
+                    stringsArray.get(i).decode();
+                }
+                return;
+            }
+            int middle = (start + end) >>> 1;
+            invokeAll(new DecodeTask(stringsArray, start, middle),
+                    new DecodeTask(stringsArray, middle, end));
+        }
+        private static final int DECODE_THRESHOLD = 512;
+    }
 }
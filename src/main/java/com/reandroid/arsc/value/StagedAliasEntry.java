@@ -16,6 +16,7 @@
 package com.reandroid.arsc.value;
 
 import com.reandroid.arsc.item.ByteArray;
+import com.reandroid.arsc.model.ResourceIdIndex;
 import com.reandroid.utils.HexUtil;
 import com.reandroid.json.JSONConvert;
 import com.reandroid.json.JSONObject;
@@ -39,12 +40,14 @@ public class StagedAliasEntry extends ByteArray implements JSONConvert<JSONObjec
     }
     public void setStagedResId(int id){
         putInteger(0, id);
+        ResourceIdIndex.invalidate(this);
     }
     public int getFinalizedResId(){
         return getInteger(4);
     }
     public void setFinalizedResId(int id){
         putInteger(4, id);
+        ResourceIdIndex.invalidate(this);
     }
     @Override
     public String toString(){
@@ -473,20 +473,24 @@ public class InstructionList extends FixedBlockContainer implements
     @Override
     public void append(SmaliWriter writer) throws IOException {
         InsBlockList insBlockList = getInsBlockList();
-        Object lock = insBlockList.linkLocked();
-        writer.buildLabels(getCodeLabels());
-        writer.setStateWritingInstructions(true);
-        for (Ins ins : this) {
-            writer.newLine();
-            ins.append(writer);
-        }
-        writer.setStateWritingInstructions(false);
-        NullInstruction nullInstruction = getInsBlockList().getNullInstruction();
-        if(nullInstruction != null) {
-            writer.newLine();
-            nullInstruction.append(writer);
-        }
-        insBlockList.unlink(lock, false);
+        // linking mutates instructions, code items shared by methods
+        // could be written from concurrent smali writers
+        synchronized (insBlockList) {
+            Object lock = insBlockList.linkLocked();
+            writer.buildLabels(getCodeLabels());
+            writer.setStateWritingInstructions(true);
+            for (Ins ins : this) {
+                writer.newLine();
+                ins.append(writer);
+            }
+            writer.setStateWritingInstructions(false);
+            NullInstruction nullInstruction = getInsBlockList().getNullInstruction();
+            if(nullInstruction != null) {
+                writer.newLine();
+                nullInstruction.append(writer);
+            }
+            insBlockList.unlink(lock, false);
+        }
     }
     public void merge(InstructionList instructionList){
         getInsBlockList().merge(instructionList.getInsBlockList());
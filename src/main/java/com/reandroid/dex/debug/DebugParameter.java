@@ -46,7 +46,7 @@ public class DebugParameter extends Base1Ule128IdItemReference<StringId> impleme
         if(name == null || name.length() == 0){
             setItem(null);
         }else {
-            setKey(new StringKey(name));
+            setKey(StringKey.create(name));
         }
     }
     public StringId getNameId(){
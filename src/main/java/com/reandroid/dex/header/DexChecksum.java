@@ -17,6 +17,8 @@ package com.reandroid.dex.header;
 
 import com.reandroid.dex.sections.DexLayoutBlock;
 import com.reandroid.utils.Alder32OutputStream;
+import com.reandroid.utils.Checksum;
+import com.reandroid.utils.ChecksumProvider;
 import com.reandroid.utils.HexUtil;
 
 import java.io.IOException;
@@ -51,6 +53,19 @@ public class DexChecksum extends HeaderPiece {
         setValue(outputStream.getValue());
         return previous != getValue();
     }
+    /**
+     * Updates from serialized bytes of the layout, where this checksum starts at offset,
+     * and writes the result back to the bytes.
+     * */
+    public boolean update(byte[] bytes, int offset) {
+        int previous = getValue();
+        Checksum alder32 = ChecksumProvider.getDefault().newAdler32();
+        int start = offset + countBytes();
+        alder32.update(bytes, start, bytes.length - start);
+        setValue(alder32.getValue());
+        putInteger(bytes, offset, getValue());
+        return previous != getValue();
+    }
 
     @Override
     protected int onWriteBytes(OutputStream stream) throws IOException {
@@ -198,6 +198,20 @@ public class DexHeader extends SpecialItem implements OffsetSupplier, DirectStre
     public void updateSignature() {
         this.signature.update();
     }
+    /**
+     * Updates checksum from the serialized bytes of its layout, then if the value is changed
+     * updates signature and checksum again over the same bytes. The header fields of the
+     * given bytes are patched too. Returns true if the checksum is changed.
+     * */
+    public boolean updateChecksumAndSignature(byte[] bytes) {
+        int offset = magic.countBytes() + version.countBytes();
+        if (!this.checksum.update(bytes, offset)) {
+            return false;
+        }
+        this.signature.update(bytes, offset + this.checksum.countBytes());
+        this.checksum.update(bytes, offset);
+        return true;
+    }
 
     @Override
     public String toString() {
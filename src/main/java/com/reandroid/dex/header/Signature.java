@@ -16,6 +16,8 @@
 package com.reandroid.dex.header;
 
 import com.reandroid.dex.sections.DexLayoutBlock;
+import com.reandroid.utils.ByteDigest;
+import com.reandroid.utils.ChecksumProvider;
 import com.reandroid.utils.HexUtil;
 import com.reandroid.utils.Sha1OutputStream;
 
@@ -42,6 +44,18 @@ public class Signature extends HeaderPiece {
         }
         outputStream.digest(getBytesInternal(), 0);
     }
+    /**
+     * Updates from serialized bytes of the layout, where this signature starts at offset,
+     * and writes the result back to the bytes.
+     * */
+    public void update(byte[] bytes, int offset) {
+        ByteDigest sha1 = ChecksumProvider.getDefault().newSha1();
+        int start = offset + countBytes();
+        sha1.update(bytes, start, bytes.length - start);
+        byte[] digest = getBytesInternal();
+        sha1.digest(digest, 0);
+        System.arraycopy(digest, 0, bytes, offset, digest.length);
+    }
 
     @Override
     protected int onWriteBytes(OutputStream stream) throws IOException {
@@ -40,6 +40,7 @@ import com.reandroid.dex.key.TypeListKey;
 import com.reandroid.dex.program.ClassProgram;
 import com.reandroid.dex.reference.DataItemIndirectReference;
 import com.reandroid.dex.reference.TypeListReference;
+import com.reandroid.dex.sections.DexLayoutBlock;
 import com.reandroid.dex.sections.Section;
 import com.reandroid.dex.sections.SectionType;
 import com.reandroid.dex.smali.model.SmaliClass;
@@ -111,6 +112,7 @@ public class ClassId extends IdItem implements ClassProgram,
         }
         this.classTypeId.setKey(key);
         keyChanged(old);
+        notifyClassesChanged();
     }
     @Override
     public int getDefinitionIndex() {
@@ -175,7 +177,7 @@ public class ClassId extends IdItem implements ClassProgram,
         return null;
     }
     public void setName(String typeName) {
-        setKey(new TypeKey(typeName));
+        setKey(TypeKey.create(typeName));
     }
 
     public ClassTypeId getClassTypeId() {
@@ -208,6 +210,7 @@ public class ClassId extends IdItem implements ClassProgram,
     }
     public void setSuperClass(TypeKey typeKey) {
         this.superClassId.setKey(typeKey);
+        notifyClassesChanged();
     }
     public SourceFile getSourceFileReference() {
         return sourceFile;
@@ -239,6 +242,13 @@ public class ClassId extends IdItem implements ClassProgram,
     }
     public void setInterfaces(TypeListKey typeListKey) {
         this.interfaces.setKey(typeListKey);
+        notifyClassesChanged();
+    }
+    private void notifyClassesChanged() {
+        DexLayoutBlock layoutBlock = getParentInstance(DexLayoutBlock.class);
+        if (layoutBlock != null) {
+            layoutBlock.onClassesChanged();
+        }
     }
 
     @Override
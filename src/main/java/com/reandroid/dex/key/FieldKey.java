@@ -33,6 +33,7 @@ public class FieldKey implements ProgramKey {
     private final TypeKey declaring;
     private final StringKey name;
     private final TypeKey type;
+    private int mHash;
 
     FieldKey(TypeKey declaring, StringKey name, TypeKey type) {
         this.declaring = declaring;
@@ -211,13 +212,21 @@ public class FieldKey implements ProgramKey {
             return false;
         }
         FieldKey other = (FieldKey) obj;
+        if (hashCode() != other.hashCode()) {
+            return false;
+        }
         return getDeclaring().equals(other.getDeclaring()) &&
                 getNameKey().equals(other.getNameKey()) &&
                 getType().equals(other.getType());
     }
     @Override
     public int hashCode() {
-        return ObjectsUtil.hash(getDeclaring(), getNameKey(), getType());
+        int hash = this.mHash;
+        if (hash == 0) {
+            hash = ObjectsUtil.hash(getDeclaring(), getNameKey(), getType());
+            this.mHash = hash;
+        }
+        return hash;
     }
 
     @Override
@@ -230,7 +239,7 @@ public class FieldKey implements ProgramKey {
         if (declaring == null || name == null || type == null) {
             return null;
         }
-        return new FieldKey(declaring, name, type);
+        return KeyInterner.internKey(new FieldKey(declaring, name, type));
     }
     public static FieldKey create(TypeKey declaring, String name, TypeKey type) {
         return create(declaring, StringKey.create(name), type);
@@ -0,0 +1,189 @@
+/*
+ *  Copyright (C) 2022 github.com/REAndroid
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.reandroid.dex.key;
+
+import java.lang.ref.WeakReference;
+import java.util.WeakHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Optional pool of canonical {@link TypeKey}, {@link StringKey}, {@link ProtoKey},
+ * {@link MethodKey} and {@link FieldKey} instances. When enabled, the <code>create</code>
+ * factories of these keys return the pooled instance, so equal keys share one object and
+ * most equality checks end at the identity test. Entries are weakly referenced and the pool
+ * is split to independently locked segments, thus it is safe to use from multiple threads.
+ * Keys made by the public constructors are never pooled.
+ * Disabled by default.
+ * */
+public class KeyInterner {
+
+    private static volatile KeyInterner sInstance;
+
+    private final Segment[] segments;
+    private final LongAdder requests;
+    private final LongAdder hits;
+    private final LongAdder savedBytes;
+
+    public KeyInterner() {
+        Segment[] segments = new Segment[SEGMENTS_COUNT];
+        for (int i = 0; i < SEGMENTS_COUNT; i++) {
+            segments[i] = new Segment();
+        }
+        this.segments = segments;
+        this.requests = new LongAdder();
+        this.hits = new LongAdder();
+        this.savedBytes = new LongAdder();
+    }
+
+    @SuppressWarnings("unchecked")
+    public<T extends Key> T intern(T key) {
+        if (key == null) {
+            return null;
+        }
+        requests.increment();
+        Key result = segmentFor(key).intern(key);
+        if (result != key) {
+            hits.increment();
+            savedBytes.add(estimateSize(key));
+        }
+        return (T) result;
+    }
+    /**
+     * Number of live canonical keys
+     * */
+    public int size() {
+        int result = 0;
+        for (Segment segment : segments) {
+            result += segment.size();
+        }
+        return result;
+    }
+    public long getRequestCount() {
+        return requests.sum();
+    }
+    public long getHitCount() {
+        return hits.sum();
+    }
+    public double getHitRate() {
+        long count = getRequestCount();
+        if (count == 0) {
+            return 0;
+        }
+        return (double) getHitCount() / count;
+    }
+    /**
+     * Estimated bytes of duplicate key objects replaced by canonical ones, minus the memory
+     * held by the pool itself for live entries (weak map entry, weak reference and table
+     * slot). Duplicates are counted as if they would have been retained, thus this is an
+     * upper bound and can be negative when most keys are distinct. Assumes 64-bit VM with
+     * compressed references.
+     * */
+    public long getSavedBytes() {
+        return savedBytes.sum() - (long) size() * ENTRY_OVERHEAD;
+    }
+    public void clear() {
+        for (Segment segment : segments) {
+            segment.clear();
+        }
+        requests.reset();
+        hits.reset();
+        savedBytes.reset();
+    }
+
+    private Segment segmentFor(Key key) {
+        int hash = key.hashCode();
+        hash ^= (hash >>> 16);
+        return segments[hash & (SEGMENTS_COUNT - 1)];
+    }
+
+    @Override
+    public String toString() {
+        return "size=" + size()
+                + ", requests=" + getRequestCount()
+                + ", hits=" + getHitCount()
+                + ", saved=" + getSavedBytes();
+    }
+
+    public static KeyInterner getInstance() {
+        return sInstance;
+    }
+    public static boolean isEnabled() {
+        return sInstance != null;
+    }
+    /**
+     * Enables global interning, returns the active pool
+     * */
+    public static synchronized KeyInterner enable() {
+        KeyInterner interner = sInstance;
+        if (interner == null) {
+            interner = new KeyInterner();
+            sInstance = interner;
+        }
+        return interner;
+    }
+    public static synchronized void disable() {
+        sInstance = null;
+    }
+    static<T extends Key> T internKey(T key) {
+        KeyInterner interner = sInstance;
+        if (interner == null) {
+            return key;
+        }
+        return interner.intern(key);
+    }
+
+    /**
+     * Shallow size of key object, its member keys are canonical too and not counted
+     * */
+    private static int estimateSize(Key key) {
+        if (key instanceof MethodKey || key instanceof FieldKey) {
+            return 32;
+        }
+        return 24;
+    }
+
+    static class Segment {
+
+        private final WeakHashMap<Key, WeakReference<Key>> map;
+
+        Segment() {
+            this.map = new WeakHashMap<>();
+        }
+
+        synchronized Key intern(Key key) {
+            WeakHashMap<Key, WeakReference<Key>> map = this.map;
+            WeakReference<Key> reference = map.get(key);
+            if (reference != null) {
+                Key exist = reference.get();
+                if (exist != null) {
+                    return exist;
+                }
+            }
+            map.put(key, new WeakReference<>(key));
+            return key;
+        }
+        synchronized int size() {
+            return map.size();
+        }
+        synchronized void clear() {
+            map.clear();
+        }
+    }
+
+    private static final int SEGMENTS_COUNT = 32;
+    // WeakHashMap.Entry 40, WeakReference 32, table slot 4 with load factor 0.75
+    private static final int ENTRY_OVERHEAD = 40 + 32 + 6;
+}
@@ -36,7 +36,12 @@ public class MethodKey implements ProgramKey {
     private final TypeKey declaring;
     private final StringKey nameKey;
     private final ProtoKey proto;
+    private int mHash;
 
+    /**
+     * Always creates a new instance, use {@link #create(TypeKey, StringKey, ProtoKey)} to get the pooled instance
+     * when {@link KeyInterner} is enabled
+     * */
     public MethodKey(TypeKey declaring, StringKey name, ProtoKey proto){
         this.declaring = declaring;
         this.nameKey = name;
@@ -61,7 +66,7 @@ public class MethodKey implements ProgramKey {
         if (getDeclaring().equals(typeKey)) {
             return this;
         }
-        return new MethodKey(typeKey, getNameKey(), getProto());
+        return create(typeKey, getNameKey(), getProto());
     }
     public MethodKey changeName(String name) {
         return changeName(StringKey.create(name));
@@ -70,7 +75,7 @@ public class MethodKey implements ProgramKey {
         if (name.equals(getNameKey())) {
             return this;
         }
-        return new MethodKey(getDeclaring(), name, getProto());
+        return create(getDeclaring(), name, getProto());
     }
     public MethodKey changeParameters(TypeListKey parameters) {
         return changeProto(getProto().changeParameters(parameters));
@@ -346,13 +351,21 @@ public class MethodKey implements ProgramKey {
             return false;
         }
         MethodKey methodKey = (MethodKey) obj;
+        if (hashCode() != methodKey.hashCode()) {
+            return false;
+        }
         return ObjectsUtil.equals(getNameKey(), methodKey.getNameKey()) &&
                 ObjectsUtil.equals(getDeclaring(), methodKey.getDeclaring()) &&
                 ObjectsUtil.equals(getProto(), methodKey.getProto());
     }
     @Override
     public int hashCode() {
-        return ObjectsUtil.hash(getDeclaring(), getNameKey(), getProto());
+        int hash = this.mHash;
+        if (hash == 0) {
+            hash = ObjectsUtil.hash(getDeclaring(), getNameKey(), getProto());
+            this.mHash = hash;
+        }
+        return hash;
     }
     @Override
     public String toString() {
@@ -409,7 +422,7 @@ public class MethodKey implements ProgramKey {
         if (declaring == null || name == null || protoKey == null) {
             return null;
         }
-        return new MethodKey(declaring, name, protoKey);
+        return KeyInterner.internKey(new MethodKey(declaring, name, protoKey));
     }
     public static MethodKey create(TypeKey declaring, String name, ProtoKey protoKey) {
         return create(declaring, StringKey.create(name), protoKey);
@@ -14,6 +14,7 @@ public class ProtoKey implements Key {
 
     private final TypeListKey parameters;
     private final TypeKey returnType;
+    private int mHash;
 
     private ProtoKey(TypeListKey parameters, TypeKey returnType){
         this.parameters = parameters;
@@ -185,13 +186,21 @@ public class ProtoKey implements Key {
             return false;
         }
         ProtoKey protoKey = (ProtoKey) obj;
+        if (hashCode() != protoKey.hashCode()) {
+            return false;
+        }
         return ObjectsUtil.equals(getReturnType(), protoKey.getReturnType()) &&
                 ObjectsUtil.equals(getParameters(), protoKey.getParameters());
     }
 
     @Override
     public int hashCode() {
-        return ObjectsUtil.hash(getParameters(), getReturnType());
+        int hash = this.mHash;
+        if (hash == 0) {
+            hash = ObjectsUtil.hash(getParameters(), getReturnType());
+            this.mHash = hash;
+        }
+        return hash;
     }
     @Override
     public String toString() {
@@ -208,7 +217,7 @@ public class ProtoKey implements Key {
         if (typeListKey == null) {
             typeListKey = TypeListKey.empty();
         }
-        return new ProtoKey(typeListKey, returnType);
+        return KeyInterner.internKey(new ProtoKey(typeListKey, returnType));
     }
     public static ProtoKey emptyParameters(TypeKey returnType) {
         return create(TypeListKey.empty(), returnType);
@@ -243,6 +252,6 @@ public class ProtoKey implements Key {
         TypeListKey parameters = TypeListKey.readParameters(reader);
         reader.skipWhitespacesOrComment();
         TypeKey returnType = TypeKey.read(reader);
-        return new ProtoKey(parameters, returnType);
+        return create(parameters, returnType);
     }
 }
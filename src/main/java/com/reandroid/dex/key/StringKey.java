@@ -33,6 +33,10 @@ public class StringKey implements Key{
 
     private final String text;
 
+    /**
+     * Always creates a new instance, use {@link #create(String)} to get the pooled instance
+     * when {@link KeyInterner} is enabled
+     * */
     public StringKey(String text) {
         this.text = text;
     }
@@ -125,7 +129,7 @@ public class StringKey implements Key{
         if (text.length() == 0) {
             return EMPTY;
         }
-        return new StringKey(text);
+        return KeyInterner.internKey(new StringKey(text));
     }
     public static StringKey parseQuotedString(String quotedString) {
         if (quotedString == null || quotedString.length() < 2) {
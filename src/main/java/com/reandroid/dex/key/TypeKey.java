@@ -34,6 +34,10 @@ public class TypeKey implements ProgramKey {
     private final String typeName;
     private String simpleName;
 
+    /**
+     * Always creates a new instance, use {@link #create(String)} to get the pooled instance
+     * when {@link KeyInterner} is enabled
+     * */
     public TypeKey(String typeName) {
         this.typeName = typeName;
     }
@@ -108,7 +112,7 @@ public class TypeKey implements ProgramKey {
         if(dimension == getArrayDimension()){
             return this;
         }
-        return new TypeKey(getArrayType(dimension));
+        return create(getArrayType(dimension));
     }
     public String getArrayType(int dimension){
         return DexUtils.makeArrayType(getTypeName(), dimension);
@@ -207,7 +211,7 @@ public class TypeKey implements ProgramKey {
         if(postFix == ';' || postFix == '<'){
             builder.append(postFix);
         }
-        TypeKey typeKey = new TypeKey(builder.toString());
+        TypeKey typeKey = create(builder.toString());
         return typeKey.setArrayDimension(getArrayDimension());
     }
     public boolean isPackage(String packageName){
@@ -261,7 +265,7 @@ public class TypeKey implements ProgramKey {
         if(type.equals(parent)){
             return this;
         }
-        return new TypeKey(parent);
+        return create(parent);
     }
     public TypeKey createInnerClass(String simpleName){
         String type = getTypeName();
@@ -269,7 +273,7 @@ public class TypeKey implements ProgramKey {
         if(type.equals(child)){
             return this;
         }
-        return new TypeKey(child);
+        return create(child);
     }
     public Iterator<String> iteratePackageNames(){
         if(getTypeName().indexOf('/') < 0){
@@ -389,7 +393,7 @@ public class TypeKey implements ProgramKey {
         if(name.indexOf('/') > 0 ||
                 name.indexOf(';') > 0 ||
                 name.charAt(0) == '[') {
-            return new TypeKey(name.replace('.', '/'));
+            return create(name.replace('.', '/'));
         }
         return parseSourceName(name);
     }
@@ -415,19 +419,19 @@ public class TypeKey implements ProgramKey {
         TypeKey typeKey = primitiveType(name);
         if (typeKey == null) {
             name = name.replace('.', '/');
-            typeKey = new TypeKey('L' + name + ';');
+            typeKey = create('L' + name + ';');
         }
         return typeKey.setArrayDimension(arrayDimension);
     }
     public static TypeKey convert(Class<?> type) {
         String name = type.getName();
         if (type.isArray()) {
-            return new TypeKey(name.replace('.', '/'));
+            return create(name.replace('.', '/'));
         }
         if (type.isPrimitive()) {
             return primitiveType(name);
         }
-        return new TypeKey('L' + name.replace('.', '/') + ';');
+        return create('L' + name.replace('.', '/') + ';');
     }
 
     public static TypeKey create(String typeName){
@@ -439,7 +443,7 @@ public class TypeKey implements ProgramKey {
             return null;
         }
         if(length != 1){
-            return new TypeKey(typeName);
+            return KeyInterner.internKey(new TypeKey(typeName));
         }
         return primitiveType(typeName.charAt(0));
     }
@@ -563,7 +567,7 @@ public class TypeKey implements ProgramKey {
 
     public static TypeKey parseSignature(String type){
         if(DexUtils.isTypeOrSignature(type)){
-            return new TypeKey(type);
+            return create(type);
         }
         return null;
     }
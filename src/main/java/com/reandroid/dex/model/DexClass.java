@@ -15,7 +15,6 @@
  */
 package com.reandroid.dex.model;
 
-import com.reandroid.common.ReflectionUtil;
 import com.reandroid.dex.common.AccessFlag;
 import com.reandroid.dex.dalvik.DalvikInnerClass;
 import com.reandroid.dex.data.*;
@@ -247,19 +246,7 @@ public class DexClass extends DexDeclaration implements ClassProgram, Comparable
         return CombiningIterator.two(getOverriding(), getSuperTypes());
     }
     public Iterator<DexClass> getSuperTypes() {
-
-        Iterator<DexClass> iterator = CombiningIterator.two(
-                SingleIterator.of(getSuperClass()),
-                getInterfaceClasses());
-
-        iterator = new IterableIterator<DexClass, DexClass>(iterator) {
-            @Override
-            public Iterator<DexClass> iterator(DexClass element) {
-                return CombiningIterator.two(SingleIterator.of(element), element.getSuperTypes());
-            }
-        };
-
-        return new UniqueIterator<>(iterator).exclude(this);
+        return getClassHierarchy().getSuperTypes(this);
     }
     public Iterator<DexClass> getOverriding() {
         return CombiningIterator.two(getExtending(), getImplementations());
@@ -274,40 +261,10 @@ public class DexClass extends DexDeclaration implements ClassProgram, Comparable
         return search(getSuperClassKey());
     }
     public boolean isInstance(TypeKey typeKey) {
-        if (typeKey == null) {
-            return false;
-        }
-        if (typeKey.equals(TypeKey.OBJECT)) {
-            return true;
-        }
-        TypeKey superType = getSuperClassKey();
-        if (typeKey.equals(getKey()) || typeKey.equals(superType)) {
-            return true;
-        }
-        DexClass superClass = search(superType);
-        if (superClass != null && superClass.isInstance(typeKey)) {
-            if (superClass.isInstance(typeKey)) {
-                return true;
-            }
-        }
-        TypeListKey typeListKey = getInterfacesKey();
-        if (typeListKey.contains(typeKey)) {
-            return true;
-        }
-        if (superClass == null && ReflectionUtil.isInstanceReflection(superType, typeKey)) {
-            return true;
-        }
-        for (TypeKey key : typeListKey) {
-            DexClass dexClass = search(key);
-            if (dexClass != null) {
-                if (dexClass.isInstance(typeKey)) {
-                    return true;
-                }
-            } else if (ReflectionUtil.isInstanceReflection(key, typeKey)) {
-                return true;
-            }
-        }
-        return false;
+        return getClassHierarchy().isInstance(this, typeKey);
+    }
+    DexClassHierarchy getClassHierarchy() {
+        return getClassRepository().getClassHierarchy();
     }
     public Iterator<DexField> getDeclaredFields() {
         return CombiningIterator.two(getStaticFields(), getInstanceFields());
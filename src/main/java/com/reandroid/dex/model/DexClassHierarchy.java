@@ -0,0 +1,519 @@
+/*
+ *  Copyright (C) 2022 github.com/REAndroid
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.reandroid.dex.model;
+
+import com.reandroid.common.ReflectionUtil;
+import com.reandroid.dex.key.TypeKey;
+import com.reandroid.dex.key.TypeListKey;
+import com.reandroid.dex.sections.DexLayoutBlock;
+import com.reandroid.utils.collection.ArrayCollection;
+import com.reandroid.utils.collection.EmptyIterator;
+import com.reandroid.utils.collection.IndexIterator;
+import com.reandroid.utils.collection.SizedSupplier;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Class hierarchy of all classes of a root {@link DexClassRepository}, built once on first
+ * query. Classes get dense ordinals in module order, parent/child links are kept as ordinal
+ * arrays and super class chains are numbered with pre-order intervals so that subclass
+ * checks are O(1). The index is rebuilt whenever classes of any module are added, removed,
+ * merged, renamed or their super types change, see {@link DexLayoutBlock#getClassesModCount()}.
+ * <br/>
+ * When the same type is defined on more than one module, only the first one (the same as
+ * {@link DexClassRepository#searchClass(TypeKey)}) is indexed. Thus
+ * {@link #getExtending(TypeKey)} and {@link #getImplementations(TypeKey)} list each type
+ * once, duplicates on later modules are not listed as they used to be when each module
+ * was searched separately; they can still be queried through
+ * {@link #isInstance(DexClass, TypeKey)} and {@link #getSuperTypes(DexClass)}.
+ * */
+public class DexClassHierarchy {
+
+    private final DexClassRepository repository;
+    private volatile IndexData mIndexData;
+
+    public DexClassHierarchy(DexClassRepository repository) {
+        this.repository = repository;
+    }
+
+    public DexClass get(TypeKey typeKey) {
+        IndexData indexData = getIndexData();
+        int ordinal = indexData.ordinalOf(typeKey);
+        if (ordinal < 0) {
+            return null;
+        }
+        return indexData.classes[ordinal];
+    }
+    /**
+     * Returns true if the class is the given type, extends or implements it directly or
+     * indirectly. Types not defined on the repository are resolved through reflection.
+     * */
+    public boolean isInstance(DexClass dexClass, TypeKey typeKey) {
+        if (typeKey == null) {
+            return false;
+        }
+        if (typeKey.equals(TypeKey.OBJECT)) {
+            return true;
+        }
+        TypeKey key = dexClass.getKey();
+        if (typeKey.equals(key)) {
+            return true;
+        }
+        IndexData indexData = getIndexData();
+        int ordinal = indexData.ordinalOf(dexClass);
+        if (ordinal >= 0) {
+            return indexData.isInstance(ordinal, typeKey);
+        }
+        // not indexed, e.g. duplicate of other module class
+        if (isParentInstance(indexData, dexClass.getSuperClassKey(), typeKey)) {
+            return true;
+        }
+        for (TypeKey parent : dexClass.getInterfacesKey()) {
+            if (isParentInstance(indexData, parent, typeKey)) {
+                return true;
+            }
+        }
+        return false;
+    }
+    public boolean isInstance(TypeKey type, TypeKey typeKey) {
+        DexClass dexClass = get(type);
+        if (dexClass != null) {
+            return isInstance(dexClass, typeKey);
+        }
+        return typeKey != null && (typeKey.equals(type) || typeKey.equals(TypeKey.OBJECT)
+                || ReflectionUtil.isInstanceReflection(type, typeKey));
+    }
+    private boolean isParentInstance(IndexData indexData, TypeKey parent, TypeKey typeKey) {
+        if (parent == null) {
+            return false;
+        }
+        if (parent.equals(typeKey)) {
+            return true;
+        }
+        int ordinal = indexData.ordinalOf(parent);
+        if (ordinal >= 0) {
+            return indexData.isInstance(ordinal, typeKey);
+        }
+        return ReflectionUtil.isInstanceReflection(parent, typeKey);
+    }
+    /**
+     * Returns true if the class of <code>type</code> extends the class of <code>superType</code>
+     * directly or indirectly, interfaces are not considered. Both must be defined on the
+     * repository.
+     * */
+    public boolean isSubclass(TypeKey type, TypeKey superType) {
+        IndexData indexData = getIndexData();
+        int ordinal = indexData.ordinalOf(type);
+        int superOrdinal = indexData.ordinalOf(superType);
+        return ordinal >= 0 && superOrdinal >= 0 && ordinal != superOrdinal
+                && indexData.isSubclass(ordinal, superOrdinal);
+    }
+    /**
+     * Returns all super classes and interfaces defined on the repository in the same order as
+     * {@link DexClass#getSuperTypes()}: each direct parent followed by its own super types.
+     * */
+    public Iterator<DexClass> getSuperTypes(DexClass dexClass) {
+        IndexData indexData = getIndexData();
+        int ordinal = indexData.ordinalOf(dexClass);
+        if (ordinal >= 0) {
+            return indexData.iterator(indexData.superTypes[ordinal]);
+        }
+        List<DexClass> results = new ArrayCollection<>();
+        Set<TypeKey> added = new LinkedHashSet<>();
+        added.add(dexClass.getKey());
+        addSuperTypes(indexData, dexClass.getSuperClassKey(), added, results);
+        for (TypeKey parent : dexClass.getInterfacesKey()) {
+            addSuperTypes(indexData, parent, added, results);
+        }
+        return results.iterator();
+    }
+    private void addSuperTypes(IndexData indexData, TypeKey parent, Set<TypeKey> added, List<DexClass> results) {
+        int ordinal = indexData.ordinalOf(parent);
+        if (ordinal < 0) {
+            return;
+        }
+        DexClass[] classes = indexData.classes;
+        if (added.add(parent)) {
+            results.add(classes[ordinal]);
+        }
+        for (int i : indexData.superTypes[ordinal]) {
+            if (added.add(classes[i].getKey())) {
+                results.add(classes[i]);
+            }
+        }
+    }
+    /**
+     * Returns classes whose super class is the given type
+     * */
+    public Iterator<DexClass> getExtending(TypeKey typeKey) {
+        IndexData indexData = getIndexData();
+        int ordinal = indexData.ordinalOf(typeKey);
+        if (ordinal < 0) {
+            return EmptyIterator.of();
+        }
+        return indexData.iterator(indexData.extending[ordinal]);
+    }
+    /**
+     * Returns classes directly listing the given type on their interfaces
+     * */
+    public Iterator<DexClass> getImplementations(TypeKey typeKey) {
+        IndexData indexData = getIndexData();
+        int ordinal = indexData.ordinalOf(typeKey);
+        if (ordinal < 0) {
+            return EmptyIterator.of();
+        }
+        return indexData.iterator(indexData.implementations[ordinal]);
+    }
+    public int size() {
+        return getIndexData().classes.length;
+    }
+    public boolean isBuilt() {
+        return mIndexData != null;
+    }
+    public void invalidate() {
+        mIndexData = null;
+    }
+    private IndexData getIndexData() {
+        IndexData indexData = this.mIndexData;
+        if (indexData != null && indexData.isCurrent(repository)) {
+            return indexData;
+        }
+        synchronized (this) {
+            indexData = this.mIndexData;
+            if (indexData == null || !indexData.isCurrent(repository)) {
+                indexData = IndexData.build(repository);
+                this.mIndexData = indexData;
+            }
+            return indexData;
+        }
+    }
+
+    static class IndexData {
+
+        final Object[] modules;
+        final int[] modCounts;
+        private volatile int globalModCount;
+
+        final Map<TypeKey, Integer> ordinals;
+        final DexClass[] classes;
+        final int[] superClass;
+        final int[][] interfaces;
+        final int[][] extending;
+        final int[][] implementations;
+        // pre-order interval of super class tree
+        final int[] start;
+        final int[] end;
+        // sorted ordinals of all ancestors reached through at least one interface
+        final int[][] interfaceAncestors;
+        // super types not defined on repository, resolved through reflection
+        final TypeKey[][] externals;
+        final int[][] superTypes;
+
+        IndexData(int globalModCount, Object[] modules, int[] modCounts, DexClass[] classes, Map<TypeKey, Integer> ordinals) {
+            this.globalModCount = globalModCount;
+            this.modules = modules;
+            this.modCounts = modCounts;
+            this.ordinals = ordinals;
+            this.classes = classes;
+            int size = classes.length;
+            this.superClass = new int[size];
+            this.interfaces = new int[size][];
+            this.extending = new int[size][];
+            this.implementations = new int[size][];
+            this.start = new int[size];
+            this.end = new int[size];
+            this.interfaceAncestors = new int[size][];
+            this.externals = new TypeKey[size][];
+            this.superTypes = new int[size][];
+        }
+
+        int ordinalOf(TypeKey typeKey) {
+            if (typeKey == null) {
+                return -1;
+            }
+            Integer ordinal = ordinals.get(typeKey);
+            if (ordinal == null) {
+                return -1;
+            }
+            return ordinal;
+        }
+        int ordinalOf(DexClass dexClass) {
+            int ordinal = ordinalOf(dexClass.getKey());
+            if (ordinal >= 0 && classes[ordinal].getId() != dexClass.getId()) {
+                return -1;
+            }
+            return ordinal;
+        }
+        boolean isSubclass(int ordinal, int superOrdinal) {
+            return start[superOrdinal] <= start[ordinal] && start[ordinal] < end[superOrdinal];
+        }
+        boolean isInstance(int ordinal, TypeKey typeKey) {
+            int other = ordinalOf(typeKey);
+            if (other >= 0) {
+                return other == ordinal || isSubclass(ordinal, other)
+                        || Arrays.binarySearch(interfaceAncestors[ordinal], other) >= 0;
+            }
+            for (TypeKey external : externals[ordinal]) {
+                if (external.equals(typeKey) || ReflectionUtil.isInstanceReflection(external, typeKey)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+        Iterator<DexClass> iterator(int[] ordinals) {
+            if (ordinals.length == 0) {
+                return EmptyIterator.of();
+            }
+            DexClass[] classes = this.classes;
+            return IndexIterator.of(new SizedSupplier<DexClass>() {
+                @Override
+                public DexClass get(int index) {
+                    return classes[ordinals[index]];
+                }
+                @Override
+                public int size() {
+                    return ordinals.length;
+                }
+            });
+        }
+        boolean isCurrent(DexClassRepository repository) {
+            int globalModCount = DexLayoutBlock.getGlobalModCount();
+            if (globalModCount == this.globalModCount) {
+                return true;
+            }
+            // something changed, not necessarily on this repository
+            if (isValid(repository)) {
+                this.globalModCount = globalModCount;
+                return true;
+            }
+            return false;
+        }
+        boolean isValid(DexClassRepository repository) {
+            Iterator<DexClassModule> iterator = repository.modules();
+            Object[] modules = this.modules;
+            int i = 0;
+            while (iterator.hasNext()) {
+                DexClassModule module = iterator.next();
+                if (i >= modules.length || modules[i] != module
+                        || modCounts[i] != getModCount(module)) {
+                    return false;
+                }
+                i ++;
+            }
+            return i == modules.length;
+        }
+
+        static IndexData build(DexClassRepository repository) {
+            int globalModCount = DexLayoutBlock.getGlobalModCount();
+            List<DexClassModule> moduleList = new ArrayCollection<>();
+            Iterator<DexClassModule> iterator = repository.modules();
+            while (iterator.hasNext()) {
+                moduleList.add(iterator.next());
+            }
+            int count = moduleList.size();
+            Object[] modules = new Object[count];
+            int[] modCounts = new int[count];
+            Map<TypeKey, Integer> ordinals = new HashMap<>();
+            List<DexClass> classList = new ArrayCollection<>();
+            for (int i = 0; i < count; i++) {
+                DexClassModule module = moduleList.get(i);
+                modules[i] = module;
+                modCounts[i] = getModCount(module);
+                Iterator<DexClass> classes = module.getDexClasses(null);
+                while (classes.hasNext()) {
+                    DexClass dexClass = classes.next();
+                    TypeKey key = dexClass.getKey();
+                    if (!ordinals.containsKey(key)) {
+                        ordinals.put(key, classList.size());
+                        classList.add(dexClass);
+                    }
+                }
+            }
+            IndexData indexData = new IndexData(globalModCount, modules, modCounts,
+                    classList.toArray(new DexClass[classList.size()]), ordinals);
+            indexData.link();
+            return indexData;
+        }
+        private static int getModCount(DexClassModule module) {
+            if (module instanceof DexLayout) {
+                return ((DexLayout) module).getDexLayoutBlock().getClassesModCount();
+            }
+            return 0;
+        }
+
+        private void link() {
+            int size = classes.length;
+            int[] extendingCounts = new int[size];
+            int[] implementationCounts = new int[size];
+            int[] empty = new int[0];
+            for (int i = 0; i < size; i++) {
+                DexClass dexClass = classes[i];
+                int parent = ordinalOf(dexClass.getSuperClassKey());
+                if (parent == i) {
+                    parent = -1;
+                }
+                superClass[i] = parent;
+                if (parent >= 0) {
+                    extendingCounts[parent] ++;
+                }
+                TypeListKey typeListKey = dexClass.getInterfacesKey();
+                int[] parents = new int[typeListKey.size()];
+                int length = 0;
+                for (TypeKey key : typeListKey) {
+                    int ordinal = ordinalOf(key);
+                    if (ordinal >= 0 && ordinal != i) {
+                        parents[length ++] = ordinal;
+                        implementationCounts[ordinal] ++;
+                    }
+                }
+                interfaces[i] = length == parents.length ? parents : Arrays.copyOf(parents, length);
+            }
+            for (int i = 0; i < size; i++) {
+                extending[i] = extendingCounts[i] == 0 ? empty : new int[extendingCounts[i]];
+                implementations[i] = implementationCounts[i] == 0 ? empty : new int[implementationCounts[i]];
+                extendingCounts[i] = 0;
+                implementationCounts[i] = 0;
+            }
+            for (int i = 0; i < size; i++) {
+                int parent = superClass[i];
+                if (parent >= 0) {
+                    extending[parent][extendingCounts[parent] ++] = i;
+                }
+                for (int ordinal : interfaces[i]) {
+                    implementations[ordinal][implementationCounts[ordinal] ++] = i;
+                }
+            }
+            numberIntervals();
+            byte[] states = new byte[size];
+            for (int i = 0; i < size; i++) {
+                computeAncestors(i, states);
+            }
+        }
+        private void numberIntervals() {
+            int size = classes.length;
+            boolean[] visited = new boolean[size];
+            int[] stack = new int[size];
+            int[] childIndex = new int[size];
+            int counter = 0;
+            // roots first, then whatever is left on super class cycles
+            for (int pass = 0; pass < 2; pass++) {
+                for (int root = 0; root < size; root++) {
+                    if (visited[root] || (pass == 0 && superClass[root] >= 0)) {
+                        continue;
+                    }
+                    int top = 0;
+                    stack[0] = root;
+                    childIndex[root] = 0;
+                    visited[root] = true;
+                    start[root] = counter ++;
+                    while (top >= 0) {
+                        int node = stack[top];
+                        int[] children = extending[node];
+                        if (childIndex[node] < children.length) {
+                            int child = children[childIndex[node] ++];
+                            if (!visited[child]) {
+                                visited[child] = true;
+                                childIndex[child] = 0;
+                                start[child] = counter ++;
+                                stack[++ top] = child;
+                            }
+                        } else {
+                            end[node] = counter;
+                            top --;
+                        }
+                    }
+                }
+            }
+        }
+        private void computeAncestors(int ordinal, byte[] states) {
+            if (states[ordinal] != 0) {
+                return;
+            }
+            // guards against cyclic hierarchy of malformed dex
+            states[ordinal] = 1;
+            DexClass dexClass = classes[ordinal];
+            Set<Integer> interfaceSet = new LinkedHashSet<>();
+            Set<TypeKey> externalSet = new LinkedHashSet<>();
+            Set<Integer> superTypeSet = new LinkedHashSet<>();
+
+            int parent = superClass[ordinal];
+            if (parent >= 0) {
+                computeAncestors(parent, states);
+                superTypeSet.add(parent);
+                addAll(superTypeSet, superTypes[parent]);
+                addAll(interfaceSet, interfaceAncestors[parent]);
+                addAll(externalSet, externals[parent]);
+            } else {
+                TypeKey superKey = dexClass.getSuperClassKey();
+                if (superKey != null && !superKey.equals(dexClass.getKey())) {
+                    externalSet.add(superKey);
+                }
+            }
+            for (TypeKey key : dexClass.getInterfacesKey()) {
+                int ordinalOfKey = ordinalOf(key);
+                if (ordinalOfKey == ordinal) {
+                    continue;
+                }
+                if (ordinalOfKey < 0) {
+                    externalSet.add(key);
+                    continue;
+                }
+                computeAncestors(ordinalOfKey, states);
+                superTypeSet.add(ordinalOfKey);
+                addAll(superTypeSet, superTypes[ordinalOfKey]);
+                interfaceSet.add(ordinalOfKey);
+                addAll(interfaceSet, superTypes[ordinalOfKey]);
+                addAll(externalSet, externals[ordinalOfKey]);
+            }
+            superTypeSet.remove(ordinal);
+            superTypes[ordinal] = toArray(superTypeSet, false);
+            interfaceAncestors[ordinal] = toArray(interfaceSet, true);
+            externals[ordinal] = externalSet.toArray(new TypeKey[externalSet.size()]);
+            states[ordinal] = 2;
+        }
+        private static void addAll(Set<Integer> set, int[] values) {
+            if (values == null) {
+                return;
+            }
+            for (int value : values) {
+                set.add(value);
+            }
+        }
+        private static void addAll(Set<TypeKey> set, TypeKey[] values) {
+            if (values == null) {
+                return;
+            }
+            set.addAll(Arrays.asList(values));
+        }
+        private static int[] toArray(Set<Integer> set, boolean sort) {
+            int[] results = new int[set.size()];
+            int i = 0;
+            for (Integer value : set) {
+                results[i ++] = value;
+            }
+            if (sort) {
+                Arrays.sort(results);
+            }
+            return results;
+        }
+    }
+}
@@ -0,0 +1,566 @@
+/*
+ *  Copyright (C) 2022 github.com/REAndroid
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.reandroid.dex.model;
+
+import com.reandroid.dex.id.ClassId;
+import com.reandroid.dex.id.IdItem;
+import com.reandroid.dex.key.Key;
+import com.reandroid.dex.key.TypeKey;
+import com.reandroid.dex.sections.SectionType;
+import com.reandroid.utils.collection.ArrayCollection;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Predicate;
+
+/**
+ * Packs classes of a {@link DexDirectory} into dex files without exceeding the id section
+ * limits. The plan starts from the current placement; only classes of dex files exceeding
+ * the limits are moved, each one to the dex which already holds most of its references (or
+ * to a new dex), so related classes share string, type, proto, field and method ids.
+ * */
+public class DexClassPacker {
+
+    private final DexDirectory dexDirectory;
+    private final SectionType<?>[] sectionTypes;
+
+    private int maxClassesPerDex;
+    private int maxReferences;
+    private Predicate<? super TypeKey> mainDexClasses;
+
+    public DexClassPacker(DexDirectory dexDirectory) {
+        this.dexDirectory = dexDirectory;
+        this.sectionTypes = listSectionTypes();
+        this.maxClassesPerDex = DEFAULT_MAX_REFERENCES;
+        this.maxReferences = DEFAULT_MAX_REFERENCES;
+    }
+
+    public int getMaxClassesPerDex() {
+        return maxClassesPerDex;
+    }
+    public void setMaxClassesPerDex(int maxClassesPerDex) {
+        if (maxClassesPerDex <= 0) {
+            throw new IllegalArgumentException(
+                    "Classes per dex must be greater than zero: " + maxClassesPerDex);
+        }
+        this.maxClassesPerDex = maxClassesPerDex;
+    }
+    public int getMaxReferences() {
+        return maxReferences;
+    }
+    /**
+     * Maximum number of items per id section (strings, types, protos, fields, methods ...),
+     * default is {@link #DEFAULT_MAX_REFERENCES}
+     * */
+    public void setMaxReferences(int maxReferences) {
+        if (maxReferences <= 0 || maxReferences > DEFAULT_MAX_REFERENCES) {
+            throw new IllegalArgumentException("Invalid max references: " + maxReferences);
+        }
+        this.maxReferences = maxReferences;
+    }
+    /**
+     * Classes matching the filter are placed on the primary dex and are the last ones to be
+     * moved out of it, thus they stay there as long as they fit within the limits.
+     * */
+    public void setMainDexClasses(Predicate<? super TypeKey> mainDexClasses) {
+        this.mainDexClasses = mainDexClasses;
+    }
+
+    /**
+     * Computes the layout and moves classes to their dex files, creates new dex files as
+     * needed.
+     * @return resulting dex files, in the order of the directory
+     * */
+    public List<PackedDex> pack() {
+        KeyIndex keyIndex = new KeyIndex(sectionTypes);
+        List<PackedDex> results = plan(keyIndex, collectClasses(keyIndex));
+        apply(results);
+        return results;
+    }
+    /**
+     * Computes the layout without changing the directory
+     * */
+    public List<PackedDex> plan() {
+        KeyIndex keyIndex = new KeyIndex(sectionTypes);
+        return plan(keyIndex, collectClasses(keyIndex));
+    }
+
+    /**
+     * Seeds every dex with its current classes, dex files exceeding the limits then give up
+     * classes (last in reference order first) until they fit. Only the given up classes are
+     * placed again, in reference order.
+     * */
+    private List<PackedDex> plan(KeyIndex keyIndex, List<ClassReferences> classList) {
+        int[] keySizes = keyIndex.sizes();
+        List<PackedDex> results = new ArrayCollection<>();
+        int dexCount = Math.max(1, dexDirectory.size());
+        for (int i = 0; i < dexCount; i++) {
+            results.add(new PackedDex(i, sectionTypes, keySizes));
+        }
+        for (ClassReferences references : classList) {
+            results.get(references.source).add(references);
+        }
+        List<ClassReferences> evicted = new ArrayCollection<>();
+        for (PackedDex packedDex : results) {
+            packedDex.evictOverflow(maxClassesPerDex, maxReferences, evicted);
+        }
+        evicted.sort(ClassReferences::compareOrder);
+        for (ClassReferences references : evicted) {
+            PackedDex packedDex = findBest(results, references);
+            if (packedDex == null) {
+                packedDex = new PackedDex(results.size(), sectionTypes, keySizes);
+                results.add(packedDex);
+            }
+            packedDex.add(references);
+        }
+        return results;
+    }
+    private PackedDex findBest(List<PackedDex> packedList, ClassReferences references) {
+        PackedDex result = null;
+        int shared = -1;
+        int size = packedList.size();
+        for (int i = 0; i < size; i++) {
+            PackedDex packedDex = packedList.get(i);
+            if (!packedDex.canAdd(references, maxClassesPerDex, maxReferences)) {
+                continue;
+            }
+            int count = packedDex.countShared(references);
+            if (count > shared) {
+                shared = count;
+                result = packedDex;
+            }
+        }
+        return result;
+    }
+    private void apply(List<PackedDex> packedList) {
+        DexDirectory directory = this.dexDirectory;
+        List<ClassReferences> pending = new ArrayCollection<>();
+        for (PackedDex packedDex : packedList) {
+            int index = packedDex.getIndex();
+            while (directory.size() <= index) {
+                directory.createDefault();
+            }
+            DexFile dexFile = directory.get(index);
+            for (ClassReferences references : packedDex.classList) {
+                DexLayout dexLayout = DexLayout.findDexFile(references.classId);
+                if (dexLayout != null && dexLayout.getDexFile() != dexFile) {
+                    references.destination = dexFile.getOrCreateFirst();
+                    pending.add(references);
+                }
+            }
+        }
+        if (pending.isEmpty()) {
+            return;
+        }
+        boolean cleared = false;
+        while (!pending.isEmpty()) {
+            int count = pending.size();
+            pending.removeIf(this::move);
+            if (pending.size() != count) {
+                cleared = false;
+            } else if (!cleared) {
+                // ids of moved classes could remain on source until cleared
+                directory.clearUnused();
+                cleared = true;
+            } else {
+                throw new IllegalStateException("Failed to move " + count
+                        + " classes, first = " + pending.get(0).classId.getKey());
+            }
+        }
+        directory.clearUnused();
+    }
+    private boolean move(ClassReferences references) {
+        ClassId classId = references.classId;
+        return references.destination.merge(classId) || classId.getParent() == null;
+    }
+
+    private List<ClassReferences> collectClasses(KeyIndex keyIndex) {
+        Map<TypeKey, ClassReferences> classMap = new HashMap<>();
+        List<ClassReferences> inputOrder = new ArrayCollection<>();
+        DexDirectory directory = this.dexDirectory;
+        int size = directory.size();
+        for (int i = 0; i < size; i++) {
+            Iterator<DexClass> iterator = directory.get(i).getDexClasses();
+            while (iterator.hasNext()) {
+                DexClass dexClass = iterator.next();
+                TypeKey typeKey = dexClass.getKey();
+                if (classMap.containsKey(typeKey)) {
+                    continue;
+                }
+                ClassReferences references = keyIndex.create(dexClass.getId(), i);
+                classMap.put(typeKey, references);
+                inputOrder.add(references);
+            }
+        }
+        List<ClassReferences> results = referenceOrder(inputOrder, classMap);
+        size = results.size();
+        for (int i = 0; i < size; i++) {
+            results.get(i).order = i;
+        }
+        return results;
+    }
+    private List<ClassReferences> referenceOrder(List<ClassReferences> inputOrder,
+                                                 Map<TypeKey, ClassReferences> classMap) {
+        List<ClassReferences> results = new ArrayCollection<>(inputOrder.size());
+        Set<ClassReferences> visited = new HashSet<>();
+        Predicate<? super TypeKey> mainDexClasses = this.mainDexClasses;
+        if (mainDexClasses != null) {
+            for (ClassReferences references : inputOrder) {
+                if (mainDexClasses.test(references.classId.getKey()) && visited.add(references)) {
+                    references.source = 0;
+                    results.add(references);
+                }
+            }
+        }
+        ArrayDeque<ClassReferences> queue = new ArrayDeque<>();
+        for (ClassReferences root : inputOrder) {
+            if (!visited.add(root)) {
+                continue;
+            }
+            queue.add(root);
+            while (!queue.isEmpty()) {
+                ClassReferences references = queue.poll();
+                results.add(references);
+                for (TypeKey typeKey : references.typeKeys) {
+                    ClassReferences next = classMap.get(typeKey);
+                    if (next != null && visited.add(next)) {
+                        queue.add(next);
+                    }
+                }
+            }
+        }
+        return results;
+    }
+
+    private static SectionType<?>[] listSectionTypes() {
+        List<SectionType<?>> list = new ArrayCollection<>();
+        Iterator<SectionType<?>> iterator = SectionType.getIdSectionTypes();
+        while (iterator.hasNext()) {
+            SectionType<?> sectionType = iterator.next();
+            if (sectionType != SectionType.CLASS_ID) {
+                list.add(sectionType);
+            }
+        }
+        return list.toArray(new SectionType<?>[list.size()]);
+    }
+    static int indexOf(SectionType<?>[] sectionTypes, SectionType<?> sectionType) {
+        for (int i = 0; i < sectionTypes.length; i++) {
+            if (sectionTypes[i] == sectionType) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    public static class PackedDex {
+
+        private final int index;
+        private final SectionType<?>[] sectionTypes;
+        // number of classes of this dex referencing each key, per section type
+        private final int[][] keyUsers;
+        private final int[] counts;
+        private final List<ClassReferences> classList;
+
+        PackedDex(int index, SectionType<?>[] sectionTypes, int[] keySizes) {
+            this.index = index;
+            this.sectionTypes = sectionTypes;
+            int length = sectionTypes.length;
+            this.keyUsers = new int[length][];
+            for (int i = 0; i < length; i++) {
+                keyUsers[i] = new int[keySizes[i]];
+            }
+            this.counts = new int[length];
+            this.classList = new ArrayCollection<>();
+        }
+
+        public int getIndex() {
+            return index;
+        }
+        public int getClassesCount() {
+            return classList.size();
+        }
+        /**
+         * Number of classes of this dex coming from another dex
+         * */
+        public int getMovedClassesCount() {
+            int result = 0;
+            for (ClassReferences references : classList) {
+                if (references.source != index) {
+                    result ++;
+                }
+            }
+            return result;
+        }
+        /**
+         * Number of distinct ids of the given section type referenced by classes of this dex
+         * */
+        public int getCount(SectionType<?> sectionType) {
+            int i = DexClassPacker.indexOf(sectionTypes, sectionType);
+            if (i < 0) {
+                return 0;
+            }
+            return counts[i];
+        }
+
+        boolean canAdd(ClassReferences references, int maxClasses, int maxReferences) {
+            if (classList.size() >= maxClasses) {
+                return false;
+            }
+            int[][] keys = references.keys;
+            for (int i = 0; i < keys.length; i++) {
+                int count = counts[i];
+                if (count + keys[i].length <= maxReferences) {
+                    continue;
+                }
+                int[] users = keyUsers[i];
+                for (int key : keys[i]) {
+                    if (users[key] == 0) {
+                        count ++;
+                    }
+                }
+                if (count > maxReferences) {
+                    return false;
+                }
+            }
+            return true;
+        }
+        int countShared(ClassReferences references) {
+            int result = 0;
+            int[][] keys = references.keys;
+            for (int i = 0; i < keys.length; i++) {
+                int[] users = keyUsers[i];
+                for (int key : keys[i]) {
+                    if (users[key] != 0) {
+                        result ++;
+                    }
+                }
+            }
+            return result;
+        }
+        void add(ClassReferences references) {
+            classList.add(references);
+            int[][] keys = references.keys;
+            for (int i = 0; i < keys.length; i++) {
+                int[] users = keyUsers[i];
+                for (int key : keys[i]) {
+                    if (users[key] ++ == 0) {
+                        counts[i] ++;
+                    }
+                }
+            }
+        }
+        private void remove(int position) {
+            ClassReferences references = classList.remove(position);
+            int[][] keys = references.keys;
+            for (int i = 0; i < keys.length; i++) {
+                int[] users = keyUsers[i];
+                for (int key : keys[i]) {
+                    if (-- users[key] == 0) {
+                        counts[i] --;
+                    }
+                }
+            }
+        }
+        /**
+         * Removes classes, last in reference order first, until this dex fits within the
+         * limits. A class is removed only if it reduces the class count or an exceeding id
+         * section.
+         * */
+        void evictOverflow(int maxClasses, int maxReferences, List<ClassReferences> evicted) {
+            List<ClassReferences> classList = this.classList;
+            for (int i = classList.size() - 1; i >= 0; i--) {
+                if (!isOverflow(maxClasses, maxReferences)) {
+                    return;
+                }
+                ClassReferences references = classList.get(i);
+                if (classList.size() > maxClasses || releasesOverflow(references, maxReferences)) {
+                    remove(i);
+                    evicted.add(references);
+                }
+            }
+        }
+        private boolean isOverflow(int maxClasses, int maxReferences) {
+            if (classList.size() > maxClasses) {
+                return true;
+            }
+            for (int count : counts) {
+                if (count > maxReferences) {
+                    return true;
+                }
+            }
+            return false;
+        }
+        private boolean releasesOverflow(ClassReferences references, int maxReferences) {
+            int[][] keys = references.keys;
+            for (int i = 0; i < keys.length; i++) {
+                if (counts[i] <= maxReferences) {
+                    continue;
+                }
+                int[] users = keyUsers[i];
+                for (int key : keys[i]) {
+                    if (users[key] == 1) {
+                        return true;
+                    }
+                }
+            }
+            return false;
+        }
+
+        @Override
+        public String toString() {
+            StringBuilder builder = new StringBuilder();
+            // dex numbers are 0, 2, 3 ... (classes.dex, classes2.dex, classes3.dex ...)
+            int number = index == 0 ? 0 : index + 1;
+            builder.append(DexFile.getDexName(number));
+            builder.append(" {classes=");
+            builder.append(getClassesCount());
+            for (int i = 0; i < sectionTypes.length; i++) {
+                builder.append(", ");
+                builder.append(sectionTypes[i].getName());
+                builder.append('=');
+                builder.append(counts[i]);
+            }
+            builder.append('}');
+            return builder.toString();
+        }
+    }
+
+    static class ClassReferences {
+
+        final ClassId classId;
+        final int[][] keys;
+        final Set<TypeKey> typeKeys;
+        // index of the dex currently holding this class
+        int source;
+        // position in reference order
+        int order;
+        DexLayout destination;
+
+        ClassReferences(ClassId classId, int[][] keys, Set<TypeKey> typeKeys, int source) {
+            this.classId = classId;
+            this.keys = keys;
+            this.typeKeys = typeKeys;
+            this.source = source;
+        }
+        int compareOrder(ClassReferences references) {
+            return Integer.compare(order, references.order);
+        }
+    }
+
+    static class KeyIndex {
+
+        private final SectionType<?>[] sectionTypes;
+        private final List<Map<Key, Integer>> indexMaps;
+        // scratch of the class being created, indexes collected per section type
+        private final BitSet[] collected;
+        private final int[][] buffers;
+        private final int[] sizes;
+
+        KeyIndex(SectionType<?>[] sectionTypes) {
+            this.sectionTypes = sectionTypes;
+            int length = sectionTypes.length;
+            this.indexMaps = new ArrayCollection<>(length);
+            this.collected = new BitSet[length];
+            this.buffers = new int[length][];
+            this.sizes = new int[length];
+            for (int i = 0; i < length; i++) {
+                indexMaps.add(new HashMap<>());
+                collected[i] = new BitSet();
+                buffers[i] = new int[16];
+            }
+        }
+
+        int[] sizes() {
+            int length = sectionTypes.length;
+            int[] results = new int[length];
+            for (int i = 0; i < length; i++) {
+                results[i] = indexMaps.get(i).size();
+            }
+            return results;
+        }
+        ClassReferences create(ClassId classId, int source) {
+            SectionType<?>[] sectionTypes = this.sectionTypes;
+            int length = sectionTypes.length;
+            Set<TypeKey> typeKeys = new HashSet<>();
+            for (IdItem idItem : classId.listUsedIds()) {
+                if (idItem == null) {
+                    continue;
+                }
+                int i = DexClassPacker.indexOf(sectionTypes, idItem.getSectionType());
+                if (i < 0) {
+                    continue;
+                }
+                Key key = idItem.getKey();
+                if (key == null) {
+                    continue;
+                }
+                Map<Key, Integer> map = indexMaps.get(i);
+                Integer index = map.get(key);
+                if (index == null) {
+                    index = map.size();
+                    map.put(key, index);
+                }
+                collect(i, index);
+                if (key instanceof TypeKey) {
+                    typeKeys.add(((TypeKey) key).getDeclaring());
+                }
+            }
+            typeKeys.remove(classId.getKey());
+            int[][] keys = new int[length][];
+            for (int i = 0; i < length; i++) {
+                keys[i] = drain(i);
+            }
+            return new ClassReferences(classId, keys, typeKeys, source);
+        }
+        private void collect(int i, int index) {
+            BitSet bitSet = collected[i];
+            if (bitSet.get(index)) {
+                return;
+            }
+            bitSet.set(index);
+            int size = sizes[i];
+            int[] buffer = buffers[i];
+            if (size == buffer.length) {
+                buffer = Arrays.copyOf(buffer, size * 2);
+                buffers[i] = buffer;
+            }
+            buffer[size] = index;
+            sizes[i] = size + 1;
+        }
+        private int[] drain(int i) {
+            int size = sizes[i];
+            int[] result = Arrays.copyOf(buffers[i], size);
+            BitSet bitSet = collected[i];
+            for (int index : result) {
+                bitSet.clear(index);
+            }
+            sizes[i] = 0;
+            return result;
+        }
+    }
+
+    /**
+     * Same as the limit checked on merging, see SectionList#canAddAll
+     * */
+    public static final int DEFAULT_MAX_REFERENCES = 0xffff - 201;
+}
@@ -113,26 +113,16 @@ public interface DexClassRepository extends FullRefresh, BlockRefresh {
     }
 
     default Iterator<DexClass> searchExtending(TypeKey typeKey) {
-        UniqueIterator<DexClass> iterator = new UniqueIterator<>(
-                new IterableIterator<DexClassModule, DexClass>(getRootRepository().modules()) {
-                    @Override
-                    public Iterator<DexClass> iterator(DexClassModule element) {
-                        return element.getExtendingClasses(typeKey);
-                    }
-                });
-        iterator.exclude(getDexClass(typeKey));
-        return iterator;
+        return getClassHierarchy().getExtending(typeKey);
     }
     default Iterator<DexClass> searchImplementations(TypeKey typeKey) {
-        UniqueIterator<DexClass> iterator = new UniqueIterator<>(
-                new IterableIterator<DexClassModule, DexClass>(getRootRepository().modules()) {
-                    @Override
-                    public Iterator<DexClass> iterator(DexClassModule element) {
-                        return element.getImplementClasses(typeKey);
-                    }
-                });
-        iterator.exclude(getDexClass(typeKey));
-        return iterator;
+        return getClassHierarchy().getImplementations(typeKey);
+    }
+    /**
+     * Returns hierarchy index shared by all modules of the root repository
+     * */
+    default DexClassHierarchy getClassHierarchy() {
+        return getRootRepository().getClassHierarchy();
     }
     default <T extends SectionItem> Iterator<Section<T>> getSections(SectionType<T> sectionType) {
         return new IterableIterator<DexClassModule, Section<T>>(modules()) {
@@ -23,7 +23,9 @@ import com.reandroid.dex.id.FieldId;
 import com.reandroid.dex.id.MethodId;
 import com.reandroid.dex.id.StringId;
 import com.reandroid.dex.key.*;
+import com.reandroid.dex.refactor.TypeStringRenamer;
 import com.reandroid.dex.sections.*;
+import com.reandroid.dex.smali.SmaliWriteProgress;
 import com.reandroid.dex.smali.SmaliWriter;
 import com.reandroid.utils.collection.*;
 
@@ -40,10 +42,12 @@ public class DexDirectory implements Iterable<DexFile>, Closeable,
     private final DexFileSourceSet dexSourceSet;
     private Object mTag;
     private final ArrayCollection<TypeKeyReference> externalTypeKeyReferenceList;
+    private final DexClassHierarchy classHierarchy;
 
     public DexDirectory() {
         this.dexSourceSet = new DexFileSourceSet();
         this.externalTypeKeyReferenceList = new ArrayCollection<>();
+        this.classHierarchy = new DexClassHierarchy(this);
     }
 
     public Object getTag() {
@@ -293,28 +297,38 @@ public class DexDirectory implements Iterable<DexFile>, Closeable,
                 stringId -> renameTypes(stringId, pair, renameInner, renameJava));
     }
     public Iterator<StringId> renameTypes(Iterable<KeyPair<TypeKey, TypeKey>> iterable, boolean renameInner, boolean renameJava){
+        return renameTypes(new TypeStringRenamer(iterable, renameInner, renameJava));
+    }
+    /**
+     * Renames strings in a single pass over string ids, per pair hit counts are
+     * available from the renamer once the returned iterator is consumed.
+     * */
+    public Iterator<StringId> renameTypes(TypeStringRenamer renamer){
         return FilterIterator.of(getClonedItems(SectionType.STRING_ID),
-                stringId -> renameTypes(stringId, iterable, renameInner, renameJava));
+                stringId -> renameTypes(stringId, renamer));
     }
-    boolean renameTypes(StringId stringId, Iterable<KeyPair<TypeKey, TypeKey>> iterable, boolean renameInner, boolean renameJava){
-        for(KeyPair<TypeKey, TypeKey> pair : iterable){
-            boolean renamed = renameTypes(stringId, pair, renameInner, renameJava);
-            if(renamed){
-                return true;
-            }
+    boolean renameTypes(StringId stringId, TypeStringRenamer renamer){
+        String text = renamer.rename(stringId.getString());
+        if(text == null){
+            return false;
         }
-        return false;
+        stringId.setString(text);
+        fixDalvikInnerClassName(text);
+        return true;
     }
     boolean renameTypes(StringId stringId, KeyPair<TypeKey, TypeKey> pair, boolean renameInner, boolean renameJava){
         boolean renamed = renameTypeString(stringId, pair, renameInner, renameJava);
         if(renamed){
-            DexClass dexClass = getDexClass(TypeKey.create(stringId.getString()));
-            if(dexClass != null){
-                dexClass.fixDalvikInnerClassName();
-            }
+            fixDalvikInnerClassName(stringId.getString());
         }
         return renamed;
     }
+    private void fixDalvikInnerClassName(String type){
+        DexClass dexClass = getDexClass(TypeKey.create(type));
+        if(dexClass != null){
+            dexClass.fixDalvikInnerClassName();
+        }
+    }
     private boolean renameTypeString(StringId stringId, KeyPair<TypeKey, TypeKey> pair, boolean renameInner, boolean renameJava){
 
         String text = stringId.getString();
@@ -536,6 +550,10 @@ public class DexDirectory implements Iterable<DexFile>, Closeable,
         return this;
     }
     @Override
+    public DexClassHierarchy getClassHierarchy() {
+        return classHierarchy;
+    }
+    @Override
     public Iterator<DexClassModule> modules() {
         return new IterableIterator<DexFile, DexClassModule>(iterator()) {
             @Override
@@ -571,6 +589,15 @@ public class DexDirectory implements Iterable<DexFile>, Closeable,
         }
         return result;
     }
+    /**
+     * Packs classes to dex files by their references, see {@link DexClassPacker}
+     * @return resulting dex files with their id section sizes
+     * */
+    public List<DexClassPacker.PackedDex> packClasses(int maxClassesPerDex) {
+        DexClassPacker packer = new DexClassPacker(this);
+        packer.setMaxClassesPerDex(maxClassesPerDex);
+        return packer.pack();
+    }
     private int distributeClasses(DexFile source, int classesPerDex){
         int result = 0;
         DexDirectory directory = source.getDexDirectory();
@@ -653,8 +680,21 @@ public class DexDirectory implements Iterable<DexFile>, Closeable,
     }
 
     public void writeSmali(SmaliWriter writer, File root) throws IOException {
-        for(DexFile dexFile : this) {
-            dexFile.writeSmali(writer, root);
+        writeSmali(writer, root, 1, null);
+    }
+    /**
+     * Writes smali files of all dex files sharing one worker pool across them, see
+     * {@link DexLayout#writeSmali(SmaliWriter, File, int, SmaliWriteProgress)}
+     * */
+    public void writeSmali(SmaliWriter writer, File root, int threads, SmaliWriteProgress progress) throws IOException {
+        SmaliClassWriter classWriter = new SmaliClassWriter(writer, threads, progress);
+        try {
+            for(DexFile dexFile : this) {
+                dexFile.writeSmali(classWriter, root);
+            }
+            classWriter.finish();
+        } finally {
+            classWriter.close();
         }
     }
 
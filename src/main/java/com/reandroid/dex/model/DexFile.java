@@ -18,6 +18,7 @@ package com.reandroid.dex.model;
 import com.reandroid.arsc.io.BlockReader;
 import com.reandroid.dex.id.ClassId;
 import com.reandroid.dex.sections.*;
+import com.reandroid.dex.smali.SmaliWriteProgress;
 import com.reandroid.dex.smali.SmaliWriter;
 import com.reandroid.utils.CompareUtil;
 import com.reandroid.utils.ObjectsUtil;
@@ -35,12 +36,14 @@ public class DexFile implements Closeable, DexClassRepository, Iterable<DexLayou
     private final DexContainerBlock containerBlock;
     private final DexFileLayoutController layoutController;
     private DexDirectory dexDirectory;
+    private final DexClassHierarchy classHierarchy;
 
     private boolean closed;
 
     public DexFile(DexContainerBlock containerBlock) {
         this.containerBlock = containerBlock;
         this.layoutController = new DexFileLayoutController(this);
+        this.classHierarchy = new DexClassHierarchy(this);
         containerBlock.setLayoutBlockChangedListener(layoutController);
     }
 
@@ -105,7 +108,10 @@ public class DexFile implements Closeable, DexClassRepository, Iterable<DexLayou
         return dexDirectory;
     }
     public void setDexDirectory(DexDirectory dexDirectory) {
-        this.dexDirectory = dexDirectory;
+        if(this.dexDirectory != dexDirectory){
+            this.dexDirectory = dexDirectory;
+            DexLayoutBlock.onLayoutsChanged();
+        }
         DexContainerBlock containerBlock = getContainerBlock();
         containerBlock.setTag(this);
         containerBlock.setSimpleName(getSimpleName());
@@ -160,6 +166,14 @@ public class DexFile implements Closeable, DexClassRepository, Iterable<DexLayou
     public Iterator<DexClassModule> modules() {
         return ObjectsUtil.cast(iterator());
     }
+    @Override
+    public DexClassHierarchy getClassHierarchy() {
+        DexDirectory dexDirectory = getDexDirectory();
+        if (dexDirectory != null) {
+            return dexDirectory.getClassHierarchy();
+        }
+        return classHierarchy;
+    }
 
     public int clearDuplicateData(){
         int result = 0;
@@ -263,6 +277,9 @@ public class DexFile implements Closeable, DexClassRepository, Iterable<DexLayou
     }
 
     public void parseSmaliDirectory(File dir) throws IOException {
+        parseSmaliDirectory(dir, 1);
+    }
+    public void parseSmaliDirectory(File dir, int threads) throws IOException {
         File fileInfo = new File(dir, DexFileInfo.FILE_NAME);
         if (fileInfo.isFile()) {
             DexFileInfo.readJson(fileInfo).applyTo(this);
@@ -274,14 +291,29 @@ public class DexFile implements Closeable, DexClassRepository, Iterable<DexLayou
                 File file = layoutDir.get(i);
                 DexLayout layout = getOrCreateAt(i);
                 System.err.println(file);
-                layout.parseSmaliDirectory(file);
+                layout.parseSmaliDirectory(file, threads);
                 shrink();
             }
         } else {
-            getOrCreateFirst().parseSmaliDirectory(dir);
+            getOrCreateFirst().parseSmaliDirectory(dir, threads);
         }
     }
     public void writeSmali(SmaliWriter writer, File root) throws IOException {
+        writeSmali(writer, root, 1, null);
+    }
+    /**
+     * Writes smali files of all layouts, see {@link DexLayout#writeSmali(SmaliWriter, File, int, SmaliWriteProgress)}
+     * */
+    public void writeSmali(SmaliWriter writer, File root, int threads, SmaliWriteProgress progress) throws IOException {
+        SmaliClassWriter classWriter = new SmaliClassWriter(writer, threads, progress);
+        try {
+            writeSmali(classWriter, root);
+            classWriter.finish();
+        } finally {
+            classWriter.close();
+        }
+    }
+    void writeSmali(SmaliClassWriter classWriter, File root) throws IOException {
         requireNotClosed();
         root = new File(root, buildSmaliDirectoryName());
         DexFileInfo fileInfo = DexFileInfo.fromDex(this);
@@ -289,7 +321,7 @@ public class DexFile implements Closeable, DexClassRepository, Iterable<DexLayou
         if (!isMultiLayout()) {
             DexLayout first = getFirst();
             if (first != null) {
-                first.writeSmali(writer, root);
+                first.writeSmali(classWriter, root);
             }
         } else {
             int size = size();
@@ -297,7 +329,7 @@ public class DexFile implements Closeable, DexClassRepository, Iterable<DexLayou
                 DexLayout dexLayout = getLayout(i);
                 String name = DexLayout.DIRECTORY_PREFIX + i;
                 File dir = new File(root, name);
-                dexLayout.writeSmali(writer, dir);
+                dexLayout.writeSmali(classWriter, dir);
             }
         }
     }
@@ -90,6 +90,7 @@ class DexFileLayoutController implements DexContainerBlock.LayoutBlockChangedLis
         }
         dexLayoutList.sort((layout1, layout2) -> CompareUtil.compare(layout1.getIndex(),
                 layout2.getIndex()));
+        DexLayoutBlock.onLayoutsChanged();
     }
 
     @Override
@@ -17,6 +17,7 @@ package com.reandroid.dex.model;
 
 import com.reandroid.archive.InputSource;
 import com.reandroid.archive.ZipEntryMap;
+import com.reandroid.dex.sections.DexLayoutBlock;
 import com.reandroid.dex.sections.SectionType;
 import com.reandroid.utils.CompareUtil;
 import com.reandroid.utils.collection.ArrayCollection;
@@ -207,6 +208,7 @@ public class DexFileSourceSet implements Iterable<DexSource<DexFile>>, Closeable
         sourceList.remove(source);
         sourceList.add(source);
         sourceList.sort(CompareUtil.getComparableComparator());
+        DexLayoutBlock.onLayoutsChanged();
         return source;
     }
     public DexFile getDexFile(int index){
@@ -245,11 +247,13 @@ public class DexFileSourceSet implements Iterable<DexSource<DexFile>>, Closeable
             DexSource<DexFile> source = DexSource.create(
                     zipEntryMap, "classes.dex", DexFile.createDefault());
             sourceList.add(source);
+            DexLayoutBlock.onLayoutsChanged();
             return source;
         }
         DexSource<DexFile> source = last.createNext();
         sourceList.add(source);
         sourceList.sort(CompareUtil.getComparableComparator());
+        DexLayoutBlock.onLayoutsChanged();
         return source;
     }
 
@@ -263,6 +267,7 @@ public class DexFileSourceSet implements Iterable<DexSource<DexFile>>, Closeable
     public void remove(DexSource<DexFile> dexSource){
         sourceList.remove(dexSource);
         dexSource.set(null);
+        DexLayoutBlock.onLayoutsChanged();
     }
     @Override
     public void close() throws IOException {
@@ -270,6 +275,7 @@ public class DexFileSourceSet implements Iterable<DexSource<DexFile>>, Closeable
             dexSource.close();
         }
         sourceList.clear();
+        DexLayoutBlock.onLayoutsChanged();
     }
 
     private void load(DexSource<DexFile> dexSource) throws IOException {
@@ -26,6 +26,7 @@ import com.reandroid.dex.key.Key;
 import com.reandroid.dex.key.TypeKey;
 import com.reandroid.dex.sections.*;
 import com.reandroid.dex.smali.SmaliReader;
+import com.reandroid.dex.smali.SmaliWriteProgress;
 import com.reandroid.dex.smali.SmaliWriter;
 import com.reandroid.dex.smali.model.SmaliClass;
 import com.reandroid.utils.ObjectsUtil;
@@ -35,6 +36,11 @@ import com.reandroid.utils.io.FileIterator;
 
 import java.io.*;
 import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.function.Predicate;
 
 public class DexLayout implements DexClassModule, Closeable,
@@ -284,11 +290,28 @@ public class DexLayout implements DexClassModule, Closeable,
         return getDexLayoutBlock().merge(options, dexLayout.getDexLayoutBlock());
     }
     public void parseSmaliDirectory(File dir) throws IOException {
+        parseSmaliDirectory(dir, 1);
+    }
+    /**
+     * Parses all *.smali files under the directory. When threads is greater than one, files
+     * are parsed on a worker pool with a reader per file and merged to this layout in the
+     * same order as the sequential mode, thus the resulting dex bytes are identical.
+     * */
+    public void parseSmaliDirectory(File dir, int threads) throws IOException {
         requireNotClosed();
         if (!dir.isDirectory()) {
             throw new FileNotFoundException("No such directory: " + dir);
         }
         FileIterator iterator = new FileIterator(dir, FileIterator.getExtensionFilter(".smali"));
+        if (threads > 1) {
+            parseSmaliFilesConcurrent(iterator, threads);
+        } else {
+            parseSmaliFiles(iterator);
+        }
+        sort();
+        shrink();
+    }
+    private void parseSmaliFiles(Iterator<File> iterator) throws IOException {
         FileByteSource byteSource = new FileByteSource();
         SmaliReader reader = new SmaliReader(byteSource);
         DexLayoutBlock layout = getDexLayoutBlock();
@@ -301,8 +324,49 @@ public class DexLayout implements DexClassModule, Closeable,
             smaliClass.parse(reader);
             layout.fromSmali(smaliClass);
         }
-        sort();
-        shrink();
+    }
+    private void parseSmaliFilesConcurrent(Iterator<File> iterator, int threads) throws IOException {
+        DexLayoutBlock layout = getDexLayoutBlock();
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            int maxPending = threads * 4;
+            LinkedList<Future<SmaliClass>> futures = new LinkedList<>();
+            while (true) {
+                while (futures.size() < maxPending && iterator.hasNext()) {
+                    File file = iterator.next();
+                    futures.add(executor.submit(() -> parseSmaliClass(file)));
+                }
+                Future<SmaliClass> future = futures.poll();
+                if (future == null) {
+                    break;
+                }
+                layout.fromSmali(awaitSmaliClass(future));
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+    private static SmaliClass parseSmaliClass(File file) throws IOException {
+        SmaliClass smaliClass = new SmaliClass();
+        smaliClass.parse(SmaliReader.of(file));
+        return smaliClass;
+    }
+    private static SmaliClass awaitSmaliClass(Future<SmaliClass> future) throws IOException {
+        try {
+            return future.get();
+        } catch (InterruptedException exception) {
+            Thread.currentThread().interrupt();
+            throw new IOException(exception);
+        } catch (ExecutionException exception) {
+            Throwable cause = exception.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            }
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new IOException(cause);
+        }
     }
 
     public void parseSmaliFile(File file) throws IOException {
@@ -335,6 +399,26 @@ public class DexLayout implements DexClassModule, Closeable,
             iterator.next().writeSmali(writer, root);
         }
     }
+    /**
+     * Writes each class to its own smali file under root. When threads is greater than one,
+     * classes are rendered on a worker pool, each worker with its own writer sharing the
+     * setting of the given writer.
+     * */
+    public void writeSmali(SmaliWriter writer, File root, int threads, SmaliWriteProgress progress) throws IOException {
+        SmaliClassWriter classWriter = new SmaliClassWriter(writer, threads, progress);
+        try {
+            writeSmali(classWriter, root);
+            classWriter.finish();
+        } finally {
+            classWriter.close();
+        }
+    }
+    void writeSmali(SmaliClassWriter classWriter, File root) throws IOException {
+        Iterator<DexClass> iterator = getDexClasses();
+        while (iterator.hasNext()) {
+            classWriter.write(iterator.next(), root);
+        }
+    }
 
 
     public byte[] getBytes() {
@@ -0,0 +1,174 @@
+/*
+ *  Copyright (C) 2022 github.com/REAndroid
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.reandroid.dex.model;
+
+import com.reandroid.dex.key.TypeKey;
+import com.reandroid.dex.smali.SmaliWriteProgress;
+import com.reandroid.dex.smali.SmaliWriter;
+import com.reandroid.dex.smali.SmaliWriterSetting;
+import com.reandroid.utils.io.FileUtil;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.LinkedList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Writes classes to smali files, either directly through the given writer or on a pool of
+ * worker threads each rendering with its own {@link SmaliWriter} sharing the setting of the
+ * given writer. File names are resolved and files are created in class order on the calling
+ * thread, thus the output is the same as the sequential mode. At most threads * 4 classes
+ * are pending at a time.
+ * */
+class SmaliClassWriter implements Closeable {
+
+    private final SmaliWriter writer;
+    private final SmaliWriteProgress progress;
+    private final ExecutorService executor;
+    private final ThreadLocal<SmaliWriter> workerWriter;
+    private final LinkedList<PendingClass> pendingList;
+    private final int maxPending;
+    private int count;
+
+    SmaliClassWriter(SmaliWriter writer, int threads, SmaliWriteProgress progress) {
+        this.writer = writer;
+        this.progress = progress;
+        this.pendingList = new LinkedList<>();
+        if (threads > 1) {
+            SmaliWriterSetting setting = writer.getWriterSetting();
+            this.executor = Executors.newFixedThreadPool(threads);
+            this.workerWriter = ThreadLocal.withInitial(() -> {
+                SmaliWriter smaliWriter = new SmaliWriter();
+                smaliWriter.setWriterSetting(setting);
+                return smaliWriter;
+            });
+            this.maxPending = threads * 4;
+        } else {
+            this.executor = null;
+            this.workerWriter = null;
+            this.maxPending = 0;
+        }
+    }
+
+    void write(DexClass dexClass, File dir) throws IOException {
+        TypeKey typeKey = dexClass.getKey();
+        File file = writer.getFileNameFactory().toFile(dir, typeKey);
+        FileUtil.ensureParentDirectory(file);
+        FileWriter fileWriter = new FileWriter(file);
+        if (executor == null) {
+            writer.setWriter(fileWriter);
+            dexClass.append(writer);
+            writer.close();
+            onWritten(typeKey, file, writer.getLineNumber());
+            return;
+        }
+        Future<Integer> future;
+        try {
+            future = executor.submit(() -> appendClass(dexClass, fileWriter));
+        } catch (RuntimeException exception) {
+            fileWriter.close();
+            throw exception;
+        }
+        pendingList.add(new PendingClass(typeKey, file, fileWriter, future));
+        while (pendingList.size() > maxPending) {
+            awaitFirst();
+        }
+    }
+    void finish() throws IOException {
+        while (!pendingList.isEmpty()) {
+            awaitFirst();
+        }
+    }
+    private int appendClass(DexClass dexClass, Writer fileWriter) throws IOException {
+        SmaliWriter smaliWriter = workerWriter.get();
+        try {
+            smaliWriter.setWriter(fileWriter);
+            dexClass.append(smaliWriter);
+            smaliWriter.close();
+            return smaliWriter.getLineNumber();
+        } finally {
+            smaliWriter.setWriter(null);
+            fileWriter.close();
+        }
+    }
+    private void awaitFirst() throws IOException {
+        PendingClass pendingClass = pendingList.poll();
+        int lines;
+        try {
+            lines = pendingClass.future.get();
+        } catch (InterruptedException exception) {
+            Thread.currentThread().interrupt();
+            throw new IOException(exception);
+        } catch (ExecutionException exception) {
+            Throwable cause = exception.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            }
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new IOException(cause);
+        }
+        onWritten(pendingClass.typeKey, pendingClass.file, lines);
+    }
+    private void onWritten(TypeKey typeKey, File file, int lines) {
+        count ++;
+        SmaliWriteProgress progress = this.progress;
+        if (progress != null) {
+            progress.onSmaliWritten(typeKey, file, lines, count);
+        }
+    }
+    public int getCount() {
+        return count;
+    }
+
+    @Override
+    public void close() {
+        ExecutorService executor = this.executor;
+        if (executor == null) {
+            return;
+        }
+        executor.shutdownNow();
+        PendingClass pendingClass;
+        while ((pendingClass = pendingList.poll()) != null) {
+            pendingClass.future.cancel(true);
+            try {
+                pendingClass.writer.close();
+            } catch (IOException ignored) {
+            }
+        }
+    }
+
+    static class PendingClass {
+        final TypeKey typeKey;
+        final File file;
+        final Writer writer;
+        final Future<Integer> future;
+
+        PendingClass(TypeKey typeKey, File file, Writer writer, Future<Integer> future) {
+            this.typeKey = typeKey;
+            this.file = file;
+            this.writer = writer;
+            this.future = future;
+        }
+    }
+}
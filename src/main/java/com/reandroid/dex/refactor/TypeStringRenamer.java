@@ -0,0 +1,193 @@
+/*
+ *  Copyright (C) 2022 github.com/REAndroid
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.reandroid.dex.refactor;
+
+import com.reandroid.dex.key.KeyPair;
+import com.reandroid.dex.key.TypeKey;
+import com.reandroid.utils.collection.ArrayCollection;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Renames type strings for many pairs at once. Every pair is compiled to its descriptor,
+ * signature, array (up to 3 dimensions) and source name forms together with the '$'
+ * terminated prefixes of inner classes, and indexed by hash. A string is then resolved
+ * with one exact lookup plus one prefix lookup per '$' it contains, instead of testing
+ * it against each pair.
+ * <br/>
+ * When a string matches more than one form, the result is the same as testing the pairs
+ * in order and the forms of each pair in the above order; the first match wins.
+ * */
+public class TypeStringRenamer {
+
+    private static final int RULES_PER_PAIR = 11;
+
+    private final List<KeyPair<TypeKey, TypeKey>> pairList;
+    private final Map<String, Rule> exactMap;
+    private final Map<String, Rule> prefixMap;
+    private final List<Rule> irregularPrefixes;
+    private final int[] hitCounts;
+
+    public TypeStringRenamer(Iterable<KeyPair<TypeKey, TypeKey>> iterable, boolean renameInner, boolean renameJava) {
+        this.pairList = new ArrayCollection<>();
+        this.exactMap = new HashMap<>();
+        this.prefixMap = new HashMap<>();
+        this.irregularPrefixes = new ArrayCollection<>();
+        for (KeyPair<TypeKey, TypeKey> pair : iterable) {
+            if (pair.getFirst() == null || pair.getSecond() == null) {
+                continue;
+            }
+            compile(pairList.size(), pair, renameInner, renameJava);
+            pairList.add(pair);
+        }
+        this.hitCounts = new int[pairList.size()];
+    }
+
+    /**
+     * Returns the renamed string or null if none of the pairs matches.
+     * */
+    public String rename(String text) {
+        if (text == null) {
+            return null;
+        }
+        Rule rule = exactMap.get(text);
+        int length = text.length();
+        if (!prefixMap.isEmpty()) {
+            int i = text.indexOf('$');
+            while (i >= 0) {
+                rule = Rule.first(rule, prefixMap.get(text.substring(0, i + 1)));
+                i = text.indexOf('$', i + 1);
+            }
+        }
+        for (Rule prefix : irregularPrefixes) {
+            if (text.startsWith(prefix.search)) {
+                rule = Rule.first(rule, prefix);
+            }
+        }
+        if (rule == null) {
+            return null;
+        }
+        hitCounts[rule.pairIndex] ++;
+        if (rule.prefix) {
+            return rule.replace.concat(text.substring(rule.search.length(), length));
+        }
+        return rule.replace;
+    }
+    public int size() {
+        return pairList.size();
+    }
+    public KeyPair<TypeKey, TypeKey> getPair(int index) {
+        return pairList.get(index);
+    }
+    /**
+     * Returns the number of strings renamed by the pair at index, pairs without valid
+     * search and replace are not counted on index.
+     * */
+    public int getHitCount(int index) {
+        return hitCounts[index];
+    }
+    public int getTotalHitCount() {
+        int result = 0;
+        for (int count : hitCounts) {
+            result += count;
+        }
+        return result;
+    }
+    public void resetHitCounts() {
+        int[] hitCounts = this.hitCounts;
+        for (int i = 0; i < hitCounts.length; i++) {
+            hitCounts[i] = 0;
+        }
+    }
+
+    private void compile(int pairIndex, KeyPair<TypeKey, TypeKey> pair, boolean renameInner, boolean renameJava) {
+        TypeKey search = pair.getFirst();
+        TypeKey replace = pair.getSecond();
+        int order = pairIndex * RULES_PER_PAIR;
+        addExact(order, pairIndex, search.getTypeName(), replace.getTypeName());
+        if (renameInner) {
+            addPrefix(order + 1, pairIndex, search.getTypeName(), replace.getTypeName());
+        }
+        addExact(order + 2, pairIndex, search.getSignatureTypeName(), replace.getSignatureTypeName());
+        for (int dimension = 1; dimension <= 3; dimension++) {
+            int i = order + 1 + dimension * 2;
+            String type = search.getArrayType(dimension);
+            String type2 = replace.getArrayType(dimension);
+            addExact(i, pairIndex, type, type2);
+            if (renameInner) {
+                addPrefix(i + 1, pairIndex, type, type2);
+            }
+        }
+        if (renameJava) {
+            String type = search.getSourceName();
+            String type2 = replace.getSourceName();
+            addExact(order + 9, pairIndex, type, type2);
+            if (renameInner) {
+                add(order + 10, pairIndex, type + "$", type2 + "$", true);
+            }
+        }
+    }
+    private void addExact(int order, int pairIndex, String search, String replace) {
+        add(order, pairIndex, search, replace, false);
+    }
+    private void addPrefix(int order, int pairIndex, String type, String type2) {
+        add(order, pairIndex, type.replace(';', '$'), type2.replace(';', '$'), true);
+    }
+    private void add(int order, int pairIndex, String search, String replace, boolean prefix) {
+        Rule rule = new Rule(order, pairIndex, search, replace, prefix);
+        if (!prefix) {
+            putFirst(exactMap, rule);
+        } else if (search.length() != 0 && search.charAt(search.length() - 1) == '$') {
+            putFirst(prefixMap, rule);
+        } else {
+            irregularPrefixes.add(rule);
+        }
+    }
+    private static void putFirst(Map<String, Rule> map, Rule rule) {
+        Rule exist = map.get(rule.search);
+        if (exist == null) {
+            map.put(rule.search, rule);
+        }
+    }
+
+    static class Rule {
+        final int order;
+        final int pairIndex;
+        final String search;
+        final String replace;
+        final boolean prefix;
+
+        Rule(int order, int pairIndex, String search, String replace, boolean prefix) {
+            this.order = order;
+            this.pairIndex = pairIndex;
+            this.search = search;
+            this.replace = replace;
+            this.prefix = prefix;
+        }
+
+        static Rule first(Rule rule1, Rule rule2) {
+            if (rule1 == null) {
+                return rule2;
+            }
+            if (rule2 == null || rule1.order <= rule2.order) {
+                return rule1;
+            }
+            return rule2;
+        }
+    }
+}
@@ -181,18 +181,21 @@ public class DexContainerBlock extends BlockList<DexLayoutBlock> implements
     }
 
     private void notifyAdded(DexLayoutBlock layoutBlock) {
+        DexLayoutBlock.onLayoutsChanged();
         LayoutBlockChangedListener listener = this.layoutBlockChangedListener;
         if (listener != null) {
             listener.onLayoutAdded(layoutBlock);
         }
     }
     private void notifyRemoved(DexLayoutBlock layoutBlock) {
+        DexLayoutBlock.onLayoutsChanged();
         LayoutBlockChangedListener listener = this.layoutBlockChangedListener;
         if (listener != null) {
             listener.onLayoutRemoved(layoutBlock);
         }
     }
     private void notifyLayoutsCleared() {
+        DexLayoutBlock.onLayoutsChanged();
         LayoutBlockChangedListener listener = this.layoutBlockChangedListener;
         if (listener != null) {
             listener.onLayoutsCleared();
@@ -35,6 +35,7 @@ import java.io.File;
 import java.io.IOException;
 import java.io.OutputStream;
 import java.util.Iterator;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Predicate;
 
 public class DexLayoutBlock extends FixedBlockContainer implements FullRefresh {
@@ -45,6 +46,9 @@ public class DexLayoutBlock extends FixedBlockContainer implements FullRefresh {
     private final MultiMap<TypeKey, ClassId> interfaceMap;
 
     private Object mTag;
+    private int classesModCount;
+
+    private static final AtomicInteger GLOBAL_MOD_COUNT = new AtomicInteger();
 
     public DexLayoutBlock() {
         super(1);
@@ -53,6 +57,7 @@ public class DexLayoutBlock extends FixedBlockContainer implements FullRefresh {
 
         this.extendingClassMap = new MultiMap<>();
         this.interfaceMap = new MultiMap<>();
+        onLayoutsChanged();
     }
 
     public int getVersion() {
@@ -88,7 +93,33 @@ public class DexLayoutBlock extends FixedBlockContainer implements FullRefresh {
         return this.interfaceMap.getAll(interfaceClass);
     }
 
+    /**
+     * Returns a counter incremented whenever classes are added or removed, any class
+     * changes its type, super class or interfaces, or a type name is renamed. Used to
+     * invalidate indexes built over class hierarchy, e.g.
+     * {@link com.reandroid.dex.model.DexClassHierarchy}
+     * */
+    public int getClassesModCount() {
+        return classesModCount;
+    }
+    public void onClassesChanged() {
+        classesModCount ++;
+        onLayoutsChanged();
+    }
+    /**
+     * Returns a counter incremented on classes change of any layout, and whenever layouts
+     * are added, removed or reordered. Indexes spanning many layouts compare this first and
+     * check {@link #getClassesModCount()} of each layout only after it moved.
+     * */
+    public static int getGlobalModCount() {
+        return GLOBAL_MOD_COUNT.get();
+    }
+    public static void onLayoutsChanged() {
+        GLOBAL_MOD_COUNT.incrementAndGet();
+    }
+
     public void clear() {
+        onClassesChanged();
         extendingClassMap.clear();
         interfaceMap.clear();
         getSectionList().clear();
@@ -150,6 +181,7 @@ public class DexLayoutBlock extends FixedBlockContainer implements FullRefresh {
     @Override
     protected void onPreRefresh() {
         super.onPreRefresh();
+        onClassesChanged();
         interfaceMap.clear();
         extendingClassMap.clear();
         this.updateHeaderOffset();
@@ -159,31 +191,12 @@ public class DexLayoutBlock extends FixedBlockContainer implements FullRefresh {
         this.updateChecksumAndSignature();
     }
 
-    // Updating checksum/signature is expensive operation, but
-    // checksum (alder32) is a lot faster than signature (sha1), thus our logic is:
-    //   * Update checksum, if the value changes then repeat with refresh
-    //   * If checksum is not changed at first attempt, then no need of other action
-    //   * If checksum is changed after the first attempt, then update sig & cs
-    //   * Normally it requires not more than 3 trials to update but throws unreachable after
-    //     trying 10 times
+    // Updating checksum/signature is expensive operation, thus the layout is serialized
+    // once and both are computed over the same bytes:
+    //   * Update checksum, if the value is not changed then no need of other action
+    //   * Otherwise update signature, then checksum again as it covers the signature
     private void updateChecksumAndSignature() {
-        DexHeader dexHeader = getHeader();
-        SectionList sectionList = getSectionList();
-        int maximumTrials = 10;
-        int i = 0;
-        while (i < maximumTrials) {
-            if (dexHeader.updateChecksum()) {
-                sectionList.refresh();
-            } else {
-                if (i != 0) {
-                    dexHeader.updateSignature();
-                    dexHeader.updateChecksum();
-                }
-                return;
-            }
-            i ++;
-        }
-        throw new RuntimeException("Failed to update checksums, trial = " + i);
+        getHeader().updateChecksumAndSignature(getBytes());
     }
     private void updateHeaderOffset() {
         DexLayoutBlock previousLayoutBlock = getPreviousLayoutBlock();
@@ -213,6 +226,7 @@ public class DexLayoutBlock extends FixedBlockContainer implements FullRefresh {
         getSectionList().clearPoolMap(sectionType);
     }
     public void clearPoolMap() {
+        onClassesChanged();
         extendingClassMap.clear();
         interfaceMap.clear();
         getSectionList().clearPoolMap();
@@ -77,6 +77,22 @@ public class SectionArray<T extends SectionItem> extends BlockListArray<T> imple
     public void onPreRemove(T item) {
         notifyBeforeRemoved(item);
         super.onPreRemove(item);
+        notifyClassesChanged();
+    }
+    @Override
+    public void onChanged() {
+        super.onChanged();
+        notifyClassesChanged();
+    }
+    private void notifyClassesChanged() {
+        Section<T> section = getParentSection();
+        if (section == null || section.getSectionType() != SectionType.CLASS_ID) {
+            return;
+        }
+        DexLayoutBlock layoutBlock = section.getParentInstance(DexLayoutBlock.class);
+        if (layoutBlock != null) {
+            layoutBlock.onClassesChanged();
+        }
     }
     private void notifyBeforeRemoved(T item){
         Section<T> section = getParentSection();
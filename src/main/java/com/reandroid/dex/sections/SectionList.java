@@ -459,6 +459,13 @@ public class SectionList extends FixedBlockContainer
             return;
         }
         section.keyChanged(item, oldKey);
+        if (sectionType == SectionType.STRING_ID || sectionType == SectionType.TYPE_ID) {
+            // renamed types move classes on hierarchy index
+            DexLayoutBlock layoutBlock = getLayoutBlock();
+            if (layoutBlock != null) {
+                layoutBlock.onClassesChanged();
+            }
+        }
         if (sectionType == SectionType.TYPE_ID) {
             ClassId classId = getLoaded(SectionType.CLASS_ID, oldKey);
             if (classId != null) {
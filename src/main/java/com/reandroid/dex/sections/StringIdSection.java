@@ -48,7 +48,7 @@ public class StringIdSection extends IdSection<StringId> {
             if(text.length() > 0){
                 char ch = text.charAt(0);
                 if(ch == 'L' || ch == '['){
-                    updateTypeId(new TypeKey(text));
+                    updateTypeId(TypeKey.create(text));
                 }
             }
         }
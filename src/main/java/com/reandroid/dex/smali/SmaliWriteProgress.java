@@ -0,0 +1,28 @@
+/*
+ *  Copyright (C) 2022 github.com/REAndroid
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.reandroid.dex.smali;
+
+import com.reandroid.dex.key.TypeKey;
+
+import java.io.File;
+
+/**
+ * Receives a call after each class is written to its smali file. Calls are made in class
+ * order from the thread that started writing, even when classes are rendered concurrently.
+ * */
+public interface SmaliWriteProgress {
+    void onSmaliWritten(TypeKey typeKey, File file, int lines, int count);
+}
@@ -22,10 +22,7 @@ import com.reandroid.arsc.model.ResourceName;
 import com.reandroid.arsc.refactor.ResourceBuilder;
 import com.reandroid.arsc.refactor.ResourceMergeOption;
 import com.reandroid.dex.model.DexClassRepository;
-import com.reandroid.graph.cleaners.UnusedAnnotationCleaner;
-import com.reandroid.graph.cleaners.UnusedClassesCleaner;
-import com.reandroid.graph.cleaners.UnusedFieldsCleaner;
-import com.reandroid.graph.cleaners.UnusedMethodsCleaner;
+import com.reandroid.graph.cleaners.UnreachableCleaner;
 import com.reandroid.utils.collection.CollectionUtil;
 
 import java.util.List;
@@ -34,7 +31,6 @@ import java.util.Set;
 public class ApkBuilder extends BaseApkModuleProcessor {
 
     private ApkBuildOption buildOption;
-    private VitalClassesSet vitalClassesSet;
 
     public ApkBuilder(ApkModule sourceModule, DexClassRepository classRepository) {
         super(sourceModule, classRepository);
@@ -75,45 +71,11 @@ public class ApkBuilder extends BaseApkModuleProcessor {
         verbose("Removed files: " + filesCount);
     }
     private void cleanDex() {
-        int countTotal = 0;
-        int count = 1;
-        int cycle = 0;
-        while (cycle < MAX_CYCLE && count > 0) {
-            cycle ++;
-            verbose("Stage " + cycle);
-            count = cyclicCleanDex();
-            countTotal += count;
-        }
-        verbose("Cleaned dex: " + countTotal);
-    }
-    private int cyclicCleanDex() {
-        int count = 0;
-        UnusedFieldsCleaner fieldsCleaner = new UnusedFieldsCleaner(getBuildOption(),
-                getApkModule(), getClassRepository());
-        fieldsCleaner.setReporter(getReporter());
-        fieldsCleaner.apply();
-        count += fieldsCleaner.getCount();
-
-        UnusedMethodsCleaner methodsCleaner = new UnusedMethodsCleaner(getBuildOption(),
-                getApkModule(), getClassRepository());
-        methodsCleaner.setReporter(getReporter());
-        methodsCleaner.apply();
-        count += methodsCleaner.getCount();
-
-        UnusedAnnotationCleaner unusedAnnotationCleaner = new UnusedAnnotationCleaner(getBuildOption(),
-                getApkModule(), getClassRepository());
-        unusedAnnotationCleaner.setReporter(getReporter());
-        unusedAnnotationCleaner.apply();
-        count += unusedAnnotationCleaner.getCount();
-
-        UnusedClassesCleaner classesCleaner = new UnusedClassesCleaner(getBuildOption(),
+        UnreachableCleaner cleaner = new UnreachableCleaner(getBuildOption(),
                 getApkModule(), getClassRepository());
-        classesCleaner.setReporter(getReporter());
-        classesCleaner.setVitalClassesSet(this.vitalClassesSet);
-        classesCleaner.apply();
-        this.vitalClassesSet = classesCleaner.getVitalClassesSet();
-        count += classesCleaner.getCount();
-        return count;
+        cleaner.setReporter(getReporter());
+        cleaner.apply();
+        verbose("Cleaned dex: " + cleaner.getCount());
     }
     private void resolveInlineIntegerFieldCalls() {
         if(getBuildOption().isMinifyResources()) {
@@ -180,5 +142,4 @@ public class ApkBuilder extends BaseApkModuleProcessor {
     public void setBuildOption(ApkBuildOption buildOption) {
         this.buildOption = buildOption;
     }
-    private static final int MAX_CYCLE = 25;
 }
@@ -0,0 +1,377 @@
+/*
+ *  Copyright (C) 2022 github.com/REAndroid
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.reandroid.graph;
+
+import com.reandroid.apk.ApkModule;
+import com.reandroid.dex.data.AnnotationsDirectory;
+import com.reandroid.dex.data.EncodedArray;
+import com.reandroid.dex.id.ClassId;
+import com.reandroid.dex.id.IdItem;
+import com.reandroid.dex.key.FieldKey;
+import com.reandroid.dex.key.Key;
+import com.reandroid.dex.key.MethodKey;
+import com.reandroid.dex.key.StringKey;
+import com.reandroid.dex.key.TypeKey;
+import com.reandroid.dex.model.Dex;
+import com.reandroid.dex.model.DexClass;
+import com.reandroid.dex.model.DexClassRepository;
+import com.reandroid.dex.model.DexField;
+import com.reandroid.dex.model.DexMethod;
+import com.reandroid.utils.collection.ArrayCollection;
+
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Predicate;
+
+/**
+ * Single pass reachability analysis over dex classes and members. Starting from
+ * {@link VitalClassesSet} roots and user keep rules, a work queue follows type, field and
+ * method references of live code; references to overridable methods are resolved to all
+ * equivalent (virtual dispatch) targets. Members which are candidates for removal stay
+ * pending until some live code references them.
+ * <br/>
+ * Annotation usage is tracked separately from roots: an annotation type is referenced only
+ * when code or a declaration of another class mentions it, annotating classes or members
+ * alone does not count. See {@link #isReferenced(TypeKey)}.
+ * */
+public class ReachabilityScanner extends BaseApkModuleProcessor {
+
+    private final ApkBuildOption buildOption;
+    private VitalClassesSet vitalClassesSet;
+
+    private final Set<TypeKey> reachableClasses;
+    private final Set<TypeKey> referencedTypes;
+    private final Set<MethodKey> usedMethods;
+    private final Set<FieldKey> usedFields;
+    private final Set<String> usedStrings;
+
+    private final Map<MethodKey, DexMethod> pendingMethods;
+    private final Map<FieldKey, DexField> pendingFields;
+    private final Map<String, List<DexField>> pendingFieldNames;
+
+    private final ArrayDeque<Dex> workQueue;
+    private TypeKey currentType;
+
+    private boolean scanned;
+
+    public ReachabilityScanner(ApkBuildOption buildOption, ApkModule apkModule,
+                               DexClassRepository classRepository) {
+        super(apkModule, classRepository);
+        this.buildOption = buildOption;
+        this.reachableClasses = new HashSet<>();
+        this.referencedTypes = new HashSet<>();
+        this.usedMethods = new HashSet<>();
+        this.usedFields = new HashSet<>();
+        this.usedStrings = new HashSet<>();
+        this.pendingMethods = new HashMap<>();
+        this.pendingFields = new HashMap<>();
+        this.pendingFieldNames = new HashMap<>();
+        this.workQueue = new ArrayDeque<>();
+    }
+
+    @Override
+    public void apply() {
+        if(scanned) {
+            return;
+        }
+        scanned = true;
+        debug("Scanning reachable ...");
+        addRoots();
+        processQueue();
+        verbose("Reachable classes: " + reachableClasses.size()
+                + ", unreachable methods: " + pendingMethods.size()
+                + ", unreachable fields: " + pendingFields.size());
+    }
+
+    public boolean isReachable(TypeKey typeKey) {
+        return reachableClasses.contains(typeKey);
+    }
+    /**
+     * Returns true if live code or declaration of other class mentions the type, e.g.
+     * instruction, signature, super type or static value. Unlike
+     * {@link #isReachable(TypeKey)} roots and annotation usages are not counted, thus
+     * it decides whether annotations of the type are used.
+     * */
+    public boolean isReferenced(TypeKey typeKey) {
+        return referencedTypes.contains(typeKey);
+    }
+    public boolean isReachable(DexMethod dexMethod) {
+        return isReachable(dexMethod.getDexClass().getKey())
+                && !pendingMethods.containsKey(dexMethod.getKey());
+    }
+    public boolean isReachable(DexField dexField) {
+        return isReachable(dexField.getDexClass().getKey())
+                && !pendingFields.containsKey(dexField.getKey());
+    }
+    public Iterator<DexMethod> getUnreachableMethods() {
+        return pendingMethods.values().iterator();
+    }
+    public Iterator<DexField> getUnreachableFields() {
+        return pendingFields.values().iterator();
+    }
+
+    public VitalClassesSet getVitalClassesSet() {
+        VitalClassesSet vitalClassesSet = this.vitalClassesSet;
+        if(vitalClassesSet == null) {
+            vitalClassesSet = new VitalClassesSet(getBuildOption(),
+                    getApkModule(), getClassRepository());
+            this.vitalClassesSet = vitalClassesSet;
+        }
+        return vitalClassesSet;
+    }
+    public void setVitalClassesSet(VitalClassesSet vitalClassesSet) {
+        this.vitalClassesSet = vitalClassesSet;
+    }
+
+    private void addRoots() {
+        DexClassRepository repository = getClassRepository();
+        if(!getBuildOption().isMinifyClasses()) {
+            Iterator<DexClass> iterator = repository.getDexClasses();
+            while (iterator.hasNext()) {
+                reachType(iterator.next().getKey());
+            }
+            return;
+        }
+        VitalClassesSet vitalClassesSet = getVitalClassesSet();
+        vitalClassesSet.setReporter(getReporter());
+        vitalClassesSet.apply();
+        Iterator<TypeKey> iterator = vitalClassesSet.getMainClasses();
+        while (iterator.hasNext()) {
+            reachType(iterator.next());
+        }
+        Predicate<? super TypeKey> keepClasses = getBuildOption().getKeepClasses();
+        if(keepClasses != null) {
+            Iterator<DexClass> kept = repository.getDexClasses(keepClasses);
+            while (kept.hasNext()) {
+                reachType(kept.next().getKey());
+            }
+        }
+        if(getBuildOption().isProcessClassNamesOnStrings()) {
+            vitalClassesSet.updateSourceStrings();
+            Iterator<DexClass> strings = repository.getDexClasses(vitalClassesSet::containsSourceString);
+            while (strings.hasNext()) {
+                reachType(strings.next().getKey());
+            }
+        }
+    }
+    private void processQueue() {
+        ArrayDeque<Dex> workQueue = this.workQueue;
+        while (!workQueue.isEmpty()) {
+            Dex dex = workQueue.poll();
+            if(dex instanceof DexClass) {
+                DexClass dexClass = (DexClass) dex;
+                currentType = dexClass.getKey();
+                processClass(dexClass);
+            } else if(dex instanceof DexMethod) {
+                DexMethod dexMethod = (DexMethod) dex;
+                currentType = dexMethod.getDexClass().getKey();
+                processIds(dexMethod.getDefinition().usedIds(), false);
+            } else if(dex instanceof DexField) {
+                DexField dexField = (DexField) dex;
+                currentType = dexField.getDexClass().getKey();
+                processIds(dexField.getDefinition().usedIds(), false);
+            }
+        }
+        currentType = null;
+    }
+    private void processClass(DexClass dexClass) {
+        referenceType(dexClass.getSuperClassKey());
+        processKey(dexClass.getInterfacesKey(), false);
+        ClassId classId = dexClass.getId();
+        EncodedArray encodedArray = classId.getStaticValuesEncodedArray();
+        if(encodedArray != null) {
+            processIds(encodedArray.usedIds(), false);
+        }
+        AnnotationsDirectory directory = classId.getAnnotationsDirectory();
+        if(directory != null) {
+            processIds(directory.usedIds(), getBuildOption().isCleanAnnotations());
+        }
+        boolean cleanable = isCleanableClass(dexClass);
+        Iterator<DexField> fields = dexClass.getDeclaredFields();
+        while (fields.hasNext()) {
+            addField(fields.next(), cleanable);
+        }
+        Iterator<DexMethod> methods = dexClass.getDeclaredMethods();
+        while (methods.hasNext()) {
+            addMethod(methods.next(), cleanable);
+        }
+    }
+    private void addField(DexField dexField, boolean cleanable) {
+        FieldKey key = dexField.getKey();
+        if(!cleanable || !isCandidateField(dexField) || usedFields.contains(key)
+                || usedStrings.contains(key.getName())) {
+            workQueue.add(dexField);
+            return;
+        }
+        pendingFields.put(key, dexField);
+        pendingFieldNames.computeIfAbsent(key.getName(),
+                name -> new ArrayCollection<>()).add(dexField);
+    }
+    private void addMethod(DexMethod dexMethod, boolean cleanable) {
+        MethodKey key = dexMethod.getKey();
+        if(!cleanable || !isCandidateMethod(dexMethod) || usedMethods.contains(key)) {
+            workQueue.add(dexMethod);
+            return;
+        }
+        pendingMethods.put(key, dexMethod);
+    }
+
+    private void processIds(Iterator<IdItem> iterator, boolean annotations) {
+        while (iterator.hasNext()) {
+            IdItem idItem = iterator.next();
+            processKey(idItem.getKey(), annotations);
+            Iterator<IdItem> nested = idItem.usedIds();
+            while (nested.hasNext()) {
+                IdItem item = nested.next();
+                if(item != idItem) {
+                    processKey(item.getKey(), annotations);
+                }
+            }
+        }
+    }
+    private void processKey(Key key, boolean annotations) {
+        if(key == null) {
+            return;
+        }
+        if(key instanceof StringKey) {
+            markString(((StringKey) key).getString());
+            return;
+        }
+        Iterator<? extends Key> iterator = key.mentionedKeys();
+        while (iterator.hasNext()) {
+            Key mentioned = iterator.next();
+            if(mentioned instanceof MethodKey) {
+                markMethod((MethodKey) mentioned);
+            } else if(mentioned instanceof FieldKey) {
+                markField((FieldKey) mentioned);
+            } else if(mentioned instanceof TypeKey) {
+                TypeKey typeKey = ((TypeKey) mentioned).getDeclaring();
+                if(!annotations) {
+                    referenceType(typeKey);
+                } else if(!isAnnotationClass(typeKey)) {
+                    reachType(typeKey);
+                }
+            }
+        }
+    }
+    private void referenceType(TypeKey typeKey) {
+        if(typeKey == null) {
+            return;
+        }
+        typeKey = typeKey.getDeclaring();
+        if(!typeKey.equals(currentType)) {
+            referencedTypes.add(typeKey);
+        }
+        reachType(typeKey);
+    }
+    private void reachType(TypeKey typeKey) {
+        if(typeKey == null) {
+            return;
+        }
+        typeKey = typeKey.getDeclaring();
+        if(!reachableClasses.add(typeKey)) {
+            return;
+        }
+        DexClass dexClass = getClassRepository().getDexClass(typeKey);
+        if(dexClass != null) {
+            workQueue.add(dexClass);
+        }
+    }
+    private void markMethod(MethodKey methodKey) {
+        if(!usedMethods.add(methodKey)) {
+            return;
+        }
+        wakeMethod(methodKey);
+        Iterator<MethodKey> iterator = getClassRepository().findEquivalentMethods(methodKey);
+        while (iterator.hasNext()) {
+            MethodKey key = iterator.next();
+            if(usedMethods.add(key)) {
+                wakeMethod(key);
+            }
+        }
+    }
+    private void wakeMethod(MethodKey methodKey) {
+        DexMethod dexMethod = pendingMethods.remove(methodKey);
+        if(dexMethod != null) {
+            workQueue.add(dexMethod);
+        }
+    }
+    private void markField(FieldKey fieldKey) {
+        if(!usedFields.add(fieldKey)) {
+            return;
+        }
+        wakeField(fieldKey);
+        Iterator<FieldKey> iterator = getClassRepository().findEquivalentFields(fieldKey);
+        while (iterator.hasNext()) {
+            FieldKey key = iterator.next();
+            if(usedFields.add(key)) {
+                wakeField(key);
+            }
+        }
+    }
+    private void markString(String text) {
+        if(text == null || !usedStrings.add(text)) {
+            return;
+        }
+        List<DexField> fields = pendingFieldNames.remove(text);
+        if(fields != null) {
+            for(DexField dexField : fields) {
+                wakeField(dexField.getKey());
+            }
+        }
+    }
+    private void wakeField(FieldKey fieldKey) {
+        DexField dexField = pendingFields.remove(fieldKey);
+        if(dexField != null) {
+            workQueue.add(dexField);
+        }
+    }
+
+    private boolean isAnnotationClass(TypeKey typeKey) {
+        DexClass dexClass = getClassRepository().getDexClass(typeKey);
+        return dexClass != null && dexClass.isAnnotation();
+    }
+    private boolean isCleanableClass(DexClass dexClass) {
+        if(dexClass.usesNative() || dexClass.isEnum()) {
+            return false;
+        }
+        Predicate<? super TypeKey> filter = getBuildOption().getKeepClasses();
+        return filter == null || !filter.test(dexClass.getKey());
+    }
+    private boolean isCandidateField(DexField dexField) {
+        return getBuildOption().isMinifyFields() && dexField.isPrivate();
+    }
+    private boolean isCandidateMethod(DexMethod dexMethod) {
+        if(!getBuildOption().isMinifyMethods() || dexMethod.isConstructor()) {
+            return false;
+        }
+        if(dexMethod.isPrivate()) {
+            return true;
+        }
+        if(!dexMethod.isInternal() && !dexMethod.isStatic()) {
+            return false;
+        }
+        return !dexMethod.getSuperMethods().hasNext() && !dexMethod.getExtending().hasNext();
+    }
+    private ApkBuildOption getBuildOption() {
+        return buildOption;
+    }
+}
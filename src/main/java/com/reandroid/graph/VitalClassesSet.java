@@ -82,7 +82,7 @@ public class VitalClassesSet extends BaseApkModuleProcessor implements Predicate
         SectionType<StringId> sectionType = SectionType.STRING_ID;
         while (iterator.hasNext()) {
             TypeKey typeKey = iterator.next();
-            StringKey stringKey = new StringKey(typeKey.getSourceName());
+            StringKey stringKey = StringKey.create(typeKey.getSourceName());
             if(!repository.contains(sectionType, stringKey)) {
                 sourceStringClasses.remove(typeKey);
             }
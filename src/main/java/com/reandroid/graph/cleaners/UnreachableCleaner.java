@@ -0,0 +1,129 @@
+/*
+ *  Copyright (C) 2022 github.com/REAndroid
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.reandroid.graph.cleaners;
+
+import com.reandroid.apk.ApkModule;
+import com.reandroid.dex.key.TypeKey;
+import com.reandroid.dex.model.DexClass;
+import com.reandroid.dex.model.DexClassRepository;
+import com.reandroid.dex.model.DexDeclaration;
+import com.reandroid.graph.ApkBuildOption;
+import com.reandroid.graph.ReachabilityScanner;
+import com.reandroid.utils.collection.ArrayCollection;
+
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * Removes, in one sweep, every class, method, field and annotation left unmarked by
+ * {@link ReachabilityScanner}.
+ * */
+public class UnreachableCleaner extends UnusedCleaner<DexClass> {
+
+    private ReachabilityScanner reachabilityScanner;
+
+    public UnreachableCleaner(ApkBuildOption buildOption, ApkModule apkModule,
+                              DexClassRepository classRepository) {
+        super(buildOption, apkModule, classRepository);
+    }
+
+    @Override
+    public void apply() {
+        if(!isEnabled()) {
+            debug("Skip");
+            return;
+        }
+        ReachabilityScanner scanner = getReachabilityScanner();
+        scanner.setReporter(getReporter());
+        scanner.apply();
+        cleanMembers(scanner.getUnreachableFields());
+        cleanMembers(scanner.getUnreachableMethods());
+        cleanAnnotations(scanner);
+        cleanClasses(scanner);
+        verbose("Cleaned: " + getCount());
+    }
+
+    public ReachabilityScanner getReachabilityScanner() {
+        ReachabilityScanner scanner = this.reachabilityScanner;
+        if(scanner == null) {
+            scanner = new ReachabilityScanner(getBuildOption(), getApkModule(), getClassRepository());
+            this.reachabilityScanner = scanner;
+        }
+        return scanner;
+    }
+
+    private void cleanMembers(Iterator<? extends DexDeclaration> iterator) {
+        List<DexDeclaration> unreachable = new ArrayCollection<>();
+        while (iterator.hasNext()) {
+            unreachable.add(iterator.next());
+        }
+        boolean debugEnabled = isDebugEnabled();
+        for(DexDeclaration declaration : unreachable) {
+            if(debugEnabled) {
+                debug(declaration.getKey().toString());
+            }
+            declaration.removeSelf();
+            addCount();
+        }
+    }
+    private void cleanAnnotations(ReachabilityScanner scanner) {
+        if(!getBuildOption().isCleanAnnotations()) {
+            return;
+        }
+        DexClassRepository repository = getClassRepository();
+        List<TypeKey> unusedAnnotations = new ArrayCollection<>();
+        Iterator<DexClass> iterator = repository.getDexClasses();
+        while (iterator.hasNext()) {
+            DexClass dexClass = iterator.next();
+            if(dexClass.isAnnotation() && !scanner.isReferenced(dexClass.getKey())) {
+                unusedAnnotations.add(dexClass.getKey());
+            }
+        }
+        for(TypeKey typeKey : unusedAnnotations) {
+            debug(typeKey.getTypeName());
+            if(repository.removeAnnotations(typeKey)) {
+                addCount();
+            }
+        }
+    }
+    private void cleanClasses(ReachabilityScanner scanner) {
+        if(!getBuildOption().isMinifyClasses()) {
+            return;
+        }
+        DexClassRepository repository = getClassRepository();
+        if(isDebugEnabled()) {
+            Iterator<DexClass> iterator = repository.getDexClasses(
+                    typeKey -> !scanner.isReachable(typeKey));
+            while (iterator.hasNext()) {
+                debug(iterator.next().getKey().toString());
+            }
+        }
+        int previousCount = repository.getDexClassesCount();
+        repository.removeClassesWithKeys(typeKey -> !scanner.isReachable(typeKey));
+        int removed = previousCount - repository.getDexClassesCount();
+        if(removed != 0) {
+            setCount(getCount() + removed);
+            repository.shrink();
+        }
+    }
+
+    @Override
+    protected boolean isEnabled() {
+        ApkBuildOption buildOption = getBuildOption();
+        return buildOption.isMinifyClasses() || buildOption.isMinifyFields()
+                || buildOption.isMinifyMethods() || buildOption.isCleanAnnotations();
+    }
+}
@@ -20,11 +20,11 @@ import java.io.OutputStream;
 
 public class Alder32OutputStream extends OutputStream {
 
-    private final ALDER32 alder32;
+    private final Checksum alder32;
 
     public Alder32OutputStream() {
         super();
-        this.alder32 = new ALDER32();
+        this.alder32 = ChecksumProvider.getDefault().newAdler32();
     }
 
     public long getValue() {
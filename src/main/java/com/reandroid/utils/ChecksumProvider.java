@@ -0,0 +1,181 @@
+/*
+ *  Copyright (C) 2022 github.com/REAndroid
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.reandroid.utils;
+
+import java.security.DigestException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.zip.Adler32;
+import java.util.zip.CRC32;
+
+/**
+ * Creates checksum and digest instances used by checksum streams, dex header and archive
+ * writers. {@link #INTRINSIC} is backed by {@link CRC32}, {@link Adler32} and
+ * {@link MessageDigest} which most JVMs accelerate with CPU intrinsics, {@link #PURE_JAVA}
+ * uses the implementations of this package. The default is intrinsic when available.
+ * */
+public abstract class ChecksumProvider {
+
+    public static final ChecksumProvider PURE_JAVA;
+    public static final ChecksumProvider INTRINSIC;
+
+    private static volatile ChecksumProvider sDefault;
+
+    static {
+        PURE_JAVA = new PureJavaProvider();
+        IntrinsicProvider intrinsic = new IntrinsicProvider();
+        INTRINSIC = intrinsic;
+        if (intrinsic.isAvailable()) {
+            sDefault = intrinsic;
+        } else {
+            sDefault = PURE_JAVA;
+        }
+    }
+
+    public ChecksumProvider() {
+    }
+
+    public abstract Checksum newCrc32();
+    public abstract Checksum newAdler32();
+    public abstract ByteDigest newSha1();
+    public abstract String getName();
+
+    @Override
+    public String toString() {
+        return getName();
+    }
+
+    public static ChecksumProvider getDefault() {
+        return sDefault;
+    }
+    public static void setDefault(ChecksumProvider provider) {
+        if (provider == null) {
+            provider = PURE_JAVA;
+        }
+        sDefault = provider;
+    }
+
+    static class PureJavaProvider extends ChecksumProvider {
+
+        @Override
+        public Checksum newCrc32() {
+            return new Crc32();
+        }
+        @Override
+        public Checksum newAdler32() {
+            return new ALDER32();
+        }
+        @Override
+        public ByteDigest newSha1() {
+            return new SHA1();
+        }
+        @Override
+        public String getName() {
+            return "pure-java";
+        }
+    }
+    static class IntrinsicProvider extends ChecksumProvider {
+
+        boolean isAvailable() {
+            try {
+                MessageDigest.getInstance("SHA-1");
+                return true;
+            } catch (Throwable ignored) {
+                return false;
+            }
+        }
+        @Override
+        public Checksum newCrc32() {
+            return new ZipChecksum(new CRC32());
+        }
+        @Override
+        public Checksum newAdler32() {
+            return new ZipChecksum(new Adler32());
+        }
+        @Override
+        public ByteDigest newSha1() {
+            try {
+                return new MessageByteDigest(MessageDigest.getInstance("SHA-1"));
+            } catch (NoSuchAlgorithmException exception) {
+                return new SHA1();
+            }
+        }
+        @Override
+        public String getName() {
+            return "intrinsic";
+        }
+    }
+    static class ZipChecksum extends Checksum {
+
+        private final java.util.zip.Checksum checksum;
+
+        ZipChecksum(java.util.zip.Checksum checksum) {
+            super();
+            this.checksum = checksum;
+        }
+
+        @Override
+        public void update(byte data) {
+            checksum.update(data);
+        }
+        @Override
+        public long getValue() {
+            return checksum.getValue();
+        }
+        @Override
+        public void reset() {
+            checksum.reset();
+        }
+        @Override
+        public void update(byte[] data, int offset, int length) {
+            checksum.update(data, offset, length);
+        }
+    }
+    static class MessageByteDigest extends ByteDigest {
+
+        private final MessageDigest messageDigest;
+
+        MessageByteDigest(MessageDigest messageDigest) {
+            super();
+            this.messageDigest = messageDigest;
+        }
+
+        @Override
+        public void update(byte data) {
+            messageDigest.update(data);
+        }
+        @Override
+        public void update(byte[] data, int offset, int length) {
+            messageDigest.update(data, offset, length);
+        }
+        @Override
+        public int getDigestLength() {
+            return messageDigest.getDigestLength();
+        }
+        @Override
+        public void digest(byte[] out, int outOffset) {
+            try {
+                messageDigest.digest(out, outOffset, getDigestLength());
+            } catch (DigestException exception) {
+                throw new IllegalArgumentException(exception);
+            }
+        }
+        @Override
+        public void reset() {
+            messageDigest.reset();
+        }
+    }
+}
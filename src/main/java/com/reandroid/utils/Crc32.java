@@ -84,7 +84,7 @@ public class Crc32 extends Checksum {
         return of(bytes, 0, bytes.length);
     }
     public static long of(byte[] bytes, int offset, int length) {
-        Crc32 crc32 = new Crc32();
+        Checksum crc32 = ChecksumProvider.getDefault().newCrc32();
         crc32.update(bytes, offset, length);
         return crc32.getValue();
     }
@@ -108,7 +108,7 @@ public class Crc32 extends Checksum {
         }
         byte[] buffer = new byte[bufferSize];
         int length;
-        Crc32 crc32 = new Crc32();
+        Checksum crc32 = ChecksumProvider.getDefault().newCrc32();
         while ((length = stream.read(buffer, 0, bufferSize)) != -1) {
             crc32.update(buffer, 0, length);
         }
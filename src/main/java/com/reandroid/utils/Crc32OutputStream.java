@@ -21,31 +21,35 @@ import java.io.OutputStream;
 
 public class Crc32OutputStream extends OutputStream {
 
-    private final Crc32 crc32;
+    private final Checksum crc32;
+    private long length;
 
     public Crc32OutputStream() {
         super();
-        this.crc32 = new Crc32();
+        this.crc32 = ChecksumProvider.getDefault().newCrc32();
     }
 
     public long getValue() {
         return crc32.getValue();
     }
     public long getLength() {
-        return crc32.getLength();
+        return length;
     }
 
     @Override
     public void write(int i) {
         crc32.update((byte) i);
+        length ++;
     }
     @Override
     public void write(byte[] buffer) {
         crc32.update(buffer, 0, buffer.length);
+        this.length += buffer.length;
     }
     @Override
     public void write(byte[] buffer, int offset, int length) {
         crc32.update(buffer, offset, length);
+        this.length += length;
     }
 
     public void update(byte[] buffer, int offset, int length) {
@@ -20,11 +20,11 @@ import java.io.OutputStream;
 
 public class Sha1OutputStream extends OutputStream {
 
-    private final SHA1 sha1;
+    private final ByteDigest sha1;
 
     public Sha1OutputStream() {
         super();
-        this.sha1 = new SHA1();
+        this.sha1 = ChecksumProvider.getDefault().newSha1();
     }
 
     public byte[] digest() {
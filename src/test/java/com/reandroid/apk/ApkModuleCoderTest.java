@@ -6,6 +6,7 @@ import com.reandroid.arsc.chunk.TableBlock;
 import com.reandroid.arsc.chunk.xml.AndroidManifestBlock;
 import com.reandroid.arsc.value.ResConfig;
 import com.reandroid.utils.io.FileUtil;
+import com.reandroid.utils.io.IOUtil;
 import org.junit.Assert;
 import org.junit.FixMethodOrder;
 import org.junit.Test;
@@ -13,6 +14,7 @@ import org.junit.runners.MethodSorters;
 
 import java.io.File;
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 
 @FixMethodOrder(MethodSorters.NAME_ASCENDING)
 public class ApkModuleCoderTest {
@@ -30,6 +32,67 @@ public class ApkModuleCoderTest {
         mDir_xml = dir;
     }
     @Test
+    public void ab_testEncodeXmlThreads() throws IOException {
+        ApkModuleXmlEncoder encoder = new ApkModuleXmlEncoder();
+        encoder.scanDirectory(mDir_xml);
+        TableBlock tableBlock1 = encoder.getApkModule().getTableBlock();
+
+        encoder = new ApkModuleXmlEncoder();
+        encoder.setThreads(4);
+        encoder.scanDirectory(mDir_xml);
+        TableBlock tableBlock2 = encoder.getApkModule().getTableBlock();
+
+        tableBlock1.refreshFull();
+        tableBlock2.refreshFull();
+        Assert.assertArrayEquals(tableBlock1.getBytes(), tableBlock2.getBytes());
+    }
+    @Test
+    public void ac_testEncodeXmlThreadsError() throws IOException {
+        File dir = new File(TestUtils.getTempDir(), "decode_xml_error");
+        new ApkModuleXmlDecoder(getApkModule()).decode(dir);
+        File stringsXml = findStringsXml(dir);
+        Assert.assertNotNull("Missing strings.xml: " + dir, stringsXml);
+        String xml = new String(IOUtil.readFully(stringsXml), StandardCharsets.UTF_8);
+        xml = xml.replace("</resources>",
+                "  <string name=\"undefined_string_name\">value</string>\n</resources>");
+        IOUtil.writeUtf8(xml, stringsXml);
+
+        String message1 = getEncodeError(dir, 1);
+        String message4 = getEncodeError(dir, 4);
+        FileUtil.deleteDirectory(dir);
+        Assert.assertNotNull(message1);
+        Assert.assertTrue(message1, message1.contains("[line = "));
+        Assert.assertEquals(message1, message4);
+    }
+    private static String getEncodeError(File dir, int threads) {
+        ApkModuleXmlEncoder encoder = new ApkModuleXmlEncoder();
+        encoder.setThreads(threads);
+        try {
+            encoder.scanDirectory(dir);
+        } catch (IOException exception) {
+            return exception.getMessage();
+        }
+        return null;
+    }
+    private static File findStringsXml(File dir) {
+        File[] files = dir.listFiles();
+        if(files == null) {
+            return null;
+        }
+        for(File file : files) {
+            if(file.isDirectory()) {
+                File result = findStringsXml(file);
+                if(result != null) {
+                    return result;
+                }
+            } else if(file.getName().equals("strings.xml")
+                    && file.getParentFile().getName().equals("values")) {
+                return file;
+            }
+        }
+        return null;
+    }
+    @Test
     public void b_testEncodeXml() throws IOException {
         ApkModule apkModule = getApkModule();
         Assert.assertNotNull(apkModule);
@@ -0,0 +1,138 @@
+package com.reandroid.apk.framework;
+
+import com.reandroid.TestUtils;
+import com.reandroid.apk.FrameworkApk;
+import com.reandroid.arsc.model.FrameworkTable;
+import com.reandroid.arsc.model.ResourceEntry;
+import com.reandroid.arsc.value.AttributeDataFormat;
+import com.reandroid.utils.io.FileUtil;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+
+public class InternalFrameworksTest {
+
+    @Test
+    public void testCache() {
+        InternalFrameworks frameworks = InternalFrameworks.INSTANCE;
+        int latest = frameworks.getLatestVersion();
+        int other = frameworks.getNearestVersion(latest - 4);
+        Assert.assertNotEquals(latest, other);
+
+        FrameworkApk frameworkApk = frameworks.getBestMatch(other);
+        Assert.assertEquals(other, frameworkApk.getVersionCode());
+        frameworks.getLatest();
+        Assert.assertSame(frameworkApk, frameworks.getBestMatch(other));
+        Assert.assertSame(frameworkApk, frameworks.get(other));
+        Assert.assertNull(frameworks.get(1));
+
+        int size = frameworks.getCacheSize();
+        try {
+            frameworks.setCacheSize(1);
+            int third = frameworks.getNearestVersion(other - 2);
+            Assert.assertNotEquals(other, third);
+            frameworks.getBestMatch(third);
+            Assert.assertNotSame(frameworkApk, frameworks.getBestMatch(other));
+        } finally {
+            frameworks.setCacheSize(size);
+        }
+    }
+    @Test
+    public void testIndex() throws IOException {
+        InternalFrameworks frameworks = InternalFrameworks.INSTANCE;
+        int version = frameworks.getLatestVersion();
+        FrameworkTable frameworkTable = frameworks.getBestMatch(version).getTableBlock();
+        FrameworkIndex frameworkIndex = FrameworkIndex.create(frameworkTable);
+
+        File file = new File(TestUtils.getTempDir(), "framework-index/android.index");
+        frameworkIndex.write(file);
+        FrameworkIndex mapped = FrameworkIndex.load(file);
+
+        Assert.assertEquals(version, mapped.getVersionCode());
+        Assert.assertEquals(frameworkIndex.size(), mapped.size());
+        Assert.assertEquals(0x01, mapped.getPackageId());
+
+        ResourceEntry resourceEntry = frameworkTable.getResource(0x01010000);
+        Assert.assertNotNull(resourceEntry);
+        String name = resourceEntry.getType() + "/" + resourceEntry.getName();
+        Assert.assertEquals(name, mapped.getResourceName(0x01010000));
+        Assert.assertEquals(0x01010000, mapped.getResourceId(
+                resourceEntry.getType(), resourceEntry.getName()));
+        Assert.assertEquals(0x01010000, mapped.getResourceId("attr", "theme"));
+        Assert.assertTrue(AttributeDataFormat.REFERENCE.matches(
+                mapped.getAttributeFormat(0x01010000)));
+        Assert.assertEquals(0, mapped.getResourceId("attr", "no_such_attribute_name"));
+        Assert.assertNull(mapped.getResourceName(0x01ff0000));
+
+        for (int i = 0; i < mapped.size(); i++) {
+            int id = mapped.getResourceId(i);
+            String resourceName = mapped.getResourceName(id);
+            int slash = resourceName.indexOf('/');
+            Assert.assertEquals(id, mapped.getResourceId(resourceName.substring(0, slash),
+                    resourceName.substring(slash + 1)));
+        }
+    }
+    @Test
+    public void testStaleIndexRegenerated() throws IOException {
+        InternalFrameworks frameworks = InternalFrameworks.INSTANCE;
+        int version = frameworks.getLatestVersion();
+        int other = frameworks.getNearestVersion(version - 4);
+        File dir = new File(TestUtils.getTempDir(), "framework-index-stale");
+        File file = new File(dir, "android-" + version + ".index");
+        FrameworkTable otherTable = frameworks.getBestMatch(other).getTableBlock();
+        FrameworkTable frameworkTable = frameworks.getBestMatch(version).getTableBlock();
+
+        File previous = frameworks.getIndexDirectory();
+        try {
+            frameworks.setIndexDirectory(dir);
+
+            FrameworkIndex.create(otherTable, null).write(file);
+            frameworks.clearCache();
+            FrameworkIndex frameworkIndex = frameworks.getIndex(version);
+            Assert.assertEquals(version, frameworkIndex.getVersionCode());
+            String source = frameworkIndex.getSource();
+            Assert.assertTrue(source, source.startsWith("/frameworks/android/android-" + version));
+
+            FrameworkIndex.create(frameworkTable, "/older/build.apk:1:00000000").write(file);
+            frameworks.clearCache();
+            frameworkIndex = frameworks.getIndex(version);
+            Assert.assertEquals(source, frameworkIndex.getSource());
+            Assert.assertEquals(source, FrameworkIndex.load(file).getSource());
+        } finally {
+            frameworks.setIndexDirectory(previous);
+        }
+    }
+    @Test
+    public void testCorruptIndexRegenerated() throws IOException {
+        InternalFrameworks frameworks = InternalFrameworks.INSTANCE;
+        int version = frameworks.getLatestVersion();
+        File dir = new File(TestUtils.getTempDir(), "framework-index-cache");
+        File file = new File(dir, "android-" + version + ".index");
+        FileUtil.ensureParentDirectory(file);
+        FileOutputStream outputStream = new FileOutputStream(file);
+        outputStream.write(new byte[]{1, 2, 3, 4});
+        outputStream.close();
+
+        File previous = frameworks.getIndexDirectory();
+        int size = frameworks.getCacheSize();
+        try {
+            frameworks.clearCache();
+            frameworks.setIndexDirectory(dir);
+            FrameworkIndex frameworkIndex = frameworks.getIndex(version);
+            Assert.assertEquals(version, frameworkIndex.getVersionCode());
+            Assert.assertEquals(frameworkIndex.size(), FrameworkIndex.load(file).size());
+            Assert.assertEquals(frameworkIndex.getSource(), FrameworkIndex.load(file).getSource());
+
+            frameworks.setCacheSize(1);
+            Assert.assertSame(frameworkIndex, frameworks.getIndex(version));
+            frameworks.getIndex(frameworks.getNearestVersion(version - 4));
+            Assert.assertNotSame(frameworkIndex, frameworks.getIndex(version));
+        } finally {
+            frameworks.setIndexDirectory(previous);
+            frameworks.setCacheSize(size);
+        }
+    }
+}
@@ -1,14 +1,31 @@
 package com.reandroid.archive;
 
 import com.reandroid.apk.ApkModule;
+import com.reandroid.TestUtils;
 import com.reandroid.apk.ApkModuleTest;
+import com.reandroid.apk.ApkUtil;
 import com.reandroid.arsc.chunk.TableBlock;
 import com.reandroid.arsc.chunk.xml.AndroidManifestBlock;
+import com.reandroid.archive.io.ArchiveEntrySource;
+import com.reandroid.archive.io.ArchiveFileEntrySource;
+import com.reandroid.archive.io.ByteBufferInputStream;
+import com.reandroid.archive.io.ZipFileInput;
+import com.reandroid.archive.writer.ApkFileWriter;
+import com.reandroid.utils.io.FileUtil;
+import com.reandroid.utils.io.IOUtil;
 import org.junit.Assert;
 import org.junit.Test;
 
 import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
 import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Iterator;
+import java.util.List;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
 
 public class ApkWriterTest {
     @Test
@@ -40,7 +57,225 @@ public class ApkWriterTest {
         InputSource inputSource = apkModule2.getInputSource("classes.dex");
         Assert.assertNotNull("Missing classes.dex", inputSource);
     }
+    @Test
+    public void testParallelCompression() throws IOException {
+        File dir = TestUtils.getTempDir();
+        File sourceFile = new File(dir, "parallel_source.apk");
+        IOUtil.writeAll(ApkWriterTest.class.getResourceAsStream("/type_id_offset.apk"), sourceFile);
+
+        File sequentialFile = new File(dir, "sequential.apk");
+        ApkModule apkModule = loadRecompressModule(sourceFile);
+        // not through ApkModule, it resets compression methods before writing
+        ApkFileWriter writer = new ApkFileWriter(sequentialFile, apkModule.getInputSources());
+        writer.write();
+        apkModule.close();
+        Assert.assertEquals(0, writer.getConcurrentCompressedCount());
+
+        File parallelFile = new File(dir, "parallel.apk");
+        apkModule = loadRecompressModule(sourceFile);
+        InputSource[] sources = apkModule.getInputSources();
+        int blockSources = 0;
+        int archiveSources = 0;
+        for(InputSource inputSource : sources){
+            if(inputSource instanceof BlockInputSource){
+                blockSources ++;
+            }else if(inputSource instanceof ArchiveFileEntrySource){
+                archiveSources ++;
+            }
+        }
+        Assert.assertEquals("Block sources", 2, blockSources);
+        Assert.assertEquals("Archive sources", sources.length - 2, archiveSources);
+        writer = new ApkFileWriter(parallelFile, sources);
+        writer.setCompressionThreads(4);
+        writer.write();
+        apkModule.close();
+        // every entry except resources.arsc, which is serialized last on writer thread
+        Assert.assertEquals("Compressed on workers", sources.length - 1,
+                writer.getConcurrentCompressedCount());
+
+        Assert.assertArrayEquals("Parallel compression output differs",
+                readBytes(sequentialFile), readBytes(parallelFile));
+    }
+    /**
+     * Loads manifest and table as blocks, and flips compression method of remaining
+     * archive entries so that none of them can be copied as it is.
+     * */
+    private ApkModule loadRecompressModule(File file) throws IOException {
+        ApkModule apkModule = ApkModule.loadApkFile(file);
+        apkModule.setLoadDefaultFramework(false);
+        apkModule.getAndroidManifest();
+        apkModule.getTableBlock();
+        for(InputSource inputSource : apkModule.getInputSources()){
+            if(inputSource instanceof ArchiveFileEntrySource){
+                if(inputSource.getMethod() == Archive.STORED){
+                    inputSource.setMethod(Archive.DEFLATED);
+                }else {
+                    inputSource.setMethod(Archive.STORED);
+                }
+            }
+        }
+        return apkModule;
+    }
+    @Test
+    public void testMemoryMappedArchive() throws IOException {
+        File dir = TestUtils.getTempDir();
+        File file = new File(dir, "source.apk");
+        getApkModule().writeApk(file);
+
+        ArchiveFile archive = new ArchiveFile(file);
+        ArchiveFile mappedArchive = new ArchiveFile(file, true);
+        Assert.assertEquals(archive.size(), mappedArchive.size());
+        InputSource[] sources = archive.getInputSources();
+        InputSource[] mappedSources = mappedArchive.getInputSources();
+        Assert.assertEquals(sources.length, mappedSources.length);
+        for(int i = 0; i < sources.length; i++){
+            ByteArrayOutputStream expected = new ByteArrayOutputStream();
+            sources[i].write(expected);
+            ByteArrayOutputStream actual = new ByteArrayOutputStream();
+            mappedSources[i].write(actual);
+            Assert.assertArrayEquals(sources[i].getAlias(),
+                    expected.toByteArray(), actual.toByteArray());
+        }
+
+        File copyFile = new File(dir, "copy.apk");
+        ApkFileWriter writer = new ApkFileWriter(copyFile, sources);
+        writer.write();
+        archive.close();
+
+        File mappedCopyFile = new File(dir, "mapped_copy.apk");
+        writer = new ApkFileWriter(mappedCopyFile, mappedSources);
+        writer.write();
+        mappedArchive.close();
+
+        Assert.assertArrayEquals("Mapped copy differs",
+                readBytes(copyFile), readBytes(mappedCopyFile));
+
+        ByteBufferInputStream inputStream = new ByteBufferInputStream(
+                ByteBuffer.wrap(new byte[]{1, 2, 3, 4, 5}));
+        Assert.assertEquals(1, inputStream.read());
+        inputStream.mark(100);
+        Assert.assertEquals(2, inputStream.read());
+        Assert.assertEquals(3, inputStream.read());
+        inputStream.reset();
+        Assert.assertEquals(2, inputStream.read());
+
+        ZipFileInput zipInput = new ZipFileInput(copyFile);
+        Assert.assertTrue(zipInput.getByteBuffer(0, 4).isReadOnly());
+        zipInput.close();
+    }
+    @Test
+    public void testLazyArchive() throws IOException {
+        File dir = TestUtils.getTempDir();
+        File file = new File(dir, "lazy_source.apk");
+        getApkModule().writeApk(file);
+        // java.util.zip writes data descriptors for deflated entries
+        File zipFile = new File(dir, "lazy_descriptor.zip");
+        ZipOutputStream zipOutputStream = new ZipOutputStream(new FileOutputStream(zipFile));
+        for(int i = 0; i < 3; i++){
+            zipOutputStream.putNextEntry(new ZipEntry("dir/file_" + i + ".txt"));
+            zipOutputStream.write(("Content of file " + i).getBytes());
+            zipOutputStream.closeEntry();
+        }
+        zipOutputStream.close();
+
+        compareLazyArchive(file);
+        compareLazyArchive(zipFile);
+
+        ArchiveFile lazyArchive = new ArchiveFile(new ZipFileInput(file), true);
+        InputSource manifest = lazyArchive.getEntrySource(AndroidManifestBlock.FILE_NAME);
+        Assert.assertNotNull(manifest);
+        manifest.write(new ByteArrayOutputStream());
+        int loaded = 0;
+        Iterator<ArchiveEntry> iterator = lazyArchive.iterator();
+        while (iterator.hasNext()){
+            if(iterator.next().isLocalHeaderLoaded()){
+                loaded ++;
+            }
+        }
+        Assert.assertEquals(1, loaded);
+        lazyArchive.close();
+    }
+    @Test
+    public void testParallelExtract() throws IOException {
+        File dir = TestUtils.getTempDir();
+        File file = new File(dir, "extract_source.apk");
+        getApkModule().writeApk(file);
+
+        File sequentialDir = new File(dir, "extract_sequential");
+        File parallelDir = new File(dir, "extract_parallel");
+        FileUtil.deleteDirectory(sequentialDir);
+        FileUtil.deleteDirectory(parallelDir);
 
+        ArchiveFile archive = new ArchiveFile(file);
+        int count = archive.extractAll(sequentialDir);
+        archive.close();
+
+        ArchiveFile lazyArchive = new ArchiveFile(new ZipFileInput(file), true);
+        int[] progress = new int[2];
+        int parallelCount = lazyArchive.extractAll(parallelDir, null, 4,
+                (archiveEntry, extractedCount, totalCount) -> {
+                    Assert.assertEquals(progress[0] + 1, extractedCount);
+                    progress[0] = extractedCount;
+                    progress[1] = totalCount;
+                });
+        lazyArchive.close();
+
+        Assert.assertEquals(count, parallelCount);
+        Assert.assertEquals(progress[1], progress[0]);
+        List<File> files = ApkUtil.recursiveFiles(sequentialDir);
+        Assert.assertEquals(progress[0], files.size());
+        for(File sequentialFile : files){
+            String path = sequentialFile.getAbsolutePath()
+                    .substring(sequentialDir.getAbsolutePath().length());
+            File parallelFile = new File(parallelDir, path);
+            Assert.assertTrue(path, parallelFile.isFile());
+            Assert.assertArrayEquals(path, readBytes(sequentialFile), readBytes(parallelFile));
+        }
+        FileUtil.deleteDirectory(sequentialDir);
+        FileUtil.deleteDirectory(parallelDir);
+    }
+    private void compareLazyArchive(File file) throws IOException {
+        ArchiveFile archive = new ArchiveFile(file);
+        ArchiveFile lazyArchive = new ArchiveFile(new ZipFileInput(file), true);
+        Assert.assertTrue(lazyArchive.isLazy());
+        Assert.assertEquals(archive.size(), lazyArchive.size());
+        InputSource[] sources = archive.getInputSources();
+        InputSource[] lazySources = lazyArchive.getInputSources();
+        Assert.assertEquals(sources.length, lazySources.length);
+        for(int i = 0; i < sources.length; i++){
+            ArchiveEntry entry = ((ArchiveEntrySource<?>) sources[i]).getArchiveEntry();
+            ArchiveEntry lazyEntry = ((ArchiveEntrySource<?>) lazySources[i]).getArchiveEntry();
+            Assert.assertFalse(lazyEntry.isLocalHeaderLoaded());
+            Assert.assertEquals(entry.getName(), lazyEntry.getName());
+            Assert.assertEquals(entry.getFileOffset(), lazyEntry.getFileOffset());
+            Assert.assertEquals(entry.getMethod(), lazyEntry.getMethod());
+            Assert.assertEquals(entry.getDataSize(), lazyEntry.getDataSize());
+            Assert.assertEquals(entry.getCrc(), lazyEntry.getCrc());
+            ByteArrayOutputStream expected = new ByteArrayOutputStream();
+            sources[i].write(expected);
+            ByteArrayOutputStream actual = new ByteArrayOutputStream();
+            lazySources[i].write(actual);
+            Assert.assertArrayEquals(sources[i].getAlias(),
+                    expected.toByteArray(), actual.toByteArray());
+        }
+        Assert.assertEquals(archive.getApkSignatureBlock() != null,
+                lazyArchive.getApkSignatureBlock() != null);
+        archive.close();
+        lazyArchive.close();
+    }
+
+    private byte[] readBytes(File file) throws IOException {
+        byte[] bytes = new byte[(int) file.length()];
+        FileInputStream inputStream = new FileInputStream(file);
+        int offset = 0;
+        int read;
+        while (offset < bytes.length &&
+                (read = inputStream.read(bytes, offset, bytes.length - offset)) > 0){
+            offset += read;
+        }
+        inputStream.close();
+        return bytes;
+    }
     private ApkModule getApkModule() throws IOException {
         ApkModuleTest apkModuleTest = new ApkModuleTest();
         return apkModuleTest.createApkModule();
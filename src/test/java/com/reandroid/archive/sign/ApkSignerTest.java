@@ -0,0 +1,315 @@
+package com.reandroid.archive.sign;
+
+import com.reandroid.TestUtils;
+import com.reandroid.apk.ApkModule;
+import com.reandroid.apk.ApkModuleTest;
+import com.reandroid.archive.ArchiveFile;
+import com.reandroid.archive.ByteInputSource;
+import com.reandroid.archive.writer.ApkFileWriter;
+import com.reandroid.utils.io.IOUtil;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.security.KeyPair;
+import java.security.KeyFactory;
+import java.security.KeyPairGenerator;
+import java.security.Signature;
+import java.security.cert.CertificateFactory;
+import java.security.cert.X509Certificate;
+import java.security.spec.X509EncodedKeySpec;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Random;
+
+public class ApkSignerTest {
+
+    private static final int BLOCK_ID_V2 = 0x7109871a;
+    private static final int BLOCK_ID_V3 = 0xf05368c0;
+
+    @Test
+    public void testSignRsa() throws Exception {
+        ApkSigner signer = createSigner("RSA", "SHA256withRSA");
+        byte[] sequential = writeApk(signer, 1);
+        verify(sequential, signer);
+        byte[] parallel = writeApk(signer, 4);
+        Assert.assertArrayEquals("Parallel signing output differs", sequential, parallel);
+
+        File file = new File(TestUtils.getTempDir(), "signed.apk");
+        ApkModule apkModule = createApkModule();
+        apkModule.setApkSigner(signer);
+        apkModule.writeApk(file);
+        Assert.assertArrayEquals("File and byte writer output differs",
+                sequential, Files.readAllBytes(file.toPath()));
+
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        apkModule = createApkModule();
+        apkModule.setApkSigner(signer);
+        apkModule.writeApk(outputStream);
+        Assert.assertArrayEquals("Stream and byte writer output differs",
+                sequential, outputStream.toByteArray());
+    }
+    @Test
+    public void testDigestSignedFixture() throws Exception {
+        // signed by Android build tools, the recorded v2 digest and signature are
+        // the reference for digests computed while writing
+        byte[] apk = IOUtil.readFully(ApkSignerTest.class
+                .getResourceAsStream("/type_id_offset.apk"));
+        ByteBuffer buffer = wrap(apk);
+        int eocd = apk.length - 22;
+        Assert.assertEquals(0x06054b50, buffer.getInt(eocd));
+        int cdOffset = buffer.getInt(eocd + 16);
+        long blockSize = buffer.getLong(cdOffset - 24);
+        int blockStart = (int) (cdOffset - blockSize - 8);
+        byte[] endRecord = Arrays.copyOfRange(apk, eocd, apk.length);
+        wrap(endRecord).putInt(16, blockStart);
+
+        byte[] scheme = null;
+        int position = blockStart + 8;
+        while (position < cdOffset - 24) {
+            int size = (int) buffer.getLong(position);
+            if(buffer.getInt(position + 8) == BLOCK_ID_V2) {
+                scheme = slice(apk, position + 12, size - 4);
+            }
+            position += 8 + size;
+        }
+        Assert.assertNotNull("Missing v2 block", scheme);
+        ByteBuffer signerBuffer = prefixed(prefixed(wrap(scheme)));
+        ByteBuffer signedData = prefixed(signerBuffer);
+        byte[] signedBytes = bytes(signedData.duplicate());
+        ByteBuffer digestEntry = prefixed(prefixed(signedData));
+        int algorithm = digestEntry.getInt();
+        byte[] expected = bytes(prefixed(digestEntry));
+        ByteBuffer signature = prefixed(prefixed(signerBuffer));
+        Assert.assertEquals(algorithm, signature.getInt());
+        byte[] signatureBytes = bytes(prefixed(signature));
+        byte[] publicKey = bytes(prefixed(signerBuffer));
+
+        Signature verifier = Signature.getInstance(ApkSigner.getJcaSignatureAlgorithm(algorithm));
+        verifier.initVerify(KeyFactory.getInstance(ApkSigner.getKeyAlgorithm(algorithm))
+                .generatePublic(new X509EncodedKeySpec(publicKey)));
+        verifier.update(signedBytes);
+        Assert.assertTrue("Fixture signature", verifier.verify(signatureBytes));
+
+        ApkContentDigest contentDigest = new ApkContentDigest(
+                ApkSigner.getContentDigestAlgorithm(algorithm));
+        for(int threads : new int[]{1, 3}) {
+            contentDigest.setThreads(threads);
+            ContentDigestStream digestStream = new ContentDigestStream(contentDigest);
+            Random random = new Random(threads);
+            int offset = 0;
+            while (offset < blockStart) {
+                int length = Math.min(blockStart - offset, 1 + random.nextInt(70000));
+                digestStream.write(apk, offset, length);
+                offset += length;
+            }
+            byte[] digest = contentDigest.digest(digestStream,
+                    ContentSource.of(apk, cdOffset, eocd - cdOffset),
+                    ContentSource.of(endRecord));
+            digestStream.close();
+            Assert.assertArrayEquals("Streamed digest, threads = " + threads, expected, digest);
+        }
+    }
+    @Test
+    public void testSignArchiveCopy() throws Exception {
+        ApkSigner signer = createSigner("RSA", "SHA256withRSA");
+        File dir = TestUtils.getTempDir();
+        File source = new File(dir, "sign_copy_source.apk");
+        createApkModule().writeApk(source);
+
+        byte[] expected = null;
+        for (boolean mapped : new boolean[]{false, true}) {
+            ArchiveFile archive = new ArchiveFile(source, mapped);
+            File file = new File(dir, "sign_copy_" + mapped + ".apk");
+            ApkFileWriter writer = new ApkFileWriter(file, archive.getInputSources());
+            writer.setApkSigner(signer);
+            writer.write();
+            archive.close();
+            byte[] apk = Files.readAllBytes(file.toPath());
+            verify(apk, signer);
+            if (expected == null) {
+                expected = apk;
+            } else {
+                Assert.assertArrayEquals("Mapped copy differs", expected, apk);
+            }
+        }
+    }
+    @Test
+    public void testSignEc() throws Exception {
+        ApkSigner signer = createSigner("EC", "SHA256withECDSA");
+        verify(writeApk(signer, 4), signer);
+    }
+
+    private byte[] writeApk(ApkSigner signer, int threads) throws IOException {
+        signer.setThreads(threads);
+        ApkModule apkModule = createApkModule();
+        apkModule.setApkSigner(signer);
+        return apkModule.writeApkBytes();
+    }
+    private ApkModule createApkModule() throws IOException {
+        ApkModule apkModule = new ApkModuleTest().createApkModule();
+        byte[] bytes = new byte[ApkContentDigest.CHUNK_SIZE * 2 + 77];
+        new Random(7).nextBytes(bytes);
+        ByteInputSource inputSource = new ByteInputSource(bytes, "assets/large.bin");
+        inputSource.setMethod(0);
+        apkModule.add(inputSource);
+        return apkModule;
+    }
+    private void verify(byte[] apk, ApkSigner signer) throws Exception {
+        ByteBuffer buffer = ByteBuffer.wrap(apk).order(ByteOrder.LITTLE_ENDIAN);
+        int eocd = apk.length - 22;
+        Assert.assertEquals(0x06054b50, buffer.getInt(eocd));
+        int cdOffset = buffer.getInt(eocd + 16);
+        Assert.assertEquals("APK Sig Block 42", new String(apk, cdOffset - 16, 16,
+                StandardCharsets.US_ASCII));
+        long blockSize = buffer.getLong(cdOffset - 24);
+        int blockStart = (int) (cdOffset - blockSize - 8);
+        Assert.assertEquals(blockSize, buffer.getLong(blockStart));
+
+        byte[] endRecord = Arrays.copyOfRange(apk, eocd, apk.length);
+        ByteBuffer.wrap(endRecord).order(ByteOrder.LITTLE_ENDIAN).putInt(16, blockStart);
+        byte[] digest = new ApkContentDigest().digest(
+                ContentSource.of(apk, 0, blockStart),
+                ContentSource.of(apk, cdOffset, eocd - cdOffset),
+                ContentSource.of(endRecord));
+
+        int found = 0;
+        int position = blockStart + 8;
+        while (position < cdOffset - 24) {
+            int size = (int) buffer.getLong(position);
+            int id = buffer.getInt(position + 8);
+            if(id == BLOCK_ID_V2 || id == BLOCK_ID_V3) {
+                verifyScheme(slice(apk, position + 12, size - 4), id == BLOCK_ID_V3,
+                        digest, signer);
+                found++;
+            }
+            position += 8 + size;
+        }
+        Assert.assertEquals(2, found);
+    }
+    private void verifyScheme(byte[] scheme, boolean v3, byte[] digest, ApkSigner signer) throws Exception {
+        ByteBuffer signers = prefixed(wrap(scheme));
+        ByteBuffer signerBuffer = prefixed(signers);
+        Assert.assertFalse(signers.hasRemaining());
+        ByteBuffer signedData = prefixed(signerBuffer);
+        if(v3) {
+            Assert.assertEquals(ApkSigner.V3_MIN_SDK_VERSION, signerBuffer.getInt());
+            Assert.assertEquals(Integer.MAX_VALUE, signerBuffer.getInt());
+        }
+        ByteBuffer signature = prefixed(prefixed(signerBuffer));
+        int algorithm = signature.getInt();
+        Assert.assertEquals(signer.getSignatureAlgorithm(), algorithm);
+        byte[] signatureBytes = bytes(prefixed(signature));
+        Assert.assertArrayEquals(signer.getPublicKey().getEncoded(), bytes(prefixed(signerBuffer)));
+
+        byte[] signedBytes = bytes(signedData.duplicate());
+        ByteBuffer digests = prefixed(signedData);
+        ByteBuffer digestEntry = prefixed(digests);
+        Assert.assertEquals(algorithm, digestEntry.getInt());
+        Assert.assertArrayEquals("Content digest mismatch", digest, bytes(prefixed(digestEntry)));
+        ByteBuffer certificates = prefixed(signedData);
+        Assert.assertArrayEquals(signer.getCertificates().get(0).getEncoded(),
+                bytes(prefixed(certificates)));
+
+        Signature verifier = Signature.getInstance(ApkSigner.getJcaSignatureAlgorithm(algorithm));
+        verifier.initVerify(signer.getPublicKey());
+        verifier.update(signedBytes);
+        Assert.assertTrue("Invalid signature", verifier.verify(signatureBytes));
+    }
+
+    private static ByteBuffer wrap(byte[] bytes) {
+        return ByteBuffer.wrap(bytes).order(ByteOrder.LITTLE_ENDIAN);
+    }
+    private static ByteBuffer prefixed(ByteBuffer buffer) {
+        int length = buffer.getInt();
+        ByteBuffer result = buffer.slice().order(ByteOrder.LITTLE_ENDIAN);
+        result.limit(length);
+        buffer.position(buffer.position() + length);
+        return result;
+    }
+    private static byte[] bytes(ByteBuffer buffer) {
+        byte[] bytes = new byte[buffer.remaining()];
+        buffer.get(bytes);
+        return bytes;
+    }
+    private static byte[] slice(byte[] bytes, int offset, int length) {
+        return Arrays.copyOfRange(bytes, offset, offset + length);
+    }
+
+    static ApkSigner createSigner(String keyAlgorithm, String signatureAlgorithm) throws Exception {
+        KeyPairGenerator generator = KeyPairGenerator.getInstance(keyAlgorithm);
+        generator.initialize(keyAlgorithm.equals("RSA") ? 2048 : 256);
+        KeyPair keyPair = generator.generateKeyPair();
+        X509Certificate certificate = createCertificate(keyPair, signatureAlgorithm);
+        return new ApkSigner(keyPair.getPrivate(), Collections.singletonList(certificate));
+    }
+    /**
+     * Builds minimal self-signed X.509 v3 DER certificate
+     * */
+    static X509Certificate createCertificate(KeyPair keyPair, String signatureAlgorithm) throws Exception {
+        byte[] algorithmId;
+        if(signatureAlgorithm.endsWith("RSA")) {
+            algorithmId = der(0x30, hex("06092a864886f70d01010b"), hex("0500"));
+        } else {
+            algorithmId = der(0x30, hex("06082a8648ce3d040302"));
+        }
+        byte[] name = der(0x30, der(0x31, der(0x30, hex("0603550403"),
+                der(0x0c, "test".getBytes(StandardCharsets.UTF_8)))));
+        byte[] validity = der(0x30,
+                der(0x17, "250101000000Z".getBytes(StandardCharsets.US_ASCII)),
+                der(0x17, "491231235959Z".getBytes(StandardCharsets.US_ASCII)));
+        byte[] tbs = der(0x30,
+                der(0xa0, der(0x02, new byte[]{2})),
+                der(0x02, new byte[]{1}),
+                algorithmId,
+                name,
+                validity,
+                name,
+                keyPair.getPublic().getEncoded());
+        Signature signature = Signature.getInstance(signatureAlgorithm);
+        signature.initSign(keyPair.getPrivate());
+        signature.update(tbs);
+        byte[] signed = signature.sign();
+        byte[] bitString = new byte[signed.length + 1];
+        System.arraycopy(signed, 0, bitString, 1, signed.length);
+        byte[] encoded = der(0x30, tbs, algorithmId, der(0x03, bitString));
+        return (X509Certificate) CertificateFactory.getInstance("X.509")
+                .generateCertificate(new ByteArrayInputStream(encoded));
+    }
+    private static byte[] der(int tag, byte[] ... contents) {
+        ByteArrayOutputStream content = new ByteArrayOutputStream();
+        for(byte[] bytes : contents) {
+            content.write(bytes, 0, bytes.length);
+        }
+        int length = content.size();
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        outputStream.write(tag);
+        if(length < 0x80) {
+            outputStream.write(length);
+        } else if(length < 0x100) {
+            outputStream.write(0x81);
+            outputStream.write(length);
+        } else {
+            outputStream.write(0x82);
+            outputStream.write(length >> 8);
+            outputStream.write(length);
+        }
+        byte[] bytes = content.toByteArray();
+        outputStream.write(bytes, 0, bytes.length);
+        return outputStream.toByteArray();
+    }
+    private static byte[] hex(String hex) {
+        byte[] bytes = new byte[hex.length() / 2];
+        for(int i = 0; i < bytes.length; i++) {
+            bytes[i] = (byte) Integer.parseInt(hex.substring(i * 2, i * 2 + 2), 16);
+        }
+        return bytes;
+    }
+}
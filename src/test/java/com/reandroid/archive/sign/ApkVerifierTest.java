@@ -0,0 +1,76 @@
+package com.reandroid.archive.sign;
+
+import com.reandroid.TestUtils;
+import com.reandroid.apk.ApkModule;
+import com.reandroid.apk.ApkModuleTest;
+import com.reandroid.archive.ArchiveFile;
+import com.reandroid.utils.io.IOUtil;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+
+public class ApkVerifierTest {
+
+    @Test
+    public void testVerifySigned() throws Exception {
+        ApkSigner signer = ApkSignerTest.createSigner("EC", "SHA256withECDSA");
+        File file = writeApk(signer, "verify_signed.apk");
+
+        ApkVerificationResult result = ApkVerifier.verify(file, 4);
+        Assert.assertTrue(result.toString(), result.isVerified());
+        Assert.assertTrue(result.isVerifiedV2());
+        Assert.assertTrue(result.isVerifiedV3());
+        Assert.assertEquals(signer.getCertificates(), result.getCertificates());
+
+        ArchiveFile archive = new ArchiveFile(file);
+        result = new ApkVerifier(archive).verify();
+        archive.close();
+        Assert.assertTrue("Channel read verification failed: " + result, result.isVerified());
+    }
+    @Test
+    public void testVerifyToolsSigned() throws Exception {
+        // signed by Android build tools, independent of ApkSigner
+        File file = new File(TestUtils.getTempDir(), "verify_type_id_offset.apk");
+        IOUtil.writeAll(ApkVerifierTest.class.getResourceAsStream("/type_id_offset.apk"), file);
+        for (int threads : new int[]{1, 4}) {
+            ApkVerificationResult result = ApkVerifier.verify(file, threads);
+            Assert.assertTrue(result.toString(), result.isVerified());
+            Assert.assertTrue(result.isVerifiedV2());
+            Assert.assertTrue(result.isVerifiedV3());
+            Assert.assertFalse(result.getCertificates().isEmpty());
+        }
+    }
+    @Test
+    public void testVerifyTampered() throws Exception {
+        ApkSigner signer = ApkSignerTest.createSigner("RSA", "SHA256withRSA");
+        File file = writeApk(signer, "verify_tampered.apk");
+        RandomAccessFile randomAccessFile = new RandomAccessFile(file, "rw");
+        randomAccessFile.seek(40);
+        int value = randomAccessFile.read();
+        randomAccessFile.seek(40);
+        randomAccessFile.write(value ^ 0xff);
+        randomAccessFile.close();
+
+        ApkVerificationResult result = ApkVerifier.verify(file, 4);
+        Assert.assertFalse(result.isVerified());
+        Assert.assertTrue(result.toString(), result.getErrors().get(0).contains("digest mismatch"));
+    }
+    @Test
+    public void testVerifyUnsigned() throws IOException {
+        File file = writeApk(null, "verify_unsigned.apk");
+        ApkVerificationResult result = ApkVerifier.verify(file);
+        Assert.assertFalse(result.isVerified());
+        Assert.assertFalse(result.getErrors().isEmpty());
+    }
+
+    private File writeApk(ApkSigner signer, String name) throws IOException {
+        ApkModule apkModule = new ApkModuleTest().createApkModule();
+        apkModule.setApkSigner(signer);
+        File file = new File(TestUtils.getTempDir(), name);
+        apkModule.writeApk(file);
+        return file;
+    }
+}
@@ -0,0 +1,113 @@
+package com.reandroid.arsc.array;
+
+import com.reandroid.apk.AndroidFrameworks;
+import com.reandroid.arsc.chunk.PackageBlock;
+import com.reandroid.arsc.chunk.TableBlock;
+import com.reandroid.arsc.chunk.TypeBlock;
+import com.reandroid.arsc.container.SpecTypePair;
+import com.reandroid.arsc.value.Entry;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Compares linear scan with {@link SparseOffsetsArray#indexOf(int)} over sparse arrays built
+ * from entries of the latest bundled framework table, run with
+ * <code>java -cp ... com.reandroid.arsc.array.SparseOffsetsArrayBenchmark</code>.
+ * Not part of unit tests.
+ * */
+public class SparseOffsetsArrayBenchmark {
+
+    private static final int LOOKUPS = 2 * 1000 * 1000;
+
+    public static void main(String[] args) throws Exception {
+        TableBlock tableBlock = AndroidFrameworks.getLatest().getTableBlock();
+        List<SparseOffsetsArray> arrayList = buildSparseArrays(tableBlock);
+        int total = 0;
+        int highest = 0;
+        for (SparseOffsetsArray array : arrayList) {
+            total += array.size();
+            highest = Math.max(highest, array.getHighestId());
+        }
+        System.out.printf("arrays = %d, entries = %d, highest id = %d%n",
+                arrayList.size(), total, highest);
+        // warm up
+        runLinear(arrayList, highest);
+        runIndexOf(arrayList, highest);
+        print("linear", runLinear(arrayList, highest));
+        print("indexOf", runIndexOf(arrayList, highest));
+    }
+    private static List<SparseOffsetsArray> buildSparseArrays(TableBlock tableBlock) {
+        List<SparseOffsetsArray> results = new ArrayList<>();
+        for (PackageBlock packageBlock : tableBlock) {
+            Iterator<SpecTypePair> pairs = packageBlock.getSpecTypePairs();
+            while (pairs.hasNext()) {
+                Iterator<TypeBlock> typeBlocks = pairs.next().iteratorNonEmpty();
+                while (typeBlocks.hasNext()) {
+                    SparseOffsetsArray array = toSparseArray(typeBlocks.next());
+                    if (array.size() != 0) {
+                        results.add(array);
+                    }
+                }
+            }
+        }
+        return results;
+    }
+    private static SparseOffsetsArray toSparseArray(TypeBlock typeBlock) {
+        SparseOffsetsArray array = new SparseOffsetsArray();
+        int index = 0;
+        for (Entry entry : typeBlock) {
+            if (entry == null || entry.isNull()) {
+                continue;
+            }
+            array.ensureArraySize(index + 1);
+            array.setIdx(index, entry.getId());
+            array.setOffset(index, index * 4);
+            index ++;
+        }
+        return array;
+    }
+    private static long runLinear(List<SparseOffsetsArray> arrayList, int highest) {
+        Random random = new Random(1);
+        int count = arrayList.size();
+        long start = System.nanoTime();
+        long sink = 0;
+        for (int i = 0; i < LOOKUPS; i++) {
+            SparseOffsetsArray array = arrayList.get(random.nextInt(count));
+            int idx = random.nextInt(highest + 1);
+            int result = OffsetArray.NO_ENTRY;
+            int size = array.size();
+            for (int j = 0; j < size; j++) {
+                if (array.getIdx(j) == idx) {
+                    result = j;
+                    break;
+                }
+            }
+            sink += result;
+        }
+        consume(sink);
+        return System.nanoTime() - start;
+    }
+    private static long runIndexOf(List<SparseOffsetsArray> arrayList, int highest) {
+        Random random = new Random(1);
+        int count = arrayList.size();
+        long start = System.nanoTime();
+        long sink = 0;
+        for (int i = 0; i < LOOKUPS; i++) {
+            SparseOffsetsArray array = arrayList.get(random.nextInt(count));
+            sink += array.indexOf(random.nextInt(highest + 1));
+        }
+        consume(sink);
+        return System.nanoTime() - start;
+    }
+    private static void print(String name, long nanos) {
+        System.out.printf("%-10s %10d lookups %10.1f ns/lookup%n", name, LOOKUPS,
+                nanos / (double) LOOKUPS);
+    }
+    private static volatile long sSink;
+    private static void consume(long value) {
+        sSink += value;
+    }
+}
@@ -23,4 +23,56 @@ public class SparseOffsetsArrayTest {
         sparseArr.setOffset(0, offset);
         Assert.assertEquals(offset, sparseArr.getOffset(0));
     }
+
+    @Test
+    public void testIndexOfSorted() {
+        final SparseOffsetsArray sparseArr = new SparseOffsetsArray();
+        sparseArr.setSize(4);
+        int[] ids = new int[]{2, 5, 9, 0x7f};
+        for(int i = 0; i < ids.length; i++){
+            sparseArr.setIdx(i, ids[i]);
+            sparseArr.setOffset(i, i * 8);
+        }
+        for(int i = 0; i < ids.length; i++){
+            Assert.assertEquals(i, sparseArr.indexOf(ids[i]));
+        }
+        Assert.assertEquals(OffsetArray.NO_ENTRY, sparseArr.indexOf(0));
+        Assert.assertEquals(OffsetArray.NO_ENTRY, sparseArr.indexOf(6));
+        Assert.assertEquals(OffsetArray.NO_ENTRY, sparseArr.indexOf(0x10005));
+        Assert.assertEquals(0x7f, sparseArr.getHighestId());
+
+        //offsets change does not affect lookup
+        sparseArr.setOffset(1, 0x40);
+        Assert.assertEquals(1, sparseArr.indexOf(5));
+
+        //lookup stays valid after setIdx
+        sparseArr.setIdx(1, 0x100);
+        Assert.assertEquals(OffsetArray.NO_ENTRY, sparseArr.indexOf(5));
+        Assert.assertEquals(1, sparseArr.indexOf(0x100));
+        Assert.assertEquals(0x100, sparseArr.getHighestId());
+        Assert.assertEquals(0x40, sparseArr.getOffset(1));
+
+        sparseArr.add(((0x10 / 4) << 16) | 3);
+        Assert.assertEquals(4, sparseArr.indexOf(3));
+    }
+    @Test
+    public void testIndexOfUnsorted() {
+        final SparseOffsetsArray sparseArr = new SparseOffsetsArray();
+        sparseArr.set(new int[]{ 9, 3, OffsetArray.NO_ENTRY, 3, 7 });
+        Assert.assertEquals(0, sparseArr.indexOf(9));
+        Assert.assertEquals(1, sparseArr.indexOf(3));
+        Assert.assertEquals(4, sparseArr.indexOf(7));
+        Assert.assertEquals(2, sparseArr.indexOf(OffsetArray.NO_ENTRY));
+        Assert.assertEquals(OffsetArray.NO_ENTRY, sparseArr.indexOf(8));
+        Assert.assertEquals(9, sparseArr.getHighestId());
+
+        sparseArr.setIdx(0, 1);
+        Assert.assertEquals(0, sparseArr.indexOf(1));
+        Assert.assertEquals(OffsetArray.NO_ENTRY, sparseArr.indexOf(9));
+        Assert.assertEquals(7, sparseArr.getHighestId());
+
+        sparseArr.clear();
+        Assert.assertEquals(OffsetArray.NO_ENTRY, sparseArr.indexOf(1));
+        Assert.assertEquals(0, sparseArr.getHighestId());
+    }
 }
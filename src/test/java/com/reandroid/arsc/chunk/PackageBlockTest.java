@@ -1,5 +1,7 @@
 package com.reandroid.arsc.chunk;
 
+import com.reandroid.arsc.model.ResourceEntry;
+import com.reandroid.arsc.value.Entry;
 import org.junit.Assert;
 import org.junit.Test;
 
@@ -29,5 +31,45 @@ public class PackageBlockTest {
         Assert.assertTrue(PackageBlock.isPackageId(0x11));
         Assert.assertTrue(PackageBlock.isPackageId(0xff));
     }
+    @Test
+    public void testResourceNameIndex() {
+        TableBlock tableBlock = new TableBlock();
+        PackageBlock packageBlock = tableBlock.newPackage(0x7f, "com.example");
+        Entry first = packageBlock.getOrCreate("", "string", "first");
+        Entry attr = packageBlock.getOrCreate("", "attr", "color");
+        first.setValueAsString("First");
+        packageBlock.getOrCreate("de", "string", "first").setValueAsString("Erste");
+
+        ResourceEntry resourceEntry = packageBlock.getResource("string", "first");
+        Assert.assertNotNull(resourceEntry);
+        Assert.assertEquals(first.getResourceId(), resourceEntry.getResourceId());
+        Assert.assertEquals(attr.getResourceId(), packageBlock.resolveResourceId("attr", "color"));
+        Assert.assertNotNull(packageBlock.getAttrResource("color"));
+        Assert.assertNull(packageBlock.getResource("string", "color"));
+
+        first.reName("renamed");
+        Assert.assertNull(packageBlock.getResource("string", "first"));
+        resourceEntry = packageBlock.getResource("string", "renamed");
+        Assert.assertNotNull(resourceEntry);
+        Assert.assertEquals(first.getResourceId(), resourceEntry.getResourceId());
 
+        attr.getSpecString().set("background");
+        Assert.assertNull(packageBlock.getAttrResource("color"));
+        Assert.assertEquals(attr.getResourceId(), packageBlock.resolveResourceId("attr", "background"));
+
+        Entry second = packageBlock.getOrCreate("", "string", "second");
+        Assert.assertEquals(second.getResourceId(),
+                tableBlock.resolveResourceId("com.example", "string", "second"));
+
+        Entry two = packageBlock.getOrCreate("", "string", "two");
+        two.setValueAsString("Two");
+        Entry twoDe = packageBlock.getOrCreate("de", "string", "two");
+        twoDe.setValueAsString("Zwei");
+        Assert.assertEquals(two.getResourceId(), packageBlock.resolveResourceId("string", "two"));
+        two.setNull(true);
+        Assert.assertEquals(two.getResourceId(), packageBlock.resolveResourceId("string", "two"));
+        twoDe.setNull(true);
+        Assert.assertEquals(0, packageBlock.resolveResourceId("string", "two"));
+        Assert.assertNull(packageBlock.getResource("string", "two"));
+    }
 }
@@ -0,0 +1,115 @@
+package com.reandroid.arsc.chunk;
+
+import com.reandroid.apk.AndroidFrameworks;
+import com.reandroid.apk.ApkModule;
+import com.reandroid.arsc.container.SpecTypePair;
+import com.reandroid.arsc.model.ResourceEntry;
+import com.reandroid.utils.io.IOUtil;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Name lookups of every resource of type_id_offset.apk and the latest android framework,
+ * with and without package name, run with
+ * <code>java -cp ... com.reandroid.arsc.chunk.ResourceNameLookupBenchmark</code>.
+ * Compares walking packages with spec string references (the lookup before name indexes),
+ * walking packages with {@link com.reandroid.arsc.model.ResourceNameIndex} and
+ * {@link com.reandroid.arsc.model.ResourceNameResolver}; all of them must agree.
+ * JMH is not a dependency of this project, so warm up and timing are done by hand.
+ * Not part of unit tests.
+ * */
+public class ResourceNameLookupBenchmark {
+
+    private static final int ROUNDS = 5;
+    private static final int WARM_UP_RUNS = 5;
+
+    public static void main(String[] args) throws IOException {
+        TableBlock framework = AndroidFrameworks.getLatest().getTableBlock();
+        ApkModule apkModule = ApkModule.readApkBytes(IOUtil.readFully(
+                ResourceNameLookupBenchmark.class.getResourceAsStream("/type_id_offset.apk")));
+        apkModule.setLoadDefaultFramework(false);
+        TableBlock tableBlock = apkModule.getTableBlock();
+        tableBlock.addFramework(framework);
+
+        List<String[]> names = new ArrayList<>();
+        addNames(tableBlock, names);
+        addNames(framework, names);
+        Collections.shuffle(names, new Random(1));
+        System.out.println("Names: " + names.size() + ", lookups per run: "
+                + (names.size() * 2 * ROUNDS));
+
+        String[] labels = new String[]{"spec string walk", "name index walk", "name resolver"};
+        long expected = 0;
+        for (int method = 0; method < labels.length; method++) {
+            for (int i = 0; i < WARM_UP_RUNS; i++) {
+                run(tableBlock, names, method);
+            }
+            long start = System.nanoTime();
+            long result = run(tableBlock, names, method);
+            long nanos = System.nanoTime() - start;
+            if (method == 0) {
+                expected = result;
+            } else if (result != expected) {
+                throw new IllegalStateException("Results of " + labels[method] + " differ");
+            }
+            System.out.printf("%-18s %8.1f ms%n", labels[method], nanos / 1000000.0);
+        }
+    }
+    private static long run(TableBlock tableBlock, List<String[]> names, int method) {
+        long result = 0;
+        for (int i = 0; i < ROUNDS; i++) {
+            for (String[] name : names) {
+                result = result * 31 + lookup(tableBlock, name[0], name[1], name[2], method);
+                result = result * 31 + lookup(tableBlock, null, name[1], name[2], method);
+            }
+        }
+        return result;
+    }
+    private static int lookup(TableBlock tableBlock, String packageName, String type,
+                              String name, int method) {
+        if (method == 2) {
+            return resourceId(tableBlock.getResource(packageName, type, name));
+        }
+        Iterator<PackageBlock> iterator = tableBlock.getAllPackages(packageName);
+        while (iterator.hasNext()) {
+            PackageBlock packageBlock = iterator.next();
+            int resourceId;
+            if (method == 1) {
+                resourceId = resourceId(packageBlock.getResource(type, name));
+            } else {
+                SpecTypePair specTypePair = packageBlock.getSpecTypePair(type);
+                if (specTypePair == null) {
+                    continue;
+                }
+                resourceId = packageBlock.getSpecStringPool()
+                        .resolveResourceId(specTypePair.getId(), name);
+            }
+            if (resourceId != 0) {
+                return resourceId;
+            }
+        }
+        return 0;
+    }
+    private static int resourceId(ResourceEntry resourceEntry) {
+        if (resourceEntry != null) {
+            return resourceEntry.getResourceId();
+        }
+        return 0;
+    }
+    private static void addNames(TableBlock tableBlock, List<String[]> names) {
+        Iterator<ResourceEntry> iterator = tableBlock.getResources();
+        while (iterator.hasNext()) {
+            ResourceEntry resourceEntry = iterator.next();
+            String name = resourceEntry.getName();
+            if (name != null) {
+                names.add(new String[]{resourceEntry.getPackageName(),
+                        resourceEntry.getType(), name});
+            }
+        }
+    }
+}
@@ -0,0 +1,70 @@
+package com.reandroid.arsc.chunk;
+
+import com.reandroid.arsc.model.ResourceEntry;
+import com.reandroid.arsc.model.ResourceIdIndex;
+import com.reandroid.arsc.value.Entry;
+import com.reandroid.arsc.value.StagedAliasEntry;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class TableBlockResourceIdIndexTest {
+
+    @Test
+    public void testIndexInvalidation() {
+        TableBlock tableBlock = new TableBlock();
+        PackageBlock packageBlock = tableBlock.newPackage(0x7f, "com.example");
+        Entry first = packageBlock.getOrCreate("", "string", "first");
+        int firstId = first.getResourceId();
+
+        ResourceIdIndex index = tableBlock.getResourceIdIndex();
+        ResourceEntry resourceEntry = tableBlock.getResource(firstId);
+        Assert.assertNotNull(resourceEntry);
+        Assert.assertEquals(firstId, resourceEntry.getResourceId());
+        Assert.assertTrue(index.isBuilt());
+
+        Entry second = packageBlock.getOrCreate("", "string", "second");
+        Assert.assertFalse("Not invalidated on entry add", index.isBuilt());
+        Assert.assertNotNull(tableBlock.getResource(second.getResourceId()));
+
+        Entry color = packageBlock.getOrCreate("", "color", "red");
+        Assert.assertFalse("Not invalidated on spec add", index.isBuilt());
+        Assert.assertNotNull(tableBlock.getResource(color.getResourceId()));
+
+        packageBlock.setId(0x7e);
+        Assert.assertNull(tableBlock.getResource(firstId));
+        Assert.assertNotNull(tableBlock.getResource((firstId & 0x00ffffff) | 0x7e000000));
+
+        tableBlock.removePackage(packageBlock);
+        Assert.assertNull(tableBlock.getResource((firstId & 0x00ffffff) | 0x7e000000));
+    }
+    @Test
+    public void testFrameworkAndStagedAlias() {
+        TableBlock framework = new TableBlock();
+        PackageBlock android = framework.newPackage(0x01, "android");
+        Entry attr = android.getOrCreate("", "attr", "finalized");
+        int finalizedId = attr.getResourceId();
+
+        TableBlock tableBlock = new TableBlock();
+        tableBlock.newPackage(0x7f, "com.example")
+                .getOrCreate("", "string", "app_name");
+        tableBlock.addFramework(framework);
+
+        ResourceEntry resourceEntry = tableBlock.getResource(finalizedId);
+        Assert.assertNotNull(resourceEntry);
+        Assert.assertSame(android, resourceEntry.getPackageBlock());
+
+        int stagedId = 0x01ff0000;
+        Assert.assertNull(tableBlock.getResource(stagedId));
+
+        StagedAlias stagedAlias = new StagedAlias();
+        android.getStagedAliasList().add(stagedAlias);
+        StagedAliasEntry aliasEntry = stagedAlias.getStagedAliasEntryArray().createNext();
+        aliasEntry.setStagedResId(stagedId);
+        aliasEntry.setFinalizedResId(finalizedId);
+
+        Assert.assertEquals(finalizedId, tableBlock.resolveStagedAlias(stagedId, 0));
+        resourceEntry = tableBlock.getResource(stagedId);
+        Assert.assertNotNull(resourceEntry);
+        Assert.assertEquals(finalizedId, resourceEntry.getResourceId());
+    }
+}
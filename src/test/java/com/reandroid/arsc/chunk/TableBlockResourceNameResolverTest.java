@@ -0,0 +1,73 @@
+package com.reandroid.arsc.chunk;
+
+import com.reandroid.arsc.model.ResourceEntry;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class TableBlockResourceNameResolverTest {
+
+    @Test
+    public void testFrameworkOrder() {
+        TableBlock first = new TableBlock();
+        PackageBlock firstLib = first.newPackage(0x02, "com.lib");
+        firstLib.getOrCreate("", "string", "shared");
+        TableBlock second = new TableBlock();
+        PackageBlock secondLib = second.newPackage(0x03, "com.lib");
+        secondLib.getOrCreate("", "string", "shared");
+        secondLib.getOrCreate("", "string", "second_only");
+
+        TableBlock tableBlock = new TableBlock();
+        PackageBlock app = tableBlock.newPackage(0x7f, "com.example");
+        app.getOrCreate("", "string", "app_name");
+        tableBlock.addFramework(first);
+        tableBlock.addFramework(second);
+
+        Assert.assertSame(firstLib, getPackage(tableBlock.getResource("com.lib", "string", "shared")));
+        Assert.assertSame(secondLib, getPackage(tableBlock.getResource("com.lib", "string", "second_only")));
+        Assert.assertSame(firstLib, getPackage(tableBlock.getResource(app, "string", "shared")));
+        // null package name resolves local packages only
+        Assert.assertNull(tableBlock.getResource((String) null, "string", "shared"));
+        Assert.assertSame(app, getPackage(tableBlock.getResource((String) null, "string", "app_name")));
+
+        tableBlock.removeFramework(first);
+        Assert.assertSame(secondLib, getPackage(tableBlock.getResource("com.lib", "string", "shared")));
+        tableBlock.getFrameWorks().add(0, first);
+        Assert.assertSame(firstLib, getPackage(tableBlock.getResource("com.lib", "string", "shared")));
+
+        PackageBlock thirdLib = first.newPackage(0x04, "com.lib");
+        thirdLib.getOrCreate("", "string", "third_only");
+        Assert.assertSame("Framework package add", thirdLib,
+                getPackage(tableBlock.getResource("com.lib", "string", "third_only")));
+    }
+    @Test
+    public void testPackageChanges() {
+        TableBlock tableBlock = new TableBlock();
+        PackageBlock base = tableBlock.newPackage(0x7f, "com.example");
+        base.getOrCreate("", "string", "name");
+        PackageBlock feature = tableBlock.newPackage(0x80, "com.example");
+        feature.getOrCreate("", "string", "name");
+
+        Assert.assertSame(base, getPackage(tableBlock.getResource("com.example", "string", "name")));
+        tableBlock.setCurrentPackage(feature);
+        Assert.assertSame(feature, getPackage(tableBlock.getResource("com.example", "string", "name")));
+        Assert.assertSame(base, getPackage(tableBlock.getResource(base, "com.example", "string", "name")));
+        tableBlock.setCurrentPackage(null);
+
+        feature.setName("com.feature");
+        Assert.assertSame(feature, getPackage(tableBlock.getResource("com.feature", "string", "name")));
+        Assert.assertSame(base, getPackage(tableBlock.getResource("com.example", "string", "name")));
+
+        PackageBlock added = tableBlock.newPackage(0x81, "com.added");
+        added.getOrCreate("", "attr", "added_attr");
+        added.getOrCreate("", "id", "added_id");
+        Assert.assertSame(added, getPackage(tableBlock.getAttrResource("com.added", "added_attr")));
+        Assert.assertSame(added, getPackage(tableBlock.getIdResource(null, "com.added", "added_id")));
+
+        tableBlock.removePackage(base);
+        Assert.assertNull(tableBlock.getResource("com.example", "string", "name"));
+    }
+    private static PackageBlock getPackage(ResourceEntry resourceEntry) {
+        Assert.assertNotNull(resourceEntry);
+        return resourceEntry.getPackageBlock();
+    }
+}
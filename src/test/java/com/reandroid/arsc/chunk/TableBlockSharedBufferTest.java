@@ -0,0 +1,96 @@
+package com.reandroid.arsc.chunk;
+
+import com.reandroid.archive.ArchiveBytes;
+import com.reandroid.archive.InputSource;
+import com.reandroid.arsc.io.BlockReader;
+import com.reandroid.arsc.item.ByteArray;
+import com.reandroid.arsc.item.IntegerItem;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+public class TableBlockSharedBufferTest {
+
+    @Test
+    public void testSharedBufferRead() throws IOException {
+        byte[] bytes = loadTableBytes();
+        byte[] original = bytes.clone();
+
+        BlockReader reader = new BlockReader(bytes);
+        reader.setShareBuffer(true);
+        TableBlock tableBlock = new TableBlock();
+        tableBlock.readBytes(reader);
+
+        PackageBlock packageBlock = tableBlock.pickOne();
+        IntegerItem packageId = packageBlock.getHeaderBlock().getPackageId();
+        Assert.assertFalse("Fixed width item shared", packageId.isSharedBytes());
+        Assert.assertArrayEquals("Shared read differs", original, tableBlock.getBytes());
+
+        packageBlock.setId(0x7e);
+        Assert.assertArrayEquals("Shared buffer modified", original, bytes);
+        Assert.assertEquals(0x7e, packageBlock.getId());
+        byte[] modified = tableBlock.getBytes();
+        Assert.assertEquals(0x7e, readPackageId(modified));
+    }
+    @Test
+    public void testSharedByteArray() throws IOException {
+        byte[] bytes = new byte[4 + 4 + 100];
+        for (int i = 0; i < bytes.length; i++) {
+            bytes[i] = (byte) i;
+        }
+        byte[] original = bytes.clone();
+        BlockReader reader = new BlockReader(bytes);
+        reader.setShareBuffer(true);
+        IntegerItem integerItem = new IntegerItem();
+        ViewByteArray small = new ViewByteArray(4);
+        ViewByteArray large = new ViewByteArray(100);
+        integerItem.readBytes(reader);
+        small.readBytes(reader);
+        large.readBytes(reader);
+
+        Assert.assertFalse(integerItem.isSharedBytes());
+        Assert.assertFalse(small.isSharedBytes());
+        Assert.assertTrue(large.isSharedBytes());
+        // no own array, the payload is read from the reader buffer
+        Assert.assertSame(bytes, large.view());
+        Assert.assertEquals(8, large.viewOffset());
+        Assert.assertEquals(9, large.get(1));
+        Assert.assertEquals(0x0b0a0908, large.getInteger(0));
+
+        large.put(1, (byte) 0x7f);
+        Assert.assertFalse("Not copied on write", large.isSharedBytes());
+        Assert.assertNotSame(bytes, large.view());
+        Assert.assertEquals(0x7f, large.get(1));
+        Assert.assertArrayEquals("Shared buffer modified", original, bytes);
+    }
+    private int readPackageId(byte[] bytes) throws IOException {
+        TableBlock tableBlock = new TableBlock();
+        tableBlock.readBytes(new BlockReader(bytes));
+        return tableBlock.pickOne().getId();
+    }
+    private byte[] loadTableBytes() throws IOException {
+        InputStream inputStream = TableBlockSharedBufferTest.class
+                .getResourceAsStream("/type_id_offset.apk");
+        ArchiveBytes archiveBytes = new ArchiveBytes(inputStream);
+        InputSource inputSource = archiveBytes.getEntrySource(TableBlock.FILE_NAME);
+        Assert.assertNotNull("Missing table", inputSource);
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        inputSource.write(outputStream);
+        return outputStream.toByteArray();
+    }
+
+    static class ViewByteArray extends ByteArray {
+        ViewByteArray(int length) {
+            super(length);
+        }
+        byte[] view() {
+            return getBytesView();
+        }
+        int viewOffset() {
+            return getBytesViewOffset();
+        }
+    }
+}
@@ -1,5 +1,7 @@
 package com.reandroid.arsc.coder;
 
+import com.reandroid.arsc.value.AttributeDataFormat;
+import com.reandroid.arsc.value.ValueType;
 import org.junit.Assert;
 import org.junit.Test;
 
@@ -13,6 +15,50 @@ public class CoderTest {
             Assert.assertEquals(decoded, decoded2);
         }
     }
+    @Test
+    public void testParsers(){
+        String[] numbers = new String[]{"0", "-0", "+7", "12.5", "-.25", "5.", "0.1",
+                "16777217", "0.30000001192092896", "1e3", "1.5f", "-", "."};
+        for(String number : numbers){
+            Float expected;
+            try{
+                expected = Float.parseFloat(number);
+            }catch (NumberFormatException ignored){
+                expected = null;
+            }
+            float parsed = Coder.parseDecimalFloat(number, 0, number.length());
+            if(!Float.isNaN(parsed)){
+                Assert.assertEquals(number, expected, (Float) parsed);
+            }
+        }
+        String[] integers = new String[]{"0", "-1", "+1", "2147483647", "-2147483648",
+                "2147483648", "-2147483649", "-", "1a", ""};
+        for(String integer : integers){
+            long expected;
+            try{
+                expected = Integer.parseInt(integer);
+            }catch (NumberFormatException ignored){
+                expected = Coder.INVALID_NUMBER;
+            }
+            Assert.assertEquals(integer, expected, Coder.parseDecimal(integer));
+        }
+        Assert.assertEquals(0xff112233, ValueCoder.encode("#112233").value);
+        Assert.assertEquals(0xff112233, ValueCoder.encode("#123").value);
+        Assert.assertEquals(0x44112233, ValueCoder.encode("#4123").value);
+        Assert.assertNull(ValueCoder.encode("#12g"));
+    }
+    @Test
+    public void testFormats(){
+        AttributeDataFormat[] formats = AttributeDataFormat.decodeValueTypes(
+                AttributeDataFormat.INTEGER.getMask() | AttributeDataFormat.DIMENSION.getMask());
+        Assert.assertEquals(ValueType.DEC, ValueCoder.encode("12", formats).valueType);
+        Assert.assertEquals(ValueType.HEX, ValueCoder.encode("0x12", formats).valueType);
+        Assert.assertEquals(ValueType.DIMENSION, ValueCoder.encode("12dp", formats).valueType);
+        Assert.assertNull(ValueCoder.encode("12.5", formats));
+        Assert.assertNull(ValueCoder.encode("#fff", formats));
+        Assert.assertEquals(ValueType.FLOAT, ValueCoder.encode("12.5",
+                AttributeDataFormat.DIMENSION, AttributeDataFormat.FLOAT).valueType);
+    }
     private static final String[] DECODED_VALUES = new String[]{
             "10.1dp",
             "-10.1dp",
@@ -0,0 +1,78 @@
+package com.reandroid.arsc.model;
+
+import com.reandroid.arsc.chunk.PackageBlock;
+import com.reandroid.arsc.chunk.TableBlock;
+import com.reandroid.arsc.value.Entry;
+import com.reandroid.arsc.value.ResConfig;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Map;
+
+public class ResourceResolverTest {
+
+    @Test
+    public void testLocaleAndVersion() {
+        TableBlock tableBlock = new TableBlock();
+        PackageBlock packageBlock = tableBlock.newPackage(0x7f, "com.example");
+        packageBlock.getOrCreate("", "string", "title").setValueAsString("default");
+        packageBlock.getOrCreate("en", "string", "title").setValueAsString("en");
+        packageBlock.getOrCreate("en-rGB", "string", "title").setValueAsString("en-GB");
+        packageBlock.getOrCreate("fr", "string", "title").setValueAsString("fr");
+        packageBlock.getOrCreate("fr-v21", "string", "title").setValueAsString("fr-v21");
+        int id = packageBlock.getOrCreate("", "string", "title").getResourceId();
+
+        Assert.assertEquals("en-GB", valueOf(tableBlock, "en-rGB-v30", id));
+        Assert.assertEquals("en", valueOf(tableBlock, "en-rAU-v30", id));
+        Assert.assertEquals("fr-v21", valueOf(tableBlock, "fr-rFR-v30", id));
+        Assert.assertEquals("fr", valueOf(tableBlock, "fr-v19", id));
+        Assert.assertEquals("default", valueOf(tableBlock, "de-v30", id));
+    }
+    @Test
+    public void testDensityAndReference() {
+        TableBlock tableBlock = new TableBlock();
+        PackageBlock packageBlock = tableBlock.newPackage(0x7f, "com.example");
+        packageBlock.getOrCreate("mdpi", "drawable", "icon").setValueAsString("mdpi");
+        packageBlock.getOrCreate("xhdpi", "drawable", "icon").setValueAsString("xhdpi");
+        packageBlock.getOrCreate("xxxhdpi", "drawable", "icon").setValueAsString("xxxhdpi");
+        packageBlock.getOrCreate("anydpi-v26", "drawable", "icon").setValueAsString("anydpi");
+        int iconId = packageBlock.getOrCreate("mdpi", "drawable", "icon").getResourceId();
+
+        Entry alias = packageBlock.getOrCreate("", "drawable", "alias");
+        alias.setValueAsReference(iconId);
+        packageBlock.getOrCreate("night", "drawable", "alias").setValueAsString("night");
+
+        Assert.assertEquals("xhdpi", valueOf(tableBlock, "xhdpi-v21", iconId));
+        // scaling down preferred
+        Assert.assertEquals("xhdpi", valueOf(tableBlock, "hdpi-v21", iconId));
+        Assert.assertEquals("xxxhdpi", valueOf(tableBlock, "xxhdpi-v21", iconId));
+        Assert.assertEquals("anydpi", valueOf(tableBlock, "xhdpi-v26", iconId));
+
+        ResourceResolver resolver = new ResourceResolver(tableBlock, "xhdpi-v21");
+        Assert.assertSame(alias, resolver.resolve(alias.getResourceId()));
+        Assert.assertEquals("xhdpi", resolver.resolveValue(alias.getResourceId()).getValueAsString());
+        resolver = new ResourceResolver(tableBlock, "night-xhdpi-v21");
+        Assert.assertEquals("night", resolver.resolveValue(alias.getResourceId()).getValueAsString());
+
+        Map<Integer, Entry> resolved = resolver.resolveAll();
+        Assert.assertEquals(2, resolved.size());
+        Assert.assertEquals("xhdpi", resolved.get(iconId).getValueAsString());
+    }
+    @Test
+    public void testNoMatch() {
+        TableBlock tableBlock = new TableBlock();
+        PackageBlock packageBlock = tableBlock.newPackage(0x7f, "com.example");
+        Entry entry = packageBlock.getOrCreate("land", "layout", "main");
+        entry.setValueAsString("land");
+        ResourceResolver resolver = new ResourceResolver(tableBlock, "port");
+        Assert.assertNull(resolver.resolve(entry.getResourceId()));
+        Assert.assertTrue(ResourceResolver.isMatch(ResConfig.parse("land"), ResConfig.parse("land-v21")));
+        Assert.assertFalse(ResourceResolver.isMatch(ResConfig.parse("v23"), ResConfig.parse("v21")));
+    }
+    private static String valueOf(TableBlock tableBlock, String device, int resourceId) {
+        ResourceResolver resolver = new ResourceResolver(tableBlock, device);
+        Entry entry = resolver.resolve(resourceId);
+        Assert.assertNotNull(device, entry);
+        return entry.getValueAsString();
+    }
+}
@@ -0,0 +1,89 @@
+package com.reandroid.arsc.pool;
+
+import com.reandroid.arsc.io.BlockReader;
+import com.reandroid.arsc.item.TableString;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+
+public class StringPoolConcurrencyTest {
+
+    @Test
+    public void concurrentDecodeTest() throws Exception {
+        concurrentDecodeTest(true);
+        concurrentDecodeTest(false);
+    }
+    private void concurrentDecodeTest(boolean utf8) throws Exception {
+        int count = 5000;
+        TableStringPool stringPool = new TableStringPool(utf8);
+        for (int i = 0; i < count; i++) {
+            stringPool.createNewString(createText(i));
+        }
+        stringPool.refresh();
+        String[] expected = new String[count];
+        for (int i = 0; i < count; i++) {
+            expected[i] = stringPool.get(i).get();
+        }
+        byte[] bytes = stringPool.getBytes();
+
+        TableStringPool sharedPool = readPool(bytes, utf8);
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int t = 0; t < 16; t++) {
+            final int offset = t;
+            futures.add(executor.submit(() -> {
+                for (int i = 0; i < count; i++) {
+                    int index = (i + offset * 313) % count;
+                    TableString tableString = sharedPool.get(index);
+                    Assert.assertEquals(expected[index], tableString.decode());
+                }
+                TableStringPool pool = readPool(bytes, utf8);
+                for (int i = 0; i < count; i++) {
+                    Assert.assertEquals(expected[i], pool.get(i).get());
+                }
+                return null;
+            }));
+        }
+        ForkJoinPool forkJoinPool = new ForkJoinPool(4);
+        try {
+            futures.add(executor.submit(() -> {
+                sharedPool.decodeStrings(forkJoinPool);
+                return null;
+            }));
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdown();
+            forkJoinPool.shutdown();
+        }
+
+        sharedPool.decodeStrings();
+        for (int i = 0; i < count; i++) {
+            Assert.assertEquals(expected[i], sharedPool.get(i).get());
+        }
+    }
+    private TableStringPool readPool(byte[] bytes, boolean utf8) throws IOException {
+        TableStringPool stringPool = new TableStringPool(utf8);
+        BlockReader reader = new BlockReader(bytes);
+        stringPool.readBytes(reader);
+        reader.close();
+        return stringPool;
+    }
+    private String createText(int i) {
+        switch (i % 4) {
+            case 0:
+                return "item-" + i;
+            case 1:
+                return "élément-" + i;
+            case 2:
+                return "日本語-" + i + "-абв";
+            default:
+                return "emoji-😀-" + i;
+        }
+    }
+}
@@ -1,15 +1,19 @@
 package com.reandroid.arsc.pool;
 
+import com.reandroid.apk.ApkModule;
 import com.reandroid.arsc.chunk.TableBlock;
+import com.reandroid.arsc.io.BlockReader;
 import com.reandroid.arsc.item.ReferenceItem;
 import com.reandroid.arsc.item.TableString;
 import com.reandroid.utils.HexUtil;
+import com.reandroid.utils.io.IOUtil;
 import com.reandroid.xml.StyleDocument;
 import org.junit.Assert;
 import org.junit.FixMethodOrder;
 import org.junit.Test;
 import org.junit.runners.MethodSorters;
 
+import java.io.IOException;
 import java.util.Iterator;
 import java.util.List;
 
@@ -26,6 +30,71 @@ public class TableStringPoolTest {
         unusedStringsTest();
     }
 
+    @Test
+    public void lazyDecodeTest() throws IOException {
+        lazyDecodeTest(true);
+        lazyDecodeTest(false);
+    }
+    private void lazyDecodeTest(boolean utf8) throws IOException {
+        TableStringPool stringPool = newStringPool();
+        stringPool.setUtf8(utf8);
+        for (int i = 0; i < 100; i++) {
+            TableString tableString = stringPool.getOrCreate("item-" + i);
+            tableString.addReference(StringPoolTestUtil.newFakeReference());
+        }
+        stringPool.refresh();
+        byte[] bytes = stringPool.getBytes();
+
+        TableStringPool lazyPool = new TableStringPool(utf8);
+        lazyPool.setLazyDecode(true);
+        BlockReader reader = new BlockReader(bytes);
+        lazyPool.readBytes(reader);
+        reader.close();
+
+        Assert.assertEquals(stringPool.size(), lazyPool.size());
+        TableString first = lazyPool.get(0);
+        Assert.assertFalse("Decoded on load", first.isDecoded());
+        Assert.assertTrue("Copied on load", first.isSharedBytes());
+        Assert.assertEquals(stringPool.get(0).get(), first.get());
+        Assert.assertTrue("Not decoded on access", first.isDecoded());
+        Assert.assertFalse("Decoded without access", lazyPool.get(1).isDecoded());
+
+        Assert.assertTrue(lazyPool.contains("item-50"));
+        Assert.assertTrue("Lookup map not built", lazyPool.get(1).isDecoded());
+        Assert.assertEquals("item-50", lazyPool.getOrCreate("item-50").get());
+        Assert.assertEquals(stringPool.size(), lazyPool.size());
+
+        Assert.assertArrayEquals(bytes, lazyPool.getBytes());
+    }
+    @Test
+    public void lazyTableLoadTest() throws IOException {
+        byte[] apk = IOUtil.readFully(TableStringPoolTest.class
+                .getResourceAsStream("/type_id_offset.apk"));
+        ApkModule eagerModule = ApkModule.readApkBytes(apk);
+        eagerModule.setLoadDefaultFramework(false);
+        ApkModule lazyModule = ApkModule.readApkBytes(apk);
+        lazyModule.setLoadDefaultFramework(false);
+        lazyModule.setLazyStringDecode(true);
+
+        TableBlock eagerTable = eagerModule.getTableBlock();
+        TableBlock lazyTable = lazyModule.getTableBlock();
+        TableStringPool lazyPool = lazyTable.getStringPool();
+        Assert.assertTrue(lazyPool.isLazyDecode());
+        Assert.assertTrue(lazyTable.pickOne().getSpecStringPool().isLazyDecode());
+        Assert.assertTrue(lazyPool.size() > 0);
+        for (int i = 0; i < lazyPool.size(); i++) {
+            TableString tableString = lazyPool.get(i);
+            Assert.assertFalse("Decoded on load: " + i, tableString.isDecoded());
+            Assert.assertTrue("Copied on load: " + i, tableString.isSharedBytes());
+        }
+        TableStringPool eagerPool = eagerTable.getStringPool();
+        Assert.assertEquals(eagerPool.size(), lazyPool.size());
+        for (int i = 0; i < eagerPool.size(); i++) {
+            Assert.assertEquals(eagerPool.get(i).getXml(), lazyPool.get(i).getXml());
+            Assert.assertTrue(lazyPool.get(i).isSharedBytes());
+        }
+        Assert.assertArrayEquals(eagerTable.getBytes(), lazyTable.getBytes());
+    }
     private void createStringsTest() {
         TableStringPool stringPool = newStringPool();
         Assert.assertNotNull("Null table string", stringPool);
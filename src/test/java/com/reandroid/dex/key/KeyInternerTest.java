@@ -0,0 +1,49 @@
+package com.reandroid.dex.key;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class KeyInternerTest {
+
+    @Test
+    public void testCanonicalKeys() {
+        KeyInterner interner = KeyInterner.enable();
+        try {
+            interner.clear();
+            TypeKey typeKey = TypeKey.create("Lcom/example/Intern;");
+            Assert.assertSame(typeKey, TypeKey.create("Lcom/example/Intern;"));
+            Assert.assertSame(StringKey.create("intern"), StringKey.create("intern"));
+
+            MethodKey methodKey = MethodKey.parse("Lcom/example/Intern;->run(I)V");
+            Assert.assertSame(methodKey, MethodKey.parse("Lcom/example/Intern;->run(I)V"));
+            Assert.assertSame(typeKey, methodKey.getDeclaring());
+            Assert.assertSame(methodKey.getProto(), ProtoKey.parse("(I)V"));
+
+            FieldKey fieldKey = FieldKey.parse("Lcom/example/Intern;->value:I");
+            Assert.assertSame(fieldKey, FieldKey.parse("Lcom/example/Intern;->value:I"));
+            Assert.assertNotSame(fieldKey, FieldKey.parse("Lcom/example/Intern;->other:I"));
+
+            MethodKey renamed = MethodKey.parse("Lcom/example/Intern;->stop(I)V");
+            Assert.assertSame(renamed, methodKey.changeName("stop"));
+            Assert.assertSame(renamed.changeDeclaring(TypeKey.OBJECT),
+                    MethodKey.parse("Ljava/lang/Object;->stop(I)V"));
+            Assert.assertSame(TypeKey.create("[Lcom/example/Intern;"), typeKey.setArrayDimension(1));
+            Assert.assertSame(TypeKey.create("Lcom/example/Intern$Inner;"),
+                    typeKey.createInnerClass("Inner"));
+
+            Assert.assertTrue(interner.getHitCount() > 0);
+            Assert.assertTrue(interner.getHitRate() > 0 && interner.getHitRate() < 1);
+            // few duplicates, the pool costs more than it saves
+            Assert.assertTrue(interner.toString(), interner.getSavedBytes() < 0);
+            for (int i = 0; i < 100; i++) {
+                TypeKey.create("Lcom/example/Intern;");
+            }
+            Assert.assertTrue(interner.toString(), interner.getSavedBytes() > 0);
+            Assert.assertTrue(interner.size() > 0);
+        } finally {
+            KeyInterner.disable();
+        }
+        Assert.assertNotSame(TypeKey.create("Lcom/example/Intern;"),
+                TypeKey.create("Lcom/example/Intern;"));
+    }
+}
@@ -0,0 +1,99 @@
+package com.reandroid.dex.model;
+
+import com.reandroid.dex.key.TypeKey;
+import com.reandroid.utils.collection.CollectionUtil;
+import com.reandroid.utils.collection.ComputeIterator;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+
+public class DexClassHierarchyTest {
+
+    private static final TypeKey TYPE_A = TypeKey.create("Lcom/example/A;");
+    private static final TypeKey TYPE_B = TypeKey.create("Lcom/example/B;");
+    private static final TypeKey TYPE_C = TypeKey.create("Lcom/example/C;");
+    private static final TypeKey TYPE_D = TypeKey.create("Lcom/example/D;");
+    private static final TypeKey TYPE_I = TypeKey.create("Lcom/example/I;");
+
+    @Test
+    public void testInstanceAndSuperTypes() {
+        DexFile dexFile = createDexFile();
+        DexClassHierarchy hierarchy = dexFile.getClassHierarchy();
+        DexClass classA = dexFile.getDexClass(TYPE_A);
+        DexClass classC = dexFile.getDexClass(TYPE_C);
+
+        Assert.assertTrue(classC.isInstance(TYPE_A));
+        Assert.assertTrue(classC.isInstance(TYPE_I));
+        Assert.assertTrue(classC.isInstance(TypeKey.create("Ljava/util/List;")));
+        Assert.assertTrue(classC.isInstance(TypeKey.create("Ljava/lang/Runnable;")));
+        Assert.assertFalse(classA.isInstance(TYPE_I));
+        Assert.assertFalse(classA.isInstance(TYPE_B));
+        Assert.assertFalse(classA.isInstance(TypeKey.create("Ljava/lang/Runnable;")));
+
+        Assert.assertTrue(hierarchy.isSubclass(TYPE_C, TYPE_A));
+        Assert.assertFalse(hierarchy.isSubclass(TYPE_C, TYPE_I));
+        Assert.assertFalse(hierarchy.isSubclass(TYPE_A, TYPE_C));
+
+        Assert.assertEquals(toKeys(TYPE_B, TYPE_A, TYPE_I), keysOf(classC.getSuperTypes()));
+        Assert.assertEquals(toKeys(TYPE_B), keysOf(classA.getExtending()));
+        Assert.assertEquals(toKeys(TYPE_B), keysOf(dexFile.getDexClass(TYPE_I).getImplementations()));
+    }
+    @Test
+    public void testInvalidation() {
+        DexFile dexFile = createDexFile();
+        DexClass classC = dexFile.getDexClass(TYPE_C);
+        Assert.assertFalse(classC.getExtending().hasNext());
+
+        DexClass classD = dexFile.getFirst().getOrCreateClass(TYPE_D);
+        classD.setSuperClass(TYPE_C);
+        Assert.assertEquals(toKeys(TYPE_D), keysOf(classC.getExtending()));
+        Assert.assertTrue(classD.isInstance(TYPE_I));
+
+        classC.setSuperClass(TypeKey.OBJECT);
+        Assert.assertFalse(classD.isInstance(TYPE_A));
+        Assert.assertFalse(classD.isInstance(TYPE_I));
+
+        classD.removeSelf();
+        Assert.assertFalse(classC.getExtending().hasNext());
+        Assert.assertNull(dexFile.getClassHierarchy().get(TYPE_D));
+    }
+
+    @Test
+    public void testRename() {
+        DexDirectory directory = new DexDirectory();
+        DexLayout first = directory.createDefault().getFirst();
+        first.getOrCreateClass(TYPE_A);
+        DexLayout second = directory.createDefault().getFirst();
+        DexClass classB = second.getOrCreateClass(TYPE_B);
+        classB.setSuperClass(TYPE_A);
+        Assert.assertTrue(classB.isInstance(TYPE_A));
+
+        TypeKey typeZ = TypeKey.create("Lcom/example/Z;");
+        Assert.assertTrue(directory.rename(TYPE_A, typeZ) > 0);
+        Assert.assertTrue(classB.isInstance(typeZ));
+        Assert.assertFalse(classB.isInstance(TYPE_A));
+        Assert.assertEquals(toKeys(TYPE_B), keysOf(directory.getDexClass(typeZ).getExtending()));
+        Assert.assertNull(directory.getClassHierarchy().get(TYPE_A));
+    }
+
+    private DexFile createDexFile() {
+        DexFile dexFile = DexFile.createDefault();
+        DexLayout dexLayout = dexFile.getFirst();
+        dexLayout.getOrCreateClass(TYPE_A).setSuperClass(TypeKey.create("Ljava/util/ArrayList;"));
+        dexLayout.getOrCreateClass(TYPE_I).addInterface(TypeKey.create("Ljava/lang/Runnable;"));
+        DexClass classB = dexLayout.getOrCreateClass(TYPE_B);
+        classB.setSuperClass(TYPE_A);
+        classB.addInterface(TYPE_I);
+        dexLayout.getOrCreateClass(TYPE_C).setSuperClass(TYPE_B);
+        return dexFile;
+    }
+    private static List<TypeKey> toKeys(TypeKey ... keys) {
+        return Arrays.asList(keys);
+    }
+    private static List<TypeKey> keysOf(Iterator<DexClass> iterator) {
+        return CollectionUtil.toList(ComputeIterator.of(iterator, DexClass::getKey));
+    }
+}
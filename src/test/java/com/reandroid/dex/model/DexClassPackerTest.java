@@ -0,0 +1,122 @@
+package com.reandroid.dex.model;
+
+import com.reandroid.dex.key.TypeKey;
+import com.reandroid.dex.sections.SectionType;
+import com.reandroid.dex.smali.SmaliReader;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.List;
+
+public class DexClassPackerTest {
+
+    @Test
+    public void testPackByReferences() throws IOException {
+        DexDirectory directory = new DexDirectory();
+        DexLayout dexLayout = directory.createDefault().getOrCreateFirst();
+        dexLayout.fromSmali(SmaliReader.of(createClass("A", "B")));
+        dexLayout.fromSmali(SmaliReader.of(createClass("C", "D")));
+        dexLayout.fromSmali(SmaliReader.of(createClass("B", "A")));
+        dexLayout.fromSmali(SmaliReader.of(createClass("D", "C")));
+
+        DexClassPacker packer = new DexClassPacker(directory);
+        packer.setMaxClassesPerDex(2);
+        List<DexClassPacker.PackedDex> results = packer.pack();
+
+        Assert.assertEquals(2, results.size());
+        Assert.assertEquals(2, directory.size());
+        DexFile first = directory.get(0);
+        DexFile second = directory.get(1);
+        Assert.assertNotNull(first.getDexClass(typeOf("A")));
+        Assert.assertNotNull(first.getDexClass(typeOf("B")));
+        Assert.assertNotNull(second.getDexClass(typeOf("C")));
+        Assert.assertNotNull(second.getDexClass(typeOf("D")));
+
+        for (DexClassPacker.PackedDex packedDex : results) {
+            Assert.assertEquals(2, packedDex.getClassesCount());
+            DexFile dexFile = directory.get(packedDex.getIndex());
+            Assert.assertEquals(dexFile.getFirst().getSection(SectionType.METHOD_ID).getCount(),
+                    packedDex.getCount(SectionType.METHOD_ID));
+            Assert.assertEquals(dexFile.getFirst().getSection(SectionType.TYPE_ID).getCount(),
+                    packedDex.getCount(SectionType.TYPE_ID));
+        }
+    }
+    @Test
+    public void testReferenceBudget() throws IOException {
+        DexDirectory directory = new DexDirectory();
+        DexLayout dexLayout = directory.createDefault().getOrCreateFirst();
+        dexLayout.fromSmali(SmaliReader.of(createClass("A", "B")));
+        dexLayout.fromSmali(SmaliReader.of(createClass("C", "D")));
+
+        DexClassPacker packer = new DexClassPacker(directory);
+        packer.setMaxReferences(4);
+        List<DexClassPacker.PackedDex> results = packer.plan();
+        Assert.assertEquals(2, results.size());
+        for (DexClassPacker.PackedDex packedDex : results) {
+            Assert.assertTrue(packedDex.getCount(SectionType.METHOD_ID) <= 4);
+            Assert.assertTrue(packedDex.getCount(SectionType.TYPE_ID) <= 4);
+        }
+        Assert.assertEquals(1, directory.size());
+    }
+
+    @Test
+    public void testKeepPlacement() throws IOException {
+        DexDirectory directory = new DexDirectory();
+        DexLayout first = directory.createDefault().getOrCreateFirst();
+        first.fromSmali(SmaliReader.of(createClass("A", "B")));
+        first.fromSmali(SmaliReader.of(createClass("C", "D")));
+        DexLayout second = directory.createDefault().getOrCreateFirst();
+        second.fromSmali(SmaliReader.of(createClass("B", "A")));
+        second.fromSmali(SmaliReader.of(createClass("D", "C")));
+
+        DexClassPacker packer = new DexClassPacker(directory);
+        packer.setMaxClassesPerDex(2);
+        List<DexClassPacker.PackedDex> results = packer.pack();
+
+        Assert.assertEquals(2, results.size());
+        for (DexClassPacker.PackedDex packedDex : results) {
+            Assert.assertEquals(2, packedDex.getClassesCount());
+            Assert.assertEquals(0, packedDex.getMovedClassesCount());
+        }
+        Assert.assertNotNull(directory.get(0).getDexClass(typeOf("A")));
+        Assert.assertNotNull(directory.get(0).getDexClass(typeOf("C")));
+        Assert.assertNotNull(directory.get(1).getDexClass(typeOf("B")));
+        Assert.assertNotNull(directory.get(1).getDexClass(typeOf("D")));
+    }
+    @Test
+    public void testMoveOverflowOnly() throws IOException {
+        DexDirectory directory = new DexDirectory();
+        DexLayout first = directory.createDefault().getOrCreateFirst();
+        first.fromSmali(SmaliReader.of(createClass("A", "B")));
+        first.fromSmali(SmaliReader.of(createClass("B", "A")));
+        first.fromSmali(SmaliReader.of(createClass("C", "D")));
+        DexLayout second = directory.createDefault().getOrCreateFirst();
+        second.fromSmali(SmaliReader.of(createClass("D", "C")));
+
+        DexClassPacker packer = new DexClassPacker(directory);
+        packer.setMaxClassesPerDex(2);
+        List<DexClassPacker.PackedDex> results = packer.pack();
+
+        Assert.assertEquals(2, results.size());
+        Assert.assertEquals(0, results.get(0).getMovedClassesCount());
+        Assert.assertEquals(1, results.get(1).getMovedClassesCount());
+        Assert.assertNotNull(directory.get(0).getDexClass(typeOf("A")));
+        Assert.assertNotNull(directory.get(0).getDexClass(typeOf("B")));
+        Assert.assertNotNull(directory.get(1).getDexClass(typeOf("C")));
+        Assert.assertNotNull(directory.get(1).getDexClass(typeOf("D")));
+    }
+
+    private static TypeKey typeOf(String name) {
+        return TypeKey.create("Lcom/example/" + name + ";");
+    }
+    private static String createClass(String name, String target) {
+        return ".class public Lcom/example/" + name + ";\n" +
+                ".super Ljava/lang/Object;\n" +
+                ".method public static run" + name + "()V\n" +
+                "    .registers 0\n" +
+                "    invoke-static {}, Lcom/example/" + target + ";->run" + target + "()V\n" +
+                "    return-void\n" +
+                ".end method\n";
+    }
+}
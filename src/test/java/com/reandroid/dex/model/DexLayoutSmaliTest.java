@@ -0,0 +1,96 @@
+package com.reandroid.dex.model;
+
+import com.reandroid.TestUtils;
+import com.reandroid.dex.key.TypeKey;
+import com.reandroid.dex.smali.SmaliWriter;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+public class DexLayoutSmaliTest {
+
+    @Test
+    public void testParallelSmaliDirectory() throws IOException {
+        File dir = new File(TestUtils.getTempDir(), "smali_parallel");
+        writeSampleSmali(dir, 64);
+
+        DexFile sequential = DexFile.createDefault();
+        sequential.parseSmaliDirectory(dir);
+        sequential.refreshFull();
+
+        DexFile parallel = DexFile.createDefault();
+        parallel.parseSmaliDirectory(dir, 4);
+        parallel.refreshFull();
+
+        Assert.assertNotNull(parallel.getFirst().getDexClass(
+                TypeKey.create("Lcom/example/Class63;")));
+        Assert.assertArrayEquals("Parallel smali parse differs",
+                sequential.getBytes(), parallel.getBytes());
+    }
+    @Test
+    public void testParallelWriteSmali() throws IOException {
+        File dir = new File(TestUtils.getTempDir(), "smali_parallel_source");
+        writeSampleSmali(dir, 64);
+        DexFile dexFile = DexFile.createDefault();
+        dexFile.parseSmaliDirectory(dir);
+        dexFile.refreshFull();
+
+        File sequentialDir = new File(TestUtils.getTempDir(), "smali_write_sequential");
+        dexFile.writeSmali(new SmaliWriter(), sequentialDir);
+
+        File parallelDir = new File(TestUtils.getTempDir(), "smali_write_parallel");
+        int[] progress = new int[1];
+        dexFile.writeSmali(new SmaliWriter(), parallelDir, 4,
+                (typeKey, file, lines, count) -> {
+                    Assert.assertTrue(file.isFile());
+                    Assert.assertTrue(lines > 1);
+                    progress[0] = count;
+                });
+        Assert.assertEquals(64, progress[0]);
+
+        String name = dexFile.buildSmaliDirectoryName();
+        for (int i = 0; i < 64; i++) {
+            String path = name + "/com/example/Class" + i + ".smali";
+            Assert.assertArrayEquals("Parallel smali write differs: " + path,
+                    readBytes(new File(sequentialDir, path)),
+                    readBytes(new File(parallelDir, path)));
+        }
+    }
+    private byte[] readBytes(File file) throws IOException {
+        Assert.assertTrue("Missing file: " + file, file.isFile());
+        return Files.readAllBytes(file.toPath());
+    }
+    private void writeSampleSmali(File dir, int count) throws IOException {
+        for (int i = 0; i < count; i++) {
+            String name = "com/example/Class" + i;
+            File file = new File(dir, name + ".smali");
+            File parent = file.getParentFile();
+            Assert.assertTrue(parent.isDirectory() || parent.mkdirs());
+            String superClass = i == 0 ? "java/lang/Object" : "com/example/Class" + (i - 1);
+            String smali = ".class public L" + name + ";\n" +
+                    ".super L" + superClass + ";\n" +
+                    "\n" +
+                    ".field public static final NAME:Ljava/lang/String; = \"name_" + i + "\"\n" +
+                    "\n" +
+                    ".method public constructor <init>()V\n" +
+                    "    .registers 1\n" +
+                    "    invoke-direct {p0}, L" + superClass + ";-><init>()V\n" +
+                    "    return-void\n" +
+                    ".end method\n" +
+                    "\n" +
+                    ".method public value" + i + "()I\n" +
+                    "    .registers 2\n" +
+                    "    const/16 v0, " + (i + 10) + "\n" +
+                    "    return v0\n" +
+                    ".end method\n";
+            FileOutputStream outputStream = new FileOutputStream(file);
+            outputStream.write(smali.getBytes(StandardCharsets.UTF_8));
+            outputStream.close();
+        }
+    }
+}
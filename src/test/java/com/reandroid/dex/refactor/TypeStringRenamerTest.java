@@ -0,0 +1,58 @@
+package com.reandroid.dex.refactor;
+
+import com.reandroid.dex.key.KeyPair;
+import com.reandroid.dex.key.TypeKey;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class TypeStringRenamerTest {
+
+    @Test
+    public void testRenameForms() {
+        List<KeyPair<TypeKey, TypeKey>> pairs = new ArrayList<>();
+        pairs.add(new KeyPair<>(TypeKey.create("La/b;"), TypeKey.create("Lx/y;")));
+        pairs.add(new KeyPair<>(TypeKey.create("La/c;"), TypeKey.create("Lx/z;")));
+        TypeStringRenamer renamer = new TypeStringRenamer(pairs, true, true);
+
+        Assert.assertEquals("Lx/y;", renamer.rename("La/b;"));
+        Assert.assertEquals("Lx/y$Inner;", renamer.rename("La/b$Inner;"));
+        Assert.assertEquals("Lx/y<", renamer.rename("La/b<"));
+        Assert.assertEquals("[Lx/y;", renamer.rename("[La/b;"));
+        Assert.assertEquals("[[Lx/y$1;", renamer.rename("[[La/b$1;"));
+        Assert.assertEquals("[[[Lx/z;", renamer.rename("[[[La/c;"));
+        Assert.assertEquals("x.z", renamer.rename("a.c"));
+        Assert.assertEquals("x.z$Inner", renamer.rename("a.c$Inner"));
+        Assert.assertNull(renamer.rename("La/bc;"));
+        Assert.assertNull(renamer.rename("[[[[La/b;"));
+        Assert.assertNull(renamer.rename("a.b.c"));
+
+        Assert.assertEquals(5, renamer.getHitCount(0));
+        Assert.assertEquals(3, renamer.getHitCount(1));
+        Assert.assertEquals(8, renamer.getTotalHitCount());
+
+        renamer = new TypeStringRenamer(pairs, false, false);
+        Assert.assertNull(renamer.rename("La/b$Inner;"));
+        Assert.assertNull(renamer.rename("a.c"));
+        Assert.assertEquals("[Lx/z;", renamer.rename("[La/c;"));
+    }
+    @Test
+    public void testPairOrder() {
+        List<KeyPair<TypeKey, TypeKey>> pairs = new ArrayList<>();
+        pairs.add(new KeyPair<>(TypeKey.create("La/b;"), TypeKey.create("Lx/y;")));
+        pairs.add(new KeyPair<>(TypeKey.create("La/b$c;"), TypeKey.create("Lx/inner;")));
+        pairs.add(new KeyPair<>(TypeKey.create("La/d$e;"), TypeKey.create("Lx/first;")));
+        pairs.add(new KeyPair<>(TypeKey.create("La/d;"), TypeKey.create("Lx/outer;")));
+        TypeStringRenamer renamer = new TypeStringRenamer(pairs, true, true);
+
+        // the outer prefix of the first pair wins over exact match of the second
+        Assert.assertEquals("Lx/y$c;", renamer.rename("La/b$c;"));
+        // the exact match of the earlier pair wins over prefix of the later one
+        Assert.assertEquals("Lx/first;", renamer.rename("La/d$e;"));
+        Assert.assertEquals("Lx/outer$f;", renamer.rename("La/d$f;"));
+        Assert.assertEquals(1, renamer.getHitCount(0));
+        Assert.assertEquals(0, renamer.getHitCount(1));
+    }
+}
@@ -0,0 +1,37 @@
+package com.reandroid.dex.sections;
+
+import com.reandroid.dex.header.DexHeader;
+import com.reandroid.dex.model.DexFile;
+import com.reandroid.dex.smali.SmaliReader;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.IOException;
+
+public class DexLayoutBlockTest {
+
+    @Test
+    public void testChecksumAndSignature() throws IOException {
+        DexFile dexFile = DexFile.createDefault();
+        dexFile.getOrCreateFirst().fromSmali(SmaliReader.of(
+                ".class public Lcom/example/Checksum;\n" +
+                ".super Ljava/lang/Object;\n" +
+                ".field public static final NAME:Ljava/lang/String; = \"name\"\n"));
+        dexFile.refreshFull();
+
+        DexHeader header = dexFile.getFirst().getDexLayoutBlock().getHeader();
+        int checksum = header.checksum.getValue();
+        String signature = header.signature.getHex();
+        Assert.assertNotEquals(0, checksum);
+
+        // recompute with the streaming digests, nothing should change
+        header.updateSignature();
+        Assert.assertFalse(header.updateChecksum());
+        Assert.assertEquals(signature, header.signature.getHex());
+        Assert.assertEquals(checksum, header.checksum.getValue());
+
+        byte[] bytes = dexFile.getBytes();
+        Assert.assertFalse(header.updateChecksumAndSignature(bytes));
+        Assert.assertArrayEquals(bytes, dexFile.getBytes());
+    }
+}
@@ -0,0 +1,159 @@
+package com.reandroid.graph;
+
+import com.reandroid.apk.ApkModule;
+import com.reandroid.archive.ByteInputSource;
+import com.reandroid.arsc.chunk.TableBlock;
+import com.reandroid.dex.key.FieldKey;
+import com.reandroid.dex.key.MethodKey;
+import com.reandroid.dex.key.TypeKey;
+import com.reandroid.dex.model.DexClass;
+import com.reandroid.dex.model.DexFile;
+import com.reandroid.dex.smali.SmaliReader;
+import com.reandroid.graph.cleaners.UnreachableCleaner;
+import com.reandroid.graph.cleaners.UnusedAnnotationCleaner;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.IOException;
+
+public class ReachabilityScannerTest {
+
+    private static final TypeKey TYPE_MAIN = TypeKey.create("Lcom/example/Main;");
+    private static final TypeKey TYPE_USED = TypeKey.create("Lcom/example/Used;");
+    private static final TypeKey TYPE_BASE = TypeKey.create("Lcom/example/Base;");
+    private static final TypeKey TYPE_UNUSED = TypeKey.create("Lcom/example/Unused;");
+
+    @Test
+    public void testSingleSweep() throws IOException {
+        DexFile dexFile = createDexFile();
+        ApkModule apkModule = new ApkModule();
+        apkModule.setTableBlock(new TableBlock());
+        apkModule.add(new ByteInputSource("com.example.Main\n".getBytes(),
+                "META-INF/services/com.example.Service"));
+
+        ApkBuildOption buildOption = new ApkBuildOption();
+        buildOption.setMinifyClasses(true);
+        buildOption.setMinifyFields(true);
+        buildOption.setMinifyMethods(true);
+
+        UnreachableCleaner cleaner = new UnreachableCleaner(buildOption, apkModule, dexFile);
+        cleaner.apply();
+
+        Assert.assertNotNull(dexFile.getDexClass(TYPE_MAIN));
+        Assert.assertNotNull(dexFile.getDexClass(TYPE_BASE));
+        Assert.assertNull(dexFile.getDexClass(TYPE_UNUSED));
+
+        DexClass used = dexFile.getDexClass(TYPE_USED);
+        Assert.assertNotNull(used);
+        Assert.assertNotNull(used.getDeclaredMethod(MethodKey.parse("Lcom/example/Used;->call()V")));
+        Assert.assertNotNull(used.getDeclaredMethod(MethodKey.parse("Lcom/example/Used;->chained()V")));
+        Assert.assertNull(used.getDeclaredMethod(MethodKey.parse("Lcom/example/Used;->dead()V")));
+        Assert.assertNull(used.getDeclaredMethod(MethodKey.parse("Lcom/example/Used;->deadChained()V")));
+
+        DexClass main = dexFile.getDexClass(TYPE_MAIN);
+        Assert.assertNotNull(main.getDeclaredField(FieldKey.parse("Lcom/example/Main;->count:I")));
+        Assert.assertNull(main.getDeclaredField(FieldKey.parse("Lcom/example/Main;->dead:I")));
+        Assert.assertEquals(4, cleaner.getCount());
+    }
+
+    @Test
+    public void testCleanAnnotationsOnly() throws IOException {
+        TypeKey marker = TypeKey.create("Lcom/example/Marker;");
+        TypeKey referenced = TypeKey.create("Lcom/example/Referenced;");
+        DexFile dexFile = createAnnotatedDexFile();
+        ApkModule apkModule = new ApkModule();
+        apkModule.setTableBlock(new TableBlock());
+
+        ApkBuildOption buildOption = new ApkBuildOption();
+        buildOption.setMinifyClasses(false);
+        buildOption.setMinifyFields(false);
+        buildOption.setMinifyMethods(false);
+        buildOption.setCleanAnnotations(true);
+
+        UnreachableCleaner cleaner = new UnreachableCleaner(buildOption, apkModule, dexFile);
+        cleaner.apply();
+
+        UnusedAnnotationCleaner annotationCleaner = new UnusedAnnotationCleaner(buildOption,
+                apkModule, createAnnotatedDexFile());
+        annotationCleaner.apply();
+        Assert.assertEquals(1, annotationCleaner.getCount());
+        Assert.assertEquals(annotationCleaner.getCount(), cleaner.getCount());
+        Assert.assertNotNull(dexFile.getDexClass(marker));
+        Assert.assertNotNull(dexFile.getDexClass(referenced));
+        String smali = dexFile.getDexClass(TypeKey.create("Lcom/example/Annotated;")).toSmaliString();
+        Assert.assertFalse(smali, smali.contains(".annotation runtime " + marker.getTypeName()));
+        Assert.assertTrue(smali, smali.contains(".annotation runtime " + referenced.getTypeName()));
+    }
+
+    private DexFile createAnnotatedDexFile() throws IOException {
+        DexFile dexFile = createDexFile();
+        dexFile.getOrCreateFirst().fromSmali(SmaliReader.of(
+                ".class public interface abstract annotation Lcom/example/Marker;\n" +
+                ".super Ljava/lang/Object;\n" +
+                ".implements Ljava/lang/annotation/Annotation;\n"));
+        dexFile.getOrCreateFirst().fromSmali(SmaliReader.of(
+                ".class public interface abstract annotation Lcom/example/Referenced;\n" +
+                ".super Ljava/lang/Object;\n" +
+                ".implements Ljava/lang/annotation/Annotation;\n"));
+        dexFile.getOrCreateFirst().fromSmali(SmaliReader.of(
+                ".class public Lcom/example/Annotated;\n" +
+                ".super Ljava/lang/Object;\n" +
+                ".annotation runtime Lcom/example/Marker;\n" +
+                ".end annotation\n" +
+                ".annotation runtime Lcom/example/Referenced;\n" +
+                ".end annotation\n" +
+                ".method public static type()Ljava/lang/Class;\n" +
+                "    .registers 1\n" +
+                "    const-class v0, Lcom/example/Referenced;\n" +
+                "    return-object v0\n" +
+                ".end method\n"));
+        return dexFile;
+    }
+    private DexFile createDexFile() throws IOException {
+        DexFile dexFile = DexFile.createDefault();
+        dexFile.getOrCreateFirst().fromSmali(SmaliReader.of(
+                ".class public Lcom/example/Main;\n" +
+                ".super Lcom/example/Base;\n" +
+                ".field private count:I\n" +
+                ".field private dead:I\n" +
+                ".method public run()V\n" +
+                "    .registers 2\n" +
+                "    iget v0, p0, Lcom/example/Main;->count:I\n" +
+                "    invoke-static {}, Lcom/example/Used;->call()V\n" +
+                "    return-void\n" +
+                ".end method\n"));
+        dexFile.getOrCreateFirst().fromSmali(SmaliReader.of(
+                ".class public Lcom/example/Base;\n" +
+                ".super Ljava/lang/Object;\n"));
+        dexFile.getOrCreateFirst().fromSmali(SmaliReader.of(
+                ".class public Lcom/example/Used;\n" +
+                ".super Ljava/lang/Object;\n" +
+                ".method public static call()V\n" +
+                "    .registers 0\n" +
+                "    invoke-static {}, Lcom/example/Used;->chained()V\n" +
+                "    return-void\n" +
+                ".end method\n" +
+                ".method private static chained()V\n" +
+                "    .registers 0\n" +
+                "    return-void\n" +
+                ".end method\n" +
+                ".method private static dead()V\n" +
+                "    .registers 0\n" +
+                "    invoke-static {}, Lcom/example/Used;->deadChained()V\n" +
+                "    invoke-static {}, Lcom/example/Unused;->call()V\n" +
+                "    return-void\n" +
+                ".end method\n" +
+                ".method private static deadChained()V\n" +
+                "    .registers 0\n" +
+                "    return-void\n" +
+                ".end method\n"));
+        dexFile.getOrCreateFirst().fromSmali(SmaliReader.of(
+                ".class public Lcom/example/Unused;\n" +
+                ".super Ljava/lang/Object;\n" +
+                ".method public static call()V\n" +
+                "    .registers 0\n" +
+                "    return-void\n" +
+                ".end method\n"));
+        return dexFile;
+    }
+}
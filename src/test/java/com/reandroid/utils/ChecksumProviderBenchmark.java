@@ -0,0 +1,79 @@
+package com.reandroid.utils;
+
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Throughput of crc32, adler32 and sha1 for each {@link ChecksumProvider} over several buffer
+ * sizes, run with <code>java -cp ... com.reandroid.utils.ChecksumProviderBenchmark</code>.
+ * Every provider runs over the same bytes and rounds and the accumulated results must agree.
+ * JMH is not a dependency of this project, so warm up and timing are done by hand.
+ * Not part of unit tests.
+ * */
+public class ChecksumProviderBenchmark {
+
+    private static final long BYTES_PER_RUN = 16L * 1024 * 1024;
+    private static final int WARM_UP_RUNS = 3;
+
+    public static void main(String[] args) {
+        ChecksumProvider[] providers = new ChecksumProvider[]{
+                ChecksumProvider.PURE_JAVA, ChecksumProvider.INTRINSIC};
+        int[] sizes = new int[]{512, 64 * 1024, 1024 * 1024};
+        Random random = new Random(1);
+        for (int size : sizes) {
+            byte[] bytes = new byte[size];
+            random.nextBytes(bytes);
+            int rounds = (int) (BYTES_PER_RUN / size);
+            long[] expected = null;
+            for (ChecksumProvider provider : providers) {
+                long[] results = new long[3];
+                long[] nanos = new long[3];
+                for (int i = 0; i < WARM_UP_RUNS; i++) {
+                    runAll(provider, bytes, rounds, results, nanos);
+                }
+                results = new long[3];
+                nanos = new long[3];
+                runAll(provider, bytes, rounds, results, nanos);
+                if (expected == null) {
+                    expected = results;
+                } else if (!Arrays.equals(expected, results)) {
+                    throw new IllegalStateException("Results of " + provider.getName()
+                            + " differ, size = " + size);
+                }
+                System.out.printf("%-10s %8d crc32 %8.1f adler32 %8.1f sha1 %8.1f MB/s%n",
+                        provider.getName(), size, toMbs(size, rounds, nanos[0]),
+                        toMbs(size, rounds, nanos[1]), toMbs(size, rounds, nanos[2]));
+            }
+        }
+    }
+    private static void runAll(ChecksumProvider provider, byte[] bytes, int rounds,
+                               long[] results, long[] nanos) {
+        int length = bytes.length;
+        long start = System.nanoTime();
+        for (int i = 0; i < rounds; i++) {
+            results[0] += value(provider.newCrc32(), bytes, 0, length);
+        }
+        nanos[0] += System.nanoTime() - start;
+        start = System.nanoTime();
+        for (int i = 0; i < rounds; i++) {
+            results[1] += value(provider.newAdler32(), bytes, 0, length);
+        }
+        nanos[1] += System.nanoTime() - start;
+        start = System.nanoTime();
+        for (int i = 0; i < rounds; i++) {
+            results[2] += digest(provider.newSha1(), bytes, 0, length)[0];
+        }
+        nanos[2] += System.nanoTime() - start;
+    }
+    private static double toMbs(int size, int rounds, long nanos) {
+        return (size * (double) rounds / (1024.0 * 1024.0)) / (nanos / 1e9);
+    }
+    private static long value(Checksum checksum, byte[] bytes, int offset, int length) {
+        checksum.update(bytes, offset, length);
+        return checksum.getValue();
+    }
+    private static byte[] digest(ByteDigest digest, byte[] bytes, int offset, int length) {
+        digest.update(bytes, offset, length);
+        return digest.digest();
+    }
+}
@@ -0,0 +1,63 @@
+package com.reandroid.utils;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Random;
+
+public class ChecksumProviderTest {
+
+    @Test
+    public void testProvidersAgree() {
+        ChecksumProvider pure = ChecksumProvider.PURE_JAVA;
+        ChecksumProvider intrinsic = ChecksumProvider.INTRINSIC;
+        Random random = new Random(7);
+        int[] sizes = new int[]{0, 1, 63, 64, 65, 1000, 70000};
+        for (int size : sizes) {
+            byte[] bytes = new byte[size];
+            random.nextBytes(bytes);
+            int offset = size / 3;
+            int length = size - offset;
+
+            Assert.assertEquals("crc32 size=" + size,
+                    value(pure.newCrc32(), bytes, offset, length),
+                    value(intrinsic.newCrc32(), bytes, offset, length));
+            Assert.assertEquals("adler32 size=" + size,
+                    value(pure.newAdler32(), bytes, offset, length),
+                    value(intrinsic.newAdler32(), bytes, offset, length));
+            Assert.assertArrayEquals("sha1 size=" + size,
+                    digest(pure.newSha1(), bytes, offset, length),
+                    digest(intrinsic.newSha1(), bytes, offset, length));
+        }
+    }
+    @Test
+    public void testResetAndSingleByte() {
+        ChecksumProvider[] providers = new ChecksumProvider[]{
+                ChecksumProvider.PURE_JAVA, ChecksumProvider.INTRINSIC};
+        byte[] bytes = "checksum".getBytes();
+        for (ChecksumProvider provider : providers) {
+            Checksum checksum = provider.newCrc32();
+            checksum.update(new byte[]{1, 2, 3});
+            checksum.reset();
+            for (byte b : bytes) {
+                checksum.update(b);
+            }
+            Assert.assertEquals(provider.getName(), Crc32.of(bytes), checksum.getValue());
+
+            ByteDigest digest = provider.newSha1();
+            digest.update(bytes);
+            byte[] first = digest.digest();
+            digest.reset();
+            digest.update(bytes);
+            Assert.assertArrayEquals(provider.getName(), first, digest.digest());
+        }
+    }
+    private static long value(Checksum checksum, byte[] bytes, int offset, int length) {
+        checksum.update(bytes, offset, length);
+        return checksum.getValue();
+    }
+    private static byte[] digest(ByteDigest digest, byte[] bytes, int offset, int length) {
+        digest.update(bytes, offset, length);
+        return digest.digest();
+    }
+}